@@ -0,0 +1,172 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
+import com.deepreach.common.core.mapper.SysUserMapper;
+import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.AgentAncestorIndex;
+import com.deepreach.common.core.support.impl.LocalChangeBroadcaster;
+import com.deepreach.common.security.UserRoleUtils;
+import com.deepreach.common.security.enums.UserIdentity;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 充值分佣时解析代理上级链的耗时
+ *
+ * 层级由若干条长度为 depth 的单链组成，每隔两级有一个代理，买家取链尾用户。
+ * legacy 为改造前的做法：每一级 findParentId 都从 Redis 读取并反序列化整棵层级树（此处省略网络往返，
+ * 只保留同样配置的 Jackson 反序列化），再查询祖先角色；indexed 读取预先计算好的代理上级链。
+ * 角色查询使用内存桩，两种做法都不含数据库耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AgentAncestorIndexBenchmark {
+
+    private static final int MAX_WALK_STEPS = 20;
+    private static final int MAX_ANCESTORS = 6;
+    private static final int MAX_AGENTS = 3;
+
+    @Param({"1000", "10000"})
+    public int users;
+
+    @Param({"5", "20"})
+    public int depth;
+
+    private AgentAncestorIndex index;
+    private SysUserMapper userMapper;
+    private ObjectMapper redisObjectMapper;
+    private byte[] redisTreePayload;
+    private long[] buyers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<UserHierarchyNodeDTO> relations = HierarchyFixtures.chains(users, depth);
+        UserHierarchyService hierarchyService = HierarchyFixtures.service(relations);
+        userMapper = roleMapper();
+
+        redisObjectMapper = new ObjectMapper();
+        redisObjectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
+        redisObjectMapper.activateDefaultTyping(LaissezFaireSubTypeValidator.instance, ObjectMapper.DefaultTyping.NON_FINAL);
+        redisTreePayload = redisObjectMapper.writeValueAsBytes(UserHierarchyTreeBuilder.build(relations));
+
+        index = new AgentAncestorIndex(userMapper, hierarchyService, new LocalChangeBroadcaster());
+        index.init();
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(1);
+        while (!index.isCurrent()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("代理上级链索引未能在一分钟内构建完成");
+            }
+            Thread.sleep(10);
+        }
+
+        int chainCount = users / depth;
+        buyers = new long[chainCount];
+        for (int i = 0; i < chainCount; i++) {
+            buyers[i] = (long) (i + 1) * depth;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        index.stop();
+    }
+
+    @Benchmark
+    public List<AgentAncestorIndex.AgentAncestor> indexed() {
+        return index.getAgentChain(nextBuyer());
+    }
+
+    @Benchmark
+    public List<long[]> legacy() throws Exception {
+        Long buyer = nextBuyer();
+        List<Long> ancestorIds = new ArrayList<>(MAX_ANCESTORS);
+        Long current = legacyFindParentId(buyer);
+        int steps = 0;
+        while (current != null && current > 0 && steps++ < MAX_WALK_STEPS && ancestorIds.size() < MAX_ANCESTORS) {
+            ancestorIds.add(current);
+            current = legacyFindParentId(current);
+        }
+        Map<Long, Set<String>> roleKeys = new HashMap<>();
+        for (Map<String, Object> row : userMapper.selectUserRoleMappings(new HashSet<>(ancestorIds))) {
+            roleKeys.computeIfAbsent((Long) row.get("userId"), id -> new HashSet<>()).add((String) row.get("roleKey"));
+        }
+        List<long[]> chain = new ArrayList<>(MAX_AGENTS);
+        for (Long ancestorId : ancestorIds) {
+            Integer level = UserRoleUtils.resolveAgentLevel(roleKeys.getOrDefault(ancestorId, Collections.emptySet()));
+            if (level != null && chain.size() < MAX_AGENTS) {
+                chain.add(new long[] {ancestorId, chain.size() + 1, level});
+            }
+        }
+        return chain;
+    }
+
+    private Long legacyFindParentId(Long userId) throws Exception {
+        UserHierarchyTreeDTO tree = redisObjectMapper.readValue(redisTreePayload, UserHierarchyTreeDTO.class);
+        return tree.getParentMapping().get(userId);
+    }
+
+    private Long nextBuyer() {
+        return buyers[ThreadLocalRandom.current().nextInt(buyers.length)];
+    }
+
+    /**
+     * 角色查询桩：用户ID能被 3 整除的为代理，级别按 1/2/3 轮换
+     */
+    private static SysUserMapper roleMapper() {
+        return (SysUserMapper) Proxy.newProxyInstance(SysUserMapper.class.getClassLoader(),
+            new Class<?>[] {SysUserMapper.class}, (proxy, method, args) -> {
+                if (!"selectUserRoleMappings".equals(method.getName())) {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                List<Map<String, Object>> rows = new ArrayList<>();
+                @SuppressWarnings("unchecked")
+                Set<Long> userIds = (Set<Long>) args[0];
+                for (Long userId : userIds) {
+                    if (userId % 3 != 0) {
+                        continue;
+                    }
+                    UserIdentity identity = switch ((int) (userId / 3 % 3)) {
+                        case 0 -> UserIdentity.AGENT_LEVEL_1;
+                        case 1 -> UserIdentity.AGENT_LEVEL_2;
+                        default -> UserIdentity.AGENT_LEVEL_3;
+                    };
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("userId", userId);
+                    row.put("roleKey", identity.getRoleKey());
+                    rows.add(row);
+                }
+                return rows;
+            });
+    }
+}
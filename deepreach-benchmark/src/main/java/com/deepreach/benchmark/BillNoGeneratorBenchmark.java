@@ -0,0 +1,72 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.core.support.BillNoGenerator;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+/**
+ * 账单编号生成吞吐量
+ *
+ * legacy 为改造前的实现（秒级时间戳 + 6 位随机数，每次创建格式化器），对比单线程与 8 线程并发下的吞吐量。
+ * 节点号使用配置值，不依赖 Redis。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillNoGeneratorBenchmark {
+
+    private BillNoGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new BillNoGenerator(new DefaultListableBeanFactory().getBeanProvider(StringRedisTemplate.class), 1, 60);
+        generator.init();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generatorSingleThread() {
+        return generator.nextBillNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generatorEightThreads() {
+        return generator.nextBillNo();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String legacySingleThread() {
+        return legacyBillNo();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacyEightThreads() {
+        return legacyBillNo();
+    }
+
+    private static String legacyBillNo() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String randomNum = String.valueOf((int) ((Math.random() * 9 + 1) * 100000));
+        return "DR" + timestamp + randomNum;
+    }
+}
@@ -0,0 +1,159 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.core.domain.entity.DrBillingRecord;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.ibatis.binding.MapperMethod;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 账单记录写入耗时：逐条 INSERT 与按 500 行切分的多行 INSERT（DrBillingRecordServiceImpl.batchCreateRecords）
+ *
+ * 使用 DrBillingRecordMapper.xml 中的 insert / insertBatch 语句，每次调用在一个事务内写入 rows 条记录。
+ * 默认连接本进程启动的 H2 TCP 服务（MySQL 兼容模式），包含网络往返；
+ * 通过 -Dbench.jdbc.url / bench.jdbc.user / bench.jdbc.password 可改为连接已建好 dr_billing_record 表的 MySQL（需自行加入驱动）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BillingRecordInsertBenchmark {
+
+    private static final String NAMESPACE = "com.deepreach.web.mapper.DrBillingRecordMapper.";
+    private static final int BATCH_MAX_ROWS = 500;
+
+    private static final String H2_DDL = "create table if not exists dr_billing_record ("
+        + "bill_id bigint auto_increment primary key, bill_no varchar(32) not null unique, user_id bigint,"
+        + " operator_id bigint, bill_type int, billing_type int, business_type varchar(64), business_id bigint,"
+        + " dr_amount decimal(18, 2), balance_before decimal(18, 2), balance_after decimal(18, 2),"
+        + " description varchar(500), remark varchar(500), extra_data varchar(2000), consumer varchar(100),"
+        + " status int, create_by varchar(64), create_time datetime)";
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private Server server;
+    private SqlSessionFactory sessionFactory;
+    private List<DrBillingRecord> records;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("bench.jdbc.url");
+        String user = System.getProperty("bench.jdbc.user", "sa");
+        String password = System.getProperty("bench.jdbc.password", "");
+        boolean embedded = url == null;
+        if (embedded) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:billing;MODE=MySQL;DB_CLOSE_DELAY=-1";
+        }
+        PooledDataSource dataSource = new PooledDataSource(
+            embedded ? "org.h2.Driver" : "com.mysql.cj.jdbc.Driver", url, user, password);
+        Configuration configuration = new Configuration(
+            new Environment("benchmark", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        String resource = "mapper/DrBillingRecordMapper.xml";
+        try (InputStream input = Resources.getResourceAsStream(resource)) {
+            new XMLMapperBuilder(input, configuration, resource, configuration.getSqlFragments()).parse();
+        }
+        sessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        if (embedded) {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute(H2_DDL);
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareRecords() throws Exception {
+        try (SqlSession session = sessionFactory.openSession(true);
+             Statement statement = session.getConnection().createStatement()) {
+            statement.execute("delete from dr_billing_record");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            DrBillingRecord record = new DrBillingRecord();
+            record.setBillNo("BM" + (sequence++));
+            record.setUserId(1000L + (i % 500));
+            record.setOperatorId(1L);
+            record.setBillType(2);
+            record.setBillingType(1);
+            record.setBusinessType("TOKEN");
+            record.setDrAmount(new BigDecimal("1.25"));
+            record.setBalanceBefore(new BigDecimal("100.00"));
+            record.setBalanceAfter(new BigDecimal("98.75"));
+            record.setDescription("每日消费结算");
+            record.setConsumer("benchmark");
+            record.setStatus(1);
+            record.setCreateBy("system");
+            record.setCreateTime(now);
+            records.add(record);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    public int rowByRow() {
+        int inserted = 0;
+        try (SqlSession session = sessionFactory.openSession(false)) {
+            for (DrBillingRecord record : records) {
+                inserted += session.insert(NAMESPACE + "insert", record);
+            }
+            session.commit();
+        }
+        return inserted;
+    }
+
+    @Benchmark
+    public int multiRow() {
+        int inserted = 0;
+        try (SqlSession session = sessionFactory.openSession(false)) {
+            for (int from = 0; from < records.size(); from += BATCH_MAX_ROWS) {
+                MapperMethod.ParamMap<Object> param = new MapperMethod.ParamMap<>();
+                List<DrBillingRecord> chunk = records.subList(from, Math.min(from + BATCH_MAX_ROWS, records.size()));
+                param.put("records", chunk);
+                param.put("param1", chunk);
+                inserted += session.insert(NAMESPACE + "insertBatch", param);
+            }
+            session.commit();
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,147 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
+import com.deepreach.common.core.support.CompactUserHierarchy;
+import com.deepreach.common.core.support.UserHierarchySnapshot;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * 紧凑层级与原层级树的查询耗时，用户规模 1 万 / 10 万 / 100 万
+ *
+ * legacy* 为原 UserHierarchyServiceImpl 的查询逻辑，直接作用于内存中的 UserHierarchyTreeDTO（不含 Redis 读取与反序列化）；
+ * compact* 为 CompactUserHierarchy 的对应查询。子孙查询的目标取子树规模在 50～5000 之间的用户，接近代理的数据权限范围。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class CompactUserHierarchyBenchmark {
+
+    private static final int TARGET_SAMPLES = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int users;
+
+    private UserHierarchyTreeDTO tree;
+    private CompactUserHierarchy compact;
+    private UserHierarchySnapshot snapshot;
+    private byte[] serialized;
+    private long[] subtreeTargets;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<UserHierarchyNodeDTO> relations = HierarchyFixtures.randomForest(users, 31L);
+        tree = UserHierarchyTreeBuilder.build(relations);
+        compact = CompactUserHierarchy.build(tree.getParentMapping());
+        snapshot = UserHierarchySnapshot.of(1L, tree);
+        serialized = compact.toBytes();
+
+        List<Long> targets = new ArrayList<>();
+        for (long userId = 1; userId <= users && targets.size() < TARGET_SAMPLES; userId++) {
+            int count = compact.countDescendants(userId);
+            if (count >= 50 && count <= 5000) {
+                targets.add(userId);
+            }
+        }
+        if (targets.isEmpty()) {
+            targets.add(1L);
+        }
+        subtreeTargets = targets.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Benchmark
+    public Set<Long> legacyDescendants() {
+        long userId = nextTarget();
+        Map<Long, List<Long>> childrenMap = tree.getChildrenMapping();
+        Set<Long> descendants = new LinkedHashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(userId);
+        while (!stack.isEmpty()) {
+            Long current = stack.pop();
+            for (Long child : childrenMap.getOrDefault(current, Collections.emptyList())) {
+                if (child != null && descendants.add(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+        descendants.remove(userId);
+        return descendants;
+    }
+
+    @Benchmark
+    public long[] compactDescendants() {
+        return compact.descendantsOf(nextTarget());
+    }
+
+    @Benchmark
+    public boolean legacyIsAncestor() {
+        Long ancestorId = nextTarget();
+        Long targetId = nextUser();
+        Long parent = tree.getParentMapping().get(targetId);
+        while (parent != null && !Objects.equals(parent, ancestorId)) {
+            parent = tree.getParentMapping().get(parent);
+        }
+        return Objects.equals(parent, ancestorId);
+    }
+
+    @Benchmark
+    public boolean compactIsAncestor() {
+        return compact.isAncestor(nextTarget(), nextUser());
+    }
+
+    /**
+     * 单个用户变更后生成新快照（增量换算）
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public UserHierarchySnapshot applySingleChange() {
+        return snapshot.apply(2L, List.of(UserHierarchySnapshot.Change.upsert((long) users + 1, nextUser())));
+    }
+
+    /**
+     * 从 Redis 读取的字节还原紧凑结构
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public CompactUserHierarchy fromBytes() {
+        return CompactUserHierarchy.fromBytes(java.nio.ByteBuffer.wrap(serialized));
+    }
+
+    private long nextTarget() {
+        return subtreeTargets[ThreadLocalRandom.current().nextInt(subtreeTargets.length)];
+    }
+
+    private long nextUser() {
+        return 1 + ThreadLocalRandom.current().nextInt(users);
+    }
+}
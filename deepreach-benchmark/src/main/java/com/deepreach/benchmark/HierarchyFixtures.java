@@ -0,0 +1,117 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.UserHierarchySnapshot;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 基准测试共用的层级数据
+ */
+final class HierarchyFixtures {
+
+    private HierarchyFixtures() {
+    }
+
+    /**
+     * 随机森林：用户ID从 1 开始连续编号，约 1% 为根节点，其余挂在更早创建的用户下，
+     * 上级偏向最近创建的用户，使深度接近真实的代理-客户层级
+     */
+    static List<UserHierarchyNodeDTO> randomForest(int users, long seed) {
+        Random random = new Random(seed);
+        List<UserHierarchyNodeDTO> relations = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            Long parentId = null;
+            if (userId > 1 && random.nextInt(100) != 0) {
+                long window = Math.min(userId - 1, 64);
+                parentId = userId - 1 - random.nextInt((int) window);
+            }
+            relations.add(relation(userId, parentId));
+        }
+        return relations;
+    }
+
+    /**
+     * 若干条长度为 depth 的单链，每条链的第一个用户为根
+     */
+    static List<UserHierarchyNodeDTO> chains(int users, int depth) {
+        List<UserHierarchyNodeDTO> relations = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            boolean root = (userId - 1) % depth == 0;
+            relations.add(relation(userId, root ? null : userId - 1));
+        }
+        return relations;
+    }
+
+    static UserHierarchyNodeDTO relation(Long userId, Long parentId) {
+        UserHierarchyNodeDTO relation = new UserHierarchyNodeDTO();
+        relation.setUserId(userId);
+        relation.setParentUserId(parentId);
+        return relation;
+    }
+
+    static UserHierarchyService service(List<UserHierarchyNodeDTO> relations) {
+        return new FixedHierarchyService(UserHierarchySnapshot.of(1L, UserHierarchyTreeBuilder.build(relations)));
+    }
+
+    /**
+     * 固定快照的层级服务，不依赖 Redis 与广播
+     */
+    static final class FixedHierarchyService implements UserHierarchyService {
+
+        private final UserHierarchySnapshot snapshot;
+
+        FixedHierarchyService(UserHierarchySnapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Long findParentId(Long userId) {
+            return snapshot.getHierarchy().parentOf(userId);
+        }
+
+        @Override
+        public List<Long> findDirectChildren(Long userId) {
+            return snapshot.getHierarchy().childrenOf(userId);
+        }
+
+        @Override
+        public Set<Long> findDescendantIds(Long userId) {
+            Set<Long> result = new LinkedHashSet<>();
+            for (long descendant : snapshot.getHierarchy().descendantsOf(userId)) {
+                result.add(descendant);
+            }
+            return result;
+        }
+
+        @Override
+        public int countDescendants(Long userId) {
+            return snapshot.getHierarchy().countDescendants(userId);
+        }
+
+        @Override
+        public boolean isAncestor(Long ancestorId, Long targetId) {
+            return snapshot.getHierarchy().isAncestor(ancestorId, targetId);
+        }
+
+        @Override
+        public Set<Long> findRootIds() {
+            return new LinkedHashSet<>(snapshot.getHierarchy().rootIds());
+        }
+
+        @Override
+        public void refreshHierarchy() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public UserHierarchySnapshot currentSnapshot() {
+            return snapshot;
+        }
+    }
+}
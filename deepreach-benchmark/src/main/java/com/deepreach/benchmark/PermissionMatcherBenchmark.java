@@ -0,0 +1,94 @@
+package com.deepreach.benchmark;
+
+import com.deepreach.common.security.PermissionMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * 单次权限校验耗时，用户持有 50 / 200 / 1000 条权限（其中少量为通配权限）
+ *
+ * legacy 为原 PermissionService.hasPermissions 的逐条 PatternMatchUtils.simpleMatch；
+ * compiled 为 PermissionMatcher.implies，匹配器已编译并随 LoginUser 缓存。
+ * 被校验的权限标识取自固定的 100 个注解权限，约一半为该用户未持有的权限（需要走完全部条目）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionMatcherBenchmark {
+
+    private static final int CHECKED_PERMISSIONS = 100;
+
+    @Param({"50", "200", "1000"})
+    public int permissions;
+
+    private List<String> granted;
+    private PermissionMatcher matcher;
+    private String[] checked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(45L);
+        granted = new ArrayList<>(permissions);
+        for (int i = 0; i < permissions - 3; i++) {
+            granted.add("module" + (i % 20) + ":entity" + i + ":" + (random.nextBoolean() ? "list" : "edit"));
+        }
+        granted.add("report:*");
+        granted.add("*:export:list");
+        granted.add("module1:entity*:query");
+        matcher = PermissionMatcher.compile(granted);
+
+        checked = new String[CHECKED_PERMISSIONS];
+        for (int i = 0; i < CHECKED_PERMISSIONS; i++) {
+            checked[i] = i % 2 == 0
+                ? granted.get(random.nextInt(granted.size() - 3))
+                : "module" + (i % 20) + ":missing" + i + ":remove";
+        }
+    }
+
+    @Benchmark
+    public boolean legacy() {
+        return legacyHasPermissions(granted, nextChecked());
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return matcher.implies(nextChecked());
+    }
+
+    /**
+     * 原 PermissionService.hasPermissions
+     */
+    private static boolean legacyHasPermissions(Collection<String> permissions, String permission) {
+        if (permissions == null || permissions.isEmpty()) {
+            return false;
+        }
+        return permissions.stream()
+                .filter(p -> !p.trim().isEmpty())
+                .anyMatch(p -> "*:*:*".equals(p) ||
+                           PatternMatchUtils.simpleMatch(p, permission));
+    }
+
+    private String nextChecked() {
+        return checked[ThreadLocalRandom.current().nextInt(CHECKED_PERMISSIONS)];
+    }
+}
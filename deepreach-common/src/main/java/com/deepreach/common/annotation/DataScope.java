@@ -68,6 +68,17 @@ public @interface DataScope {
      */
     boolean enableUserPermission() default false;
 
+    /**
+     * IN 列表上限
+     *
+     * 可访问用户数不超过该值时生成 user_id IN (...) 条件；
+     * 超过时改用 sys_user_tree_interval 的先序区间条件，避免超长 SQL 与预编译语句缓存失效。
+     * 小于等于0表示始终使用 IN 列表
+     *
+     * @return IN 列表上限
+     */
+    int inListLimit() default 1000;
+
     /**
      * 权限描述
      *
@@ -75,8 +75,15 @@ public class DataScopeAspect {
                 return;
             }
 
-            Set<Long> accessibleUserIds = dataScopeCalculator.calculateAccessibleUserIds(loginUser);
-            String sqlCondition = buildUserScopeSql(dataScope, accessibleUserIds);
+            String sqlCondition;
+            int limit = dataScope.inListLimit();
+            if (limit > 0 && dataScopeCalculator.countAccessibleUsers(loginUser) > limit
+                    && dataScopeCalculator.isIntervalScopeAvailable()) {
+                sqlCondition = buildIntervalScopeSql(dataScope, loginUser.getUserId());
+            } else {
+                Set<Long> accessibleUserIds = dataScopeCalculator.calculateAccessibleUserIds(loginUser);
+                sqlCondition = buildUserScopeSql(dataScope, accessibleUserIds);
+            }
 
             context.put(DATA_SCOPE_SQL, sqlCondition);
             setDataScopeToParams(joinPoint, sqlCondition);
@@ -94,10 +101,7 @@ public class DataScopeAspect {
         if (userIds == null || userIds.isEmpty()) {
             return "1=0";
         }
-        String alias = dataScope.tableAlias();
-        String fieldName = (alias == null || alias.isBlank())
-            ? dataScope.userFieldName()
-            : alias + "." + dataScope.userFieldName();
+        String fieldName = resolveFieldName(dataScope);
 
         StringJoiner joiner = new StringJoiner(",", "(", ")");
         for (Long id : userIds) {
@@ -107,6 +111,25 @@ public class DataScopeAspect {
         return fieldName + " IN " + joiner;
     }
 
+    /**
+     * 构建先序区间条件：可见范围为 lft 落在当前用户 [lft, rgt) 区间内的用户，
+     * SQL 长度与下属数量无关；区间表异步维护，只在已提交的区间不低于本节点层级版本时使用，当前用户自身始终可见
+     */
+    private String buildIntervalScopeSql(DataScope dataScope, Long userId) {
+        String fieldName = resolveFieldName(dataScope);
+        return "(" + fieldName + " = " + userId + " OR " + fieldName + " IN ("
+            + "SELECT ti.user_id FROM sys_user_tree_interval si"
+            + " JOIN sys_user_tree_interval ti ON ti.lft >= si.lft AND ti.lft < si.rgt"
+            + " WHERE si.user_id = " + userId + "))";
+    }
+
+    private String resolveFieldName(DataScope dataScope) {
+        String alias = dataScope.tableAlias();
+        return (alias == null || alias.isBlank())
+            ? dataScope.userFieldName()
+            : alias + "." + dataScope.userFieldName();
+    }
+
     /**
      * 将数据权限SQL条件设置到方法参数中
      *
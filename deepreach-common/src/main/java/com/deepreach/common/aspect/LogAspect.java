@@ -3,11 +3,10 @@ package com.deepreach.common.aspect;
 import com.deepreach.common.annotation.Log;
 import com.deepreach.common.core.domain.entity.SysOperLog;
 import com.deepreach.common.core.domain.model.LoginUser;
-import com.deepreach.common.core.service.SysOperLogService;
+import com.deepreach.common.core.support.OperLogPipeline;
 import com.deepreach.common.security.SecurityUtils;
 import com.deepreach.common.security.UserRoleUtils;
 import com.deepreach.common.security.enums.UserIdentity;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -22,9 +21,7 @@ import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
-import jakarta.servlet.http.HttpServletResponse;
 import java.time.LocalDateTime;
-import java.util.Arrays;
 
 /**
  * 操作日志切面
@@ -33,7 +30,7 @@ import java.util.Arrays;
  * 1. 记录操作前信息（方法、参数、IP等）
  * 2. 记录操作后信息（结果、状态等）
  * 3. 记录异常信息
- * 4. 异步保存日志到数据库
+ * 4. 放入操作日志写入管道，参数与返回值的序列化及写库均在后台写入线程完成
  *
  * @author DeepReach Team
  * @version 1.0
@@ -45,10 +42,7 @@ import java.util.Arrays;
 public class LogAspect {
 
     @Autowired
-    private ObjectMapper objectMapper;
-
-    @Autowired
-    private SysOperLogService operLogService;
+    private OperLogPipeline operLogPipeline;
 
     /**
      * 线程本地变量，用于存储日志信息
@@ -73,7 +67,7 @@ public class LogAspect {
      */
     @Before(value = "@annotation(logAnnotation)")
     public void doBefore(JoinPoint joinPoint, Log logAnnotation) {
-        log.info("LogAspect doBefore 被触发: {} - {}", logAnnotation.title(), joinPoint.getSignature().getName());
+        log.debug("LogAspect doBefore 被触发: {} - {}", logAnnotation.title(), joinPoint.getSignature().getName());
 
         // 记录开始时间（纳秒级精度）
         startTimeThreadLocal.set(System.nanoTime());
@@ -111,11 +105,6 @@ public class LogAspect {
                 operLog.setDeptName("");
             }
 
-            // 记录请求参数
-            if (logAnnotation.saveRequestData()) {
-                operLog.setOperParam(getRequestParams(joinPoint));
-            }
-
             operLog.setOperTime(LocalDateTime.now());
             operLog.setStatus(0); // 默认成功状态
 
@@ -154,16 +143,13 @@ public class LogAspect {
                 operLog.setCostTime(durationNanos / 1_000_000); // 纳秒转毫秒
             }
 
-            // 记录返回结果
-            if (logAnnotation.saveResponseData()) {
-                operLog.setJsonResult(getResponseResult(result));
-            }
-
             // 更新操作状态为成功
             operLog.setStatus(0);
 
-            // 异步保存日志
-            saveOperLog(operLog);
+            // 参数与返回结果由写入线程序列化
+            saveOperLog(operLog,
+                logAnnotation.saveRequestData() ? joinPoint.getArgs() : null,
+                logAnnotation.saveResponseData() ? result : null);
 
             log.debug("操作日志返回处理完成: {}", operLog.getTitle());
         } catch (Exception e) {
@@ -205,8 +191,8 @@ public class LogAspect {
             operLog.setStatus(1); // 失败状态
             operLog.setErrorMsg(exception.getMessage());
 
-            // 异步保存日志
-            saveOperLog(operLog);
+            // 参数由写入线程序列化
+            saveOperLog(operLog, logAnnotation.saveRequestData() ? joinPoint.getArgs() : null, null);
 
             log.debug("操作日志异常处理完成: {}, 异常: {}", operLog.getTitle(), exception.getMessage());
         } catch (Exception e) {
@@ -228,53 +214,6 @@ public class LogAspect {
         return joinPoint.getSignature().getDeclaringTypeName() + "." + joinPoint.getSignature().getName();
     }
 
-    /**
-     * 获取请求参数
-     *
-     * @param joinPoint 连接点
-     * @return 请求参数JSON字符串
-     */
-    private String getRequestParams(JoinPoint joinPoint) {
-        try {
-            Object[] args = joinPoint.getArgs();
-            if (args == null || args.length == 0) {
-                return "";
-            }
-
-            // 过滤掉不需要序列化的参数类型
-            Object[] filteredArgs = Arrays.stream(args)
-                .filter(arg -> !(arg instanceof HttpServletRequest) && !(arg instanceof HttpServletResponse))
-                .toArray();
-
-            if (filteredArgs.length == 0) {
-                return "";
-            }
-
-            return objectMapper.writeValueAsString(filteredArgs);
-        } catch (Exception e) {
-            log.warn("序列化请求参数失败", e);
-            return "";
-        }
-    }
-
-    /**
-     * 获取响应结果
-     *
-     * @param result 响应结果
-     * @return 响应结果JSON字符串
-     */
-    private String getResponseResult(Object result) {
-        try {
-            if (result == null) {
-                return "";
-            }
-            return objectMapper.writeValueAsString(result);
-        } catch (Exception e) {
-            log.warn("序列化响应结果失败", e);
-            return "";
-        }
-    }
-
     /**
      * 获取客户端IP地址
      *
@@ -314,36 +253,23 @@ public class LogAspect {
     /**
      * 保存操作日志
      *
-     * 调用日志服务异步保存到数据库
+     * 放入操作日志写入管道，不在请求线程中序列化或写库
      *
      * @param operLog 操作日志对象
+     * @param args    需要记录的方法参数，null 表示不记录
+     * @param result  需要记录的返回结果，null 表示不记录
      */
-    private void saveOperLog(SysOperLog operLog) {
+    private void saveOperLog(SysOperLog operLog, Object[] args, Object result) {
         try {
-            // 打印日志用于调试
-            log.info("保存操作日志: {} - {} - {} - {}",
-                operLog.getTitle(),
-                operLog.getOperName(),
-                operLog.getOperUrl(),
-                operLog.getStatus() == 0 ? "成功" : "失败");
-
-            // 检查日志对象是否完整
-            log.info("操作日志对象详情: operId={}, title={}, operName={}, operUrl={}, status={}",
-                operLog.getOperId(),
-                operLog.getTitle(),
-                operLog.getOperName(),
-                operLog.getOperUrl(),
-                operLog.getStatus());
-
-            // 异步保存到数据库
-            log.info("准备异步保存操作日志到数据库...");
-            operLogService.insertOperLogAsync(operLog);
-            log.info("操作日志异步保存任务已提交");
+            if (operLogPipeline.submit(operLog, args, result)) {
+                log.debug("操作日志已提交: {} - {} - {} - {}",
+                    operLog.getTitle(),
+                    operLog.getOperName(),
+                    operLog.getOperUrl(),
+                    operLog.getStatus() == 0 ? "成功" : "失败");
+            }
         } catch (Exception e) {
-            log.error("保存操作日志失败", e);
-
-            // 如果数据库保存失败，至少打印完整信息
-            log.error("操作日志保存失败，详细信息: {}", operLog.toString());
+            log.error("保存操作日志失败: {}", operLog.getTitle(), e);
         }
     }
 
@@ -4,12 +4,16 @@ import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Redis配置类
@@ -57,4 +61,33 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * 变更广播的消息分发线程池
+     */
+    @Bean
+    @ConditionalOnProperty(name = "deepreach.broadcast.type", havingValue = "redis")
+    public ThreadPoolTaskExecutor changeBroadcastExecutor(
+            @Value("${deepreach.broadcast.listener-threads:4}") int listenerThreads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(listenerThreads);
+        executor.setMaxPoolSize(listenerThreads);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("change-broadcast-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * 变更广播的 Redis 订阅容器，由 Spring 管理启停
+     */
+    @Bean
+    @ConditionalOnProperty(name = "deepreach.broadcast.type", havingValue = "redis")
+    public RedisMessageListenerContainer changeBroadcastListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           ThreadPoolTaskExecutor changeBroadcastExecutor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(changeBroadcastExecutor);
+        return container;
+    }
+}
@@ -1,6 +1,7 @@
 package com.deepreach.common.config;
 
 import com.deepreach.common.interceptor.PerformanceInterceptor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
@@ -21,8 +22,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
  * @since 2025-10-26
  */
 @Configuration("commonWebMvcConfig")
+@RequiredArgsConstructor
 public class WebMvcConfig implements WebMvcConfigurer {
 
+    private final PerformanceInterceptor performanceInterceptor;
+
     /**
      * 注册拦截器
      *
@@ -35,7 +39,7 @@ public class WebMvcConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         // 注册性能监控拦截器
-        registry.addInterceptor(new PerformanceInterceptor())
+        registry.addInterceptor(performanceInterceptor)
                 .addPathPatterns("/**")
                 .excludePathPatterns(
                     "/auth/login",
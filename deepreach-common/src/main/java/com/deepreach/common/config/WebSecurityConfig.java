@@ -98,9 +98,13 @@ public class WebSecurityConfig {
                     "/webjars/**",
                     "/druid/**",
                     "/actuator/health",
+                    "/actuator/health/**",
                     "/actuator/info"
                 ).permitAll()
 
+                // 其余监控端点（指标等） - 仅管理员
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
+
                 // 系统接口 - 需要认证，具体权限由@PreAuthorize注解控制
                 .requestMatchers("/system/**").authenticated()
 
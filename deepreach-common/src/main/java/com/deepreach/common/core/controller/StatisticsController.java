@@ -3,6 +3,7 @@ package com.deepreach.common.core.controller;
 import com.deepreach.common.core.domain.model.LoginUser;
 import com.deepreach.common.core.service.HierarchyStatisticsService;
 import com.deepreach.common.core.service.SysUserService;
+import com.deepreach.common.core.service.UserClosureService;
 import com.deepreach.common.web.domain.Result;
 import com.deepreach.common.annotation.Log;
 import com.deepreach.common.enums.BusinessType;
@@ -39,24 +40,28 @@ public class StatisticsController {
     @Autowired
     private SysUserService userService;
 
+    @Autowired
+    private UserClosureService closureService;
+
     /**
      * 获取当前用户管理部门的统计信息
      *
      * 统计当前用户作为leader的部门树中各种类型部门的数量
      * 包括：系统部门、代理部门、商家总账号、员工
      *
+     * @param refresh 为 true 时跳过子树统计快照，直接查询数据库
      * @return 统计信息
      */
     @GetMapping("/managed-depts")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getManagedDeptsStatistics() {
+    public Result getManagedDeptsStatistics(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             Long currentUserId = getCurrentUserId();
             if (currentUserId == null) {
                 return Result.error("用户未登录");
             }
 
-            Map<String, Object> statistics = statisticsService.getManagedDeptsStatistics(currentUserId);
+            Map<String, Object> statistics = statisticsService.getManagedDeptsStatistics(currentUserId, refresh);
             return Result.success(statistics);
         } catch (Exception e) {
             log.error("获取管理部门统计信息失败", e);
@@ -99,14 +104,14 @@ public class StatisticsController {
      */
     @GetMapping("/agent-levels")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getAgentLevelsStatistics() {
+    public Result getAgentLevelsStatistics(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             Long currentUserId = getCurrentUserId();
             if (currentUserId == null) {
                 return Result.error("用户未登录");
             }
 
-            Map<String, Object> statistics = statisticsService.getManagedAgentLevelsStatistics(currentUserId);
+            Map<String, Object> statistics = statisticsService.getManagedAgentLevelsStatistics(currentUserId, refresh);
             return Result.success(statistics);
         } catch (Exception e) {
             log.error("获取代理层级统计信息失败", e);
@@ -223,7 +228,7 @@ public class StatisticsController {
      */
     @GetMapping("/adminAgentPerformanceStatistics")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getAdminAgentPerformanceStatistics() {
+    public Result getAdminAgentPerformanceStatistics(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             Long currentUserId = getCurrentUserId();
             if (currentUserId == null) {
@@ -234,7 +239,7 @@ public class StatisticsController {
                 return Result.error("仅管理员可以查看该统计");
             }
 
-            Map<String, Object> statistics = statisticsService.getAdminAgentPerformanceStatistics(currentUserId);
+            Map<String, Object> statistics = statisticsService.getAdminAgentPerformanceStatistics(currentUserId, refresh);
             return Result.success(statistics);
         } catch (Exception e) {
             log.error("获取管理员代理业绩统计失败", e);
@@ -247,7 +252,7 @@ public class StatisticsController {
      */
     @GetMapping("/adminMerchantsPerformanceStatistics")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getAdminMerchantsPerformanceStatistics() {
+    public Result getAdminMerchantsPerformanceStatistics(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             Long currentUserId = getCurrentUserId();
             if (currentUserId == null) {
@@ -258,7 +263,7 @@ public class StatisticsController {
                 return Result.error("仅管理员可以查看该统计");
             }
 
-            Map<String, Object> statistics = statisticsService.getAdminMerchantsPerformanceStatistics(currentUserId);
+            Map<String, Object> statistics = statisticsService.getAdminMerchantsPerformanceStatistics(currentUserId, refresh);
             return Result.success(statistics);
         } catch (Exception e) {
             log.error("获取管理员商家业绩统计失败", e);
@@ -290,17 +295,40 @@ public class StatisticsController {
         }
     }
 
+    /**
+     * 重建用户层级闭包表
+     *
+     * 子树统计依赖闭包表，数据异常（如直接修改数据库）后由管理员手动触发全量重建
+     */
+    @PostMapping("/closure/rebuild")
+    @Log(title = "统计管理", businessType = BusinessType.UPDATE)
+    public Result rebuildUserClosure() {
+        try {
+            LoginUser loginUser = SecurityUtils.getCurrentLoginUser();
+            if (loginUser == null || !loginUser.isAdminIdentity()) {
+                return Result.error("仅管理员可以重建层级闭包表");
+            }
+
+            int rows = closureService.rebuild();
+            return Result.success(Map.of("closureRows", rows));
+        } catch (Exception e) {
+            log.error("重建用户层级闭包表失败", e);
+            return Result.error("重建层级闭包表失败：" + e.getMessage());
+        }
+    }
+
     /**
      * 买家账户运营概览
      */
     @GetMapping("/buyer/{buyerId}/overview")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getBuyerOverview(@PathVariable("buyerId") Long buyerId) {
+    public Result getBuyerOverview(@PathVariable("buyerId") Long buyerId,
+                                   @RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             if (buyerId == null || buyerId <= 0) {
                 return Result.error("买家ID无效");
             }
-            Map<String, Object> overview = statisticsService.getBuyerOperationalStatistics(buyerId);
+            Map<String, Object> overview = statisticsService.getBuyerOperationalStatistics(buyerId, refresh);
             if (overview.containsKey("error")) {
                 return Result.error(overview.get("error").toString());
             }
@@ -359,14 +387,14 @@ public class StatisticsController {
      */
     @GetMapping("/buyer-accounts")
     @Log(title = "统计管理", businessType = BusinessType.OTHER)
-    public Result getBuyerAccountsStatistics() {
+    public Result getBuyerAccountsStatistics(@RequestParam(value = "refresh", defaultValue = "false") boolean refresh) {
         try {
             Long currentUserId = getCurrentUserId();
             if (currentUserId == null) {
                 return Result.error("用户未登录");
             }
 
-            Map<String, Object> statistics = statisticsService.getManagedBuyerAccountsStatistics(currentUserId);
+            Map<String, Object> statistics = statisticsService.getManagedBuyerAccountsStatistics(currentUserId, refresh);
             return Result.success(statistics);
         } catch (Exception e) {
             log.error("获取买家账户统计信息失败", e);
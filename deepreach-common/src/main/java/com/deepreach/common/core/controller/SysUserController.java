@@ -10,6 +10,7 @@ import com.deepreach.common.core.domain.model.LoginUser;
 import com.deepreach.common.core.page.PageDomain;
 import com.deepreach.common.core.page.TableSupport;
 import com.deepreach.common.core.service.SysUserService;
+import com.deepreach.common.core.support.LocalCacheManager;
 import com.deepreach.common.enums.BusinessType;
 import com.deepreach.common.security.SecurityUtils;
 import com.deepreach.common.security.UserRoleUtils;
@@ -60,6 +61,9 @@ public class SysUserController extends BaseController {
     @Autowired
     private SysUserService userService;
 
+    @Autowired
+    private LocalCacheManager localCacheManager;
+
     private static final SecureRandom SECURE_RANDOM = new SecureRandom();
     private static final String RANDOM_PASSWORD_CHARSET = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnpqrstuvwxyz23456789";
     private static final int DEFAULT_RANDOM_PASSWORD_LENGTH = 8;
@@ -213,6 +217,19 @@ public class SysUserController extends BaseController {
         }
     }
 
+    /**
+     * 获取本地缓存的容量与命中率（仅超级管理员）
+     *
+     * @return 各缓存的统计信息
+     */
+    @GetMapping("/cache/stats")
+    public Result getCacheStats() {
+        if (!SecurityUtils.isCurrentUserAdmin()) {
+            return Result.error("无权限查看缓存统计");
+        }
+        return Result.success(localCacheManager.statistics());
+    }
+
     /**
      * 获取当前登录用户信息
      *
@@ -0,0 +1,39 @@
+package com.deepreach.common.core.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 用户层级闭包实体类 sys_user_closure
+ *
+ * 每个正常状态用户与其自身及全部上级各对应一行，
+ * 由 {@link com.deepreach.common.core.service.UserClosureService} 随用户变更在同一事务内维护。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SysUserClosure implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 祖先用户ID
+     */
+    private Long ancestorId;
+
+    /**
+     * 子孙用户ID
+     */
+    private Long descendantId;
+
+    /**
+     * 层级距离（自身为0）
+     */
+    private Integer depth;
+}
@@ -0,0 +1,44 @@
+package com.deepreach.common.core.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 用户层级先序区间实体类 sys_user_tree_interval
+ *
+ * 用户的子树（含自身）对应 lft 落在 [lft, rgt) 内的全部用户，
+ * 由 {@link com.deepreach.common.core.support.UserTreeIntervalSynchronizer} 根据层级索引维护。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SysUserTreeInterval implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 先序进入编号
+     */
+    private Integer lft;
+
+    /**
+     * 子树结束编号（不含）
+     */
+    private Integer rgt;
+
+    /**
+     * 层级版本号
+     */
+    private Long version;
+}
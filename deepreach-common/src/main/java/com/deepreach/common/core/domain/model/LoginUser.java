@@ -2,13 +2,17 @@ package com.deepreach.common.core.domain.model;
 
 import com.deepreach.common.core.domain.entity.SysDept;
 import com.deepreach.common.core.domain.entity.SysUser;
+import com.deepreach.common.security.PermissionMatcher;
 import com.deepreach.common.security.UserRoleUtils;
 import com.deepreach.common.security.enums.UserIdentity;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -132,6 +136,14 @@ public class LoginUser implements UserDetails {
      */
     private Set<String> permissions;
 
+    /**
+     * 预编译的权限匹配器，首次校验时由 permissions 编译，permissions 变更时重置
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @Setter(AccessLevel.NONE)
+    private transient volatile PermissionMatcher permissionMatcher;
+
     /**
      * 用户角色列表
      */
@@ -153,6 +165,11 @@ public class LoginUser implements UserDetails {
      */
     private Long expireTime;
 
+    /**
+     * 加载角色与权限时的全局变更版本号，用于判断缓存的认证信息是否已因角色/权限变更失效
+     */
+    private Long authorityVersion;
+
     /**
      * 登录时间
      */
@@ -178,6 +195,27 @@ public class LoginUser implements UserDetails {
      */
     private transient SysDept dept;
 
+    /**
+     * 设置权限列表，并重置预编译的权限匹配器
+     */
+    public void setPermissions(Set<String> permissions) {
+        this.permissions = permissions;
+        this.permissionMatcher = null;
+    }
+
+    /**
+     * 获取预编译的权限匹配器
+     */
+    @JsonIgnore
+    public PermissionMatcher getPermissionMatcher() {
+        PermissionMatcher matcher = permissionMatcher;
+        if (matcher == null) {
+            matcher = PermissionMatcher.compile(permissions);
+            permissionMatcher = matcher;
+        }
+        return matcher;
+    }
+
     // ==================== UserDetails接口实现 ====================
 
     @Override
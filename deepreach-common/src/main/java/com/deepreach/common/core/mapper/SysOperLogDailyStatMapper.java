@@ -0,0 +1,65 @@
+package com.deepreach.common.core.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 操作日志按日汇总 数据层
+ *
+ * 汇总表按日期、操作者、业务类型、状态记录操作次数，由明细表按天重算写入，重复执行结果不变。
+ */
+@Mapper
+public interface SysOperLogDailyStatMapper {
+
+    /**
+     * 已汇总的最近日期，没有汇总数据时返回 null
+     */
+    LocalDate selectMaxStatDate();
+
+    /**
+     * 明细表中最早的操作日期，明细表为空时返回 null
+     */
+    LocalDate selectMinOperDate();
+
+    /**
+     * 删除一天的汇总
+     *
+     * @param statDate 汇总日期
+     * @return 影响行数
+     */
+    int deleteDay(@Param("statDate") LocalDate statDate);
+
+    /**
+     * 删除指定日期之前（不含）的汇总
+     *
+     * @param statDate 截止日期
+     * @return 影响行数
+     */
+    int deleteBefore(@Param("statDate") LocalDate statDate);
+
+    /**
+     * 写入一天的汇总（明细区间为 [beginTime, endTime)），应先在同一事务中删除当天的旧汇总
+     *
+     * @param beginTime 当天零点
+     * @param endTime   次日零点
+     * @return 影响行数
+     */
+    int rollupDay(@Param("beginTime") LocalDateTime beginTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按业务类型汇总指定日期区间（含两端），返回 businessType、count、failedCount
+     */
+    List<Map<String, Object>> sumByBusinessType(@Param("beginDate") LocalDate beginDate,
+                                                @Param("endDate") LocalDate endDate);
+
+    /**
+     * 按操作者汇总指定日期区间（含两端），返回 operName、count
+     */
+    List<Map<String, Object>> sumByOperName(@Param("beginDate") LocalDate beginDate,
+                                            @Param("endDate") LocalDate endDate);
+}
@@ -4,8 +4,10 @@ import com.deepreach.common.core.domain.entity.SysOperLog;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 操作日志Mapper接口
@@ -33,6 +35,16 @@ public interface SysOperLogMapper {
      */
     int insertOperLog(SysOperLog operLog);
 
+    /**
+     * 批量插入操作日志
+     *
+     * 以一条多行 INSERT 写入，供操作日志写入管道使用
+     *
+     * @param operLogs 操作日志列表
+     * @return 成功插入的记录数
+     */
+    int insertOperLogBatch(@Param("operLogs") List<SysOperLog> operLogs);
+
     /**
      * 根据操作日志ID查询日志信息
      *
@@ -155,24 +167,14 @@ public interface SysOperLogMapper {
     int deleteOperLogByIds(@Param("operIds") List<Long> operIds);
 
     /**
-     * 清理指定时间之前的操作日志
-     *
-     * 定期清理历史日志，保持数据库性能
-     *
-     * @param endTime 结束时间，删除此时间之前的所有日志
-     * @return 成功删除的记录数
-     */
-    int cleanOperLogByTime(@Param("endTime") LocalDateTime endTime);
-
-    /**
-     * 清理指定天数之前的操作日志
+     * 查询指定操作日志所在的日期（去重）
      *
-     * 定期清理历史日志的便捷方法
+     * 删除前调用，删除后据此重算这些日期的按日汇总
      *
-     * @param days 保留天数，删除此天数之前的所有日志
-     * @return 成功删除的记录数
+     * @param operIds 操作日志ID列表
+     * @return 操作日期列表
      */
-    int cleanOperLogByDays(@Param("days") Integer days);
+    List<LocalDate> selectOperDatesByIds(@Param("operIds") List<Long> operIds);
 
     /**
      * 查询最近的操作日志
@@ -232,4 +234,77 @@ public interface SysOperLogMapper {
      * @return 存储大小（字节）
      */
     Long getTableSize();
-}
\ No newline at end of file
+
+    // ==================== 分区维护 ====================
+
+    /**
+     * 查询日志表的分区
+     *
+     * 按分区顺序返回 partitionName、partitionDescription（TO_DAYS 上界或 MAXVALUE）、tableRows（估算行数），
+     * 未分区时返回空列表
+     *
+     * @return 分区列表
+     */
+    List<Map<String, Object>> selectOperLogPartitions();
+
+    /**
+     * 从 MAXVALUE 分区中拆分出一个新分区
+     *
+     * @param futurePartition 上界为 MAXVALUE 的分区名
+     * @param partitionName   新分区名
+     * @param lessThan        新分区上界日期（yyyy-MM-dd，不含）
+     * @return 影响行数
+     */
+    int reorganizeOperLogPartition(@Param("futurePartition") String futurePartition,
+                                   @Param("partitionName") String partitionName,
+                                   @Param("lessThan") String lessThan);
+
+    /**
+     * 删除整个分区
+     *
+     * @param partitionNames 分区名列表
+     * @return 影响行数
+     */
+    int dropOperLogPartitions(@Param("partitionNames") List<String> partitionNames);
+
+    /**
+     * 小批量删除指定时间之前的操作日志
+     *
+     * 分区删除后只剩边界分区内的少量数据，按批删除避免长事务
+     *
+     * @param endTime 结束时间，删除此时间之前的日志
+     * @param limit   单批数量
+     * @return 成功删除的记录数
+     */
+    int deleteOperLogBefore(@Param("endTime") LocalDateTime endTime, @Param("limit") int limit);
+
+    // ==================== 明细统计 ====================
+
+    /**
+     * 按业务类型统计明细表中指定区间的操作次数
+     *
+     * 返回 businessType、count、failedCount；三个时间条件均可为空
+     *
+     * @param beginTime  开始时间（含）
+     * @param beforeTime 结束时间（不含）
+     * @param endTime    结束时间（含）
+     * @return 统计结果
+     */
+    List<Map<String, Object>> sumOperLogByBusinessType(@Param("beginTime") LocalDateTime beginTime,
+                                                       @Param("beforeTime") LocalDateTime beforeTime,
+                                                       @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 按操作者统计明细表中指定区间的操作次数
+     *
+     * 返回 operName、count；三个时间条件均可为空
+     *
+     * @param beginTime  开始时间（含）
+     * @param beforeTime 结束时间（不含）
+     * @param endTime    结束时间（含）
+     * @return 统计结果
+     */
+    List<Map<String, Object>> sumOperLogByOperName(@Param("beginTime") LocalDateTime beginTime,
+                                                   @Param("beforeTime") LocalDateTime beforeTime,
+                                                   @Param("endTime") LocalDateTime endTime);
+}
@@ -123,6 +123,16 @@ public interface SysRoleMapper {
      */
     int countUsersByRoleId(@Param("roleId") Long roleId);
 
+    /**
+     * 查询分配了该角色的用户ID
+     *
+     * 角色菜单权限变更后用于失效这些用户的缓存
+     *
+     * @param roleId 角色ID
+     * @return 用户ID列表
+     */
+    List<Long> selectUserIdsByRoleId(@Param("roleId") Long roleId);
+
     /**
      * 统计角色总数
      *
@@ -0,0 +1,118 @@
+package com.deepreach.common.core.mapper;
+
+import com.deepreach.common.core.domain.entity.SysUserClosure;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户层级闭包表 数据层
+ *
+ * 维护语句只处理单个节点的增量变化，统计语句以闭包表连接业务表后一次分组聚合，
+ * 不再向数据库传递子孙用户ID列表。
+ */
+@Mapper
+public interface SysUserClosureMapper {
+
+    // ==================== 维护 ====================
+
+    /**
+     * 写入节点自身（depth=0）
+     */
+    int insertSelf(@Param("userId") Long userId);
+
+    /**
+     * 将节点及其子树挂到上级的全部祖先下；上级不在闭包表中（停用或不存在）时不写入
+     */
+    int attachToParent(@Param("userId") Long userId, @Param("parentUserId") Long parentUserId);
+
+    /**
+     * 将上级为该节点的正常状态用户子树挂到该节点下（节点恢复正常时使用）
+     */
+    int adoptChildren(@Param("userId") Long userId);
+
+    /**
+     * 断开节点子树与节点所有祖先的关系，节点子树内部关系保留
+     */
+    int detachFromAncestors(@Param("userId") Long userId);
+
+    /**
+     * 移除节点：删除所有经过该节点的路径，其直接下级成为各自子树的根
+     */
+    int removeNode(@Param("userId") Long userId);
+
+    /**
+     * 判断 descendantId 是否在 ancestorId 的子树中（含自身）
+     */
+    int countPath(@Param("ancestorId") Long ancestorId, @Param("descendantId") Long descendantId);
+
+    int countAll();
+
+    int deleteAll();
+
+    int insertBatch(@Param("rows") List<SysUserClosure> rows);
+
+    // ==================== 子树统计 ====================
+
+    /**
+     * 按角色统计子树中正常状态用户数；另返回 roleKey='*' 的子树用户总数与 roleKey='+' 的已识别身份用户数
+     *
+     * @param includeSelf 是否包含根节点自身
+     * @param identityRoleKeys 参与“已识别身份”统计的角色
+     */
+    List<Map<String, Object>> countSubtreeUsersByRoleKey(@Param("rootUserId") Long rootUserId,
+                                                         @Param("includeSelf") boolean includeSelf,
+                                                         @Param("identityRoleKeys") Collection<String> identityRoleKeys);
+
+    /**
+     * 按角色汇总子树中用户的充值总额；另返回 roleKey='*' 的指定角色用户（去重）合计
+     */
+    List<Map<String, Object>> sumSubtreeRechargeByRoleKey(@Param("rootUserId") Long rootUserId,
+                                                          @Param("includeSelf") boolean includeSelf,
+                                                          @Param("roleKeys") Collection<String> roleKeys);
+
+    /**
+     * 按角色汇总子树中代理的佣金账户（累计/已结算/可用）；另返回 roleKey='*' 的指定角色用户（去重）合计
+     */
+    List<Map<String, Object>> sumSubtreeCommissionByRoleKey(@Param("rootUserId") Long rootUserId,
+                                                            @Param("includeSelf") boolean includeSelf,
+                                                            @Param("roleKeys") Collection<String> roleKeys);
+
+    /**
+     * 按角色汇总子树中用户的人数、累计佣金与充值总额（代理贡献统计一次查询完成）
+     */
+    List<Map<String, Object>> sumSubtreeContributionByRoleKey(@Param("rootUserId") Long rootUserId,
+                                                              @Param("includeSelf") boolean includeSelf,
+                                                              @Param("roleKeys") Collection<String> roleKeys);
+
+    /**
+     * 按代理角色汇总：子树中各角色代理名下买家（去重）的充值总额
+     */
+    List<Map<String, Object>> sumBuyerRechargeByAgentRoleKey(@Param("rootUserId") Long rootUserId,
+                                                             @Param("agentRoleKeys") Collection<String> agentRoleKeys,
+                                                             @Param("buyerRoleKeys") Collection<String> buyerRoleKeys);
+
+    /**
+     * 按实例类型与平台统计子树中指定角色用户的实例数
+     */
+    List<Map<String, Object>> countSubtreeInstancesByPlatform(@Param("rootUserId") Long rootUserId,
+                                                              @Param("includeSelf") boolean includeSelf,
+                                                              @Param("roleKeys") Collection<String> roleKeys);
+
+    /**
+     * 按类型统计子树中指定角色用户的AI人设数
+     */
+    List<Map<String, Object>> countSubtreeAiCharactersByType(@Param("rootUserId") Long rootUserId,
+                                                             @Param("includeSelf") boolean includeSelf,
+                                                             @Param("roleKeys") Collection<String> roleKeys);
+
+    /**
+     * 查询子树中的商家总账号明细（充值总额、名下员工数），按员工数降序
+     */
+    List<Map<String, Object>> selectSubtreeBuyerMainDetails(@Param("rootUserId") Long rootUserId,
+                                                            @Param("mainRoleKey") String mainRoleKey,
+                                                            @Param("subRoleKey") String subRoleKey);
+}
@@ -6,6 +6,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -321,6 +322,20 @@ public interface SysUserMapper {
      */
     int updateUserPassword(@Param("userId") Long userId, @Param("password") String password);
 
+    /**
+     * 已存哈希未变时更新用户密码
+     *
+     * 用于登录后调整哈希强度：仅当已存哈希仍为 oldPassword 时写入，
+     * 避免覆盖期间被修改的密码或其他节点已写入的新哈希
+     *
+     * @param userId 用户ID
+     * @param oldPassword 校验时读取的密码哈希
+     * @param password 新的密码哈希
+     * @return 成功更新的记录数
+     */
+    int updateUserPasswordIfUnchanged(@Param("userId") Long userId, @Param("oldPassword") String oldPassword,
+                                      @Param("password") String password);
+
     /**
      * 更新用户状态
      *
@@ -555,4 +570,20 @@ public interface SysUserMapper {
      * @return 启用状态用户数量
      */
     Long countActiveUsersByIds(@Param("userIds") Set<Long> userIds);
+
+    /**
+     * 根据用户ID集合批量查询用户完整信息（包含部门），条件与 {@link #selectUserWithDept(Long)} 一致。
+     *
+     * @param userIds 用户ID集合
+     * @return 用户列表
+     */
+    List<SysUser> selectUsersWithDeptByIds(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量查询用户的有效角色标识，条件与 {@link #selectRoleKeysByUserId(Long)} 一致。
+     *
+     * @param userIds 用户ID集合
+     * @return 每条记录包含用户ID与角色标识
+     */
+    List<Map<String, Object>> selectRoleKeysByUserIds(@Param("userIds") Collection<Long> userIds);
 }
@@ -0,0 +1,30 @@
+package com.deepreach.common.core.mapper;
+
+import com.deepreach.common.core.domain.entity.SysUserTreeInterval;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户层级先序区间 数据层
+ */
+@Mapper
+public interface SysUserTreeIntervalMapper {
+
+    /**
+     * 批量写入区间，已存在的行仅在版本不低于现有版本时覆盖
+     */
+    int upsertBatch(@Param("intervals") List<SysUserTreeInterval> intervals);
+
+    /**
+     * 删除指定用户中版本低于 version 的区间
+     */
+    int deleteByUserIds(@Param("userIds") Collection<Long> userIds, @Param("version") long version);
+
+    /**
+     * 删除版本低于 version 的全部区间（全量同步后清理已移除的用户）
+     */
+    int deleteOlderThan(@Param("version") long version);
+}
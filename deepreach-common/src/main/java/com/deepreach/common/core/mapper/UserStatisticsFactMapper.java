@@ -0,0 +1,38 @@
+package com.deepreach.common.core.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户统计明细 数据层
+ *
+ * 按用户读取统计快照所需的原始数据（充值、佣金、角色、实例、AI人设），
+ * userIds 为空时读取全部正常状态用户，用于全量构建；否则只读取指定用户，用于增量刷新。
+ */
+@Mapper
+public interface UserStatisticsFactMapper {
+
+    /**
+     * 用户基础信息及累计充值、累计佣金：userId, username, nickname, totalRecharge, totalCommission
+     */
+    List<Map<String, Object>> selectUserFacts(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 用户角色：userId, roleKey
+     */
+    List<Map<String, Object>> selectUserRoleKeys(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 用户实例数：userId, instanceType, platformName, count
+     */
+    List<Map<String, Object>> selectInstanceCounts(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 用户AI人设数：userId, type, count
+     */
+    List<Map<String, Object>> selectAiCharacterCounts(@Param("userIds") Collection<Long> userIds);
+}
@@ -10,17 +10,38 @@ public interface HierarchyStatisticsService {
     /**
      * 统计当前用户可管理范围内的身份数据。
      */
-    Map<String, Object> getManagedDeptsStatistics(Long userId);
+    default Map<String, Object> getManagedDeptsStatistics(Long userId) {
+        return getManagedDeptsStatistics(userId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库。
+     */
+    Map<String, Object> getManagedDeptsStatistics(Long userId, boolean forceRefresh);
 
     /**
      * 统计代理层级及其业绩表现。
      */
-    Map<String, Object> getManagedAgentLevelsStatistics(Long userId);
+    default Map<String, Object> getManagedAgentLevelsStatistics(Long userId) {
+        return getManagedAgentLevelsStatistics(userId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库。
+     */
+    Map<String, Object> getManagedAgentLevelsStatistics(Long userId, boolean forceRefresh);
 
     /**
      * 统计买家主账号与子账号数据。
      */
-    Map<String, Object> getManagedBuyerAccountsStatistics(Long userId);
+    default Map<String, Object> getManagedBuyerAccountsStatistics(Long userId) {
+        return getManagedBuyerAccountsStatistics(userId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库。
+     */
+    Map<String, Object> getManagedBuyerAccountsStatistics(Long userId, boolean forceRefresh);
 
     /**
      * 汇总仪表盘所需的核心统计指标。
@@ -30,12 +51,26 @@ public interface HierarchyStatisticsService {
     /**
      * 管理员查看代理业绩统计（总代/一级/二级）。
      */
-    Map<String, Object> getAdminAgentPerformanceStatistics(Long userId);
+    default Map<String, Object> getAdminAgentPerformanceStatistics(Long userId) {
+        return getAdminAgentPerformanceStatistics(userId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库。
+     */
+    Map<String, Object> getAdminAgentPerformanceStatistics(Long userId, boolean forceRefresh);
 
     /**
      * 管理员查看商家业绩/实例统计。
      */
-    Map<String, Object> getAdminMerchantsPerformanceStatistics(Long userId);
+    default Map<String, Object> getAdminMerchantsPerformanceStatistics(Long userId) {
+        return getAdminMerchantsPerformanceStatistics(userId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库。
+     */
+    Map<String, Object> getAdminMerchantsPerformanceStatistics(Long userId, boolean forceRefresh);
 
     /**
      * 管理员查看商家资产统计（总充值/总结算/净值）。
@@ -77,7 +112,14 @@ public interface HierarchyStatisticsService {
      * @param buyerUserId 买家主账号ID
      * @return 包含余额、员工和实例统计的数据
      */
-    Map<String, Object> getBuyerOperationalStatistics(Long buyerUserId);
+    default Map<String, Object> getBuyerOperationalStatistics(Long buyerUserId) {
+        return getBuyerOperationalStatistics(buyerUserId, false);
+    }
+
+    /**
+     * 同上，forceRefresh 为 true 时跳过子树统计快照，直接查询数据库（余额始终实时读取）。
+     */
+    Map<String, Object> getBuyerOperationalStatistics(Long buyerUserId, boolean forceRefresh);
 
     /**
      * 获取代理自身的佣金概览。
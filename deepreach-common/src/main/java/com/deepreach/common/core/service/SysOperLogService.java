@@ -168,7 +168,7 @@ public interface SysOperLogService {
     /**
      * 异步记录操作日志
      *
-     * 使用线程池异步保存日志，提高系统性能
+     * 放入操作日志写入管道，由后台写入线程批量保存；管道积压时可能被采样或丢弃
      *
      * @param operLog 操作日志对象
      */
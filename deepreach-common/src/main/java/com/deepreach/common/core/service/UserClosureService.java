@@ -0,0 +1,44 @@
+package com.deepreach.common.core.service;
+
+/**
+ * 用户层级闭包表维护服务
+ *
+ * 各方法需在用户变更所在的事务内调用，闭包表与 sys_user 同时提交或回滚；
+ * 闭包表只包含正常状态（status='0'）的用户，与内存层级索引的口径一致。
+ */
+public interface UserClosureService {
+
+    /**
+     * 用户创建后维护闭包关系
+     */
+    void onUserCreated(Long userId, Long parentUserId, String status);
+
+    /**
+     * 用户上级调整后维护闭包关系
+     */
+    void onParentChanged(Long userId, Long parentUserId);
+
+    /**
+     * 用户启用/停用后维护闭包关系
+     */
+    void onStatusChanged(Long userId, Long parentUserId, String status);
+
+    /**
+     * 用户删除后维护闭包关系，其直接下级成为各自子树的根
+     */
+    void onUserRemoved(Long userId);
+
+    /**
+     * 根据 sys_user 全量重建闭包表
+     *
+     * @return 写入的闭包行数
+     */
+    int rebuild();
+
+    /**
+     * 闭包表为空时全量重建（首次上线或数据被清空）
+     *
+     * @return 是否执行了重建
+     */
+    boolean rebuildIfEmpty();
+}
@@ -1,10 +1,12 @@
 package com.deepreach.common.core.service;
 
+import com.deepreach.common.core.support.UserHierarchySnapshot;
+
 import java.util.List;
 import java.util.Set;
 
 /**
- * 用户层级服务，基于用户树缓存提供父子关系查询能力。
+ * 用户层级服务，基于本地层级索引提供父子关系查询能力。
  */
 public interface UserHierarchyService {
 
@@ -23,6 +25,11 @@ public interface UserHierarchyService {
      */
     Set<Long> findDescendantIds(Long userId);
 
+    /**
+     * 获取指定用户的子孙数量（不包含自身），无需展开子孙集合。
+     */
+    int countDescendants(Long userId);
+
     /**
      * 判断 ancestorId 是否为 targetId 的祖先（不含自身）。
      */
@@ -32,4 +39,14 @@ public interface UserHierarchyService {
      * 获取用户树的根节点集合。
      */
     Set<Long> findRootIds();
+
+    /**
+     * 刷新层级：事务提交后在发布锁内重新查询用户父子关系，写入 Redis 冷启动缓存并向各节点广播增量变更。
+     */
+    void refreshHierarchy();
+
+    /**
+     * 获取本节点当前的层级快照（不可变），用于在同一版本上做批量计算。
+     */
+    UserHierarchySnapshot currentSnapshot();
 }
@@ -3,10 +3,16 @@ package com.deepreach.common.core.service.impl;
 import com.deepreach.common.core.domain.entity.DrPriceConfig;
 import com.deepreach.common.core.domain.entity.SysUser;
 import com.deepreach.common.core.mapper.AgentCommissionAccountStatMapper;
+import com.deepreach.common.core.mapper.SysUserClosureMapper;
 import com.deepreach.common.core.mapper.SysUserMapper;
 import com.deepreach.common.core.service.DrPriceConfigService;
 import com.deepreach.common.core.service.HierarchyStatisticsService;
 import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.ParallelQueryExecutor;
+import com.deepreach.common.core.support.ParallelQueryExecutor.Subtask;
+import com.deepreach.common.core.support.SubtreeStatisticsCache;
+import com.deepreach.common.core.support.SubtreeStatisticsSnapshot;
+import com.deepreach.common.core.support.UserDataLoader;
 import com.deepreach.common.security.UserRoleUtils;
 import com.deepreach.common.security.enums.UserIdentity;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +45,16 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     private static final List<String> PROSPECTING_DISPLAY_PLATFORMS =
         Collections.unmodifiableList(Arrays.asList("Instagram", "TikTok", "Facebook", "X"));
 
+    private static final String ALL_USERS_KEY = "*";
+    private static final String KNOWN_USERS_KEY = "+";
+    private static final List<String> IDENTITY_ROLE_KEYS = Arrays.stream(UserIdentity.values())
+        .map(UserIdentity::getRoleKey)
+        .collect(Collectors.toUnmodifiableList());
+    private static final List<String> AGENT_ROLE_KEYS = List.of(
+        UserIdentity.AGENT_LEVEL_1.getRoleKey(), UserIdentity.AGENT_LEVEL_2.getRoleKey(), UserIdentity.AGENT_LEVEL_3.getRoleKey());
+    private static final List<String> BUYER_ROLE_KEYS = List.of(
+        UserIdentity.BUYER_MAIN.getRoleKey(), UserIdentity.BUYER_SUB.getRoleKey());
+
     private static final Map<UserIdentity, List<UserIdentity>> DIRECT_CHILDREN_BY_IDENTITY = Map.of(
         UserIdentity.AGENT_LEVEL_1, Arrays.asList(UserIdentity.AGENT_LEVEL_2, UserIdentity.AGENT_LEVEL_3, UserIdentity.BUYER_MAIN),
         UserIdentity.AGENT_LEVEL_2, Arrays.asList(UserIdentity.AGENT_LEVEL_3, UserIdentity.BUYER_MAIN),
@@ -51,20 +67,33 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     @Autowired
     private AgentCommissionAccountStatMapper agentCommissionAccountMapper;
 
+    @Autowired
+    private SysUserClosureMapper closureMapper;
+
     @Autowired
     private DrPriceConfigService drPriceConfigService;
 
     @Autowired(required = false)
     private UserHierarchyService hierarchyService;
 
+    @Autowired(required = false)
+    private SubtreeStatisticsCache statisticsCache;
+
+    @Autowired
+    private ParallelQueryExecutor parallelQueryExecutor;
+
+    @Autowired
+    private UserDataLoader userDataLoader;
+
     @Override
-    public Map<String, Object> getManagedDeptsStatistics(Long userId) {
+    public Map<String, Object> getManagedDeptsStatistics(Long userId, boolean forceRefresh) {
         Map<String, Object> statistics = new LinkedHashMap<>();
 
         try {
             if (userId == null || userId <= 0) {
                 return statistics;
             }
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
 
             Set<Long> managedUserIds = collectManagedUserIds(userId);
             if (managedUserIds.isEmpty()) {
@@ -77,16 +106,9 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 return statistics;
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            long activeUserTotal = Optional.ofNullable(userMapper.countActiveUsersByIds(managedUserIds)).orElse(0L);
-
-            Map<UserIdentity, Long> identityCounts = new EnumMap<>(UserIdentity.class);
-            Set<Long> knownUsers = new LinkedHashSet<>();
-            for (UserIdentity identity : UserIdentity.values()) {
-                Set<Long> users = membership.getOrDefault(identity, Collections.emptySet());
-                identityCounts.put(identity, (long) users.size());
-                knownUsers.addAll(users);
-            }
+            Map<String, Long> roleCounts = countSubtreeUsersByRoleKey(cached, userId);
+            Map<UserIdentity, Long> identityCounts = toIdentityCounts(roleCounts);
+            long activeUserTotal = roleCounts.getOrDefault(ALL_USERS_KEY, 0L);
 
             long systemCount = identityCounts.getOrDefault(UserIdentity.ADMIN, 0L);
             long level1AgentCount = identityCounts.getOrDefault(UserIdentity.AGENT_LEVEL_1, 0L);
@@ -96,7 +118,7 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
             long buyerSubCount = identityCounts.getOrDefault(UserIdentity.BUYER_SUB, 0L);
 
             long agentTotal = level1AgentCount + level2AgentCount + level3AgentCount;
-            long knownTotal = knownUsers.size();
+            long knownTotal = roleCounts.getOrDefault(KNOWN_USERS_KEY, 0L);
             long unknownCount = Math.max(0L, activeUserTotal - knownTotal);
 
             initializeDeptStatistics(statistics, systemCount, level1AgentCount, level2AgentCount, level3AgentCount,
@@ -124,13 +146,14 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     }
 
     @Override
-    public Map<String, Object> getManagedAgentLevelsStatistics(Long userId) {
+    public Map<String, Object> getManagedAgentLevelsStatistics(Long userId, boolean forceRefresh) {
         Map<String, Object> statistics = new LinkedHashMap<>();
 
         try {
             if (userId == null || userId <= 0) {
                 return statistics;
             }
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
 
             Set<Long> managedUserIds = collectManagedUserIds(userId);
             if (managedUserIds.isEmpty()) {
@@ -143,35 +166,38 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 return statistics;
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-
-            Set<Long> level1Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_1, Collections.emptySet()));
-            Set<Long> level2Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_2, Collections.emptySet()));
-            Set<Long> level3Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_3, Collections.emptySet()));
-
-            long level1Count = level1Agents.size();
-            long level2Count = level2Agents.size();
-            long level3Count = level3Agents.size();
+            Map<UserIdentity, Long> identityCounts;
+            Map<String, Map<String, Object>> commissionRows;
+            Map<String, BigDecimal> rechargeByAgentRole;
+            Map<String, Object> merchantPerformance;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                Subtask<Map<String, Long>> roleCountsTask = scope.fork(() -> countSubtreeUsersByRoleKey(cached, userId));
+                Subtask<Map<String, Map<String, Object>>> commissionTask = scope.fork(() -> loadSubtreeCommissionRows(cached, userId));
+                Subtask<Map<String, BigDecimal>> rechargeTask = scope.fork(() -> sumBuyerRechargeByAgentRoleKey(cached, userId));
+                Subtask<Map<String, Map<String, Object>>> buyerRechargeTask = scope.fork(() -> loadSubtreeBuyerRechargeRows(cached, userId));
+                Subtask<Map<String, Object>> instanceTask = scope.fork(() -> buildSubtreeInstanceStatistics(cached, userId));
+                Subtask<Map<String, Object>> aiTask = scope.fork(() -> buildSubtreeAiCharacterStatistics(cached, userId));
+                Subtask<List<Map<String, Object>>> buyerMainTask = scope.fork(() -> buildBuyerMainDetails(cached, userId));
+                scope.join();
+
+                identityCounts = toIdentityCounts(roleCountsTask.get());
+                commissionRows = commissionTask.get();
+                rechargeByAgentRole = rechargeTask.get();
+                merchantPerformance = buildMerchantPerformance(identityCounts, buyerRechargeTask.get(),
+                    instanceTask.get(), aiTask.get(), buyerMainTask.get());
+            }
+            long level1Count = identityCounts.getOrDefault(UserIdentity.AGENT_LEVEL_1, 0L);
+            long level2Count = identityCounts.getOrDefault(UserIdentity.AGENT_LEVEL_2, 0L);
+            long level3Count = identityCounts.getOrDefault(UserIdentity.AGENT_LEVEL_3, 0L);
             long totalAgents = level1Count + level2Count + level3Count;
 
             initializeAgentStatistics(statistics, level1Count, level2Count, level3Count);
             statistics.put("totalAgents", totalAgents);
             statistics.put("managedUserIds", Collections.unmodifiableSet(new LinkedHashSet<>(managedUserIds)));
 
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> buyerSubIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-            Set<Long> buyerUserIds = new LinkedHashSet<>(buyerMainIds);
-            buyerUserIds.addAll(buyerSubIds);
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(buyerUserIds);
-            Map<Long, BigDecimal> commissionMap = fetchCommissionByUserIds(managedUserIds);
-
-            statistics.put("rechargeStatistics",
-                buildAgentRechargeStatistics(level1Agents, level2Agents, level3Agents, buyerMainIds, buyerSubIds, rechargeMap));
-            statistics.put("commissionStatistics",
-                buildAgentCommissionStatistics(level1Agents, level2Agents, level3Agents, commissionMap));
-            statistics.put("merchantPerformance",
-                buildMerchantPerformance(buyerMainIds, buyerSubIds, rechargeMap, buyerUserIds));
+            statistics.put("rechargeStatistics", buildAgentRechargeStatistics(rechargeByAgentRole));
+            statistics.put("commissionStatistics", buildAgentCommissionStatistics(commissionRows));
+            statistics.put("merchantPerformance", merchantPerformance);
 
         } catch (Exception e) {
             log.error("Failed to build agent level statistics: userId={}", userId, e);
@@ -187,13 +213,14 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     }
 
     @Override
-    public Map<String, Object> getManagedBuyerAccountsStatistics(Long userId) {
+    public Map<String, Object> getManagedBuyerAccountsStatistics(Long userId, boolean forceRefresh) {
         Map<String, Object> statistics = new LinkedHashMap<>();
 
         try {
             if (userId == null || userId <= 0) {
                 return statistics;
             }
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
 
             Set<Long> managedUserIds = collectManagedUserIds(userId);
             if (managedUserIds.isEmpty()) {
@@ -204,20 +231,21 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 return statistics;
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> buyerSubIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-
-            Set<Long> buyerUserIds = new LinkedHashSet<>(buyerMainIds);
-            buyerUserIds.addAll(buyerSubIds);
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(buyerUserIds);
-
-            long buyerMainCount = buyerMainIds.size();
-            long buyerSubCount = buyerSubIds.size();
+            Map<UserIdentity, Long> identityCounts;
+            List<Map<String, Object>> buyerMainDetails;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                Subtask<Map<String, Long>> roleCountsTask = scope.fork(() -> countSubtreeUsersByRoleKey(cached, userId));
+                Subtask<List<Map<String, Object>>> buyerMainTask = scope.fork(() -> buildBuyerMainDetails(cached, userId));
+                scope.join();
+                identityCounts = toIdentityCounts(roleCountsTask.get());
+                buyerMainDetails = buyerMainTask.get();
+            }
+            long buyerMainCount = identityCounts.getOrDefault(UserIdentity.BUYER_MAIN, 0L);
+            long buyerSubCount = identityCounts.getOrDefault(UserIdentity.BUYER_SUB, 0L);
 
             initializeBuyerStatistics(statistics, buyerMainCount, buyerSubCount);
             statistics.put("totalBuyerAccounts", buyerMainCount + buyerSubCount);
-            statistics.put("buyerMainDetails", buildBuyerMainDetails(buyerMainIds, buyerSubIds, rechargeMap));
+            statistics.put("buyerMainDetails", buyerMainDetails);
             statistics.put("managedUserIds", Collections.unmodifiableSet(new LinkedHashSet<>(managedUserIds)));
 
         } catch (Exception e) {
@@ -256,47 +284,31 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     }
 
     @Override
-    public Map<String, Object> getAdminAgentPerformanceStatistics(Long userId) {
+    public Map<String, Object> getAdminAgentPerformanceStatistics(Long userId, boolean forceRefresh) {
         Map<String, Object> statistics = new LinkedHashMap<>();
 
         try {
             if (userId == null || userId <= 0) {
                 return statistics;
             }
-
-            // 收集可管理的用户ID
-            Set<Long> managedUserIds = collectManagedUserIds(userId);
-            if (managedUserIds.isEmpty()) {
-                statistics.put("generalAgent", buildEmptyPerformance(UserIdentity.AGENT_LEVEL_1.getRoleKey(), "总代"));
-                statistics.put("level1Agent", buildEmptyPerformance(UserIdentity.AGENT_LEVEL_2.getRoleKey(), "一级代理"));
-                statistics.put("level2Agent", buildEmptyPerformance(UserIdentity.AGENT_LEVEL_3.getRoleKey(), "二级代理"));
-                statistics.put("total", buildEmptyPerformance("total", "合计"));
-                return statistics;
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
+
+            Map<String, BigDecimal> rechargeByAgentRole;
+            Map<String, Map<String, Object>> commissionRows;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                Subtask<Map<String, BigDecimal>> rechargeTask = scope.fork(() -> sumBuyerRechargeByAgentRoleKey(cached, userId));
+                Subtask<Map<String, Map<String, Object>>> commissionTask = scope.fork(() -> loadSubtreeCommissionRows(cached, userId));
+                scope.join();
+                rechargeByAgentRole = rechargeTask.get();
+                commissionRows = commissionTask.get();
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-
-            Set<Long> level1Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_1, Collections.emptySet()));
-            Set<Long> level2Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_2, Collections.emptySet()));
-            Set<Long> level3Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_3, Collections.emptySet()));
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> buyerSubIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-
-            Set<Long> buyerUserIds = new LinkedHashSet<>(buyerMainIds);
-            buyerUserIds.addAll(buyerSubIds);
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(buyerUserIds);
-            Map<Long, BigDecimal> commissionMap = fetchCommissionByUserIds(managedUserIds);
-
             Map<String, Object> generalPerformance = buildAgentPerformance(
-                UserIdentity.AGENT_LEVEL_1.getRoleKey(), "总代",
-                level1Agents, buyerMainIds, buyerSubIds, rechargeMap, commissionMap);
+                UserIdentity.AGENT_LEVEL_1.getRoleKey(), "总代", rechargeByAgentRole, commissionRows);
             Map<String, Object> level1Performance = buildAgentPerformance(
-                UserIdentity.AGENT_LEVEL_2.getRoleKey(), "一级代理",
-                level2Agents, buyerMainIds, buyerSubIds, rechargeMap, commissionMap);
+                UserIdentity.AGENT_LEVEL_2.getRoleKey(), "一级代理", rechargeByAgentRole, commissionRows);
             Map<String, Object> level2Performance = buildAgentPerformance(
-                UserIdentity.AGENT_LEVEL_3.getRoleKey(), "二级代理",
-                level3Agents, buyerMainIds, buyerSubIds, rechargeMap, commissionMap);
+                UserIdentity.AGENT_LEVEL_3.getRoleKey(), "二级代理", rechargeByAgentRole, commissionRows);
 
             BigDecimal totalRecharge = toBigDecimal(generalPerformance.get("totalRecharge"))
                 .add(toBigDecimal(level1Performance.get("totalRecharge")))
@@ -332,41 +344,37 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     }
 
     @Override
-    public Map<String, Object> getAdminMerchantsPerformanceStatistics(Long userId) {
+    public Map<String, Object> getAdminMerchantsPerformanceStatistics(Long userId, boolean forceRefresh) {
         Map<String, Object> statistics = new LinkedHashMap<>();
 
         try {
             if (userId == null || userId <= 0) {
                 return statistics;
             }
-
-            Set<Long> managedUserIds = collectManagedUserIds(userId);
-            if (managedUserIds.isEmpty()) {
-                statistics.put("merchantOverview", buildEmptyMerchantOverview());
-                statistics.put("aiCharacterOverview", buildAiCharacterStatistics(Collections.emptySet()));
-                statistics.put("marketingInstanceOverview", buildEmptyInstanceOverview());
-                statistics.put("prospectingInstanceOverview", buildEmptyInstanceOverview());
-                return statistics;
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
+
+            Map<String, Map<String, Object>> rechargeRows;
+            Map<String, Object> aiCharacterOverview;
+            Map<String, Object> instanceStats;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                Subtask<Map<String, Map<String, Object>>> rechargeTask = scope.fork(() -> loadSubtreeBuyerRechargeRows(cached, userId));
+                Subtask<Map<String, Object>> aiTask = scope.fork(() -> buildSubtreeAiCharacterStatistics(cached, userId));
+                Subtask<Map<String, Object>> instanceTask = scope.fork(() -> buildSubtreeInstanceStatistics(cached, userId));
+                scope.join();
+                rechargeRows = rechargeTask.get();
+                aiCharacterOverview = aiTask.get();
+                instanceStats = instanceTask.get();
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> buyerSubIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-            Set<Long> buyerUserIds = new LinkedHashSet<>(buyerMainIds);
-            buyerUserIds.addAll(buyerSubIds);
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(buyerMainIds);
-            BigDecimal totalRecharge = formatAmount(sumRechargeForUsers(buyerMainIds, rechargeMap));
-
             Map<String, Object> merchantOverview = new LinkedHashMap<>();
-            merchantOverview.put("merchantCount", (long) buyerMainIds.size());
-            merchantOverview.put("employeeCount", (long) buyerSubIds.size());
-            merchantOverview.put("totalPerformance", totalRecharge);
+            merchantOverview.put("merchantCount", roleUserCount(rechargeRows, UserIdentity.BUYER_MAIN.getRoleKey()));
+            merchantOverview.put("employeeCount", roleUserCount(rechargeRows, UserIdentity.BUYER_SUB.getRoleKey()));
+            merchantOverview.put("totalPerformance",
+                formatAmount(roleAmount(rechargeRows, UserIdentity.BUYER_MAIN.getRoleKey(), "totalRecharge")));
             statistics.put("merchantOverview", merchantOverview);
 
-            statistics.put("aiCharacterOverview", buildAiCharacterStatistics(buyerUserIds));
+            statistics.put("aiCharacterOverview", aiCharacterOverview);
 
-            Map<String, Object> instanceStats = buildInstanceStatistics(buyerUserIds);
             Map<String, Object> marketingOverview = new LinkedHashMap<>();
             marketingOverview.put("instanceCount", instanceStats.getOrDefault("marketingInstanceCount", 0L));
             marketingOverview.put("platformBreakdown", instanceStats.getOrDefault("marketingPlatformBreakdown", Collections.emptyMap()));
@@ -397,26 +405,19 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 return statistics;
             }
 
-            Set<Long> managedUserIds = collectManagedUserIds(userId);
-            if (managedUserIds.isEmpty()) {
-                statistics.put("totalRecharge", formatAmount(BigDecimal.ZERO));
-                statistics.put("settledCommission", formatAmount(BigDecimal.ZERO));
-                statistics.put("netValue", formatAmount(BigDecimal.ZERO));
-                return statistics;
+            Map<String, Map<String, Object>> rechargeRows;
+            Map<String, Map<String, Object>> commissionRows;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                Subtask<List<Map<String, Object>>> rechargeTask = scope.fork(() -> closureMapper.sumSubtreeRechargeByRoleKey(
+                    userId, true, Collections.singletonList(UserIdentity.BUYER_MAIN.getRoleKey())));
+                Subtask<List<Map<String, Object>>> commissionTask = scope.fork(() ->
+                    closureMapper.sumSubtreeCommissionByRoleKey(userId, true, AGENT_ROLE_KEYS));
+                scope.join();
+                rechargeRows = indexByRoleKey(rechargeTask.get());
+                commissionRows = indexByRoleKey(commissionTask.get());
             }
-
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> agentIds = new LinkedHashSet<>();
-            agentIds.addAll(membership.getOrDefault(UserIdentity.AGENT_LEVEL_1, Collections.emptySet()));
-            agentIds.addAll(membership.getOrDefault(UserIdentity.AGENT_LEVEL_2, Collections.emptySet()));
-            agentIds.addAll(membership.getOrDefault(UserIdentity.AGENT_LEVEL_3, Collections.emptySet()));
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(buyerMainIds);
-            BigDecimal totalRecharge = formatAmount(sumRechargeForUsers(buyerMainIds, rechargeMap));
-
-            Map<Long, BigDecimal> commissionMap = fetchSettledCommissionByUserIds(agentIds);
-            BigDecimal settledCommission = formatAmount(sumCommissionForAgents(agentIds, commissionMap));
+            BigDecimal totalRecharge = formatAmount(roleAmount(rechargeRows, ALL_USERS_KEY, "totalRecharge"));
+            BigDecimal settledCommission = formatAmount(roleAmount(commissionRows, ALL_USERS_KEY, "settledCommission"));
 
             BigDecimal netValue = formatAmount(totalRecharge.subtract(settledCommission));
 
@@ -441,56 +442,34 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
             if (generalAgentId == null || generalAgentId <= 0) {
                 throw new IllegalArgumentException("总代ID无效");
             }
-            SysUser generalAgent = userMapper.selectUserWithDept(generalAgentId);
+            SysUser generalAgent = userDataLoader.loadUser(generalAgentId);
             if (generalAgent == null) {
                 throw new IllegalArgumentException("总代不存在");
             }
 
-            Set<String> roleKeys = userMapper.selectRoleKeysByUserId(generalAgentId);
+            Set<String> roleKeys = userDataLoader.loadRoleKeys(generalAgentId);
             if (roleKeys == null || !UserRoleUtils.hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_1)) {
                 throw new IllegalArgumentException("仅支持总代查询");
             }
 
             statistics.put("level1Agent", buildGeneralAgentSummary(generalAgent));
 
-            Set<Long> managedUserIds = collectManagedUserIds(generalAgentId);
-            if (managedUserIds.size() <= 1) {
-                statistics.put("level2Agents", buildAgentTierSummary(UserIdentity.AGENT_LEVEL_2, "一级代理", 0L, BigDecimal.ZERO));
-                statistics.put("level3Agents", buildAgentTierSummary(UserIdentity.AGENT_LEVEL_3, "二级代理", 0L, BigDecimal.ZERO));
-                statistics.put("merchants", buildMerchantSummary(UserIdentity.BUYER_MAIN, "商家", 0L, BigDecimal.ZERO));
-                statistics.put("totals", buildTotalsSummary(BigDecimal.ZERO, BigDecimal.ZERO));
-                return statistics;
-            }
-
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            Set<Long> agentLevel1Ids = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_2, Collections.emptySet()));
-            Set<Long> agentLevel2Ids = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_3, Collections.emptySet()));
-            Set<Long> buyerMainIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            Set<Long> buyerSubIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-
-            agentLevel1Ids.remove(generalAgentId);
-            agentLevel2Ids.remove(generalAgentId);
-            buyerMainIds.remove(generalAgentId);
-            buyerSubIds.remove(generalAgentId);
-
-            Set<Long> commissionTargets = new LinkedHashSet<>();
-            commissionTargets.addAll(agentLevel1Ids);
-            commissionTargets.addAll(agentLevel2Ids);
-            Map<Long, BigDecimal> commissionMap = fetchCommissionByUserIds(commissionTargets);
+            Map<String, Map<String, Object>> contribution = loadSubtreeContribution(generalAgentId,
+                UserIdentity.AGENT_LEVEL_2, UserIdentity.AGENT_LEVEL_3, UserIdentity.BUYER_MAIN);
+            String level1Key = UserIdentity.AGENT_LEVEL_2.getRoleKey();
+            String level2Key = UserIdentity.AGENT_LEVEL_3.getRoleKey();
+            String merchantKey = UserIdentity.BUYER_MAIN.getRoleKey();
 
-            BigDecimal level1Commission = sumCommissionForAgents(agentLevel1Ids, commissionMap);
-            BigDecimal level2Commission = sumCommissionForAgents(agentLevel2Ids, commissionMap);
-
-            Set<Long> rechargeTargets = new LinkedHashSet<>(buyerMainIds);
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(rechargeTargets);
-            BigDecimal merchantRecharge = sumRechargeForUsers(rechargeTargets, rechargeMap);
+            BigDecimal level1Commission = roleAmount(contribution, level1Key, "totalCommission");
+            BigDecimal level2Commission = roleAmount(contribution, level2Key, "totalCommission");
+            BigDecimal merchantRecharge = roleAmount(contribution, merchantKey, "totalRecharge");
 
             statistics.put("level2Agents", buildAgentTierSummary(
-                UserIdentity.AGENT_LEVEL_2, "一级代理", (long) agentLevel1Ids.size(), level1Commission));
+                UserIdentity.AGENT_LEVEL_2, "一级代理", roleUserCount(contribution, level1Key), level1Commission));
             statistics.put("level3Agents", buildAgentTierSummary(
-                UserIdentity.AGENT_LEVEL_3, "二级代理", (long) agentLevel2Ids.size(), level2Commission));
+                UserIdentity.AGENT_LEVEL_3, "二级代理", roleUserCount(contribution, level2Key), level2Commission));
             statistics.put("merchants", buildMerchantSummary(
-                UserIdentity.BUYER_MAIN, "商家", (long) buyerMainIds.size(), merchantRecharge));
+                UserIdentity.BUYER_MAIN, "商家", roleUserCount(contribution, merchantKey), merchantRecharge));
 
             BigDecimal totalCommission = level1Commission.add(level2Commission);
             statistics.put("totals", buildTotalsSummary(totalCommission, merchantRecharge));
@@ -509,31 +488,18 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 "一级代理ID无效", "一级代理不存在", "仅支持一级代理查询");
             statistics.put("level2Agent", buildGeneralAgentSummary(agent));
 
-            Set<Long> managedIds = collectManagedUserIds(level1AgentId);
-            if (managedIds.size() <= 1) {
-                statistics.put("level3Agents", buildAgentTierSummary(UserIdentity.AGENT_LEVEL_3, "二级代理", 0L, BigDecimal.ZERO));
-                statistics.put("merchants", buildMerchantSummary(UserIdentity.BUYER_MAIN, "商家", 0L, BigDecimal.ZERO));
-                statistics.put("totals", buildTotalsSummary(BigDecimal.ZERO, BigDecimal.ZERO));
-                return statistics;
-            }
+            Map<String, Map<String, Object>> contribution = loadSubtreeContribution(level1AgentId,
+                UserIdentity.AGENT_LEVEL_3, UserIdentity.BUYER_MAIN);
+            String level2Key = UserIdentity.AGENT_LEVEL_3.getRoleKey();
+            String merchantKey = UserIdentity.BUYER_MAIN.getRoleKey();
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedIds);
-            Set<Long> level2Agents = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.AGENT_LEVEL_3, Collections.emptySet()));
-            Set<Long> merchants = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-
-            level2Agents.remove(level1AgentId);
-            merchants.remove(level1AgentId);
-
-            Map<Long, BigDecimal> commissionMap = fetchCommissionByUserIds(level2Agents);
-            BigDecimal level2Commission = sumCommissionForAgents(level2Agents, commissionMap);
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(merchants);
-            BigDecimal merchantRecharge = sumRechargeForUsers(merchants, rechargeMap);
+            BigDecimal level2Commission = roleAmount(contribution, level2Key, "totalCommission");
+            BigDecimal merchantRecharge = roleAmount(contribution, merchantKey, "totalRecharge");
 
             statistics.put("level3Agents", buildAgentTierSummary(
-                UserIdentity.AGENT_LEVEL_3, "二级代理", (long) level2Agents.size(), level2Commission));
+                UserIdentity.AGENT_LEVEL_3, "二级代理", roleUserCount(contribution, level2Key), level2Commission));
             statistics.put("merchants", buildMerchantSummary(
-                UserIdentity.BUYER_MAIN, "商家", (long) merchants.size(), merchantRecharge));
+                UserIdentity.BUYER_MAIN, "商家", roleUserCount(contribution, merchantKey), merchantRecharge));
             statistics.put("totals", buildTotalsSummary(level2Commission, merchantRecharge));
         } catch (Exception ex) {
             log.error("Failed to build level1 agent contribution statistics: level1AgentId={}", level1AgentId, ex);
@@ -550,22 +516,12 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 "二级代理ID无效", "二级代理不存在", "仅支持二级代理查询");
             statistics.put("level3Agent", buildGeneralAgentSummary(agent));
 
-            Set<Long> managedIds = collectManagedUserIds(level2AgentId);
-            if (managedIds.size() <= 1) {
-                statistics.put("merchants", buildMerchantSummary(UserIdentity.BUYER_MAIN, "商家", 0L, BigDecimal.ZERO));
-                statistics.put("totals", buildTotalsSummary(BigDecimal.ZERO, BigDecimal.ZERO));
-                return statistics;
-            }
-
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedIds);
-            Set<Long> merchants = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_MAIN, Collections.emptySet()));
-            merchants.remove(level2AgentId);
-
-            Map<Long, BigDecimal> rechargeMap = fetchRechargeByUserIds(merchants);
-            BigDecimal merchantRecharge = sumRechargeForUsers(merchants, rechargeMap);
+            Map<String, Map<String, Object>> contribution = loadSubtreeContribution(level2AgentId, UserIdentity.BUYER_MAIN);
+            String merchantKey = UserIdentity.BUYER_MAIN.getRoleKey();
+            BigDecimal merchantRecharge = roleAmount(contribution, merchantKey, "totalRecharge");
 
             statistics.put("merchants", buildMerchantSummary(
-                UserIdentity.BUYER_MAIN, "商家", (long) merchants.size(), merchantRecharge));
+                UserIdentity.BUYER_MAIN, "商家", roleUserCount(contribution, merchantKey), merchantRecharge));
             statistics.put("totals", buildTotalsSummary(BigDecimal.ZERO, merchantRecharge));
         } catch (Exception ex) {
             log.error("Failed to build level2 agent contribution statistics: level2AgentId={}", level2AgentId, ex);
@@ -583,12 +539,12 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
                 return statistics;
             }
 
-            SysUser agent = userMapper.selectUserWithDept(agentUserId);
+            SysUser agent = userDataLoader.loadUser(agentUserId);
             if (agent == null) {
                 throw new RuntimeException("用户不存在");
             }
 
-            Set<String> roleKeys = userMapper.selectRoleKeysByUserId(agentUserId);
+            Set<String> roleKeys = userDataLoader.loadRoleKeys(agentUserId);
             if (roleKeys == null || roleKeys.isEmpty()) {
                 throw new RuntimeException("用户未配置身份");
             }
@@ -634,52 +590,88 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
     }
 
     @Override
-    public Map<String, Object> getBuyerOperationalStatistics(Long buyerUserId) {
+    public Map<String, Object> getBuyerOperationalStatistics(Long buyerUserId, boolean forceRefresh) {
         Map<String, Object> snapshot = new LinkedHashMap<>();
         try {
             if (buyerUserId == null || buyerUserId <= 0) {
                 throw new IllegalArgumentException("买家用户ID无效");
             }
 
-            SysUser buyer = userMapper.selectUserWithDept(buyerUserId);
-            if (buyer == null) {
-                throw new RuntimeException("买家不存在");
-            }
-
-            Set<String> buyerRoles = userMapper.selectRoleKeysByUserId(buyerUserId);
-            if (buyerRoles == null || buyerRoles.isEmpty()
-                || !UserRoleUtils.hasIdentity(buyerRoles, UserIdentity.BUYER_MAIN)) {
-                throw new RuntimeException("仅支持买家主账户查询");
-            }
-
-            BigDecimal drBalance = formatAmount(userMapper.selectDrBalanceByUserId(buyerUserId));
-
-            Set<Long> managedUserIds = collectManagedUserIds(buyerUserId);
-            if (managedUserIds.size() <= 1) {
-                List<SysUser> directSubs = userMapper.selectSubAccountsByParentUserId(buyerUserId);
-                if (directSubs != null) {
-                    directSubs.stream()
-                        .map(SysUser::getUserId)
-                        .filter(Objects::nonNull)
-                        .forEach(managedUserIds::add);
+            SubtreeStatisticsSnapshot cached = resolveStatisticsSnapshot(forceRefresh);
+            SubtreeStatisticsSnapshot.UserFacts buyerFacts = cached != null ? cached.factsOf(buyerUserId) : null;
+
+            String buyerUsername;
+            String buyerNickname;
+            long staffCount;
+            BigDecimal drBalance;
+            Map<String, Object> aiStats;
+            Map<String, Object> instanceStats;
+            try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+                // 余额随扣费频繁变化，始终实时读取
+                Subtask<BigDecimal> balanceTask = scope.fork(() -> userMapper.selectDrBalanceByUserId(buyerUserId));
+                if (buyerFacts != null) {
+                    if (!buyerFacts.hasIdentity(UserIdentity.BUYER_MAIN)) {
+                        throw new RuntimeException("仅支持买家主账户查询");
+                    }
+                    // 买家主账号的子树即其员工子账号，实例与AI人设直接读取子树汇总
+                    Subtask<Map<String, Object>> instanceTask = scope.fork(() -> buildSubtreeInstanceStatistics(cached, buyerUserId));
+                    buyerUsername = buyerFacts.getUsername();
+                    buyerNickname = buyerFacts.getNickname();
+                    staffCount = countSubtreeUsersByRoleKey(cached, buyerUserId)
+                        .getOrDefault(UserIdentity.BUYER_SUB.getRoleKey(), 0L);
+                    aiStats = buildSubtreeAiCharacterStatistics(cached, buyerUserId);
+                    scope.join();
+                    instanceStats = instanceTask.get();
+                } else {
+                    Set<Long> managedUserIds = collectManagedUserIds(buyerUserId);
+                    boolean hierarchyMissing = managedUserIds.size() <= 1;
+                    Subtask<SysUser> buyerTask = scope.fork(() -> userDataLoader.loadUser(buyerUserId));
+                    Subtask<Set<String>> rolesTask = scope.fork(() -> userDataLoader.loadRoleKeys(buyerUserId));
+                    Subtask<List<SysUser>> directSubsTask = scope.fork(() -> hierarchyMissing
+                        ? userMapper.selectSubAccountsByParentUserId(buyerUserId)
+                        : Collections.<SysUser>emptyList());
+                    scope.join();
+
+                    SysUser buyer = buyerTask.get();
+                    if (buyer == null) {
+                        throw new RuntimeException("买家不存在");
+                    }
+                    Set<String> buyerRoles = rolesTask.get();
+                    if (buyerRoles == null || buyerRoles.isEmpty()
+                        || !UserRoleUtils.hasIdentity(buyerRoles, UserIdentity.BUYER_MAIN)) {
+                        throw new RuntimeException("仅支持买家主账户查询");
+                    }
+                    List<SysUser> directSubs = directSubsTask.get();
+                    if (directSubs != null) {
+                        directSubs.stream()
+                            .map(SysUser::getUserId)
+                            .filter(Objects::nonNull)
+                            .forEach(managedUserIds::add);
+                    }
+
+                    Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
+                    Set<Long> staffIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
+                    Set<Long> ownerIds = new LinkedHashSet<>(staffIds);
+                    ownerIds.add(buyerUserId);
+
+                    Subtask<Map<String, Object>> aiTask = scope.fork(() -> buildAiCharacterStatistics(ownerIds));
+                    Subtask<Map<String, Object>> instanceTask = scope.fork(() -> buildInstanceStatistics(ownerIds));
+                    scope.join();
+
+                    buyerUsername = Objects.toString(buyer.getUsername(), "");
+                    buyerNickname = Objects.toString(buyer.getNickname(), "");
+                    staffCount = staffIds.size();
+                    aiStats = aiTask.get();
+                    instanceStats = instanceTask.get();
                 }
+                drBalance = formatAmount(balanceTask.get());
             }
 
-            Map<UserIdentity, Set<Long>> membership = resolveIdentityMembership(managedUserIds);
-            Set<Long> staffIds = new LinkedHashSet<>(membership.getOrDefault(UserIdentity.BUYER_SUB, Collections.emptySet()));
-            long staffCount = staffIds.size();
-
-            Set<Long> characterOwners = new LinkedHashSet<>(staffIds);
-            characterOwners.add(buyerUserId);
-            Map<String, Object> aiStats = buildAiCharacterStatistics(characterOwners);
             Map<String, Long> aiCharacterCounts = new LinkedHashMap<>();
             aiCharacterCounts.put("customerService", safeLongValue(aiStats.get("customerServiceAiCount")));
             aiCharacterCounts.put("design", safeLongValue(aiStats.get("socialAiCount")));
             aiCharacterCounts.put("total", safeLongValue(aiStats.get("totalCharacters")));
 
-            Set<Long> instanceOwners = new LinkedHashSet<>(staffIds);
-            instanceOwners.add(buyerUserId);
-            Map<String, Object> instanceStats = buildInstanceStatistics(instanceOwners);
             Map<String, Long> marketingBreakdown = castToLongMap(instanceStats.get("marketingPlatformBreakdown"));
             Map<String, Long> prospectingBreakdown = castToLongMap(instanceStats.get("prospectingPlatformBreakdown"));
 
@@ -699,8 +691,8 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
             BigDecimal expectedDailyDeduct = computeExpectedInstanceDailyDeduct(marketingCount, prospectingCount);
 
             snapshot.put("buyerId", buyerUserId);
-            snapshot.put("buyerUsername", Objects.toString(buyer.getUsername(), ""));
-            snapshot.put("buyerNickname", Objects.toString(buyer.getNickname(), ""));
+            snapshot.put("buyerUsername", buyerUsername);
+            snapshot.put("buyerNickname", buyerNickname);
             snapshot.put("drBalance", drBalance);
             snapshot.put("staffCount", staffCount);
             snapshot.put("aiCharacterCounts", aiCharacterCounts);
@@ -721,12 +713,12 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
             if (agentUserId == null || agentUserId <= 0) {
                 throw new IllegalArgumentException("代理用户ID无效");
             }
-            SysUser agent = userMapper.selectUserWithDept(agentUserId);
+            SysUser agent = userDataLoader.loadUser(agentUserId);
             if (agent == null) {
                 throw new IllegalArgumentException("代理用户不存在");
             }
 
-            Set<String> roles = userMapper.selectRoleKeysByUserId(agentUserId);
+            Set<String> roles = userDataLoader.loadRoleKeys(agentUserId);
             if (roles == null || !UserRoleUtils.hasAnyIdentity(roles,
                 UserIdentity.AGENT_LEVEL_1, UserIdentity.AGENT_LEVEL_2, UserIdentity.AGENT_LEVEL_3)) {
                 throw new IllegalArgumentException("仅代理身份用户支持查询");
@@ -786,6 +778,109 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return managedUserIds;
     }
 
+    /**
+     * 获取子树统计快照：要求强制刷新、未启用或快照不可用时返回 null，由各统计项回退到闭包表查询
+     */
+    private SubtreeStatisticsSnapshot resolveStatisticsSnapshot(boolean forceRefresh) {
+        if (forceRefresh || statisticsCache == null) {
+            return null;
+        }
+        return statisticsCache.current();
+    }
+
+    /**
+     * 按角色统计子树（含自身）中的正常状态用户数，另含全部用户（*）与已识别身份用户（+）
+     */
+    private Map<String, Long> countSubtreeUsersByRoleKey(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        if (cached != null) {
+            return cached.countUsersByRoleKey(rootUserId);
+        }
+        Map<String, Long> counts = new HashMap<>();
+        List<Map<String, Object>> rows = closureMapper.countSubtreeUsersByRoleKey(rootUserId, true, IDENTITY_ROLE_KEYS);
+        if (rows == null) {
+            return counts;
+        }
+        for (Map<String, Object> row : rows) {
+            if (row == null || !(row.get("roleKey") instanceof String)) {
+                continue;
+            }
+            counts.merge((String) row.get("roleKey"), safeLongValue(row.get("userCount")), Long::sum);
+        }
+        return counts;
+    }
+
+    private Map<UserIdentity, Long> toIdentityCounts(Map<String, Long> roleCounts) {
+        Map<UserIdentity, Long> identityCounts = new EnumMap<>(UserIdentity.class);
+        for (UserIdentity identity : UserIdentity.values()) {
+            identityCounts.put(identity, roleCounts.getOrDefault(identity.getRoleKey(), 0L));
+        }
+        return identityCounts;
+    }
+
+    /**
+     * 子树中各角色代理名下买家（去重）的充值总额，键为代理角色标识
+     */
+    private Map<String, BigDecimal> sumBuyerRechargeByAgentRoleKey(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        Map<String, BigDecimal> result = new HashMap<>();
+        if (cached != null) {
+            cached.sumBuyerRechargeByAgentRoleKey(rootUserId).forEach((roleKey, amount) -> result.put(roleKey, formatAmount(amount)));
+            return result;
+        }
+        Map<String, Map<String, Object>> rows = indexByRoleKey(
+            closureMapper.sumBuyerRechargeByAgentRoleKey(rootUserId, AGENT_ROLE_KEYS, BUYER_ROLE_KEYS));
+        rows.forEach((roleKey, row) -> result.put(roleKey, formatAmount(toBigDecimal(row.get("totalRecharge")))));
+        return result;
+    }
+
+    /**
+     * 子树（含自身）各级代理的人数与佣金，按角色标识索引
+     */
+    private Map<String, Map<String, Object>> loadSubtreeCommissionRows(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        return indexByRoleKey(cached != null
+            ? cached.sumCommissionByRoleKey(rootUserId)
+            : closureMapper.sumSubtreeCommissionByRoleKey(rootUserId, true, AGENT_ROLE_KEYS));
+    }
+
+    /**
+     * 子树（含自身）买家各身份的人数与充值总额，另含去重合计（*），按角色标识索引
+     */
+    private Map<String, Map<String, Object>> loadSubtreeBuyerRechargeRows(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        return indexByRoleKey(cached != null
+            ? cached.sumBuyerRechargeByRoleKey(rootUserId)
+            : closureMapper.sumSubtreeRechargeByRoleKey(rootUserId, true, BUYER_ROLE_KEYS));
+    }
+
+    /**
+     * 代理贡献统计：一次分组查询得到子树（不含自身）中各角色的人数、累计佣金与充值总额
+     */
+    private Map<String, Map<String, Object>> loadSubtreeContribution(Long rootUserId, UserIdentity... identities) {
+        List<String> roleKeys = Arrays.stream(identities).map(UserIdentity::getRoleKey).collect(Collectors.toList());
+        return indexByRoleKey(closureMapper.sumSubtreeContributionByRoleKey(rootUserId, false, roleKeys));
+    }
+
+    private Map<String, Map<String, Object>> indexByRoleKey(List<Map<String, Object>> rows) {
+        Map<String, Map<String, Object>> index = new HashMap<>();
+        if (rows == null) {
+            return index;
+        }
+        for (Map<String, Object> row : rows) {
+            if (row != null && row.get("roleKey") instanceof String) {
+                index.put((String) row.get("roleKey"), row);
+            }
+        }
+        return index;
+    }
+
+    private BigDecimal roleAmount(Map<String, Map<String, Object>> rows, String roleKey, String column) {
+        Map<String, Object> row = rows.get(roleKey);
+        return row != null ? toBigDecimal(row.get(column)) : BigDecimal.ZERO;
+    }
+
+    private long roleUserCount(Map<String, Map<String, Object>> rows, String roleKey) {
+        Map<String, Object> row = rows.get(roleKey);
+        return row != null ? safeLongValue(row.get("userCount")) : 0L;
+    }
+
     private Map<UserIdentity, Set<Long>> resolveIdentityMembership(Set<Long> userIds) {
         Map<UserIdentity, Set<Long>> membership = new EnumMap<>(UserIdentity.class);
         if (userIds == null || userIds.isEmpty()) {
@@ -816,34 +911,6 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return membership;
     }
 
-    private Map<UserIdentity, Long> aggregateIdentityCounts(Set<Long> userIds) {
-        if (userIds == null || userIds.isEmpty()) {
-            return Collections.emptyMap();
-        }
-        List<Map<String, Object>> rows = userMapper.countUsersByRoleKeys(userIds);
-        Map<UserIdentity, Long> identityCounts = new EnumMap<>(UserIdentity.class);
-        if (rows == null) {
-            return identityCounts;
-        }
-        for (Map<String, Object> row : rows) {
-            if (row == null || row.isEmpty()) {
-                continue;
-            }
-            Object roleKeyObj = row.get("roleKey");
-            Object countObj = row.get("userCount");
-            if (!(roleKeyObj instanceof String) || !(countObj instanceof Number)) {
-                continue;
-            }
-            String roleKey = (String) roleKeyObj;
-            Number countNumber = (Number) countObj;
-            UserIdentity.fromRoleKey(roleKey)
-                .ifPresent(identity ->
-                    identityCounts.merge(identity, countNumber.longValue(), Long::sum)
-                );
-        }
-        return identityCounts;
-    }
-
     private Map<String, Long> buildIdentityBreakdown(Map<UserIdentity, Long> counts, long unknownCount) {
         Map<String, Long> breakdown = new LinkedHashMap<>();
         breakdown.put(UserIdentity.ADMIN.getRoleKey(), counts.getOrDefault(UserIdentity.ADMIN, 0L));
@@ -858,16 +925,11 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return breakdown;
     }
 
-    private Map<String, Object> buildAgentRechargeStatistics(Set<Long> level1Agents,
-                                                             Set<Long> level2Agents,
-                                                             Set<Long> level3Agents,
-                                                             Set<Long> buyerMainIds,
-                                                             Set<Long> buyerSubIds,
-                                                             Map<Long, BigDecimal> rechargeMap) {
+    private Map<String, Object> buildAgentRechargeStatistics(Map<String, BigDecimal> rechargeByAgentRole) {
         Map<String, Object> rechargeStats = new LinkedHashMap<>();
-        BigDecimal level1Recharge = sumRechargeForAgents(level1Agents, buyerMainIds, buyerSubIds, rechargeMap);
-        BigDecimal level2Recharge = sumRechargeForAgents(level2Agents, buyerMainIds, buyerSubIds, rechargeMap);
-        BigDecimal level3Recharge = sumRechargeForAgents(level3Agents, buyerMainIds, buyerSubIds, rechargeMap);
+        BigDecimal level1Recharge = rechargeByAgentRole.getOrDefault(UserIdentity.AGENT_LEVEL_1.getRoleKey(), BigDecimal.ZERO);
+        BigDecimal level2Recharge = rechargeByAgentRole.getOrDefault(UserIdentity.AGENT_LEVEL_2.getRoleKey(), BigDecimal.ZERO);
+        BigDecimal level3Recharge = rechargeByAgentRole.getOrDefault(UserIdentity.AGENT_LEVEL_3.getRoleKey(), BigDecimal.ZERO);
         BigDecimal totalRecharge = level1Recharge.add(level2Recharge).add(level3Recharge);
 
         rechargeStats.put("level1Recharge", formatAmount(level1Recharge));
@@ -880,14 +942,11 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return rechargeStats;
     }
 
-    private Map<String, Object> buildAgentCommissionStatistics(Set<Long> level1Agents,
-                                                               Set<Long> level2Agents,
-                                                               Set<Long> level3Agents,
-                                                               Map<Long, BigDecimal> commissionMap) {
+    private Map<String, Object> buildAgentCommissionStatistics(Map<String, Map<String, Object>> commissionRows) {
         Map<String, Object> commissionStats = new LinkedHashMap<>();
-        BigDecimal level1 = sumCommissionForAgents(level1Agents, commissionMap);
-        BigDecimal level2 = sumCommissionForAgents(level2Agents, commissionMap);
-        BigDecimal level3 = sumCommissionForAgents(level3Agents, commissionMap);
+        BigDecimal level1 = roleAmount(commissionRows, UserIdentity.AGENT_LEVEL_1.getRoleKey(), "totalCommission");
+        BigDecimal level2 = roleAmount(commissionRows, UserIdentity.AGENT_LEVEL_2.getRoleKey(), "totalCommission");
+        BigDecimal level3 = roleAmount(commissionRows, UserIdentity.AGENT_LEVEL_3.getRoleKey(), "totalCommission");
         BigDecimal total = level1.add(level2).add(level3);
 
         commissionStats.put("level1Commission", formatAmount(level1));
@@ -899,18 +958,15 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
 
     private Map<String, Object> buildAgentPerformance(String identityKey,
                                                       String displayLabel,
-                                                      Set<Long> agentIds,
-                                                      Set<Long> buyerMainIds,
-                                                      Set<Long> buyerSubIds,
-                                                      Map<Long, BigDecimal> rechargeMap,
-                                                      Map<Long, BigDecimal> commissionMap) {
+                                                      Map<String, BigDecimal> rechargeByAgentRole,
+                                                      Map<String, Map<String, Object>> commissionRows) {
         Map<String, Object> performance = new LinkedHashMap<>();
-        BigDecimal recharge = sumRechargeForAgents(agentIds, buyerMainIds, buyerSubIds, rechargeMap);
-        BigDecimal commission = sumCommissionForAgents(agentIds, commissionMap);
+        BigDecimal recharge = rechargeByAgentRole.getOrDefault(identityKey, BigDecimal.ZERO);
+        BigDecimal commission = roleAmount(commissionRows, identityKey, "totalCommission");
 
         performance.put("identity", identityKey);
         performance.put("identityDisplay", displayLabel);
-        performance.put("agentCount", (long) (agentIds != null ? agentIds.size() : 0));
+        performance.put("agentCount", roleUserCount(commissionRows, identityKey));
         performance.put("totalRecharge", formatAmount(recharge));
         performance.put("totalCommission", formatAmount(commission));
         return performance;
@@ -989,42 +1045,21 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return null;
     }
 
-    private Map<String, Object> buildMerchantPerformance(Set<Long> buyerMainIds,
-                                                         Set<Long> buyerSubIds,
-                                                         Map<Long, BigDecimal> rechargeMap,
-                                                         Set<Long> buyerUserIds) {
+    private Map<String, Object> buildMerchantPerformance(Map<UserIdentity, Long> identityCounts,
+                                                         Map<String, Map<String, Object>> rechargeRows,
+                                                         Map<String, Object> instanceStatistics,
+                                                         Map<String, Object> aiCharacterStatistics,
+                                                         List<Map<String, Object>> buyerMainDetails) {
         Map<String, Object> merchantStats = new LinkedHashMap<>();
-        merchantStats.put("totalMerchants", (long) buyerMainIds.size());
-        merchantStats.put("buyerSubAccountCount", (long) buyerSubIds.size());
-        merchantStats.put("totalRecharge", formatAmount(sumRechargeForUsers(buyerUserIds, rechargeMap)));
-        merchantStats.put("instanceStatistics", buildInstanceStatistics(buyerUserIds));
-        merchantStats.put("aiCharacterStatistics", buildAiCharacterStatistics(buyerUserIds));
-        merchantStats.put("buyerMainDetails", buildBuyerMainDetails(buyerMainIds, buyerSubIds, rechargeMap));
+        merchantStats.put("totalMerchants", identityCounts.getOrDefault(UserIdentity.BUYER_MAIN, 0L));
+        merchantStats.put("buyerSubAccountCount", identityCounts.getOrDefault(UserIdentity.BUYER_SUB, 0L));
+        merchantStats.put("totalRecharge", formatAmount(roleAmount(rechargeRows, ALL_USERS_KEY, "totalRecharge")));
+        merchantStats.put("instanceStatistics", instanceStatistics);
+        merchantStats.put("aiCharacterStatistics", aiCharacterStatistics);
+        merchantStats.put("buyerMainDetails", buyerMainDetails);
         return merchantStats;
     }
 
-    private Map<Long, BigDecimal> fetchRechargeByUserIds(Set<Long> userIds) {
-        Map<Long, BigDecimal> result = new HashMap<>();
-        if (userIds == null || userIds.isEmpty()) {
-            return result;
-        }
-        List<Map<String, Object>> rows = userMapper.sumTotalRechargeByUserIds(userIds);
-        if (rows == null) {
-            return result;
-        }
-        for (Map<String, Object> row : rows) {
-            if (row == null || row.isEmpty()) {
-                continue;
-            }
-            Long userId = parseLong(row.get("userId"));
-            if (userId == null) {
-                continue;
-            }
-            result.put(userId, formatAmount(toBigDecimal(row.get("totalRecharge"))));
-        }
-        return result;
-    }
-
     private Map<Long, BigDecimal> fetchCommissionByUserIds(Set<Long> userIds) {
         Map<Long, BigDecimal> result = new HashMap<>();
         if (userIds == null || userIds.isEmpty()) {
@@ -1091,87 +1126,27 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return result;
     }
 
-    private BigDecimal sumRechargeForAgents(Set<Long> agentIds,
-                                            Set<Long> buyerMainIds,
-                                            Set<Long> buyerSubIds,
-                                            Map<Long, BigDecimal> rechargeMap) {
-        if (agentIds == null || agentIds.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        if (hierarchyService == null) {
-            return BigDecimal.ZERO;
-        }
-        Set<Long> buyers = new LinkedHashSet<>();
-        for (Long agentId : agentIds) {
-            Set<Long> descendants = hierarchyService.findDescendantIds(agentId);
-            for (Long descendant : descendants) {
-                if (buyerMainIds.contains(descendant) || buyerSubIds.contains(descendant)) {
-                    buyers.add(descendant);
-                }
-            }
-        }
-        return sumRechargeForUsers(buyers, rechargeMap);
-    }
-
-    private BigDecimal sumRechargeForUsers(Set<Long> userIds, Map<Long, BigDecimal> rechargeMap) {
-        if (userIds == null || userIds.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        BigDecimal total = BigDecimal.ZERO;
-        for (Long userId : userIds) {
-            total = total.add(rechargeMap.getOrDefault(userId, BigDecimal.ZERO));
-        }
-        return total;
-    }
-
-    private BigDecimal sumCommissionForAgents(Set<Long> agentIds, Map<Long, BigDecimal> commissionMap) {
-        if (agentIds == null || agentIds.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-        BigDecimal total = BigDecimal.ZERO;
-        for (Long agentId : agentIds) {
-            total = total.add(commissionMap.getOrDefault(agentId, BigDecimal.ZERO));
-        }
-        return total;
-    }
-
-    private List<Map<String, Object>> buildBuyerMainDetails(Set<Long> buyerMainIds,
-                                                            Set<Long> buyerSubIds,
-                                                            Map<Long, BigDecimal> rechargeMap) {
-        if (buyerMainIds == null || buyerMainIds.isEmpty()) {
+    private List<Map<String, Object>> buildBuyerMainDetails(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        List<Map<String, Object>> rows = cached != null
+            ? cached.selectBuyerMainDetails(rootUserId)
+            : closureMapper.selectSubtreeBuyerMainDetails(rootUserId,
+                UserIdentity.BUYER_MAIN.getRoleKey(), UserIdentity.BUYER_SUB.getRoleKey());
+        if (rows == null || rows.isEmpty()) {
             return Collections.emptyList();
         }
-        List<SysUser> buyerMainUsers = userMapper.selectUsersByIds(buyerMainIds);
-        Map<Long, SysUser> userIndex = buyerMainUsers == null ? Collections.emptyMap()
-            : buyerMainUsers.stream()
-                .filter(Objects::nonNull)
-                .filter(user -> user.getUserId() != null)
-                .collect(Collectors.toMap(SysUser::getUserId, user -> user, (left, right) -> left));
-
-        List<Map<String, Object>> details = new ArrayList<>();
-        for (Long mainId : buyerMainIds) {
-            SysUser user = userIndex.get(mainId);
-            long subCount = hierarchyService != null
-                ? hierarchyService.findDescendantIds(mainId).stream()
-                    .filter(buyerSubIds::contains)
-                    .count()
-                : 0L;
+        List<Map<String, Object>> details = new ArrayList<>(rows.size());
+        for (Map<String, Object> source : rows) {
+            if (source == null || source.isEmpty()) {
+                continue;
+            }
             Map<String, Object> row = new LinkedHashMap<>();
-            row.put("userId", mainId);
-            row.put("username", user != null ? Objects.toString(user.getUsername(), "") : "");
-            row.put("nickname", user != null ? Objects.toString(user.getNickname(), "") : "");
-            row.put("subAccountCount", subCount);
-            row.put("totalRecharge", formatAmount(rechargeMap.getOrDefault(mainId, BigDecimal.ZERO)));
+            row.put("userId", parseLong(source.get("userId")));
+            row.put("username", Objects.toString(source.get("username"), ""));
+            row.put("nickname", Objects.toString(source.get("nickname"), ""));
+            row.put("subAccountCount", safeLongValue(source.get("subAccountCount")));
+            row.put("totalRecharge", formatAmount(toBigDecimal(source.get("totalRecharge"))));
             details.add(row);
         }
-        details.sort(Comparator.comparingLong(
-            (Map<String, Object> value) -> {
-                Object count = value.get("subAccountCount");
-                if (count instanceof Number) {
-                    return ((Number) count).longValue();
-                }
-                return 0L;
-            }).reversed());
         return details;
     }
 
@@ -1313,6 +1288,42 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         return statistics;
     }
 
+    /**
+     * 子树中买家账号的实例统计，实例数由平台分组结果汇总得到
+     */
+    private Map<String, Object> buildSubtreeInstanceStatistics(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        List<Map<String, Object>> platformRows = userMapper.selectAllPlatforms();
+        Map<String, Long> marketingBreakdown = initializePlatformMap(platformRows, MARKETING_PLATFORM_TYPES);
+        Map<String, Long> prospectingBreakdown = initializePlatformMap(platformRows, PROSPECTING_PLATFORM_TYPES);
+
+        long marketingCount = 0L;
+        long prospectingCount = 0L;
+        List<Map<String, Object>> rows = cached != null
+            ? cached.countInstancesByPlatform(rootUserId)
+            : closureMapper.countSubtreeInstancesByPlatform(rootUserId, true, BUYER_ROLE_KEYS);
+        if (rows != null) {
+            for (Map<String, Object> row : rows) {
+                String instanceType = Objects.toString(row.get("instanceType"), "");
+                String platform = normalizePlatformName(Objects.toString(row.get("platformName"), "UNKNOWN_PLATFORM"));
+                long count = safeLongValue(row.get("count"));
+                if ("0".equals(instanceType)) {
+                    marketingCount += count;
+                    marketingBreakdown.merge(platform, count, Long::sum);
+                } else if ("1".equals(instanceType)) {
+                    prospectingCount += count;
+                    prospectingBreakdown.merge(platform, count, Long::sum);
+                }
+            }
+        }
+
+        statistics.put("marketingInstanceCount", marketingCount);
+        statistics.put("prospectingInstanceCount", prospectingCount);
+        statistics.put("marketingPlatformBreakdown", marketingBreakdown);
+        statistics.put("prospectingPlatformBreakdown", prospectingBreakdown);
+        return statistics;
+    }
+
     private Map<String, Object> buildAiCharacterStatistics(Set<Long> userIds) {
         Map<String, Object> statistics = new LinkedHashMap<>();
         statistics.put("totalCharacters", 0L);
@@ -1323,7 +1334,17 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
             return statistics;
         }
 
-        List<Map<String, Object>> rows = userMapper.countAiCharactersByType(userIds);
+        return summarizeAiCharacterRows(userMapper.countAiCharactersByType(userIds));
+    }
+
+    private Map<String, Object> buildSubtreeAiCharacterStatistics(SubtreeStatisticsSnapshot cached, Long rootUserId) {
+        return summarizeAiCharacterRows(cached != null
+            ? cached.countAiCharactersByType(rootUserId)
+            : closureMapper.countSubtreeAiCharactersByType(rootUserId, true, BUYER_ROLE_KEYS));
+    }
+
+    private Map<String, Object> summarizeAiCharacterRows(List<Map<String, Object>> rows) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
         long total = 0L;
         long social = 0L;
         long customerService = 0L;
@@ -1513,11 +1534,11 @@ public class HierarchyStatisticsServiceImpl implements HierarchyStatisticsServic
         if (userId == null || userId <= 0) {
             throw new IllegalArgumentException(invalidMessage);
         }
-        SysUser agent = userMapper.selectUserWithDept(userId);
+        SysUser agent = userDataLoader.loadUser(userId);
         if (agent == null) {
             throw new IllegalArgumentException(missingMessage);
         }
-        Set<String> roles = userMapper.selectRoleKeysByUserId(userId);
+        Set<String> roles = userDataLoader.loadRoleKeys(userId);
         if (roles == null || !UserRoleUtils.hasIdentity(roles, requiredIdentity)) {
             throw new IllegalArgumentException(identityMessage);
         }
@@ -1,20 +1,23 @@
 package com.deepreach.common.core.service.impl;
 
 import com.deepreach.common.core.domain.entity.SysOperLog;
+import com.deepreach.common.core.mapper.SysOperLogDailyStatMapper;
 import com.deepreach.common.core.mapper.SysOperLogMapper;
 import com.deepreach.common.core.service.SysOperLogService;
+import com.deepreach.common.core.support.OperLogPipeline;
+import com.deepreach.common.core.support.OperLogStorageManager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * 操作日志服务实现类
@@ -22,8 +25,8 @@ import java.util.concurrent.Executors;
  * 实现操作日志的业务逻辑处理，包括：
  * 1. 日志记录和查询
  * 2. 统计分析功能
- * 3. 日志清理和归档
- * 4. 异步处理优化
+ * 3. 日志清理和归档（按分区删除，见 {@link OperLogStorageManager}）
+ * 4. 异步写入（委托 {@link OperLogPipeline} 批量写库）
  *
  * @author DeepReach Team
  * @version 1.0
@@ -36,10 +39,19 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Autowired
     private SysOperLogMapper operLogMapper;
 
+    @Autowired
+    private SysOperLogDailyStatMapper dailyStatMapper;
+
+    @Autowired
+    private OperLogPipeline operLogPipeline;
+
+    @Autowired
+    private OperLogStorageManager storageManager;
+
     /**
-     * 异步处理线程池
+     * 活跃度统计返回的操作者数量上限
      */
-    private final Executor asyncExecutor = Executors.newFixedThreadPool(5);
+    private static final int ACTIVITY_LIMIT = 100;
 
     @Override
     public boolean insertOperLog(SysOperLog operLog) {
@@ -60,13 +72,8 @@ public class SysOperLogServiceImpl implements SysOperLogService {
                 return 0;
             }
 
-            int successCount = 0;
-            for (SysOperLog operLog : operLogs) {
-                if (insertOperLog(operLog)) {
-                    successCount++;
-                }
-            }
-            return successCount;
+            operLogs.forEach(this::sanitizeOperLogForStorage);
+            return operLogMapper.insertOperLogBatch(operLogs);
         } catch (Exception e) {
             log.error("批量保存操作日志失败", e);
             return 0;
@@ -126,7 +133,11 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Override
     public boolean deleteOperLogById(Long operId) {
         try {
+            List<LocalDate> days = operLogMapper.selectOperDatesByIds(List.of(operId));
             int result = operLogMapper.deleteOperLogById(operId);
+            if (result > 0) {
+                storageManager.refreshDays(days);
+            }
             return result > 0;
         } catch (Exception e) {
             log.error("删除操作日志失败：operId={}", operId, e);
@@ -140,7 +151,12 @@ public class SysOperLogServiceImpl implements SysOperLogService {
             if (operIds == null || operIds.isEmpty()) {
                 return 0;
             }
-            return operLogMapper.deleteOperLogByIds(operIds);
+            List<LocalDate> days = operLogMapper.selectOperDatesByIds(operIds);
+            int result = operLogMapper.deleteOperLogByIds(operIds);
+            if (result > 0) {
+                storageManager.refreshDays(days);
+            }
+            return result;
         } catch (Exception e) {
             log.error("批量删除操作日志失败", e);
             return 0;
@@ -150,9 +166,8 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Override
     public int cleanOperLogByTime(LocalDateTime endTime) {
         try {
-            int result = operLogMapper.cleanOperLogByTime(endTime);
-            log.info("清理历史操作日志完成，删除数量：{}", result);
-            return result;
+            long result = storageManager.purgeBefore(endTime);
+            return (int) Math.min(Integer.MAX_VALUE, result);
         } catch (Exception e) {
             log.error("清理历史操作日志失败：endTime={}", endTime, e);
             return 0;
@@ -162,9 +177,9 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Override
     public int cleanOperLogByDays(Integer days) {
         try {
-            int result = operLogMapper.cleanOperLogByDays(days);
+            long result = storageManager.purgeBefore(LocalDateTime.now().minusDays(days));
             log.info("清理{}天前的操作日志完成，删除数量：{}", days, result);
-            return result;
+            return (int) Math.min(Integer.MAX_VALUE, result);
         } catch (Exception e) {
             log.error("清理指定天数前的操作日志失败：days={}", days, e);
             return 0;
@@ -194,12 +209,25 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Override
     public Map<String, Object> getOperStatistics(LocalDateTime beginTime, LocalDateTime endTime) {
         try {
-            List<Map<String, Object>> businessTypeStats = operLogMapper.countOperLogByBusinessType(beginTime, endTime);
+            Map<Object, long[]> merged = sumByRange(beginTime, endTime, "businessType",
+                dailyStatMapper::sumByBusinessType, operLogMapper::sumOperLogByBusinessType);
+
+            List<Map<String, Object>> businessTypeStats = new ArrayList<>(merged.size());
+            long totalCount = 0;
+            long failedCount = 0;
+            for (Map.Entry<Object, long[]> entry : sortByCount(merged)) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("businessType", entry.getKey());
+                row.put("count", entry.getValue()[0]);
+                businessTypeStats.add(row);
+                totalCount += entry.getValue()[0];
+                failedCount += entry.getValue()[1];
+            }
 
             Map<String, Object> statistics = new HashMap<>();
             statistics.put("businessTypeStats", businessTypeStats);
-            statistics.put("totalCount", countOperLog(new SysOperLog()));
-            statistics.put("failedCount", getFailedOperLog(1000).size());
+            statistics.put("totalCount", totalCount);
+            statistics.put("failedCount", failedCount);
 
             return statistics;
         } catch (Exception e) {
@@ -211,7 +239,19 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     @Override
     public List<Map<String, Object>> getUserActivityStatistics(LocalDateTime beginTime, LocalDateTime endTime) {
         try {
-            return operLogMapper.countOperLogByOperName(beginTime, endTime);
+            Map<Object, long[]> merged = sumByRange(beginTime, endTime, "operName",
+                dailyStatMapper::sumByOperName, operLogMapper::sumOperLogByOperName);
+            List<Map<String, Object>> result = new ArrayList<>(Math.min(merged.size(), ACTIVITY_LIMIT));
+            for (Map.Entry<Object, long[]> entry : sortByCount(merged)) {
+                if (result.size() >= ACTIVITY_LIMIT) {
+                    break;
+                }
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("operName", entry.getKey());
+                row.put("count", entry.getValue()[0]);
+                result.add(row);
+            }
+            return result;
         } catch (Exception e) {
             log.error("获取用户活跃度统计失败", e);
             return List.of();
@@ -255,15 +295,8 @@ public class SysOperLogServiceImpl implements SysOperLogService {
     }
 
     @Override
-    @Async
     public void insertOperLogAsync(SysOperLog operLog) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                insertOperLog(operLog);
-            } catch (Exception e) {
-                log.error("异步保存操作日志失败", e);
-            }
-        }, asyncExecutor);
+        operLogPipeline.submit(operLog);
     }
 
     @Override
@@ -288,13 +321,12 @@ public class SysOperLogServiceImpl implements SysOperLogService {
         Map<String, Object> policy = new HashMap<>();
 
         // 日志保留天数配置
-        policy.put("retentionDays", 90);
-
-        // 自动清理配置
-        policy.put("autoCleanEnabled", true);
+        policy.put("retentionDays", storageManager.getRetentionDays());
 
-        // 清理执行时间（凌晨2点）
-        policy.put("cleanSchedule", "0 0 2 * * ?");
+        // 自动清理配置（由存储维护任务每天执行一次，已分区时按分区删除）
+        policy.put("autoCleanEnabled", storageManager.getRetentionDays() > 0);
+        policy.put("partitioned", storageManager.isPartitioned());
+        policy.put("rolledUpThrough", storageManager.getRolledUpThrough());
 
         // 最大日志数量
         policy.put("maxLogCount", 1000000L);
@@ -305,6 +337,80 @@ public class SysOperLogServiceImpl implements SysOperLogService {
         return policy;
     }
 
+    /**
+     * 按区间汇总统计，完整且已汇总的日期读取按日汇总表，区间两端不足一天的部分及未汇总的日期查询明细表
+     *
+     * @param beginTime    开始时间（含，可为空）
+     * @param endTime      结束时间（含，可为空）
+     * @param keyName      分组字段名
+     * @param rollupQuery  汇总表查询（日期区间含两端）
+     * @param detailQuery  明细表查询（开始时间含、结束时间不含、结束时间含）
+     * @return 分组键 -> [count, failedCount]
+     */
+    private Map<Object, long[]> sumByRange(LocalDateTime beginTime, LocalDateTime endTime, String keyName,
+                                           RollupQuery rollupQuery, DetailQuery detailQuery) {
+        Map<Object, long[]> merged = new HashMap<>();
+        LocalDate rolledUpThrough = storageManager.getRolledUpThrough();
+        LocalDate firstDay = null;
+        LocalDate lastDay = rolledUpThrough;
+        if (beginTime != null) {
+            firstDay = beginTime.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? beginTime.toLocalDate() : beginTime.toLocalDate().plusDays(1);
+        }
+        if (endTime != null && lastDay != null) {
+            LocalDate endDay = endTime.toLocalTime().isBefore(LocalTime.of(23, 59, 59))
+                ? endTime.toLocalDate().minusDays(1) : endTime.toLocalDate();
+            lastDay = endDay.isBefore(lastDay) ? endDay : lastDay;
+        }
+        if (lastDay == null || (firstDay != null && firstDay.isAfter(lastDay))) {
+            accumulate(merged, detailQuery.query(beginTime, null, endTime), keyName);
+            return merged;
+        }
+        accumulate(merged, rollupQuery.query(firstDay, lastDay), keyName);
+        if (firstDay != null && beginTime.isBefore(firstDay.atStartOfDay())) {
+            accumulate(merged, detailQuery.query(beginTime, firstDay.atStartOfDay(), null), keyName);
+        }
+        accumulate(merged, detailQuery.query(lastDay.plusDays(1).atStartOfDay(), null, endTime), keyName);
+        return merged;
+    }
+
+    private static void accumulate(Map<Object, long[]> merged, List<Map<String, Object>> rows, String keyName) {
+        if (rows == null) {
+            return;
+        }
+        for (Map<String, Object> row : rows) {
+            Object key = row.get(keyName);
+            if (key instanceof Number) {
+                key = ((Number) key).intValue();
+            } else if (key == null) {
+                key = "";
+            }
+            long[] counts = merged.computeIfAbsent(key, k -> new long[2]);
+            counts[0] += toLong(row.get("count"));
+            counts[1] += toLong(row.get("failedCount"));
+        }
+    }
+
+    private static List<Map.Entry<Object, long[]>> sortByCount(Map<Object, long[]> merged) {
+        List<Map.Entry<Object, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort((left, right) -> Long.compare(right.getValue()[0], left.getValue()[0]));
+        return entries;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    @FunctionalInterface
+    private interface RollupQuery {
+        List<Map<String, Object>> query(LocalDate beginDate, LocalDate endDate);
+    }
+
+    @FunctionalInterface
+    private interface DetailQuery {
+        List<Map<String, Object>> query(LocalDateTime beginTime, LocalDateTime beforeTime, LocalDateTime endTime);
+    }
+
     /**
      * 避免日志内容超出数据库字段限制导致插入失败.
      *
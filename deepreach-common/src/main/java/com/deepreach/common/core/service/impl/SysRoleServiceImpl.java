@@ -3,6 +3,8 @@ package com.deepreach.common.core.service.impl;
 import com.deepreach.common.core.domain.entity.SysRole;
 import com.deepreach.common.core.service.SysRoleService;
 import com.deepreach.common.core.mapper.SysRoleMapper;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.UserNearCache;
 import com.deepreach.common.security.SecurityUtils;
 import com.deepreach.common.security.enums.UserIdentity;
 import lombok.extern.slf4j.Slf4j;
@@ -32,9 +34,22 @@ import java.util.stream.Collectors;
 @Service
 public class SysRoleServiceImpl implements SysRoleService {
 
+    private static final String ROLE_CHANGE_PREFIX = "roles:";
+
+    /**
+     * 单条角色变更通知携带的最大用户数，超过时通知各节点整体刷新
+     */
+    private static final int MAX_ROLE_CHANGE_USERS = 1000;
+
     @Autowired
     private SysRoleMapper roleMapper;
 
+    @Autowired
+    private UserNearCache userNearCache;
+
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
     // ==================== 查询方法 ====================
 
     @Override
@@ -199,6 +214,9 @@ public class SysRoleServiceImpl implements SysRoleService {
                 throw new Exception("更新角色失败");
             }
 
+            // 角色标识或状态变化会影响所有持有该角色的用户
+            userNearCache.invalidateAll();
+            publishRoleChange(roleMapper.selectUserIdsByRoleId(role.getRoleId()));
             log.info("更新角色成功：角色ID={}", role.getRoleId());
             return true;
         } catch (Exception e) {
@@ -229,6 +247,9 @@ public class SysRoleServiceImpl implements SysRoleService {
         }
 
         try {
+            // 记录持有该角色的用户（通过上面的检查时通常为空），提交后通知各节点
+            List<Long> roleUserIds = roleMapper.selectUserIdsByRoleId(roleId);
+
             // 删除角色菜单关联
             cancelRoleMenus(roleId, null);
 
@@ -240,6 +261,8 @@ public class SysRoleServiceImpl implements SysRoleService {
                 throw new Exception("删除角色失败");
             }
 
+            userNearCache.invalidateAll();
+            publishRoleChange(roleUserIds);
             log.info("删除角色成功：角色ID={}, 角色名称={}", roleId, role.getRoleName());
             return true;
         } catch (Exception e) {
@@ -332,7 +355,7 @@ public class SysRoleServiceImpl implements SysRoleService {
         }
 
         // 删除现有角色分配
-        cancelUserRoles(userId, null);
+        removeUserRoles(userId, null);
 
         // 分配新角色
         if (roleIds != null && !roleIds.isEmpty()) {
@@ -341,7 +364,6 @@ public class SysRoleServiceImpl implements SysRoleService {
                 if (rows != roleIds.size()) {
                     throw new Exception("分配用户角色失败");
                 }
-
                 log.info("分配用户角色成功：用户ID={}, 角色数量={}", userId, roleIds.size());
             } catch (Exception e) {
                 log.error("分配用户角色失败：用户ID={}", userId, e);
@@ -349,6 +371,8 @@ public class SysRoleServiceImpl implements SysRoleService {
             }
         }
 
+        userNearCache.invalidate(Collections.singleton(userId));
+        publishRoleChange(Collections.singleton(userId));
         return true;
     }
 
@@ -359,6 +383,15 @@ public class SysRoleServiceImpl implements SysRoleService {
             return false;
         }
 
+        if (!removeUserRoles(userId, roleIds)) {
+            return false;
+        }
+        userNearCache.invalidate(Collections.singleton(userId));
+        publishRoleChange(Collections.singleton(userId));
+        return true;
+    }
+
+    private boolean removeUserRoles(Long userId, List<Long> roleIds) {
         try {
             int rows = roleMapper.deleteUserRoles(userId, roleIds);
             log.info("取消用户角色分配成功：用户ID={}, 影响行数={}", userId, rows);
@@ -393,7 +426,9 @@ public class SysRoleServiceImpl implements SysRoleService {
         }
 
         // 删除现有菜单权限
-        cancelRoleMenus(roleId, null);
+        if (!deleteRoleMenus(roleId)) {
+            return false;
+        }
 
         // 分配新菜单权限
         if (menuIds != null && !menuIds.isEmpty()) {
@@ -411,6 +446,7 @@ public class SysRoleServiceImpl implements SysRoleService {
             }
         }
 
+        invalidateRoleUsers(roleId);
         return true;
     }
 
@@ -421,6 +457,14 @@ public class SysRoleServiceImpl implements SysRoleService {
             return false;
         }
 
+        if (!deleteRoleMenus(roleId)) {
+            return false;
+        }
+        invalidateRoleUsers(roleId);
+        return true;
+    }
+
+    private boolean deleteRoleMenus(Long roleId) {
         try {
             int rows = roleMapper.deleteRoleMenus(roleId);
             log.info("取消角色菜单权限分配成功：角色ID={}, 影响行数={}", roleId, rows);
@@ -431,6 +475,27 @@ public class SysRoleServiceImpl implements SysRoleService {
         }
     }
 
+    /**
+     * 角色的菜单权限已变更：失效分配了该角色的用户缓存，事务提交后各节点的认证缓存随之重新加载权限
+     */
+    private void invalidateRoleUsers(Long roleId) {
+        userNearCache.invalidate(roleMapper.selectUserIdsByRoleId(roleId));
+    }
+
+    /**
+     * 用户持有的角色（或角色本身）发生变化：代理级别与按角色的子树统计都依赖角色，
+     * 事务提交后在层级频道通知各节点刷新代理上级链与统计快照；用户过多时通知整体刷新
+     */
+    private void publishRoleChange(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        String payload = userIds.size() > MAX_ROLE_CHANGE_USERS
+            ? "*"
+            : userIds.stream().map(String::valueOf).collect(Collectors.joining(","));
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, ROLE_CHANGE_PREFIX + payload);
+    }
+
     @Override
     public List<Long> getRoleMenuIds(Long roleId) {
         if (roleId == null) {
@@ -508,6 +573,8 @@ public class SysRoleServiceImpl implements SysRoleService {
 
             int rows = roleMapper.updateRole(role);
             if (rows > 0) {
+                userNearCache.invalidateAll();
+                publishRoleChange(roleMapper.selectUserIdsByRoleId(roleId));
                 String statusText = "0".equals(status) ? "启用" : "停用";
                 log.info("更新角色状态成功：角色ID={}, 状态={}", roleId, statusText);
                 return true;
@@ -694,8 +761,10 @@ public class SysRoleServiceImpl implements SysRoleService {
 
     @Override
     public boolean syncRolePermissions(Long roleId) {
-        // 这里可以实现角色权限的同步逻辑
-        // 比如重新计算菜单权限缓存、数据权限范围等
+        // 菜单权限由认证过滤器按需加载，失效该角色用户的缓存即可同步
+        if (roleId != null) {
+            invalidateRoleUsers(roleId);
+        }
         log.info("同步角色权限：角色ID={}", roleId);
         return true;
     }
@@ -2,7 +2,6 @@ package com.deepreach.common.core.service.impl;
 
 import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
 import com.deepreach.common.core.domain.dto.UserHierarchyGroupDTO;
-import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
 import com.deepreach.common.core.domain.dto.UserListRequest;
 import com.deepreach.common.core.domain.entity.SysOperLog;
 import com.deepreach.common.core.domain.entity.SysRole;
@@ -10,16 +9,20 @@ import com.deepreach.common.core.domain.entity.SysUser;
 import com.deepreach.common.core.domain.model.LoginUser;
 import com.deepreach.common.core.mapper.SysUserMapper;
 import com.deepreach.common.core.mapper.SysRoleMapper;
+import com.deepreach.common.core.service.UserClosureService;
 import com.deepreach.common.core.service.UserHierarchyService;
 import com.deepreach.common.core.service.SysUserService;
-import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.UserDataLoader;
+import com.deepreach.common.core.support.UserNearCache;
 import com.deepreach.common.security.UserRoleUtils;
 import com.deepreach.common.security.enums.UserIdentity;
+import com.deepreach.common.security.LoginPasswordVerifier;
+import com.deepreach.common.security.LoginRateLimiter;
 import com.deepreach.common.security.SecurityUtils;
 import com.deepreach.common.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -88,7 +91,22 @@ public class SysUserServiceImpl implements SysUserService {
     private UserHierarchyService hierarchyService;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private ChangeBroadcaster changeBroadcaster;
+
+    @Autowired
+    private UserClosureService closureService;
+
+    @Autowired
+    private UserDataLoader userDataLoader;
+
+    @Autowired
+    private UserNearCache userNearCache;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private LoginPasswordVerifier loginPasswordVerifier;
 
     // ==================== 基础查询方法 ====================
 
@@ -290,11 +308,8 @@ public class SysUserServiceImpl implements SysUserService {
     @Override
     public void rebuildUserHierarchyCache() {
         try {
-            List<UserHierarchyNodeDTO> relations = fetchAllUserHierarchyRelations();
-            UserHierarchyTreeDTO tree = UserHierarchyTreeBuilder.build(relations);
-            redisTemplate.opsForValue().set(UserHierarchyTreeBuilder.USER_TREE_CACHE_KEY, tree);
-            log.info("用户层级树缓存刷新成功：记录总数={}, 根节点数量={}",
-                    relations.size(), tree.getRootUserIds().size());
+            hierarchyService.refreshHierarchy();
+            log.debug("用户层级刷新已提交，事务提交后发布");
         } catch (Exception e) {
             log.error("刷新用户层级树缓存失败", e);
             throw new RuntimeException("刷新用户层级树缓存失败", e);
@@ -313,6 +328,19 @@ public class SysUserServiceImpl implements SysUserService {
         }
     }
 
+    /**
+     * 根据更新前后的上级与状态维护闭包表
+     */
+    private void syncUserClosure(SysUser previous, SysUser updated) {
+        Long parentUserId = updated.getParentUserId() != null ? updated.getParentUserId() : previous.getParentUserId();
+        String status = StringUtils.isNotEmpty(updated.getStatus()) ? updated.getStatus() : previous.getStatus();
+        if (!Objects.equals(status, previous.getStatus())) {
+            closureService.onStatusChanged(updated.getUserId(), parentUserId, status);
+        } else if (!Objects.equals(parentUserId, previous.getParentUserId())) {
+            closureService.onParentChanged(updated.getUserId(), parentUserId);
+        }
+    }
+
     @Override
     public List<UserHierarchyGroupDTO> listUsersByLeaderDirectDepts(Long leaderUserId) {
         if (leaderUserId == null || leaderUserId <= 0) {
@@ -536,12 +564,14 @@ public class SysUserServiceImpl implements SysUserService {
             }
 
             persistRequestedRoles(user);
+            closureService.onUserCreated(user.getUserId(), user.getParentUserId(), user.getStatus());
 
             // 设置简化的角色和部门信息
             setSimplifiedUserInfo(user);
 
             log.info("创建用户成功：用户ID={}, 用户名={}, 创建者={}",
                     user.getUserId(), user.getUsername(), user.getCreateBy());
+            userNearCache.invalidate(Collections.singleton(user.getUserId()));
             refreshUserHierarchyCacheSilently();
 
             return user;
@@ -578,13 +608,21 @@ public class SysUserServiceImpl implements SysUserService {
             user.setPassword(null);
             user.setUsername(null); // 用户名通常不允许修改
 
+            // 上级或状态变化时需要同步闭包表，先取出变更前的值
+            boolean hierarchyTouched = user.getParentUserId() != null || StringUtils.isNotEmpty(user.getStatus());
+            SysUser previous = hierarchyTouched ? userMapper.selectUserById(user.getUserId()) : null;
+
             int result = userMapper.updateUser(user);
             boolean passwordResult = false;
             if (needUpdatePassword && encryptedPassword != null) {
                 passwordResult = userMapper.updateUserPassword(user.getUserId(), encryptedPassword) > 0;
             }
+            if (result > 0 && previous != null) {
+                syncUserClosure(previous, user);
+            }
             if (result > 0 || passwordResult) {
                 log.info("更新用户成功：用户ID={}, 更新者={}, 更新密码={}", user.getUserId(), user.getUpdateBy(), needUpdatePassword);
+                userNearCache.invalidate(Collections.singleton(user.getUserId()));
                 refreshUserHierarchyCacheSilently();
                 return true;
             }
@@ -629,7 +667,9 @@ public class SysUserServiceImpl implements SysUserService {
             // 删除用户
             int result = userMapper.deleteUserById(userId);
             if (result > 0) {
+                closureService.onUserRemoved(userId);
                 log.info("删除用户成功：用户ID={}, 用户名={}", userId, user.getUsername());
+                userNearCache.invalidate(Collections.singleton(userId));
                 refreshUserHierarchyCacheSilently();
                 return true;
             } else {
@@ -671,7 +711,9 @@ public class SysUserServiceImpl implements SysUserService {
             // 批量删除用户
             int result = userMapper.deleteUserByIds(validIds);
             if (result > 0) {
+                validIds.forEach(closureService::onUserRemoved);
                 log.info("批量删除用户成功：删除数量={}, 用户IDs={}", result, validIds);
+                userNearCache.invalidate(validIds);
                 refreshUserHierarchyCacheSilently();
                 return true;
             } else {
@@ -714,6 +756,7 @@ public class SysUserServiceImpl implements SysUserService {
 
             if (result > 0) {
                 log.info("重置用户密码成功：用户ID={}, 操作者={}", userId, SecurityUtils.getCurrentUsername());
+                userNearCache.invalidate(Collections.singleton(userId));
                 return true;
             } else {
                 log.warn("重置用户密码失败：用户不存在 - {}", userId);
@@ -773,6 +816,7 @@ public class SysUserServiceImpl implements SysUserService {
 
             if (result > 0) {
                 log.info("修改用户密码成功：用户ID={}", userId);
+                userNearCache.invalidate(Collections.singleton(userId));
                 return true;
             } else {
                 log.warn("修改用户密码失败：用户ID={}", userId);
@@ -817,6 +861,9 @@ public class SysUserServiceImpl implements SysUserService {
                 }
             }
 
+            // 角色变更会影响代理级别，通知各节点刷新层级相关索引
+            changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, "roles:" + userId);
+            userNearCache.invalidate(Collections.singleton(userId));
             log.info("分配用户角色成功：用户ID={}, 角色数量={}", userId, roleIds.size());
             return true;
         } catch (Exception e) {
@@ -869,7 +916,7 @@ public class SysUserServiceImpl implements SysUserService {
         }
 
         try {
-            return userMapper.selectRoleKeysByUserId(userId);
+            return userDataLoader.loadRoleKeys(userId);
         } catch (Exception e) {
             log.error("获取用户角色异常：用户ID={}", userId, e);
             return new HashSet<>();
@@ -945,6 +992,7 @@ public class SysUserServiceImpl implements SysUserService {
             }
         }
 
+        userNearCache.invalidate(Collections.singleton(userId));
         refreshUserHierarchyCacheSilently();
         log.info("调整代理身份成功：userId={}, from={}, to={}", userId, currentAgentIdentity, targetIdentity);
         return true;
@@ -1093,6 +1141,9 @@ public class SysUserServiceImpl implements SysUserService {
         }
 
         try {
+            // 限流在查询用户与校验密码之前
+            loginRateLimiter.acquire(username.trim(), loginIp);
+
             // 查询用户信息
             SysUser user = userMapper.selectUserWithRolesAndPermissions(username.trim());
             if (user == null) {
@@ -1104,8 +1155,8 @@ public class SysUserServiceImpl implements SysUserService {
                 throw new RuntimeException("用户账号已被停用");
             }
 
-            // 验证密码
-            if (!passwordEncoder.matches(password, user.getPassword())) {
+            // 验证密码（在登录专用线程池中执行）
+            if (!loginPasswordVerifier.matches(user.getUserId(), password, user.getPassword())) {
                 throw new RuntimeException("用户名或密码错误");
             }
 
@@ -1167,8 +1218,10 @@ public class SysUserServiceImpl implements SysUserService {
             }
 
             persistRequestedRoles(user);
+            closureService.onUserCreated(user.getUserId(), user.getParentUserId(), user.getStatus());
 
             log.info("用户注册成功：用户ID={}, 用户名={}", user.getUserId(), user.getUsername());
+            userNearCache.invalidate(Collections.singleton(user.getUserId()));
             refreshUserHierarchyCacheSilently();
             return user;
         } catch (Exception e) {
@@ -1330,10 +1383,15 @@ public class SysUserServiceImpl implements SysUserService {
         }
 
         try {
+            SysUser previous = userMapper.selectUserById(userId);
             int result = userMapper.updateUserStatus(userId, status);
             if (result > 0) {
+                if (previous != null) {
+                    closureService.onStatusChanged(userId, previous.getParentUserId(), status);
+                }
                 log.info("更新用户状态成功：用户ID={}, 状态={}, 操作者={}",
                         userId, status, SecurityUtils.getCurrentUsername());
+                userNearCache.invalidate(Collections.singleton(userId));
                 refreshUserHierarchyCacheSilently();
                 return true;
             } else {
@@ -1812,10 +1870,7 @@ public class SysUserServiceImpl implements SysUserService {
     private Set<String> ensureRoleKeysLoaded(SysUser user) {
         Set<String> roles = user.getRoles();
         if (roles == null || roles.isEmpty()) {
-            roles = userMapper.selectRoleKeysByUserId(user.getUserId());
-            if (roles == null) {
-                roles = Collections.emptySet();
-            }
+            roles = userDataLoader.loadRoleKeys(user.getUserId());
             user.setRoles(roles);
         }
         return roles;
@@ -2028,11 +2083,8 @@ public class SysUserServiceImpl implements SysUserService {
         }
 
         try {
-            SysUser user = userMapper.selectUserWithDept(userId);
-            if (user != null) {
-                ensureRoleKeysLoaded(user);
-            }
-            return user;
+            // 同一请求内重复读取只查询一次，角色标识已随用户批量加载
+            return userDataLoader.loadUser(userId);
         } catch (Exception e) {
             log.error("查询用户完整信息异常：用户ID={}", userId, e);
             return null;
@@ -0,0 +1,152 @@
+package com.deepreach.common.core.service.impl;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.domain.entity.SysUserClosure;
+import com.deepreach.common.core.mapper.SysUserClosureMapper;
+import com.deepreach.common.core.mapper.SysUserMapper;
+import com.deepreach.common.core.service.UserClosureService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 用户层级闭包表维护实现
+ *
+ * 增量维护只涉及变更节点的子树与其祖先链，均为闭包表自连接的单条语句；
+ * 全量重建在内存中按上级链展开后分批写入。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserClosureServiceImpl implements UserClosureService {
+
+    private static final String STATUS_NORMAL = "0";
+    private static final int WRITE_CHUNK_SIZE = 1000;
+
+    private final SysUserClosureMapper closureMapper;
+    private final SysUserMapper userMapper;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Exception.class)
+    public void onUserCreated(Long userId, Long parentUserId, String status) {
+        if (userId == null || !STATUS_NORMAL.equals(status)) {
+            return;
+        }
+        closureMapper.insertSelf(userId);
+        attach(userId, parentUserId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Exception.class)
+    public void onParentChanged(Long userId, Long parentUserId) {
+        if (userId == null || closureMapper.countPath(userId, userId) == 0) {
+            // 非正常状态的用户不在闭包表中
+            return;
+        }
+        closureMapper.detachFromAncestors(userId);
+        attach(userId, parentUserId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Exception.class)
+    public void onStatusChanged(Long userId, Long parentUserId, String status) {
+        if (userId == null) {
+            return;
+        }
+        boolean present = closureMapper.countPath(userId, userId) > 0;
+        if (STATUS_NORMAL.equals(status)) {
+            if (present) {
+                return;
+            }
+            closureMapper.insertSelf(userId);
+            // 先接回停用期间成为根的直接下级，再将整棵子树挂到上级
+            closureMapper.adoptChildren(userId);
+            attach(userId, parentUserId);
+        } else if (present) {
+            closureMapper.removeNode(userId);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, rollbackFor = Exception.class)
+    public void onUserRemoved(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        closureMapper.removeNode(userId);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Long> parents = new HashMap<>();
+        List<UserHierarchyNodeDTO> relations = userMapper.selectAllUserHierarchyRelations();
+        if (relations != null) {
+            for (UserHierarchyNodeDTO relation : relations) {
+                if (relation != null && relation.getUserId() != null) {
+                    parents.putIfAbsent(relation.getUserId(), relation.getParentUserId());
+                }
+            }
+        }
+
+        closureMapper.deleteAll();
+        List<SysUserClosure> chunk = new ArrayList<>(WRITE_CHUNK_SIZE);
+        int written = 0;
+        Set<Long> visited = new HashSet<>();
+        for (Long userId : parents.keySet()) {
+            visited.clear();
+            Long current = userId;
+            int depth = 0;
+            // 上级为空、非正数或不在正常用户集合中时视为根；遇到环时截断
+            while (current != null && visited.add(current)) {
+                chunk.add(new SysUserClosure(current, userId, depth));
+                if (chunk.size() >= WRITE_CHUNK_SIZE) {
+                    written += closureMapper.insertBatch(chunk);
+                    chunk.clear();
+                }
+                Long parent = parents.get(current);
+                current = parent != null && parent > 0 && parents.containsKey(parent) ? parent : null;
+                depth++;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            written += closureMapper.insertBatch(chunk);
+        }
+        log.info("用户层级闭包表重建完成：用户数={}, 闭包行数={}, 耗时={}ms",
+            parents.size(), written, System.currentTimeMillis() - start);
+        return written;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public boolean rebuildIfEmpty() {
+        if (closureMapper.countAll() > 0) {
+            return false;
+        }
+        // 自调用不经过事务代理，直接在本事务内执行重建
+        rebuild();
+        return true;
+    }
+
+    private void attach(Long userId, Long parentUserId) {
+        if (parentUserId == null || parentUserId <= 0 || Objects.equals(userId, parentUserId)) {
+            return;
+        }
+        if (closureMapper.countPath(userId, parentUserId) > 0) {
+            log.warn("用户上级位于其子树中，忽略闭包挂接：用户ID={}, 上级ID={}", userId, parentUserId);
+            return;
+        }
+        closureMapper.attachToParent(userId, parentUserId);
+    }
+}
@@ -1,34 +1,91 @@
 package com.deepreach.common.core.service.impl;
 
 import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
-import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
 import com.deepreach.common.core.mapper.SysUserMapper;
 import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.RedisLock;
+import com.deepreach.common.core.support.UserHierarchySnapshot;
+import com.deepreach.common.core.support.UserTreeIntervalSynchronizer;
 import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * 基于 Redis 缓存的用户层级服务实现。
+ * 用户层级服务实现。
+ *
+ * 层级数据以不可变的紧凑快照（{@link com.deepreach.common.core.support.CompactUserHierarchy}）常驻本节点内存，
+ * 祖先判断为区间比较，子孙枚举为连续切片，查询不访问 Redis。
+ * 层级变化时由发起节点计算相对上一版本的增量变更，提交后通过 {@link ChangeBroadcaster} 广播，
+ * 各节点在版本衔接时增量应用，版本不衔接时整体重载；Redis 中的二进制层级数据仅作为冷启动数据源。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserHierarchyServiceImpl implements UserHierarchyService {
 
+    private static final String VERSION_KEY = "user:hierarchy:version";
+    private static final byte[] COMPACT_CACHE_KEY = "user:hierarchy:compact".getBytes(StandardCharsets.UTF_8);
+    private static final String MESSAGE_PREFIX = "h|";
+    private static final String FULL_RELOAD = "*";
+    private static final String PUBLISH_LOCK_KEY = "user:hierarchy:publish:lock";
+
+    /**
+     * 旧版整棵层级树的 JSON 缓存，已不再读写，启动时清理
+     */
+    private static final String LEGACY_TREE_CACHE_KEY = "user:hierarchy:tree";
+
+    /**
+     * 单次广播携带的最大增量条数，超过时通知各节点整体重载
+     */
+    private static final int MAX_INCREMENTAL_CHANGES = 1000;
+
     private final RedisTemplate<String, Object> redisTemplate;
     private final SysUserMapper userMapper;
+    private final ChangeBroadcaster changeBroadcaster;
+    private final UserTreeIntervalSynchronizer intervalSynchronizer;
+    private final RedisLock redisLock;
+
+    @Value("${deepreach.user-hierarchy.publish-lock-ttl:30000}")
+    private long publishLockTtlMillis;
+
+    @Value("${deepreach.user-hierarchy.publish-lock-wait:10000}")
+    private long publishLockWaitMillis;
+
+    private final AtomicReference<UserHierarchySnapshot> snapshot = new AtomicReference<>();
+
+    @PostConstruct
+    public void init() {
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, this::onHierarchyChanged);
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.delete(LEGACY_TREE_CACHE_KEY))) {
+                log.info("已清理旧版用户层级树缓存：{}", LEGACY_TREE_CACHE_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("清理旧版用户层级树缓存失败：{}", e.getMessage());
+        }
+    }
 
     @Override
     public Long findParentId(Long userId) {
         if (userId == null) {
             return null;
         }
-        return getTree().getParentMapping().get(userId);
+        return getSnapshot().getHierarchy().parentOf(userId);
     }
 
     @Override
@@ -36,8 +93,7 @@ public class UserHierarchyServiceImpl implements UserHierarchyService {
         if (userId == null) {
             return Collections.emptyList();
         }
-        Map<Long, List<Long>> childrenMap = getTree().getChildrenMapping();
-        return childrenMap.getOrDefault(userId, Collections.emptyList());
+        return getSnapshot().getHierarchy().childrenOf(userId);
     }
 
     @Override
@@ -45,21 +101,13 @@ public class UserHierarchyServiceImpl implements UserHierarchyService {
         if (userId == null) {
             return Collections.emptySet();
         }
-        Map<Long, List<Long>> childrenMap = getTree().getChildrenMapping();
-        Set<Long> descendants = new LinkedHashSet<>();
-        Deque<Long> stack = new ArrayDeque<>();
-        stack.push(userId);
-        while (!stack.isEmpty()) {
-            Long current = stack.pop();
-            List<Long> children = childrenMap.getOrDefault(current, Collections.emptyList());
-            for (Long child : children) {
-                if (child != null && descendants.add(child)) {
-                    stack.push(child);
-                }
-            }
+        long[] descendants = getSnapshot().getHierarchy().descendantsOf(userId);
+        Set<Long> result = new LinkedHashSet<>(Math.max(16, descendants.length * 4 / 3 + 1));
+        for (long descendant : descendants) {
+            result.add(descendant);
         }
-        descendants.remove(userId);
-        return descendants;
+        result.remove(userId);
+        return result;
     }
 
     @Override
@@ -67,42 +115,265 @@ public class UserHierarchyServiceImpl implements UserHierarchyService {
         if (ancestorId == null || targetId == null || Objects.equals(ancestorId, targetId)) {
             return false;
         }
-        Long parent = findParentId(targetId);
-        while (parent != null && !Objects.equals(parent, ancestorId)) {
-            parent = findParentId(parent);
+        return getSnapshot().getHierarchy().isAncestor(ancestorId, targetId);
+    }
+
+    @Override
+    public int countDescendants(Long userId) {
+        if (userId == null) {
+            return 0;
         }
-        return Objects.equals(parent, ancestorId);
+        return getSnapshot().getHierarchy().countDescendants(userId);
     }
 
     @Override
     public Set<Long> findRootIds() {
-        return new LinkedHashSet<>(getTree().getRootUserIds());
+        return new LinkedHashSet<>(getSnapshot().getHierarchy().rootIds());
+    }
+
+    @Override
+    public UserHierarchySnapshot currentSnapshot() {
+        return getSnapshot();
+    }
+
+    @Override
+    public void refreshHierarchy() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishHierarchy();
+                }
+            });
+        } else {
+            publishHierarchy();
+        }
+    }
+
+    /**
+     * 兜底同步：广播丢失时，根据 Redis 中的版本号发现落后并整体重载
+     */
+    @Scheduled(fixedDelayString = "${deepreach.user-hierarchy.sync-interval:60000}")
+    public void syncVersion() {
+        UserHierarchySnapshot current = snapshot.get();
+        if (current == null) {
+            return;
+        }
+        long latestVersion = readLatestVersion();
+        if (latestVersion > current.getVersion()) {
+            log.warn("用户层级索引版本落后，准备重载：本地={}, 最新={}", current.getVersion(), latestVersion);
+            reload(latestVersion);
+        }
     }
 
     // ==================== 内部方法 ====================
 
-    private UserHierarchyTreeDTO getTree() {
-        Object cached = redisTemplate.opsForValue().get(UserHierarchyTreeBuilder.USER_TREE_CACHE_KEY);
-        if (cached instanceof UserHierarchyTreeDTO) {
-            return (UserHierarchyTreeDTO) cached;
+    private UserHierarchySnapshot getSnapshot() {
+        UserHierarchySnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
         }
-        log.warn("用户层级缓存未命中，准备从数据库重建");
-        rebuildCache();
-        Object fresh = redisTemplate.opsForValue().get(UserHierarchyTreeBuilder.USER_TREE_CACHE_KEY);
-        if (fresh instanceof UserHierarchyTreeDTO) {
-            return (UserHierarchyTreeDTO) fresh;
+        return coldStart();
+    }
+
+    private synchronized UserHierarchySnapshot coldStart() {
+        UserHierarchySnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
         }
-        log.error("无法获取用户层级缓存，返回空树");
-        return UserHierarchyTreeBuilder.build(Collections.emptyList());
+        UserHierarchySnapshot loaded = loadFromCache(0L);
+        if (loaded == null) {
+            log.warn("用户层级缓存未命中，准备从数据库构建本地索引");
+            loaded = loadFromDatabase(readLatestVersion());
+        }
+        snapshot.set(loaded);
+        return loaded;
     }
 
-    private void rebuildCache() {
+    /**
+     * 发布最新层级：在发布锁内先递增版本号再查询数据库，保证版本号越大的数据越新。
+     *
+     * 等锁期间若版本号已被其他节点递增，说明对方的查询发生在本事务提交之后、已包含本次变更，直接跳过；
+     * 等锁超时时只递增版本号并通知整体重载，各节点会因缓存版本落后而从数据库重建。
+     */
+    private void publishHierarchy() {
+        long observedVersion = readLatestVersion();
+        String token = redisLock.tryLock(PUBLISH_LOCK_KEY,
+            Duration.ofMillis(publishLockTtlMillis), Duration.ofMillis(publishLockWaitMillis));
+        if (token == null) {
+            publishFullReload();
+            return;
+        }
         try {
+            if (readLatestVersion() > observedVersion) {
+                log.debug("用户层级已由其他发布覆盖，跳过本次发布：观察版本={}", observedVersion);
+                return;
+            }
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+            if (version == null) {
+                throw new IllegalStateException("无法获取用户层级版本号");
+            }
             List<UserHierarchyNodeDTO> relations = userMapper.selectAllUserHierarchyRelations();
-            UserHierarchyTreeDTO tree = UserHierarchyTreeBuilder.build(relations);
-            redisTemplate.opsForValue().set(UserHierarchyTreeBuilder.USER_TREE_CACHE_KEY, tree);
+            UserHierarchySnapshot latest = UserHierarchySnapshot.of(version, UserHierarchyTreeBuilder.build(relations));
+            UserHierarchySnapshot base = resolveBase(version - 1);
+            writeCache(latest);
+
+            StringBuilder message = new StringBuilder(MESSAGE_PREFIX).append(version).append('|');
+            List<UserHierarchySnapshot.Change> changes = base != null ? base.diff(relations) : null;
+            if (changes == null || changes.size() > MAX_INCREMENTAL_CHANGES) {
+                message.append(FULL_RELOAD);
+            } else {
+                message.append(base.getVersion()).append('|');
+                for (int i = 0; i < changes.size(); i++) {
+                    if (i > 0) {
+                        message.append(';');
+                    }
+                    message.append(changes.get(i).encode());
+                }
+            }
+            changeBroadcaster.publish(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, message.toString());
+            log.info("用户层级变更已广播：版本={}, 变更数={}", version, changes != null ? changes.size() : "全量");
+            intervalSynchronizer.submit(latest);
+        } catch (Exception e) {
+            log.error("广播用户层级变更失败，各节点将在兜底同步时重载", e);
+        } finally {
+            redisLock.unlock(PUBLISH_LOCK_KEY, token);
+        }
+    }
+
+    /**
+     * 增量变更的基准：优先使用本节点快照，其次使用 Redis 中的上一版本；都不是上一版本时返回 null（整体重载）
+     */
+    private UserHierarchySnapshot resolveBase(long previousVersion) {
+        UserHierarchySnapshot current = snapshot.get();
+        if (current != null && current.getVersion() == previousVersion) {
+            return current;
+        }
+        UserHierarchySnapshot cached = loadFromCache(previousVersion);
+        return cached != null && cached.getVersion() == previousVersion ? cached : null;
+    }
+
+    private void publishFullReload() {
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY);
+            changeBroadcaster.publish(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, MESSAGE_PREFIX + version + "|" + FULL_RELOAD);
+            log.warn("获取用户层级发布锁超时，已通知各节点整体重载：版本={}", version);
+        } catch (Exception e) {
+            log.error("通知用户层级整体重载失败，各节点将在兜底同步时重载", e);
+        }
+    }
+
+    private void onHierarchyChanged(String message) {
+        if (message == null || !message.startsWith(MESSAGE_PREFIX)) {
+            // 其他类型的层级相关通知（如角色变更）不影响父子关系
+            return;
+        }
+        String[] parts = message.substring(MESSAGE_PREFIX.length()).split("\\|", 3);
+        long version;
+        try {
+            version = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            log.warn("忽略无法解析的用户层级变更消息：{}", message);
+            return;
+        }
+        synchronized (this) {
+            UserHierarchySnapshot current = snapshot.get();
+            if (current == null) {
+                // 尚未加载，首次访问时会从缓存冷启动
+                return;
+            }
+            if (version <= current.getVersion()) {
+                return;
+            }
+            if (parts.length < 3 || FULL_RELOAD.equals(parts[1])) {
+                reload(version);
+                return;
+            }
+            try {
+                long baseVersion = Long.parseLong(parts[1]);
+                if (baseVersion != current.getVersion()) {
+                    log.info("用户层级版本不衔接，整体重载：本地={}, 基准={}, 最新={}",
+                        current.getVersion(), baseVersion, version);
+                    reload(version);
+                    return;
+                }
+                List<UserHierarchySnapshot.Change> changes = new ArrayList<>();
+                if (!parts[2].isEmpty()) {
+                    for (String item : parts[2].split(";")) {
+                        changes.add(UserHierarchySnapshot.Change.decode(item));
+                    }
+                }
+                snapshot.set(current.apply(version, changes));
+                log.debug("用户层级增量变更已应用：版本={}, 变更数={}", version, changes.size());
+            } catch (Exception e) {
+                log.warn("应用用户层级增量变更失败，整体重载：{}", e.getMessage());
+                reload(version);
+            }
+        }
+    }
+
+    private synchronized void reload(long targetVersion) {
+        try {
+            UserHierarchySnapshot loaded = loadFromCache(targetVersion);
+            if (loaded == null) {
+                loaded = loadFromDatabase(targetVersion);
+            }
+            snapshot.set(loaded);
+            log.info("用户层级索引已重载：版本={}, 用户数={}", loaded.getVersion(), loaded.size());
+            // 整体重载通知不携带区间同步，由各节点提交，已同步过的版本会被跳过
+            intervalSynchronizer.submit(loaded);
+        } catch (Exception e) {
+            log.error("重载用户层级索引失败，保留当前快照", e);
+        }
+    }
+
+    /**
+     * 读取 Redis 中的紧凑层级数据，版本低于 minVersion 时视为过期
+     */
+    private UserHierarchySnapshot loadFromCache(long minVersion) {
+        try {
+            byte[] cached = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(COMPACT_CACHE_KEY));
+            if (cached != null && cached.length > 0) {
+                UserHierarchySnapshot loaded = UserHierarchySnapshot.fromBytes(ByteBuffer.wrap(cached));
+                if (loaded.getVersion() >= minVersion) {
+                    return loaded;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("读取用户层级缓存失败：{}", e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * 以原始字节写入，绕过 RedisTemplate 的 JSON 序列化
+     */
+    private void writeCache(UserHierarchySnapshot latest) {
+        byte[] bytes = latest.toBytes();
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.stringCommands().set(COMPACT_CACHE_KEY, bytes);
+            return null;
+        });
+    }
+
+    private UserHierarchySnapshot loadFromDatabase(long version) {
+        List<UserHierarchyNodeDTO> relations = userMapper.selectAllUserHierarchyRelations();
+        return UserHierarchySnapshot.of(version, UserHierarchyTreeBuilder.build(relations));
+    }
+
+    private long readLatestVersion() {
+        try {
+            Object value = redisTemplate.opsForValue().get(VERSION_KEY);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            if (value != null) {
+                return Long.parseLong(value.toString());
+            }
         } catch (Exception e) {
-            log.error("重建用户层级缓存失败", e);
+            log.warn("读取用户层级版本号失败：{}", e.getMessage());
         }
+        return 0L;
     }
 }
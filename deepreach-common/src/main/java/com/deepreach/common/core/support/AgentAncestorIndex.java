@@ -0,0 +1,283 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.mapper.SysUserMapper;
+import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.security.UserRoleUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * 代理上级链索引
+ *
+ * 为每个用户预先计算“向上最多三级代理”的链路（含代理级别），佣金分发时直接读取，
+ * 不再逐级查询层级树与角色。上级关系取自 {@link UserHierarchyService} 的本地层级快照。
+ *
+ * 索引整体不可变，并记录构建时的代数与层级快照：
+ * 1. 层级或角色变更（{@link ChangeBroadcaster#CHANNEL_USER_HIERARCHY}）时代数加一，并提交异步重建
+ * 2. 重建完成时代数已变化则丢弃结果，不会用旧数据覆盖失效通知
+ * 3. 索引与当前代数或层级快照不一致时，请求线程只为当前用户现查链路（最多六个祖先、一次角色查询），不等待整体重建
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AgentAncestorIndex {
+
+    /**
+     * 向上追溯的最大步数，防止脏数据成环
+     */
+    private static final int MAX_WALK_STEPS = 20;
+
+    /**
+     * 参与筛选的最大祖先数量
+     */
+    private static final int MAX_ANCESTORS = 6;
+
+    /**
+     * 参与分佣的最大代理数量
+     */
+    private static final int MAX_AGENTS = 3;
+
+    private static final int ROLE_QUERY_CHUNK = 1000;
+
+    private final SysUserMapper userMapper;
+    private final UserHierarchyService hierarchyService;
+    private final ChangeBroadcaster changeBroadcaster;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<IndexSnapshot> index = new AtomicReference<>();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "agent-ancestor-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, message -> invalidate());
+        requestRebuild();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取指定用户的代理上级链，按与用户的距离由近到远排序
+     *
+     * @param userId 用户ID
+     * @return 代理上级链，不存在时返回空列表
+     */
+    public List<AgentAncestor> getAgentChain(Long userId) {
+        if (userId == null) {
+            return Collections.emptyList();
+        }
+        CompactUserHierarchy hierarchy = hierarchyService.currentSnapshot().getHierarchy();
+        IndexSnapshot current = index.get();
+        if (current != null && current.generation == generation.get() && current.hierarchy == hierarchy) {
+            // 代数与层级快照一致才使用索引，重建未完成或已被丢弃时都不会读到失效前的链路
+            return current.chains.getOrDefault(userId, Collections.emptyList());
+        }
+        requestRebuild();
+        List<Long> ancestorIds = collectAncestors(userId, hierarchy);
+        return buildChain(ancestorIds, loadAgentLevels(ancestorIds));
+    }
+
+    /**
+     * 索引是否已按当前代数与本节点层级快照构建完成
+     */
+    public boolean isCurrent() {
+        IndexSnapshot current = index.get();
+        return current != null && current.generation == generation.get()
+            && current.hierarchy == hierarchyService.currentSnapshot().getHierarchy();
+    }
+
+    /**
+     * 使当前索引失效并提交异步重建，重建完成前按用户现查
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        requestRebuild();
+    }
+
+    private void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        long expectedGeneration = generation.get();
+        long start = System.currentTimeMillis();
+        try {
+            CompactUserHierarchy hierarchy = hierarchyService.currentSnapshot().getHierarchy();
+            IndexSnapshot built = build(expectedGeneration, hierarchy);
+            if (generation.get() != expectedGeneration) {
+                // 重建期间收到失效通知，结果可能已过期；新的重建已在队列中
+                log.debug("代理上级链索引重建期间发生变更，丢弃本次结果");
+                return;
+            }
+            index.set(built);
+            log.info("代理上级链索引重建完成：用户数={}, 有代理上级的用户数={}, 耗时={}ms",
+                hierarchy.size(), built.chains.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("重建代理上级链索引失败，请求将按用户现查", e);
+        }
+    }
+
+    private IndexSnapshot build(long expectedGeneration, CompactUserHierarchy hierarchy) {
+        long[] userIds = hierarchy.userIds();
+        Set<Long> parentIds = new HashSet<>();
+        for (long userId : userIds) {
+            Long parentId = hierarchy.parentOf(userId);
+            if (parentId != null && parentId > 0) {
+                parentIds.add(parentId);
+            }
+        }
+
+        Map<Long, Integer> agentLevels = loadAgentLevels(parentIds);
+        Map<Long, List<AgentAncestor>> built = new HashMap<>();
+        for (long userId : userIds) {
+            List<AgentAncestor> chain = buildChain(collectAncestors(userId, hierarchy), agentLevels);
+            if (!chain.isEmpty()) {
+                built.put(userId, chain);
+            }
+        }
+        return new IndexSnapshot(expectedGeneration, hierarchy, Collections.unmodifiableMap(built));
+    }
+
+    private List<Long> collectAncestors(Long userId, CompactUserHierarchy hierarchy) {
+        List<Long> ancestorIds = new ArrayList<>(MAX_ANCESTORS);
+        Long current = validParent(hierarchy.parentOf(userId));
+        int steps = 0;
+        while (current != null && steps++ < MAX_WALK_STEPS && ancestorIds.size() < MAX_ANCESTORS) {
+            ancestorIds.add(current);
+            current = validParent(hierarchy.parentOf(current));
+        }
+        return ancestorIds;
+    }
+
+    private static Long validParent(Long parentId) {
+        return parentId != null && parentId > 0 ? parentId : null;
+    }
+
+    private List<AgentAncestor> buildChain(List<Long> ancestorIds, Map<Long, Integer> agentLevels) {
+        List<AgentAncestor> chain = new ArrayList<>(MAX_AGENTS);
+        Set<Long> visited = new HashSet<>();
+        int order = 1;
+        for (Long ancestorId : ancestorIds) {
+            if (order > MAX_AGENTS) {
+                break;
+            }
+            if (!visited.add(ancestorId)) {
+                continue;
+            }
+            Integer agentLevel = agentLevels.get(ancestorId);
+            if (agentLevel == null) {
+                continue;
+            }
+            chain.add(new AgentAncestor(ancestorId, order, agentLevel));
+            order++;
+        }
+        return chain.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(chain);
+    }
+
+    private Map<Long, Integer> loadAgentLevels(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Set<String>> roleKeys = new HashMap<>();
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += ROLE_QUERY_CHUNK) {
+            Set<Long> chunk = new HashSet<>(ids.subList(from, Math.min(from + ROLE_QUERY_CHUNK, ids.size())));
+            List<Map<String, Object>> rows = userMapper.selectUserRoleMappings(chunk);
+            if (rows == null) {
+                continue;
+            }
+            for (Map<String, Object> row : rows) {
+                if (row == null) {
+                    continue;
+                }
+                Object userIdObj = row.get("userId");
+                Object roleKeyObj = row.get("roleKey");
+                if (!(userIdObj instanceof Number) || !(roleKeyObj instanceof String)) {
+                    continue;
+                }
+                String roleKey = ((String) roleKeyObj).trim();
+                if (!roleKey.isEmpty()) {
+                    roleKeys.computeIfAbsent(((Number) userIdObj).longValue(), id -> new HashSet<>()).add(roleKey);
+                }
+            }
+        }
+
+        Map<Long, Integer> levels = new HashMap<>();
+        for (Map.Entry<Long, Set<String>> entry : roleKeys.entrySet()) {
+            Integer level = UserRoleUtils.resolveAgentLevel(entry.getValue());
+            if (level != null) {
+                levels.put(entry.getKey(), level);
+            }
+        }
+        return levels;
+    }
+
+    /**
+     * 某一代数、某一层级快照上构建的索引
+     */
+    private static final class IndexSnapshot {
+        private final long generation;
+        private final CompactUserHierarchy hierarchy;
+        private final Map<Long, List<AgentAncestor>> chains;
+
+        private IndexSnapshot(long generation, CompactUserHierarchy hierarchy, Map<Long, List<AgentAncestor>> chains) {
+            this.generation = generation;
+            this.hierarchy = hierarchy;
+            this.chains = chains;
+        }
+    }
+
+    /**
+     * 代理上级节点
+     */
+    @Getter
+    public static final class AgentAncestor {
+        /**
+         * 代理用户ID
+         */
+        private final Long agentUserId;
+
+        /**
+         * 在链路中的次序（1表示距离用户最近的代理）
+         */
+        private final int order;
+
+        /**
+         * 代理级别（1/2/3）
+         */
+        private final int agentLevel;
+
+        public AgentAncestor(Long agentUserId, int order, int agentLevel) {
+            this.agentUserId = agentUserId;
+            this.order = order;
+            this.agentLevel = agentLevel;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.deepreach.common.core.support;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 扣费账号的进程内余额占用台账
+ *
+ * 余额扣减在服务完成后异步入账，期间数据库余额尚未变化。台账记录两类在途金额：
+ * 1. 预占（hold）- 请求开始时按预估金额占用，完成后结算或失败后释放
+ * 2. 待入账（settled）- 已按实际金额结算、尚未确认落库的扣费
+ *
+ * 可用额度 = 数据库余额快照 - 预占 - 待入账。入账可能由任意节点的消费者完成，台账不依赖入账通知，
+ * 而是在每次重新读取余额快照时对账（{@link #reconcile}）：余额版本号（user_dr_balance.version，每次余额变更递增）
+ * 已超过结算时所见版本、且结算早于本次读取开始的待入账视为已计入快照，从台账移除，避免同一笔扣费被重复扣减。
+ * 版本号也可能因充值等其他变更递增，此时尚未落库的扣费会被提前移除，少计的在途金额以单次调用为上限。
+ * 超时未结算的预占与超过宽限期的待入账由 {@link #expire(long, long)} 兜底清理。
+ * 由 {@link ConsumptionBalanceGuard} 持有，不单独注册为 Bean。
+ */
+final class BalanceReservationLedger {
+
+    private final ConcurrentMap<Long, AccountLedger> accounts = new ConcurrentHashMap<>();
+    private final AtomicLong holdSequence = new AtomicLong();
+
+    /**
+     * 在可用额度足够时占用金额，不足时返回 -1，否则返回预占编号
+     *
+     * @param chargeUserId 扣费账号
+     * @param balance      数据库余额快照
+     * @param version      余额快照的版本号
+     * @param amount       预占金额
+     */
+    long tryHold(Long chargeUserId, BigDecimal balance, int version, BigDecimal amount) {
+        while (true) {
+            AccountLedger ledger = accounts.computeIfAbsent(chargeUserId, key -> new AccountLedger());
+            synchronized (ledger) {
+                // 台账可能刚被清理移除，重新取一次
+                if (accounts.get(chargeUserId) != ledger) {
+                    continue;
+                }
+                boolean stale = ledger.snapshotBalance != null && version < ledger.snapshotVersion;
+                BigDecimal effectiveBalance = stale ? ledger.snapshotBalance : balance;
+                if (effectiveBalance.subtract(ledger.inFlight()).compareTo(amount) < 0) {
+                    return -1L;
+                }
+                long holdId = holdSequence.incrementAndGet();
+                ledger.holds.put(holdId, new Entry(amount, System.currentTimeMillis(), stale ? ledger.snapshotVersion : version));
+                ledger.held = ledger.held.add(amount);
+                return holdId;
+            }
+        }
+    }
+
+    /**
+     * 释放预占；actualAmount 大于零时转为待入账
+     */
+    void settle(Long chargeUserId, long holdId, BigDecimal actualAmount) {
+        AccountLedger ledger = accounts.get(chargeUserId);
+        if (ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            Entry hold = ledger.holds.remove(holdId);
+            if (hold == null) {
+                return;
+            }
+            ledger.held = ledger.held.subtract(hold.amount);
+            if (actualAmount != null && actualAmount.signum() > 0) {
+                ledger.settled.addLast(new Entry(actualAmount, System.currentTimeMillis(), hold.version));
+                ledger.pending = ledger.pending.add(actualAmount);
+            }
+        }
+    }
+
+    /**
+     * 以重新读取的余额快照对账：移除已计入快照的待入账，并记录快照供持有旧快照的请求使用。
+     * 版本号低于已记录快照的读取结果（并发加载中较早的一次）直接忽略
+     *
+     * @param chargeUserId  扣费账号
+     * @param balance       数据库余额
+     * @param version       余额版本号
+     * @param loadStartedAt 本次读取开始的时间，晚于此时结算的待入账不能确定已计入快照
+     */
+    void reconcile(Long chargeUserId, BigDecimal balance, int version, long loadStartedAt) {
+        AccountLedger ledger = accounts.get(chargeUserId);
+        if (ledger == null) {
+            return;
+        }
+        synchronized (ledger) {
+            if (ledger.snapshotBalance != null && version < ledger.snapshotVersion) {
+                return;
+            }
+            ledger.snapshotBalance = balance;
+            ledger.snapshotVersion = version;
+            Iterator<Entry> settled = ledger.settled.iterator();
+            while (settled.hasNext()) {
+                Entry entry = settled.next();
+                if (entry.version < version && entry.createdAt < loadStartedAt) {
+                    settled.remove();
+                    ledger.pending = ledger.pending.subtract(entry.amount);
+                }
+            }
+        }
+    }
+
+    /**
+     * 扣除在途金额后的可用额度；传入的快照早于台账已对账的快照时以后者为准
+     */
+    BigDecimal available(Long chargeUserId, BigDecimal balance, int version) {
+        AccountLedger ledger = accounts.get(chargeUserId);
+        if (ledger == null) {
+            return balance;
+        }
+        synchronized (ledger) {
+            boolean stale = ledger.snapshotBalance != null && version < ledger.snapshotVersion;
+            return (stale ? ledger.snapshotBalance : balance).subtract(ledger.inFlight());
+        }
+    }
+
+    /**
+     * 清理超时的预占与超过宽限期的待入账，移除空闲账号，返回仍有在途金额的账号
+     *
+     * @param holdTimeoutMillis  预占最长保留时间
+     * @param settleGraceMillis  待入账最长保留时间，应大于异步入账的正常延迟
+     */
+    List<Long> expire(long holdTimeoutMillis, long settleGraceMillis) {
+        long now = System.currentTimeMillis();
+        List<Long> active = new ArrayList<>();
+        for (Map.Entry<Long, AccountLedger> item : accounts.entrySet()) {
+            AccountLedger ledger = item.getValue();
+            synchronized (ledger) {
+                Iterator<Entry> holds = ledger.holds.values().iterator();
+                while (holds.hasNext()) {
+                    Entry hold = holds.next();
+                    if (now - hold.createdAt > holdTimeoutMillis) {
+                        holds.remove();
+                        ledger.held = ledger.held.subtract(hold.amount);
+                    }
+                }
+                while (!ledger.settled.isEmpty() && now - ledger.settled.peekFirst().createdAt > settleGraceMillis) {
+                    ledger.pending = ledger.pending.subtract(ledger.settled.pollFirst().amount);
+                }
+                if (ledger.holds.isEmpty() && ledger.settled.isEmpty()) {
+                    accounts.remove(item.getKey(), ledger);
+                } else {
+                    active.add(item.getKey());
+                }
+            }
+        }
+        return active;
+    }
+
+    private static final class AccountLedger {
+        private final Map<Long, Entry> holds = new HashMap<>();
+        private final Deque<Entry> settled = new ArrayDeque<>();
+        private BigDecimal held = BigDecimal.ZERO;
+        private BigDecimal pending = BigDecimal.ZERO;
+        private BigDecimal snapshotBalance;
+        private int snapshotVersion;
+
+        private BigDecimal inFlight() {
+            return held.add(pending);
+        }
+    }
+
+    private static final class Entry {
+        private final BigDecimal amount;
+        private final long createdAt;
+        private final int version;
+
+        private Entry(BigDecimal amount, long createdAt, int version) {
+            this.amount = amount;
+            this.createdAt = createdAt;
+            this.version = version;
+        }
+    }
+}
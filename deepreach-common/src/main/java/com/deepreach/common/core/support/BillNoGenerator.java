@@ -0,0 +1,244 @@
+package com.deepreach.common.core.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 账单编号生成器（Snowflake 思路，十进制输出）。
+ *
+ * 编号格式：DR + yyyyMMddHHmmss + SSS(毫秒) + NNN(节点号) + QQQQ(毫秒内序号)，共 26 位，
+ * 保持原有 “DR + 年月日时分秒 + 序号” 的结构，bill_no 列（VARCHAR(32)）无需调整。
+ *
+ * - 节点号优先取配置 deepreach.bill-no.node-id；未配置时在 Redis 中租用（bill:no:node:{id}，SET NX EX），
+ *   由定时心跳续期，进程退出时释放，节点号不会随重启次数增长而回绕到仍在使用的节点；
+ * - 租约续期失败超过租期后生成编号直接失败，拿不到租约时启动失败，不会退化为可能重复的推导节点号；
+ * - 时间与序号压缩在一个 AtomicLong 中 CAS 推进，无锁；
+ * - 时钟回拨或单毫秒序号耗尽时沿用上一个逻辑时间继续递增，保证单节点内严格单调、不重复。
+ */
+@Slf4j
+@Component
+public class BillNoGenerator {
+
+    private static final String PREFIX = "DR";
+    private static final String NODE_LEASE_KEY_PREFIX = "bill:no:node:";
+    private static final int MAX_NODE_ID = 999;
+    private static final long SEQUENCE_RADIX = 10_000L;
+    private static final DateTimeFormatter SECOND_FORMATTER =
+        DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneId.systemDefault());
+
+    /**
+     * 持有者一致时续期，返回 1；租约已过期或被其他节点占用时返回 0
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end",
+        Long.class);
+
+    /**
+     * 持有者一致时释放
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final int configuredNodeId;
+    private final long leaseTtlSeconds;
+    private final String leaseOwner;
+
+    /**
+     * 逻辑时间戳（毫秒） * SEQUENCE_RADIX + 毫秒内序号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile SecondPrefix secondPrefix = new SecondPrefix(-1L, "");
+    private volatile String nodePart = "000";
+    private volatile int nodeId = -1;
+
+    /**
+     * 租约有效截止时间（System.nanoTime），仅自动租用节点号时使用
+     */
+    private volatile long leaseDeadlineNanos;
+
+    public BillNoGenerator(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                           @Value("${deepreach.bill-no.node-id:-1}") int configuredNodeId,
+                           @Value("${deepreach.bill-no.lease-ttl:60}") long leaseTtlSeconds) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.configuredNodeId = configuredNodeId;
+        this.leaseTtlSeconds = Math.max(10L, leaseTtlSeconds);
+        this.leaseOwner = describeProcess() + "#" + UUID.randomUUID();
+    }
+
+    @PostConstruct
+    public void init() {
+        if (configuredNodeId >= 0) {
+            if (configuredNodeId > MAX_NODE_ID) {
+                throw new IllegalStateException("deepreach.bill-no.node-id 取值范围为 0-" + MAX_NODE_ID);
+            }
+            applyNodeId(configuredNodeId);
+            log.info("账单编号生成器初始化完成，节点号（配置）：{}", nodeId);
+            return;
+        }
+        acquireLease();
+        log.info("账单编号生成器初始化完成，节点号（Redis 租约）：{}，租期：{}s", nodeId, leaseTtlSeconds);
+    }
+
+    /**
+     * 生成下一个账单编号
+     *
+     * @throws IllegalStateException 自动租用的节点号已超过租期未能续期
+     */
+    public String nextBillNo() {
+        if (configuredNodeId < 0 && System.nanoTime() - leaseDeadlineNanos >= 0) {
+            throw new IllegalStateException("账单节点号租约已失效，暂停生成账单编号");
+        }
+        long next = state.updateAndGet(current ->
+            Math.max(System.currentTimeMillis() * SEQUENCE_RADIX, current + 1));
+        long millis = next / SEQUENCE_RADIX;
+        int sequence = (int) (next % SEQUENCE_RADIX);
+
+        StringBuilder builder = new StringBuilder(26);
+        builder.append(PREFIX)
+            .append(resolveSecondPrefix(millis / 1000))
+            .append(pad((int) (millis % 1000), 3))
+            .append(nodePart)
+            .append(pad(sequence, 4));
+        return builder.toString();
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 续期节点号租约；租约已被其他节点占用时改租新的节点号
+     *
+     * Redis 暂时不可用时保留当前节点号，直到租期耗尽后 {@link #nextBillNo()} 开始失败
+     */
+    @Scheduled(fixedDelayString = "${deepreach.bill-no.lease-heartbeat:20000}")
+    public void renewLease() {
+        if (configuredNodeId >= 0 || nodeId < 0) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            Long renewed = redis().execute(RENEW_SCRIPT, Collections.singletonList(leaseKey(nodeId)),
+                leaseOwner, Long.toString(leaseTtlSeconds));
+            if (renewed != null && renewed > 0) {
+                leaseDeadlineNanos = startedAt + TimeUnit.SECONDS.toNanos(leaseTtlSeconds);
+                return;
+            }
+            log.warn("账单节点号 {} 的租约已丢失，重新租用", nodeId);
+            leaseDeadlineNanos = startedAt;
+            acquireLease();
+            log.info("账单节点号已改租为：{}", nodeId);
+        } catch (Exception e) {
+            log.warn("账单节点号 {} 续期失败：{}", nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void releaseLease() {
+        if (configuredNodeId >= 0 || nodeId < 0) {
+            return;
+        }
+        leaseDeadlineNanos = System.nanoTime();
+        try {
+            redis().execute(RELEASE_SCRIPT, Collections.singletonList(leaseKey(nodeId)), leaseOwner);
+        } catch (Exception e) {
+            log.warn("释放账单节点号 {} 失败，将在租期结束后自动释放：{}", nodeId, e.getMessage());
+        }
+    }
+
+    private void acquireLease() {
+        StringRedisTemplate redis = redis();
+        int start = ThreadLocalRandom.current().nextInt(MAX_NODE_ID + 1);
+        for (int i = 0; i <= MAX_NODE_ID; i++) {
+            int candidate = (start + i) % (MAX_NODE_ID + 1);
+            long startedAt = System.nanoTime();
+            Boolean acquired = redis.opsForValue()
+                .setIfAbsent(leaseKey(candidate), leaseOwner, Duration.ofSeconds(leaseTtlSeconds));
+            if (Boolean.TRUE.equals(acquired)) {
+                applyNodeId(candidate);
+                leaseDeadlineNanos = startedAt + TimeUnit.SECONDS.toNanos(leaseTtlSeconds);
+                return;
+            }
+        }
+        throw new IllegalStateException("账单节点号 0-" + MAX_NODE_ID + " 已全部被占用，无法生成唯一账单编号");
+    }
+
+    private StringRedisTemplate redis() {
+        StringRedisTemplate redis = redisTemplateProvider.getIfAvailable();
+        if (redis == null) {
+            throw new IllegalStateException("未配置 deepreach.bill-no.node-id 且 Redis 不可用，无法分配账单节点号");
+        }
+        return redis;
+    }
+
+    private void applyNodeId(int id) {
+        this.nodePart = pad(id, 3);
+        this.nodeId = id;
+    }
+
+    private static String leaseKey(int id) {
+        return NODE_LEASE_KEY_PREFIX + id;
+    }
+
+    private static String describeProcess() {
+        try {
+            return InetAddress.getLocalHost().getHostName() + "@" + ManagementFactory.getRuntimeMXBean().getName();
+        } catch (Exception e) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+
+    private String resolveSecondPrefix(long epochSecond) {
+        SecondPrefix cached = secondPrefix;
+        if (cached.epochSecond == epochSecond) {
+            return cached.text;
+        }
+        String text = SECOND_FORMATTER.format(Instant.ofEpochSecond(epochSecond));
+        secondPrefix = new SecondPrefix(epochSecond, text);
+        return text;
+    }
+
+    private static String pad(int value, int width) {
+        String text = Integer.toString(value);
+        if (text.length() >= width) {
+            return text;
+        }
+        StringBuilder builder = new StringBuilder(width);
+        for (int i = text.length(); i < width; i++) {
+            builder.append('0');
+        }
+        return builder.append(text).toString();
+    }
+
+    private static final class SecondPrefix {
+        private final long epochSecond;
+        private final String text;
+
+        private SecondPrefix(long epochSecond, String text) {
+            this.epochSecond = epochSecond;
+            this.text = text;
+        }
+    }
+}
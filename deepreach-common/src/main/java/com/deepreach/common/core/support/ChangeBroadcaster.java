@@ -0,0 +1,80 @@
+package com.deepreach.common.core.support;
+
+import java.util.function.Consumer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 变更通知广播接口
+ *
+ * 用于在多节点之间扩散“本地缓存已失效”之类的轻量通知：
+ * 1. redis - 基于 Redis Pub/Sub，所有节点（含发布者自身）都会收到消息
+ * 2. local - 进程内直接回调，单节点部署或测试环境使用
+ *
+ * 通过 deepreach.broadcast.type 切换实现。订阅方应保证处理逻辑幂等。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public interface ChangeBroadcaster {
+
+    /**
+     * 价格配置变更频道
+     */
+    String CHANNEL_PRICE_CONFIG = "deepreach:broadcast:price-config";
+
+    /**
+     * 用户层级/角色变更频道，角色变更消息为 "roles:" 加逗号分隔的用户ID，"roles:*" 表示全部用户
+     */
+    String CHANNEL_USER_HIERARCHY = "deepreach:broadcast:user-hierarchy";
+
+    /**
+     * 用户统计明细（充值、佣金、实例、AI人设）变更频道，消息为逗号分隔的用户ID，"*" 表示整体重建
+     */
+    String CHANNEL_USER_STATISTICS = "deepreach:broadcast:user-statistics";
+
+    /**
+     * 用户资料/角色本地缓存失效频道，消息为逗号分隔的用户ID，"*" 表示全部失效
+     */
+    String CHANNEL_USER_CACHE = "deepreach:broadcast:user-cache";
+
+    /**
+     * 登录会话本地缓存失效频道，消息为逗号分隔的令牌摘要，"*" 表示全部失效
+     */
+    String CHANNEL_SECURITY_SESSION = "deepreach:broadcast:security-session";
+
+    /**
+     * 发布消息
+     *
+     * @param channel 频道
+     * @param message 消息内容
+     */
+    void publish(String channel, String message);
+
+    /**
+     * 订阅频道
+     *
+     * @param channel  频道
+     * @param listener 消息回调
+     */
+    void subscribe(String channel, Consumer<String> listener);
+
+    /**
+     * 处于事务中时推迟到提交之后发布，避免其他节点读到未提交的数据；否则立即发布
+     *
+     * @param channel 频道
+     * @param message 消息内容
+     */
+    default void publishAfterCommit(String channel, String message) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(channel, message);
+                }
+            });
+        } else {
+            publish(channel, message);
+        }
+    }
+}
@@ -0,0 +1,555 @@
+package com.deepreach.common.core.support;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 紧凑型用户层级结构（不可变）
+ *
+ * 全部数据保存在基本类型数组中，不含装箱对象：
+ * - 用户ID升序存放于 ids，节点下标通过二分查找定位；
+ * - 子节点以 CSR 形式存放（childOffsets / childIndexes），同一父节点下按用户ID升序；
+ * - 按先序遍历编号（Euler tour），节点 i 的子树恰好是 preorder[enter[i], exit[i])，
+ *   因此祖先判断是 O(1) 的区间比较，子孙枚举是一段连续切片。
+ *
+ * 语义与 {@link com.deepreach.common.utils.UserHierarchyTreeBuilder} 保持一致：
+ * 上级为空、非正数或不在数据集中的用户视为根节点；指向缺失上级的子节点单独记录（dangling），
+ * 以便按缺失上级ID查询子节点时结果不变。
+ *
+ * 可通过 {@link #toBytes()} 序列化为单个字节数组写入 Redis；{@link #fromBytes(ByteBuffer)}
+ * 可以从堆内、堆外或内存映射的 ByteBuffer 读取，但会把数据复制到堆内数组，并非零拷贝访问。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class CompactUserHierarchy {
+
+    private static final int MAGIC = 0x44525548;
+    private static final int FORMAT_VERSION = 1;
+    private static final long NO_PARENT = Long.MIN_VALUE;
+
+    private static final CompactUserHierarchy EMPTY = build(Collections.emptyMap());
+
+    private final long[] ids;
+    private final long[] parents;
+    private final int[] childOffsets;
+    private final int[] childIndexes;
+    private final int[] enter;
+    private final int[] exit;
+    private final long[] preorder;
+    private final int[] roots;
+    private final long[] danglingParents;
+    private final int[] danglingOffsets;
+    private final int[] danglingChildren;
+
+    private CompactUserHierarchy(long[] ids, long[] parents, int[] childOffsets, int[] childIndexes,
+                                 int[] enter, int[] exit, long[] preorder, int[] roots,
+                                 long[] danglingParents, int[] danglingOffsets, int[] danglingChildren) {
+        this.ids = ids;
+        this.parents = parents;
+        this.childOffsets = childOffsets;
+        this.childIndexes = childIndexes;
+        this.enter = enter;
+        this.exit = exit;
+        this.preorder = preorder;
+        this.roots = roots;
+        this.danglingParents = danglingParents;
+        this.danglingOffsets = danglingOffsets;
+        this.danglingChildren = danglingChildren;
+    }
+
+    public static CompactUserHierarchy empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由“用户ID -> 上级ID”映射构建（上级可为 null）
+     */
+    public static CompactUserHierarchy build(Map<Long, Long> parentMapping) {
+        int size = parentMapping.size();
+        long[] ids = new long[size];
+        int cursor = 0;
+        for (Long userId : parentMapping.keySet()) {
+            ids[cursor++] = userId;
+        }
+        Arrays.sort(ids);
+
+        long[] parents = new long[size];
+        int[] parentIndex = new int[size];
+        for (int i = 0; i < size; i++) {
+            Long parent = parentMapping.get(ids[i]);
+            parents[i] = parent != null ? parent : NO_PARENT;
+            parentIndex[i] = parent != null && parent > 0 ? Arrays.binarySearch(ids, parent) : -1;
+        }
+        return assemble(ids, parents, parentIndex);
+    }
+
+    /**
+     * 在当前结构上应用变更，返回新结构（当前结构不受影响）
+     *
+     * changedIds 升序且不重复；removed[i] 为 true 表示移除该用户，否则将其上级设为 newParents[i]
+     * （{@link Long#MIN_VALUE} 表示上级为空）。未变更用户的上级下标沿用当前结构的父子关系换算，
+     * 只有变更用户和原本指向缺失上级的用户需要二分查找，整个过程是若干次线性遍历，不装箱也不对全量ID排序。
+     */
+    public CompactUserHierarchy patch(long[] changedIds, long[] newParents, boolean[] removed) {
+        int n = ids.length;
+        int k = changedIds.length;
+        int[] oldParentIndex = new int[n];
+        Arrays.fill(oldParentIndex, -1);
+        for (int p = 0; p < n; p++) {
+            for (int c = childOffsets[p]; c < childOffsets[p + 1]; c++) {
+                oldParentIndex[childIndexes[c]] = p;
+            }
+        }
+
+        // 合并升序ID：移除的用户跳过，变更的用户使用新上级
+        long[] mergedIds = new long[n + k];
+        long[] mergedParents = new long[n + k];
+        int[] sourceIndex = new int[n + k];
+        int[] oldToNew = new int[n];
+        Arrays.fill(oldToNew, -1);
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < n || j < k) {
+            if (j >= k || (i < n && ids[i] < changedIds[j])) {
+                oldToNew[i] = size;
+                mergedIds[size] = ids[i];
+                mergedParents[size] = parents[i];
+                sourceIndex[size++] = i++;
+                continue;
+            }
+            boolean existing = i < n && ids[i] == changedIds[j];
+            if (!removed[j]) {
+                if (existing) {
+                    oldToNew[i] = size;
+                }
+                mergedIds[size] = changedIds[j];
+                mergedParents[size] = newParents[j];
+                sourceIndex[size++] = -1;
+            }
+            if (existing) {
+                i++;
+            }
+            j++;
+        }
+        long[] newIds = Arrays.copyOf(mergedIds, size);
+        long[] newParentValues = Arrays.copyOf(mergedParents, size);
+
+        int[] parentIndex = new int[size];
+        for (int x = 0; x < size; x++) {
+            long parent = newParentValues[x];
+            int source = sourceIndex[x];
+            if (parent == NO_PARENT || parent <= 0) {
+                parentIndex[x] = -1;
+            } else if (source >= 0 && oldParentIndex[source] >= 0) {
+                // 上级未变更：沿用原下标，上级被移除时变为缺失上级
+                parentIndex[x] = oldToNew[oldParentIndex[source]];
+            } else {
+                // 变更用户或原本指向缺失上级的用户（上级可能刚被加入）
+                parentIndex[x] = Arrays.binarySearch(newIds, parent);
+            }
+            if (parentIndex[x] < 0) {
+                parentIndex[x] = -1;
+            }
+        }
+        return assemble(newIds, newParentValues, parentIndex);
+    }
+
+    /**
+     * 由升序ID、原始上级与上级下标（-1 表示根或缺失上级）组装完整结构
+     */
+    private static CompactUserHierarchy assemble(long[] ids, long[] parents, int[] parentIndex) {
+        int size = ids.length;
+        int[] childCounts = new int[size];
+        int danglingCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (parentIndex[i] >= 0) {
+                childCounts[parentIndex[i]]++;
+            } else if (parents[i] != NO_PARENT && parents[i] > 0) {
+                danglingCount++;
+            }
+        }
+
+        // CSR：ids 已升序，按下标顺序填充即保证同一父节点下子节点升序
+        int[] childOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            childOffsets[i + 1] = childOffsets[i] + childCounts[i];
+        }
+        int[] childIndexes = new int[childOffsets[size]];
+        int[] fill = Arrays.copyOf(childOffsets, size);
+        for (int i = 0; i < size; i++) {
+            if (parentIndex[i] >= 0) {
+                childIndexes[fill[parentIndex[i]]++] = i;
+            }
+        }
+
+        // 指向缺失上级的子节点，按上级ID再按子节点ID排序
+        long[][] danglingPairs = new long[danglingCount][];
+        int d = 0;
+        for (int i = 0; i < size; i++) {
+            long parent = parents[i];
+            if (parentIndex[i] < 0 && parent != NO_PARENT && parent > 0) {
+                danglingPairs[d++] = new long[] {parent, i};
+            }
+        }
+        Arrays.sort(danglingPairs, (left, right) -> left[0] != right[0]
+            ? Long.compare(left[0], right[0]) : Long.compare(left[1], right[1]));
+        long[] danglingParentsTmp = new long[danglingCount];
+        int[] danglingOffsetsTmp = new int[danglingCount + 1];
+        int[] danglingChildren = new int[danglingCount];
+        int groups = 0;
+        for (int i = 0; i < danglingCount; i++) {
+            if (i == 0 || danglingPairs[i][0] != danglingPairs[i - 1][0]) {
+                danglingParentsTmp[groups] = danglingPairs[i][0];
+                danglingOffsetsTmp[groups] = i;
+                groups++;
+            }
+            danglingChildren[i] = (int) danglingPairs[i][1];
+        }
+        danglingOffsetsTmp[groups] = danglingCount;
+        long[] danglingParents = Arrays.copyOf(danglingParentsTmp, groups);
+        int[] danglingOffsets = Arrays.copyOf(danglingOffsetsTmp, groups + 1);
+
+        int rootCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (parentIndex[i] < 0) {
+                rootCount++;
+            }
+        }
+        int[] roots = new int[rootCount];
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            if (parentIndex[i] < 0) {
+                roots[r++] = i;
+            }
+        }
+
+        int[] enter = new int[size];
+        int[] exit = new int[size];
+        long[] preorder = new long[size];
+        Arrays.fill(enter, -1);
+        int[] stack = new int[size];
+        int[] stackCursor = new int[size];
+        int order = 0;
+        for (int root : roots) {
+            order = tour(root, order, childOffsets, childIndexes, ids, enter, exit, preorder, stack, stackCursor);
+        }
+        // 成环的脏数据没有根节点，从剩余最小的节点补充遍历，保证每个节点都有编号
+        for (int start = 0; start < size; start++) {
+            if (enter[start] < 0) {
+                order = tour(start, order, childOffsets, childIndexes, ids, enter, exit, preorder, stack, stackCursor);
+            }
+        }
+
+        return new CompactUserHierarchy(ids, parents, childOffsets, childIndexes, enter, exit, preorder, roots,
+            danglingParents, danglingOffsets, danglingChildren);
+    }
+
+    private static int tour(int start, int order, int[] childOffsets, int[] childIndexes, long[] ids,
+                            int[] enter, int[] exit, long[] preorder, int[] stack, int[] stackCursor) {
+        int depth = 0;
+        stack[0] = start;
+        stackCursor[0] = childOffsets[start];
+        enter[start] = order;
+        preorder[order++] = ids[start];
+        while (depth >= 0) {
+            int node = stack[depth];
+            int next = stackCursor[depth];
+            if (next < childOffsets[node + 1]) {
+                stackCursor[depth]++;
+                int child = childIndexes[next];
+                if (enter[child] >= 0) {
+                    continue;
+                }
+                enter[child] = order;
+                preorder[order++] = ids[child];
+                depth++;
+                stack[depth] = child;
+                stackCursor[depth] = childOffsets[child];
+            } else {
+                exit[node] = order;
+                depth--;
+            }
+        }
+        return order;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(long userId) {
+        return Arrays.binarySearch(ids, userId) >= 0;
+    }
+
+    /**
+     * 获取上级ID：用户不存在或上级为空时返回 null（与原层级树的 parentMapping 一致，返回原始上级值）
+     */
+    public Long parentOf(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index < 0 || parents[index] == NO_PARENT) {
+            return null;
+        }
+        return parents[index];
+    }
+
+    /**
+     * 获取直接子用户ID，按用户ID升序
+     */
+    public List<Long> childrenOf(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index >= 0) {
+            int from = childOffsets[index];
+            int to = childOffsets[index + 1];
+            if (from == to) {
+                return Collections.emptyList();
+            }
+            List<Long> children = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                children.add(ids[childIndexes[i]]);
+            }
+            return children;
+        }
+        int group = Arrays.binarySearch(danglingParents, userId);
+        if (group < 0) {
+            return Collections.emptyList();
+        }
+        List<Long> children = new ArrayList<>(danglingOffsets[group + 1] - danglingOffsets[group]);
+        for (int i = danglingOffsets[group]; i < danglingOffsets[group + 1]; i++) {
+            children.add(ids[danglingChildren[i]]);
+        }
+        return children;
+    }
+
+    /**
+     * 获取全部子孙用户ID（不含自身），按先序遍历顺序
+     */
+    public long[] descendantsOf(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index >= 0) {
+            return Arrays.copyOfRange(preorder, enter[index] + 1, exit[index]);
+        }
+        int group = Arrays.binarySearch(danglingParents, userId);
+        if (group < 0) {
+            return new long[0];
+        }
+        int total = 0;
+        for (int i = danglingOffsets[group]; i < danglingOffsets[group + 1]; i++) {
+            int child = danglingChildren[i];
+            total += exit[child] - enter[child];
+        }
+        long[] result = new long[total];
+        int cursor = 0;
+        for (int i = danglingOffsets[group]; i < danglingOffsets[group + 1]; i++) {
+            int child = danglingChildren[i];
+            int length = exit[child] - enter[child];
+            System.arraycopy(preorder, enter[child], result, cursor, length);
+            cursor += length;
+        }
+        return result;
+    }
+
+    /**
+     * 子孙数量（不含自身）
+     */
+    public int countDescendants(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index >= 0) {
+            return exit[index] - enter[index] - 1;
+        }
+        return descendantsOf(userId).length;
+    }
+
+    /**
+     * 先序进入编号，用户不存在时返回 -1；子树（含自身）为 [enterOf, exitOf)
+     */
+    public int enterOf(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        return index >= 0 ? enter[index] : -1;
+    }
+
+    /**
+     * 子树结束编号（不含），用户不存在时返回 -1
+     */
+    public int exitOf(long userId) {
+        int index = Arrays.binarySearch(ids, userId);
+        return index >= 0 ? exit[index] : -1;
+    }
+
+    /**
+     * 先序编号对应的用户ID，position 取值 [0, size)；按编号倒序遍历即可保证子节点先于上级处理
+     */
+    public long userAtPreorder(int position) {
+        return preorder[position];
+    }
+
+    /**
+     * 判断 ancestorId 是否为 targetId 的祖先（不含自身）
+     */
+    public boolean isAncestor(long ancestorId, long targetId) {
+        if (ancestorId == targetId) {
+            return false;
+        }
+        int target = Arrays.binarySearch(ids, targetId);
+        if (target < 0) {
+            return false;
+        }
+        int ancestor = Arrays.binarySearch(ids, ancestorId);
+        if (ancestor >= 0) {
+            return enter[ancestor] < enter[target] && enter[target] < exit[ancestor];
+        }
+        if (ancestorId <= 0) {
+            // 非正数上级视为根节点标记，原层级树逐级上溯时仍会与之比较，这里按原始上级逐级查找保持一致
+            int current = target;
+            for (int steps = 0; current >= 0 && steps < ids.length; steps++) {
+                long parent = parents[current];
+                if (parent == ancestorId) {
+                    return true;
+                }
+                current = parent == NO_PARENT ? -1 : Arrays.binarySearch(ids, parent);
+            }
+            return false;
+        }
+        // 缺失的上级不在数据集中，只能作为某个根节点的原始上级出现
+        int group = Arrays.binarySearch(danglingParents, ancestorId);
+        if (group < 0) {
+            return false;
+        }
+        for (int i = danglingOffsets[group]; i < danglingOffsets[group + 1]; i++) {
+            int child = danglingChildren[i];
+            if (enter[child] <= enter[target] && enter[target] < exit[child]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 根节点用户ID，按用户ID升序
+     */
+    public List<Long> rootIds() {
+        List<Long> result = new ArrayList<>(roots.length);
+        for (int root : roots) {
+            result.add(ids[root]);
+        }
+        return result;
+    }
+
+    /**
+     * 判断用户在结构中的上级是否与给定值一致（用于计算增量变更）
+     */
+    public boolean hasRelation(long userId, Long parentId) {
+        int index = Arrays.binarySearch(ids, userId);
+        if (index < 0) {
+            return false;
+        }
+        long stored = parents[index];
+        return parentId == null ? stored == NO_PARENT : stored == parentId;
+    }
+
+    /**
+     * 全部用户ID（升序，返回副本）
+     */
+    public long[] userIds() {
+        return ids.clone();
+    }
+
+    /**
+     * 导出为“用户ID -> 上级ID”映射
+     */
+    public Map<Long, Long> toParentMapping() {
+        Map<Long, Long> mapping = new HashMap<>(Math.max(16, ids.length * 4 / 3 + 1));
+        for (int i = 0; i < ids.length; i++) {
+            mapping.put(ids[i], parents[i] == NO_PARENT ? null : parents[i]);
+        }
+        return mapping;
+    }
+
+    /**
+     * 序列化为单个字节数组
+     */
+    public byte[] toBytes() {
+        int n = ids.length;
+        int bytes = 4 * 4
+            + n * 8 * 3
+            + (n + 1) * 4 + childIndexes.length * 4 + n * 4 * 2
+            + roots.length * 4 + 4
+            + danglingParents.length * 8 + danglingOffsets.length * 4 + danglingChildren.length * 4 + 8;
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(n).putInt(childIndexes.length);
+        putLongs(buffer, ids);
+        putLongs(buffer, parents);
+        putInts(buffer, childOffsets);
+        putInts(buffer, childIndexes);
+        putInts(buffer, enter);
+        putInts(buffer, exit);
+        putLongs(buffer, preorder);
+        buffer.putInt(roots.length);
+        putInts(buffer, roots);
+        buffer.putInt(danglingParents.length).putInt(danglingChildren.length);
+        putLongs(buffer, danglingParents);
+        putInts(buffer, danglingOffsets);
+        putInts(buffer, danglingChildren);
+        return buffer.array();
+    }
+
+    /**
+     * 从字节缓冲区读取，读取位置从 buffer 当前 position 开始；数据会复制到堆内数组，缓冲区读取后即可释放
+     */
+    public static CompactUserHierarchy fromBytes(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("不是有效的用户层级数据");
+        }
+        int format = buffer.getInt();
+        if (format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的用户层级数据版本：" + format);
+        }
+        int n = buffer.getInt();
+        int childCount = buffer.getInt();
+        long[] ids = getLongs(buffer, n);
+        long[] parents = getLongs(buffer, n);
+        int[] childOffsets = getInts(buffer, n + 1);
+        int[] childIndexes = getInts(buffer, childCount);
+        int[] enter = getInts(buffer, n);
+        int[] exit = getInts(buffer, n);
+        long[] preorder = getLongs(buffer, n);
+        int[] roots = getInts(buffer, buffer.getInt());
+        int groups = buffer.getInt();
+        int danglingCount = buffer.getInt();
+        long[] danglingParents = getLongs(buffer, groups);
+        int[] danglingOffsets = getInts(buffer, groups + 1);
+        int[] danglingChildren = getInts(buffer, danglingCount);
+        return new CompactUserHierarchy(ids, parents, childOffsets, childIndexes, enter, exit, preorder, roots,
+            danglingParents, danglingOffsets, danglingChildren);
+    }
+
+    private static void putLongs(ByteBuffer buffer, long[] values) {
+        buffer.asLongBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 8);
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.asIntBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 4);
+    }
+
+    private static long[] getLongs(ByteBuffer buffer, int length) {
+        long[] values = new long[length];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + length * 8);
+        return values;
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+}
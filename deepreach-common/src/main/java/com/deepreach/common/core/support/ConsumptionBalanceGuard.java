@@ -3,65 +3,137 @@ package com.deepreach.common.core.support;
 import com.deepreach.common.core.domain.entity.UserDrBalance;
 import com.deepreach.common.core.service.UserDrBalanceService;
 import com.deepreach.common.exception.ServiceException;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import java.math.BigDecimal;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import lombok.RequiredArgsConstructor;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * 在提供服务前校验余额是否足够。
+ *
+ * 余额快照缓存在有容量上限的本地缓存中，过期条目由 {@link LocalCacheManager} 统一清理：
+ * 1. 同一商家的并发未命中只触发一次余额查询，其余请求等待同一次加载结果
+ * 2. 快照超过刷新间隔后，请求先使用上一份快照，同时在后台刷新（stale-while-revalidate）；超过过期时间才同步加载
+ *
+ * 余额扣减在服务完成后异步入账，仅凭快照校验时大量并发请求会远超余额透支。为此按扣费账号维护进程内的
+ * {@link BalanceReservationLedger}：请求开始时按预估金额预占（{@link #reserve}），完成后按实际金额结算，
+ * 失败时释放；校验额度 = 余额快照 - 预占 - 待入账。每次读取余额快照后按版本号与台账对账，移除已落库的待入账，
+ * 入账节点通过 {@link #confirmCharge} 失效快照使对账立即发生；定时任务刷新在途账号的余额快照并清理超时条目，
+ * 透支上限不再依赖每次同步读库。
  */
+@Slf4j
 @Component
-@RequiredArgsConstructor
 public class ConsumptionBalanceGuard {
 
-    private static final long BALANCE_CACHE_TTL_MILLIS = 5_000;
+    private static final Duration BALANCE_REFRESH_AFTER = Duration.ofSeconds(5);
+    private static final Duration BALANCE_EXPIRE_AFTER = Duration.ofSeconds(30);
 
     private final ChargeAccountResolver chargeAccountResolver;
     private final UserDrBalanceService userDrBalanceService;
-    private final Map<Long, CachedBalanceEntry> balanceCache = new ConcurrentHashMap<>();
+    private final LoadingCache<Long, UserBalanceSnapshot> balanceCache;
+    private final BalanceReservationLedger ledger = new BalanceReservationLedger();
 
+    @Value("${deepreach.local-cache.balance-guard.hold-timeout:300000}")
+    private long holdTimeoutMillis;
+
+    @Value("${deepreach.local-cache.balance-guard.settle-grace:120000}")
+    private long settleGraceMillis;
+
+    public ConsumptionBalanceGuard(ChargeAccountResolver chargeAccountResolver,
+                                   UserDrBalanceService userDrBalanceService,
+                                   LocalCacheManager cacheManager,
+                                   @Value("${deepreach.local-cache.balance-guard.maximum-size:20000}") long maximumSize) {
+        this.chargeAccountResolver = chargeAccountResolver;
+        this.userDrBalanceService = userDrBalanceService;
+        this.balanceCache = cacheManager.newLoadingCache("consumption-balance",
+            cacheManager.builder(maximumSize, BALANCE_EXPIRE_AFTER).refreshAfterWrite(BALANCE_REFRESH_AFTER),
+            this::loadSnapshot);
+    }
+
+    /**
+     * 校验扣除在途金额后的余额不低于 minimumAmount，不占用额度；适用于扣费金额固定且同步入账的场景
+     */
     public ChargeAccountResolver.ChargeAccount ensureSufficientBalance(Long requestUserId,
                                                                        BigDecimal minimumAmount,
                                                                        String scene) {
-        if (requestUserId == null || requestUserId <= 0) {
-            throw new ServiceException("用户ID不能为空");
-        }
-        if (minimumAmount == null || minimumAmount.compareTo(BigDecimal.ZERO) <= 0) {
-            minimumAmount = BigDecimal.ZERO;
+        ChargeAccountResolver.ChargeAccount account = resolveAccount(requestUserId);
+        UserBalanceSnapshot snapshot = getNormalSnapshot(account.getChargeUserId());
+        BigDecimal available = ledger.available(account.getChargeUserId(), snapshot.available, snapshot.version);
+        if (available.compareTo(normalize(minimumAmount)) < 0) {
+            throw new ServiceException("账户余额不足，请先充值");
         }
-        ChargeAccountResolver.ChargeAccount account = chargeAccountResolver.resolve(requestUserId);
-        UserBalanceSnapshot snapshot = getBalanceSnapshot(account.getChargeUserId(), false);
-        if (!snapshot.normal) {
-            throw new ServiceException("用户余额账户状态异常，无法使用服务");
+        return account;
+    }
+
+    /**
+     * 按预估金额预占余额，不足时抛出异常。调用方须在完成时 {@link BalanceReservation#settle}，
+     * 失败时 {@link BalanceReservation#release}
+     */
+    public BalanceReservation reserve(Long requestUserId, BigDecimal estimatedAmount, String scene) {
+        ChargeAccountResolver.ChargeAccount account = resolveAccount(requestUserId);
+        UserBalanceSnapshot snapshot = getNormalSnapshot(account.getChargeUserId());
+        BigDecimal amount = normalize(estimatedAmount);
+        long holdId = ledger.tryHold(account.getChargeUserId(), snapshot.available, snapshot.version, amount);
+        if (holdId < 0) {
+            log.info("余额预占失败 scene={} chargeUserId={} amount={}", scene, account.getChargeUserId(), amount);
+            throw new ServiceException("账户余额不足，请先充值");
         }
-        if (snapshot.available.compareTo(minimumAmount) < 0) {
-            snapshot = getBalanceSnapshot(account.getChargeUserId(), true);
-            if (snapshot.available.compareTo(minimumAmount) < 0) {
-                throw new ServiceException("账户余额不足，请先充值");
-            }
+        return new BalanceReservation(account, holdId);
+    }
+
+    /**
+     * 扣费已落库：失效余额快照，下次读取时按新版本号与台账对账，冲销已计入余额的待入账
+     */
+    public void confirmCharge(Long chargeUserId) {
+        if (chargeUserId != null) {
+            balanceCache.invalidate(chargeUserId);
         }
-        return account;
     }
 
     public void evictBalance(Long userId) {
         if (userId != null) {
-            balanceCache.remove(userId);
+            balanceCache.invalidate(userId);
         }
     }
 
-    private UserBalanceSnapshot getBalanceSnapshot(Long chargeUserId, boolean forceReload) {
-        if (!forceReload) {
-            CachedBalanceEntry cached = balanceCache.get(chargeUserId);
-            if (cached != null && !cached.isExpired()) {
-                return cached.snapshot;
-            }
+    /**
+     * 定时对账：清理超时的预占与超过宽限期的待入账，并在后台刷新仍有在途金额账号的余额快照
+     */
+    @Scheduled(fixedDelayString = "${deepreach.local-cache.balance-guard.reconcile-interval:10000}")
+    public void reconcile() {
+        List<Long> active = ledger.expire(holdTimeoutMillis, settleGraceMillis);
+        for (Long chargeUserId : active) {
+            balanceCache.refresh(chargeUserId);
         }
-        return loadSnapshot(chargeUserId);
+    }
+
+    private ChargeAccountResolver.ChargeAccount resolveAccount(Long requestUserId) {
+        if (requestUserId == null || requestUserId <= 0) {
+            throw new ServiceException("用户ID不能为空");
+        }
+        return chargeAccountResolver.resolve(requestUserId);
+    }
+
+    private UserBalanceSnapshot getNormalSnapshot(Long chargeUserId) {
+        UserBalanceSnapshot snapshot = balanceCache.get(chargeUserId);
+        if (!snapshot.normal) {
+            throw new ServiceException("用户余额账户状态异常，无法使用服务");
+        }
+        return snapshot;
+    }
+
+    private static BigDecimal normalize(BigDecimal amount) {
+        return amount == null || amount.signum() <= 0 ? BigDecimal.ZERO : amount;
     }
 
     private UserBalanceSnapshot loadSnapshot(Long chargeUserId) {
+        long loadStartedAt = System.currentTimeMillis();
         UserDrBalance balance = userDrBalanceService.getByUserId(chargeUserId);
         if (balance == null) {
             throw new ServiceException("用户余额账户不存在");
@@ -71,21 +143,38 @@ public class ConsumptionBalanceGuard {
             balance.isNormal(),
             balance.getVersion() != null ? balance.getVersion() : 0
         );
-        balanceCache.put(chargeUserId, new CachedBalanceEntry(snapshot));
+        ledger.reconcile(chargeUserId, snapshot.available, snapshot.version, loadStartedAt);
         return snapshot;
     }
 
-    private static final class CachedBalanceEntry {
-        private final UserBalanceSnapshot snapshot;
-        private final long expiresAt;
+    /**
+     * 一次余额预占，结算与释放只生效一次
+     */
+    public final class BalanceReservation {
+        @Getter
+        private final ChargeAccountResolver.ChargeAccount account;
+        private final long holdId;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private BalanceReservation(ChargeAccountResolver.ChargeAccount account, long holdId) {
+            this.account = account;
+            this.holdId = holdId;
+        }
 
-        private CachedBalanceEntry(UserBalanceSnapshot snapshot) {
-            this.snapshot = snapshot;
-            this.expiresAt = System.currentTimeMillis() + BALANCE_CACHE_TTL_MILLIS;
+        /**
+         * 按实际扣费金额结算，金额在入账确认或超过宽限期前仍计入在途
+         */
+        public void settle(BigDecimal actualAmount) {
+            if (closed.compareAndSet(false, true)) {
+                ledger.settle(account.getChargeUserId(), holdId, actualAmount);
+            }
         }
 
-        private boolean isExpired() {
-            return System.currentTimeMillis() > expiresAt;
+        /**
+         * 服务失败或未产生费用，释放预占
+         */
+        public void release() {
+            settle(BigDecimal.ZERO);
         }
     }
 
@@ -0,0 +1,170 @@
+package com.deepreach.common.core.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地缓存统一管理
+ *
+ * 进程内缓存一律通过这里创建，避免各处使用无上限的 ConcurrentHashMap：
+ * 1. 每个缓存都有容量上限与写入后过期时间，过期条目由调度器及时清理，不依赖同一键再次读取
+ * 2. 定时执行一次维护，空闲缓存中的过期条目同样会被释放
+ * 3. 所有缓存记录命中统计，可通过 {@link #statistics()} 查看，并以 cache.* 指标注册到 Micrometer
+ * 4. 后台刷新（refreshAfterWrite）统一在有界的刷新线程池中执行，不占用公共 ForkJoinPool
+ */
+@Slf4j
+@Component
+public class LocalCacheManager implements MeterBinder {
+
+    private static final int REFRESH_THREADS = 4;
+    private static final int REFRESH_QUEUE_CAPACITY = 1024;
+
+    private final ConcurrentMap<String, Cache<?, ?>> caches = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor = newRefreshExecutor();
+    private volatile MeterRegistry meterRegistry;
+
+    @PreDestroy
+    public void stop() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * 创建带容量上限与写入后过期的缓存
+     *
+     * @param name              缓存名称，进程内唯一
+     * @param maximumSize       最大条目数
+     * @param expireAfterWrite  写入后过期时间
+     */
+    public <K, V> Cache<K, V> newCache(String name, long maximumSize, Duration expireAfterWrite) {
+        return register(name, builder(maximumSize, expireAfterWrite).build());
+    }
+
+    /**
+     * 以定制后的构建器创建缓存，适用于按条目设置过期时间等场景，构建器应来自 {@link #builder(long)}
+     */
+    public <K, V> Cache<K, V> newCache(String name, Caffeine<K, V> builder) {
+        return register(name, builder.build());
+    }
+
+    /**
+     * 以定制后的构建器创建自动加载的缓存，构建器应来自 {@link #builder(long, Duration)}
+     */
+    public <K, V> LoadingCache<K, V> newLoadingCache(String name, Caffeine<Object, Object> builder,
+                                                      CacheLoader<? super K, V> loader) {
+        return register(name, builder.build(loader));
+    }
+
+    /**
+     * 预置容量上限、写入后过期、过期调度、刷新线程池与命中统计的构建器，可继续设置刷新策略等
+     */
+    public Caffeine<Object, Object> builder(long maximumSize, Duration expireAfterWrite) {
+        return builder(maximumSize).expireAfterWrite(expireAfterWrite);
+    }
+
+    /**
+     * 不设过期策略的构建器，调用方须自行设置过期方式（如按条目过期的 expireAfter）
+     */
+    public Caffeine<Object, Object> builder(long maximumSize) {
+        return Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .scheduler(Scheduler.systemScheduler())
+            .executor(refreshExecutor)
+            .recordStats();
+    }
+
+    /**
+     * 各缓存的容量与命中情况
+     */
+    public Map<String, Map<String, Object>> statistics() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        caches.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> result.put(entry.getKey(), describe(entry.getValue())));
+        return result;
+    }
+
+    /**
+     * 兜底维护：清理过期条目并执行挂起的淘汰
+     */
+    @Scheduled(fixedDelayString = "${deepreach.local-cache.cleanup-interval:60000}")
+    public void cleanUp() {
+        caches.values().forEach(Cache::cleanUp);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        caches.forEach((name, cache) -> monitor(registry, cache, name));
+    }
+
+    // ==================== 内部方法 ====================
+
+    private <C extends Cache<?, ?>> C register(String name, C cache) {
+        Objects.requireNonNull(name, "name");
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("本地缓存名称重复：" + name);
+        }
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            monitor(registry, cache, name);
+        }
+        log.debug("本地缓存已注册：{}", name);
+        return cache;
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        AtomicInteger sequence = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+            r -> {
+                Thread thread = new Thread(r, "local-cache-refresh-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // 刷新积压时由调用线程执行，退化为同步加载
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void monitor(MeterRegistry registry, Cache<?, ?> cache, String name) {
+        CaffeineCacheMetrics.monitor(registry, (Cache<Object, Object>) cache, name);
+    }
+
+    private static Map<String, Object> describe(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("size", cache.estimatedSize());
+        info.put("hitCount", stats.hitCount());
+        info.put("missCount", stats.missCount());
+        info.put("hitRate", stats.hitRate());
+        info.put("loadCount", stats.loadCount());
+        info.put("loadFailureCount", stats.loadFailureCount());
+        info.put("evictionCount", stats.evictionCount());
+        info.put("averageLoadPenaltyMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return info;
+    }
+}
@@ -0,0 +1,378 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.entity.SysOperLog;
+import com.deepreach.common.core.mapper.SysOperLogMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 操作日志写入管道
+ *
+ * 审计日志不在请求线程中序列化和写库：
+ * 1. 请求线程只把日志对象与原始参数/返回值放入有界无锁环形缓冲区，不阻塞、不分配线程
+ * 2. 唯一的写入线程在积压达到批量大小或距首条日志超过刷新间隔时，以多行 INSERT 批量写入 sys_oper_log
+ * 3. 请求参数与返回结果在写入线程中序列化为 JSON，超过长度上限时截断，不会完整序列化超大对象
+ * 4. 积压超过采样阈值后，成功的操作按采样率保留，失败的操作全部保留；缓冲区已满时直接丢弃，
+ *    丢弃与采样数量均有计数，可通过 {@link #statistics()} 与 oper_log.pipeline.* 指标查看
+ *
+ * 参数与返回值在写入线程中序列化，记录的是写入时的对象状态；调用方在方法返回后修改参数对象时，日志以修改后为准。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OperLogPipeline implements MeterBinder {
+
+    private static final String TRUNCATED_SUFFIX = "...";
+
+    private final SysOperLogMapper operLogMapper;
+    private final ObjectMapper objectMapper;
+
+    @Value("${deepreach.oper-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${deepreach.oper-log.batch-size:200}")
+    private int batchSize;
+
+    @Value("${deepreach.oper-log.flush-interval:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${deepreach.oper-log.max-body-length:2000}")
+    private int maxBodyLength;
+
+    @Value("${deepreach.oper-log.sample-threshold:0.75}")
+    private double sampleThreshold;
+
+    @Value("${deepreach.oper-log.sample-rate:10}")
+    private int sampleRate;
+
+    @Value("${deepreach.oper-log.shutdown-timeout:5000}")
+    private long shutdownTimeoutMillis;
+
+    private OperLogRingBuffer<PendingOperLog> buffer;
+    private int sampleWatermark;
+    private Thread writer;
+    private volatile boolean running;
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong sampledOutCount = new AtomicLong();
+    private final AtomicLong sampleSequence = new AtomicLong();
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        buffer = new OperLogRingBuffer<>(bufferSize);
+        batchSize = Math.max(1, batchSize);
+        sampleWatermark = (int) Math.min(buffer.capacity(), Math.max(1, buffer.capacity() * sampleThreshold));
+        running = true;
+        writer = new Thread(this::runWriter, "oper-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        log.info("操作日志写入管道已启动：缓冲容量={}, 批量大小={}, 刷新间隔={}ms",
+            buffer.capacity(), batchSize, flushIntervalMillis);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = writer;
+        if (thread == null) {
+            return;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            log.warn("操作日志写入线程未在 {}ms 内结束，剩余 {} 条日志未写入", shutdownTimeoutMillis, buffer.size());
+        }
+    }
+
+    /**
+     * 提交一条已完成序列化的操作日志
+     *
+     * @param operLog 操作日志
+     * @return 是否已进入缓冲区（被采样跳过或缓冲区已满时返回 false）
+     */
+    public boolean submit(SysOperLog operLog) {
+        return submit(operLog, null, null);
+    }
+
+    /**
+     * 提交一条操作日志，参数与返回值在写入线程中序列化
+     *
+     * @param operLog 操作日志
+     * @param args    需要记录的方法参数，null 表示不记录
+     * @param result  需要记录的返回值，null 表示不记录
+     * @return 是否已进入缓冲区（被采样跳过或缓冲区已满时返回 false）
+     */
+    public boolean submit(SysOperLog operLog, Object[] args, Object result) {
+        if (operLog == null) {
+            return false;
+        }
+        int backlog = buffer.size();
+        if (backlog >= sampleWatermark && !isFailure(operLog) && !sampled()) {
+            sampledOutCount.incrementAndGet();
+            return false;
+        }
+        if (!buffer.offer(new PendingOperLog(operLog, args, result))) {
+            long dropped = droppedCount.incrementAndGet();
+            if ((dropped & 1023) == 1) {
+                log.warn("操作日志缓冲区已满，累计丢弃 {} 条：{}", dropped, operLog.getTitle());
+            }
+            return false;
+        }
+        acceptedCount.incrementAndGet();
+        if (backlog + 1 >= batchSize) {
+            LockSupport.unpark(writer);
+        }
+        return true;
+    }
+
+    /**
+     * 管道运行统计
+     */
+    public Map<String, Object> statistics() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", buffer.capacity());
+        result.put("backlog", buffer.size());
+        result.put("accepted", acceptedCount.get());
+        result.put("dropped", droppedCount.get());
+        result.put("sampledOut", sampledOutCount.get());
+        result.put("written", writtenCount.get());
+        result.put("failed", failedCount.get());
+        result.put("batches", batchCount.get());
+        return result;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("oper_log.pipeline.backlog", this, pipeline -> pipeline.buffer.size())
+            .description("操作日志缓冲区积压数量")
+            .register(registry);
+        counter(registry, "oper_log.pipeline.accepted", acceptedCount, "进入缓冲区的操作日志数量");
+        counter(registry, "oper_log.pipeline.dropped", droppedCount, "缓冲区已满被丢弃的操作日志数量");
+        counter(registry, "oper_log.pipeline.sampled_out", sampledOutCount, "积压时被采样跳过的操作日志数量");
+        counter(registry, "oper_log.pipeline.written", writtenCount, "已写入数据库的操作日志数量");
+        counter(registry, "oper_log.pipeline.failed", failedCount, "写入数据库失败的操作日志数量");
+    }
+
+    // ==================== 写入线程 ====================
+
+    private void runWriter() {
+        List<PendingOperLog> pending = new ArrayList<>(batchSize);
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        long firstAt = 0L;
+        while (true) {
+            boolean active = running;
+            int before = pending.size();
+            buffer.drainTo(pending, batchSize - before);
+            if (before == 0 && !pending.isEmpty()) {
+                firstAt = System.nanoTime();
+            }
+            if (!pending.isEmpty()) {
+                long waited = System.nanoTime() - firstAt;
+                if (pending.size() >= batchSize || waited >= flushIntervalNanos || !active) {
+                    flush(pending);
+                    pending.clear();
+                    continue;
+                }
+                LockSupport.parkNanos(this, flushIntervalNanos - waited);
+            } else if (!active) {
+                // 停止标记之后再确认一次，避免遗漏停止前刚写入的日志
+                if (buffer.size() == 0) {
+                    return;
+                }
+            } else {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            // 中断标记会使 parkNanos 立即返回，清除后继续按间隔等待
+            Thread.interrupted();
+        }
+    }
+
+    private void flush(List<PendingOperLog> pending) {
+        List<SysOperLog> operLogs = new ArrayList<>(pending.size());
+        for (PendingOperLog item : pending) {
+            try {
+                operLogs.add(item.materialize());
+            } catch (Exception e) {
+                failedCount.incrementAndGet();
+                log.warn("操作日志序列化失败：{}", e.getMessage());
+            }
+        }
+        if (operLogs.isEmpty()) {
+            return;
+        }
+        batchCount.incrementAndGet();
+        try {
+            operLogMapper.insertOperLogBatch(operLogs);
+            writtenCount.addAndGet(operLogs.size());
+        } catch (Exception e) {
+            // 批量写入失败时逐条重试，避免一条异常数据拖累整批
+            log.warn("批量写入操作日志失败，改为逐条写入：{} 条, {}", operLogs.size(), e.getMessage());
+            for (SysOperLog operLog : operLogs) {
+                try {
+                    operLogMapper.insertOperLog(operLog);
+                    writtenCount.incrementAndGet();
+                } catch (Exception single) {
+                    failedCount.incrementAndGet();
+                    log.error("保存操作日志失败：{} - {}", operLog.getTitle(), single.getMessage());
+                }
+            }
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private boolean sampled() {
+        return sampleRate <= 1 || sampleSequence.incrementAndGet() % sampleRate == 0;
+    }
+
+    private static boolean isFailure(SysOperLog operLog) {
+        return operLog.getStatus() != null && operLog.getStatus() != 0;
+    }
+
+    private String serialize(Object value) {
+        if (value == null) {
+            return "";
+        }
+        BoundedWriter out = new BoundedWriter(maxBodyLength);
+        try {
+            objectMapper.writeValue(out, value);
+        } catch (Exception e) {
+            if (!out.truncated) {
+                log.debug("序列化操作日志内容失败：{}", e.getMessage());
+                return "";
+            }
+        }
+        return out.truncated ? truncate(out.toString()) : out.toString();
+    }
+
+    private String truncate(String value) {
+        if (value == null || value.length() <= maxBodyLength) {
+            return value;
+        }
+        int keep = Math.max(0, maxBodyLength - TRUNCATED_SUFFIX.length());
+        return value.substring(0, keep) + TRUNCATED_SUFFIX.substring(0, Math.min(TRUNCATED_SUFFIX.length(), maxBodyLength));
+    }
+
+    private static Object[] filterArgs(Object[] args) {
+        return Arrays.stream(args)
+            .filter(arg -> !(arg instanceof HttpServletRequest)
+                && !(arg instanceof HttpServletResponse)
+                && !(arg instanceof MultipartFile))
+            .toArray();
+    }
+
+    private static void counter(MeterRegistry registry, String name, AtomicLong value, String description) {
+        FunctionCounter.builder(name, value, AtomicLong::doubleValue)
+            .description(description)
+            .register(registry);
+    }
+
+    /**
+     * 等待写入的日志，参数与返回值保持原始对象
+     */
+    private final class PendingOperLog {
+        private final SysOperLog operLog;
+        private final Object[] args;
+        private final Object result;
+
+        private PendingOperLog(SysOperLog operLog, Object[] args, Object result) {
+            this.operLog = operLog;
+            this.args = args;
+            this.result = result;
+        }
+
+        private SysOperLog materialize() {
+            if (args != null) {
+                Object[] filtered = filterArgs(args);
+                operLog.setOperParam(filtered.length == 0 ? "" : serialize(filtered));
+            }
+            if (result != null) {
+                operLog.setJsonResult(serialize(result));
+            }
+            operLog.setOperParam(truncate(operLog.getOperParam()));
+            operLog.setJsonResult(truncate(operLog.getJsonResult()));
+            operLog.setErrorMsg(truncate(operLog.getErrorMsg()));
+            return operLog;
+        }
+    }
+
+    /**
+     * 超过长度上限即停止写入的 Writer，避免完整序列化超大对象
+     */
+    private static final class BoundedWriter extends Writer {
+
+        private static final IOException LIMIT_REACHED = new IOException("body length limit reached") {
+            @Override
+            public synchronized Throwable fillInStackTrace() {
+                return this;
+            }
+        };
+
+        private final StringBuilder content = new StringBuilder();
+        private final int limit;
+        private boolean truncated;
+
+        private BoundedWriter(int limit) {
+            this.limit = Math.max(0, limit);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if (truncated) {
+                throw LIMIT_REACHED;
+            }
+            int remaining = limit - content.length();
+            if (len > remaining) {
+                content.append(cbuf, off, Math.max(0, remaining));
+                // 多保留一个字符，保证截断后的长度超过上限，由 truncate 补上省略号
+                content.append('.');
+                truncated = true;
+                throw LIMIT_REACHED;
+            }
+            content.append(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public String toString() {
+            return content.toString();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.deepreach.common.core.support;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区（多生产者、单消费者）
+ *
+ * 生产者通过 CAS 抢占写入序号后发布元素，缓冲区满时立即返回 false，不阻塞请求线程；
+ * 唯一的消费者按序号顺序取出，遇到已抢占但尚未发布的槽位时停止，下次再取。
+ *
+ * @param <E> 元素类型
+ */
+final class OperLogRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final int capacity;
+
+    /**
+     * 下一个待写入的序号，由生产者竞争推进
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个待读取的序号，只由消费者推进
+     */
+    private volatile long head;
+
+    OperLogRingBuffer(int requestedCapacity) {
+        int size = 1;
+        while (size < Math.max(2, requestedCapacity)) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * 写入元素，缓冲区已满时返回 false
+     */
+    boolean offer(E element) {
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                slots.lazySet((int) (sequence & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 取出最多 maxElements 个元素追加到 target，返回取出数量，只能由消费者线程调用
+     */
+    int drainTo(List<E> target, int maxElements) {
+        long current = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (current & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(element);
+            current++;
+            drained++;
+        }
+        head = current;
+        return drained;
+    }
+
+    /**
+     * 当前积压数量（近似值）
+     */
+    int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
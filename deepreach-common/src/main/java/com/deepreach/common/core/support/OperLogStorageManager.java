@@ -0,0 +1,290 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.mapper.SysOperLogDailyStatMapper;
+import com.deepreach.common.core.mapper.SysOperLogMapper;
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 操作日志存储维护
+ *
+ * sys_oper_log 按 oper_time 做月度 RANGE 分区（见 sql/sys_oper_log_partition.sql），本组件负责：
+ * 1. 分区预建：从 MAXVALUE 分区中提前拆分出后续月份的分区，写入始终落在按月划分的分区内
+ * 2. 保留期清理：整段早于截止时间的分区直接 DROP PARTITION，只对边界分区中剩余的过期数据小批量删除
+ * 3. 按日汇总：把已结束的日期重算到 sys_oper_log_daily_stat，统计接口对完整日期只读汇总表；
+ *    每天的汇总先删后写、在同一事务中完成，清理或按ID删除明细后重算受影响的日期，汇总始终与明细一致
+ *
+ * 日志表未分区时跳过分区相关步骤，清理退化为小批量删除。多节点同时执行时 DDL 可能互相冲突，
+ * 失败只记录日志，下一轮按最新的分区状态重试；汇总按天重算，重复执行结果不变。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OperLogStorageManager {
+
+    private static final String MAXVALUE = "MAXVALUE";
+    private static final long TO_DAYS_EPOCH = 719528L;
+    private static final DateTimeFormatter MONTH_NAME = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter DAY_NAME = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final SysOperLogMapper operLogMapper;
+    private final SysOperLogDailyStatMapper dailyStatMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${deepreach.oper-log.retention-days:0}")
+    private int retentionDays;
+
+    @Value("${deepreach.oper-log.partition.premake-months:2}")
+    private int premakeMonths;
+
+    @Value("${deepreach.oper-log.purge-batch-size:5000}")
+    private int purgeBatchSize;
+
+    @Value("${deepreach.oper-log.rollup.enabled:true}")
+    private boolean rollupEnabled;
+
+    /**
+     * 已完成汇总的最近日期，之前（含）的完整日期可直接读取汇总表；首次汇总完成前为 null
+     */
+    private volatile LocalDate rolledUpThrough;
+
+    private volatile boolean partitioned;
+    private LocalDate lastRetentionDate;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 定期维护：预建分区、按日汇总，并每天执行一次保留期清理
+     */
+    @Scheduled(fixedDelayString = "${deepreach.oper-log.maintenance-interval:600000}")
+    public void maintain() {
+        try {
+            ensurePartitions();
+        } catch (Exception e) {
+            log.warn("操作日志分区预建失败：{}", e.getMessage());
+        }
+        if (rollupEnabled) {
+            try {
+                rollup();
+            } catch (Exception e) {
+                log.warn("操作日志按日汇总失败：{}", e.getMessage());
+            }
+        }
+        LocalDate today = LocalDate.now();
+        if (retentionDays > 0 && !today.equals(lastRetentionDate)) {
+            try {
+                purgeBefore(today.minusDays(retentionDays).atStartOfDay());
+                lastRetentionDate = today;
+            } catch (Exception e) {
+                log.warn("操作日志保留期清理失败：{}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 删除指定时间之前的操作日志
+     *
+     * @param endTime 截止时间（不含）
+     * @return 删除的记录数，整段删除的分区按估算行数计入
+     */
+    public synchronized long purgeBefore(LocalDateTime endTime) {
+        long removed = 0;
+        List<Partition> partitions = loadPartitions();
+        if (!partitions.isEmpty()) {
+            List<String> expired = new ArrayList<>();
+            for (Partition partition : partitions) {
+                if (partition.lessThan != null && !partition.lessThan.atStartOfDay().isAfter(endTime)) {
+                    expired.add(partition.name);
+                    removed += partition.rows;
+                }
+            }
+            if (!expired.isEmpty()) {
+                operLogMapper.dropOperLogPartitions(expired);
+                log.info("操作日志分区已删除：{}，约 {} 条", expired, removed);
+            }
+        }
+        int batchSize = Math.max(1, purgeBatchSize);
+        int deleted;
+        do {
+            deleted = operLogMapper.deleteOperLogBefore(endTime, batchSize);
+            removed += deleted;
+        } while (deleted >= batchSize);
+
+        // 汇总与明细保持一致：整天已清理的汇总直接删除，截止时间落在一天中间时重算这一天
+        LocalDate boundary = endTime.toLocalDate();
+        dailyStatMapper.deleteBefore(boundary);
+        if (!endTime.equals(boundary.atStartOfDay())) {
+            refreshDays(List.of(boundary));
+        }
+        log.info("清理 {} 之前的操作日志完成，删除数量：{}", endTime, removed);
+        return removed;
+    }
+
+    /**
+     * 明细被删除后重算受影响日期的按日汇总，尚未汇总的日期（今天及以后）跳过
+     *
+     * 失败只记录日志：定期汇总只重算最近一天，更早日期的汇总要等下一次删除或清理时才会修正
+     *
+     * @param days 受影响的日期
+     */
+    public synchronized void refreshDays(Collection<LocalDate> days) {
+        if (!rollupEnabled || days == null || days.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        for (LocalDate day : new HashSet<>(days)) {
+            if (day == null || !day.isBefore(today)) {
+                continue;
+            }
+            try {
+                rollupDay(day);
+            } catch (Exception e) {
+                log.warn("重算操作日志按日汇总失败：日期={}, {}", day, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 预建分区：保证当前月份之后至少 premakeMonths 个月已有独立分区
+     */
+    public synchronized void ensurePartitions() {
+        List<Partition> partitions = loadPartitions();
+        if (partitions.isEmpty()) {
+            return;
+        }
+        Partition future = partitions.get(partitions.size() - 1);
+        if (future.lessThan != null) {
+            log.warn("操作日志表没有 MAXVALUE 分区，无法预建分区");
+            return;
+        }
+        Set<String> names = new HashSet<>();
+        LocalDate bound = null;
+        for (Partition partition : partitions) {
+            names.add(partition.name);
+            if (partition.lessThan != null && (bound == null || partition.lessThan.isAfter(bound))) {
+                bound = partition.lessThan;
+            }
+        }
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        if (bound == null) {
+            bound = currentMonth;
+        }
+        LocalDate target = currentMonth.plusMonths(Math.max(0, premakeMonths) + 1L);
+        while (bound.isBefore(target)) {
+            LocalDate next = bound.withDayOfMonth(1).plusMonths(1);
+            String name = "p" + (bound.getDayOfMonth() == 1 ? bound.format(MONTH_NAME) : bound.format(DAY_NAME));
+            if (!names.add(name)) {
+                name = "p" + bound.format(DAY_NAME);
+                names.add(name);
+            }
+            operLogMapper.reorganizeOperLogPartition(future.name, name, next.toString());
+            log.info("操作日志分区已创建：{} < {}", name, next);
+            bound = next;
+        }
+    }
+
+    /**
+     * 重算从最近汇总日期到昨天的按日汇总
+     *
+     * 最近汇总的那一天每次都会重算，以覆盖跨零点后才写入的日志
+     */
+    public synchronized void rollup() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate from = dailyStatMapper.selectMaxStatDate();
+        if (from == null) {
+            from = dailyStatMapper.selectMinOperDate();
+        }
+        if (from != null) {
+            for (LocalDate day = from; !day.isAfter(yesterday); day = day.plusDays(1)) {
+                rollupDay(day);
+            }
+        }
+        rolledUpThrough = yesterday;
+    }
+
+    /**
+     * 在同一事务中删除并重写一天的汇总，读取方看到的始终是完整的一天
+     */
+    private void rollupDay(LocalDate day) {
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyStatMapper.deleteDay(day);
+            dailyStatMapper.rollupDay(day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        });
+    }
+
+    /**
+     * 已完成汇总的最近日期，首次汇总完成前返回 null
+     */
+    public LocalDate getRolledUpThrough() {
+        return rollupEnabled ? rolledUpThrough : null;
+    }
+
+    /**
+     * 日志表是否已分区（以最近一次读取分区信息为准）
+     */
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    private List<Partition> loadPartitions() {
+        List<Map<String, Object>> rows = operLogMapper.selectOperLogPartitions();
+        List<Partition> partitions = new ArrayList<>(rows.size());
+        for (Map<String, Object> row : rows) {
+            Object name = row.get("partitionName");
+            if (name == null) {
+                continue;
+            }
+            Object description = row.get("partitionDescription");
+            Object tableRows = row.get("tableRows");
+            partitions.add(new Partition(name.toString(), toBound(description),
+                tableRows instanceof Number ? ((Number) tableRows).longValue() : 0L));
+        }
+        partitioned = !partitions.isEmpty();
+        return partitions;
+    }
+
+    /**
+     * 分区上界为 TO_DAYS 值，换算为日期；MAXVALUE 返回 null
+     */
+    private static LocalDate toBound(Object description) {
+        if (description == null || MAXVALUE.equalsIgnoreCase(description.toString().trim())) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(Long.parseLong(description.toString().trim()) - TO_DAYS_EPOCH);
+    }
+
+    private static final class Partition {
+        private final String name;
+        private final LocalDate lessThan;
+        private final long rows;
+
+        private Partition(String name, LocalDate lessThan, long rows) {
+            this.name = name;
+            this.lessThan = lessThan;
+            this.rows = rows;
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.exception.ServiceException;
+import com.deepreach.common.trace.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 并行查询执行器
+ *
+ * 统计类接口中互不依赖的多个查询通过 {@link Scope} 并发执行，接口耗时接近最慢的单个查询而不是所有查询之和：
+ * <pre>
+ * try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+ *     Subtask&lt;A&gt; a = scope.fork(() -&gt; mapperA.select(...));
+ *     Subtask&lt;B&gt; b = scope.fork(() -&gt; mapperB.select(...));
+ *     scope.join();
+ *     use(a.get(), b.get());
+ * }
+ * </pre>
+ * 1. 每个 Scope 有统一的截止时间，超时或任一查询失败时 join 立即抛出，并中断仍在执行查询的线程；
+ *    已下发到数据库的语句由 {@link QueryDeadlineInterceptor} 按剩余时间设置的语句超时终止
+ * 2. 所有 Scope 共享数据库并发许可，许可按单条 SQL 获取与释放（见 {@link QueryDeadlineInterceptor}），
+ *    命中内存快照、不访问数据库的查询不占用许可
+ * 3. 查询在独立线程执行时沿用调用方的登录上下文、请求属性（请求级加载器的记录随之共享）与当前 Span；
+ *    查询内部再开启的 Scope 在当前线程顺序执行，不会互相等待线程，截止时间取内外两层中较早者，其中的 SQL 同样获取许可
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ParallelQueryExecutor {
+
+    private static final ThreadLocal<Boolean> IN_SUBTASK = new ThreadLocal<>();
+
+    /**
+     * 当前线程所执行查询的截止时间（System.nanoTime），不在 Scope 中时为空
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    private final Tracer tracer;
+
+    @Value("${deepreach.parallel-query.pool-size:32}")
+    private int poolSize;
+
+    @Value("${deepreach.parallel-query.max-db-concurrency:16}")
+    private int maxDbConcurrency;
+
+    @Value("${deepreach.parallel-query.timeout:10000}")
+    private long defaultTimeoutMillis;
+
+    private ThreadPoolExecutor executor;
+    private Semaphore dbPermits;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(poolSize * 8),
+            r -> {
+                Thread thread = new Thread(r, "parallel-query-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            // 队列满时由调用线程执行，退化为顺序查询而不是拒绝请求
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        dbPermits = new Semaphore(Math.max(1, maxDbConcurrency), true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 以默认超时时间开启一组并行查询
+     */
+    public Scope openScope() {
+        return openScope(defaultTimeoutMillis);
+    }
+
+    /**
+     * 开启一组并行查询
+     *
+     * @param timeoutMillis 整组查询的超时时间（毫秒），嵌套在其他查询内时不超过外层的截止时间
+     */
+    public Scope openScope(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        Long outer = DEADLINE.get();
+        if (outer != null && outer - deadline < 0) {
+            deadline = outer;
+        }
+        return new Scope(deadline);
+    }
+
+    /**
+     * 当前线程所执行查询的截止时间，不在 Scope 中时返回 null
+     */
+    static Long currentDeadline() {
+        return DEADLINE.get();
+    }
+
+    /**
+     * 在截止时间前获取一个数据库并发许可
+     */
+    boolean acquirePermit(long deadline) throws InterruptedException {
+        return dbPermits.tryAcquire(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    void releasePermit() {
+        dbPermits.release();
+    }
+
+    /**
+     * 一组并行查询，关闭时取消尚未完成的查询
+     */
+    public final class Scope implements AutoCloseable {
+
+        private final long deadline;
+        private final List<QueryTask<?>> tasks = new ArrayList<>();
+        private final BlockingQueue<QueryTask<?>> completed = new LinkedBlockingQueue<>();
+        private int joined;
+
+        private Scope(long deadline) {
+            this.deadline = deadline;
+        }
+
+        /**
+         * 提交一个查询，结果在 {@link #join()} 之后通过 {@link Subtask#get()} 读取
+         */
+        public <T> Subtask<T> fork(Callable<T> query) {
+            QueryTask<T> task;
+            if (Boolean.TRUE.equals(IN_SUBTASK.get())) {
+                // 已处于查询线程中（嵌套调用），直接在当前线程执行，避免占满线程池后互相等待
+                task = new QueryTask<>(() -> withDeadline(query));
+                tasks.add(task);
+                task.run();
+            } else {
+                SecurityContext securityContext = SecurityContextHolder.getContext();
+                RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+                Callable<T> traced = tracer.wrap(query);
+                task = new QueryTask<>(() -> execute(traced, securityContext, requestAttributes));
+                tasks.add(task);
+                executor.execute(task);
+            }
+            return new Subtask<>(task);
+        }
+
+        /**
+         * 等待全部查询完成；任一查询失败时立即抛出其异常，超过截止时间时抛出超时异常
+         */
+        public void join() {
+            try {
+                while (joined < tasks.size()) {
+                    QueryTask<?> task = completed.poll(remainingNanos(), TimeUnit.NANOSECONDS);
+                    if (task == null) {
+                        cancelPending();
+                        throw new ServiceException("统计查询超时，请稍后重试");
+                    }
+                    joined++;
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelPending();
+                throw new ServiceException("统计查询被中断");
+            } catch (ExecutionException e) {
+                cancelPending();
+                throw propagate(e.getCause());
+            } catch (CancellationException e) {
+                cancelPending();
+                throw new ServiceException("统计查询已取消");
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelPending();
+        }
+
+        private <T> T execute(Callable<T> query, SecurityContext securityContext,
+                              RequestAttributes requestAttributes) throws Exception {
+            SecurityContext previous = SecurityContextHolder.getContext();
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            SecurityContextHolder.setContext(securityContext);
+            RequestContextHolder.setRequestAttributes(requestAttributes);
+            IN_SUBTASK.set(Boolean.TRUE);
+            try {
+                return withDeadline(query);
+            } finally {
+                IN_SUBTASK.remove();
+                SecurityContextHolder.setContext(previous);
+                RequestContextHolder.setRequestAttributes(previousAttributes);
+            }
+        }
+
+        private <T> T withDeadline(Callable<T> query) throws Exception {
+            Long previous = DEADLINE.get();
+            DEADLINE.set(deadline);
+            try {
+                if (remainingNanos() <= 0) {
+                    throw new ServiceException("统计查询超时，请稍后重试");
+                }
+                return query.call();
+            } finally {
+                if (previous != null) {
+                    DEADLINE.set(previous);
+                } else {
+                    DEADLINE.remove();
+                }
+            }
+        }
+
+        private long remainingNanos() {
+            return Math.max(0L, deadline - System.nanoTime());
+        }
+
+        /**
+         * 取消尚未完成的查询；正在执行的线程会被中断，等待许可或可中断的阻塞随之结束
+         */
+        private void cancelPending() {
+            for (QueryTask<?> task : tasks) {
+                if (!task.isDone()) {
+                    task.cancel(true);
+                }
+            }
+        }
+
+        private RuntimeException propagate(Throwable cause) {
+            while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                return (RuntimeException) cause;
+            }
+            log.warn("并行查询失败：{}", cause != null ? cause.getMessage() : "unknown");
+            return new ServiceException("统计查询失败：" + (cause != null ? cause.getMessage() : ""), cause);
+        }
+
+        /**
+         * 完成（含失败、取消）时登记到所属 Scope，join 按完成顺序检查结果
+         */
+        private final class QueryTask<T> extends FutureTask<T> {
+
+            private QueryTask(Callable<T> callable) {
+                super(callable);
+            }
+
+            @Override
+            protected void done() {
+                completed.add(this);
+            }
+        }
+    }
+
+    /**
+     * 单个查询的结果
+     */
+    public static final class Subtask<T> implements Supplier<T> {
+
+        private final FutureTask<T> task;
+
+        private Subtask(FutureTask<T> task) {
+            this.task = task;
+        }
+
+        /**
+         * 读取查询结果，须在 {@link Scope#join()} 成功返回之后调用
+         */
+        @Override
+        public T get() {
+            if (!task.isDone() || task.isCancelled()) {
+                throw new IllegalStateException("查询尚未成功完成");
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("查询尚未成功完成", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("查询尚未成功完成", e);
+            }
+        }
+    }
+}
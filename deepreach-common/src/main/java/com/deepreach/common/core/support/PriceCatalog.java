@@ -0,0 +1,70 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.entity.DrPriceConfig;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 价格配置目录快照（不可变）
+ *
+ * 以业务类型为键保存全部价格配置，整份快照通过 AtomicReference 原子替换。
+ * 快照中的配置对象为共享实例，调用方只读，不得修改。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class PriceCatalog {
+
+    private static final PriceCatalog EMPTY = new PriceCatalog(0L, Collections.emptyMap(), 0L);
+
+    private final long version;
+    private final Map<String, DrPriceConfig> byBusinessType;
+    private final long loadedAt;
+
+    private PriceCatalog(long version, Map<String, DrPriceConfig> byBusinessType, long loadedAt) {
+        this.version = version;
+        this.byBusinessType = byBusinessType;
+        this.loadedAt = loadedAt;
+    }
+
+    public static PriceCatalog empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 构建快照，同一业务类型出现多条时保留列表中靠前的一条
+     */
+    public static PriceCatalog of(long version, Collection<DrPriceConfig> configs) {
+        Map<String, DrPriceConfig> map = new HashMap<>();
+        if (configs != null) {
+            for (DrPriceConfig config : configs) {
+                if (config != null && config.getBusinessType() != null) {
+                    map.putIfAbsent(config.getBusinessType(), config);
+                }
+            }
+        }
+        return new PriceCatalog(version, Collections.unmodifiableMap(map), System.currentTimeMillis());
+    }
+
+    public DrPriceConfig get(String businessType) {
+        return businessType != null ? byBusinessType.get(businessType) : null;
+    }
+
+    public boolean isLoaded() {
+        return version > 0;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int size() {
+        return byBusinessType.size();
+    }
+}
@@ -0,0 +1,95 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.exception.ServiceException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+/**
+ * 并行查询中 SQL 的数据库许可与语句超时
+ *
+ * 只作用于 {@link ParallelQueryExecutor.Scope} 内执行的语句（包括嵌套 Scope 中在当前线程执行的查询）：
+ * 1. 执行器层面按单条语句获取共享的数据库并发许可，截止时间前拿不到许可即按超时失败；分页插件等嵌套调用只获取一次
+ * 2. 预编译语句时按剩余时间设置 JDBC queryTimeout（向上取整到秒，不放宽 Mapper 上已配置的更短超时），
+ *    线程中断无法打断阻塞在网络读上的驱动时，由数据库侧在截止时间后终止语句
+ */
+@Component
+@RequiredArgsConstructor
+@Intercepts({
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+    @Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class})
+})
+public class QueryDeadlineInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Boolean> HOLDING_PERMIT = new ThreadLocal<>();
+
+    private final ParallelQueryExecutor parallelQueryExecutor;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Long deadline = ParallelQueryExecutor.currentDeadline();
+        if (deadline == null) {
+            return invocation.proceed();
+        }
+        if (invocation.getTarget() instanceof StatementHandler) {
+            return applyQueryTimeout((Statement) invocation.proceed(), deadline);
+        }
+        if (HOLDING_PERMIT.get() != null) {
+            return invocation.proceed();
+        }
+        if (!parallelQueryExecutor.acquirePermit(deadline)) {
+            throw new ServiceException("统计查询超时，请稍后重试");
+        }
+        HOLDING_PERMIT.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            HOLDING_PERMIT.remove();
+            parallelQueryExecutor.releasePermit();
+        }
+    }
+
+    private Statement applyQueryTimeout(Statement statement, long deadline) throws Exception {
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            statement.close();
+            throw new ServiceException("统计查询超时，请稍后重试");
+        }
+        int seconds = (int) Math.min(Integer.MAX_VALUE,
+            (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        int configured = statement.getQueryTimeout();
+        if (configured == 0 || seconds < configured) {
+            statement.setQueryTimeout(seconds);
+        }
+        return statement;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 无配置项
+    }
+}
@@ -0,0 +1,78 @@
+package com.deepreach.common.core.support;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Redis 的跨节点互斥锁
+ *
+ * 加锁为 SET NX PX，值为本次加锁的随机令牌；释放时校验令牌，避免误删其他节点在锁过期后重新获得的锁。
+ * 锁带过期时间，持有节点宕机后自动释放，调用方应保证临界区耗时明显小于过期时间。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisLock {
+
+    private static final long RETRY_INTERVAL_MILLIS = 50L;
+
+    /**
+     * 持有者一致时释放
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    /**
+     * 在等待时间内尝试加锁
+     *
+     * @param key  锁的 KEY
+     * @param ttl  锁的过期时间
+     * @param wait 最长等待时间，为 0 时只尝试一次
+     * @return 加锁成功时返回令牌（释放时使用），超时或线程被中断时返回 null
+     */
+    public String tryLock(String key, Duration ttl, Duration wait) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + wait.toMillis();
+        while (true) {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(key, token, ttl))) {
+                return token;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 释放锁：令牌不一致（锁已过期并被其他节点获得）时不做任何操作
+     */
+    public void unlock(String key, String token) {
+        if (token == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key), token);
+        } catch (Exception e) {
+            log.warn("释放 Redis 锁失败，将等待其自动过期：key={}, 原因={}", key, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.deepreach.common.core.support;
+
+import java.util.Properties;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+/**
+ * 请求内执行任何 INSERT/UPDATE/DELETE 后清空 {@link RequestScopedLoader} 的请求级记录，
+ * 保证同一请求中写后读拿到的是最新数据。乐观锁更新失败（影响 0 行）同样清空，重试时会重新查询版本号。
+ */
+@Component
+@Intercepts({
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class RequestLoaderInvalidationInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        try {
+            return invocation.proceed();
+        } finally {
+            RequestScopedLoader.clearAll();
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 无配置项
+    }
+}
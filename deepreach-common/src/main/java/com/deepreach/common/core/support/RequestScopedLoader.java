@@ -0,0 +1,246 @@
+package com.deepreach.common.core.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 请求级批量加载器（DataLoader 模式）
+ *
+ * 同一个请求内按主键读取的数据只查询一次，结果记录在请求属性中，请求结束后随请求释放：
+ * 1. {@link #prefetch(Collection)} 登记即将用到的主键，下一次 {@link #load(Object)} 时与本次主键合并为一条 IN 查询
+ * 2. {@link #loadMany(Collection)} 只查询尚未加载过的主键，超过批量上限时分批查询
+ * 3. 当前请求内执行了任何写操作后，由 {@link RequestLoaderInvalidationInterceptor} 清空所有加载器的记录，避免读到自己写之前的数据
+ *
+ * 不在 Web 请求中（定时任务、消息消费等）调用时不做记录，每次直接查询。
+ *
+ * @param <K> 主键类型
+ * @param <V> 数据类型
+ */
+@Slf4j
+public final class RequestScopedLoader<K, V> {
+
+    private static final String ATTRIBUTE_PREFIX = RequestScopedLoader.class.getName() + ".";
+    private static final int DEFAULT_MAX_BATCH_SIZE = 500;
+    private static final Object NOT_FOUND = new Object();
+
+    private final String attributeName;
+    private final Function<Collection<K>, Map<K, V>> batchLoader;
+    private final int maxBatchSize;
+
+    /**
+     * @param name        加载器名称，同一进程内唯一
+     * @param batchLoader 批量查询函数，返回结果中缺失的主键视为不存在
+     */
+    public RequestScopedLoader(String name, Function<Collection<K>, Map<K, V>> batchLoader) {
+        this(name, batchLoader, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    public RequestScopedLoader(String name, Function<Collection<K>, Map<K, V>> batchLoader, int maxBatchSize) {
+        this.attributeName = ATTRIBUTE_PREFIX + Objects.requireNonNull(name, "name");
+        this.batchLoader = Objects.requireNonNull(batchLoader, "batchLoader");
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * 读取单个主键，连同已登记的主键一起批量查询
+     */
+    public V load(K key) {
+        if (key == null) {
+            return null;
+        }
+        Memo<K> memo = currentMemo(true);
+        if (memo == null) {
+            return fetch(Collections.singletonList(key)).get(key);
+        }
+        Object cached = memo.values.get(key);
+        if (cached == null) {
+            Set<K> keys = new LinkedHashSet<>();
+            keys.add(key);
+            memo.drainPending(keys);
+            store(memo, keys);
+            cached = memo.values.get(key);
+        }
+        return unwrap(cached);
+    }
+
+    /**
+     * 批量读取，只查询本请求内尚未加载过的主键；不存在的主键不会出现在返回结果中
+     */
+    public Map<K, V> loadMany(Collection<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        Memo<K> memo = currentMemo(true);
+        if (memo == null) {
+            Set<K> distinct = new LinkedHashSet<>(keys);
+            distinct.remove(null);
+            Map<K, V> fetched = fetch(distinct);
+            Map<K, V> result = new LinkedHashMap<>();
+            for (K key : distinct) {
+                V value = fetched.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        }
+
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (key != null && !memo.values.containsKey(key)) {
+                missing.add(key);
+            }
+        }
+        if (!missing.isEmpty()) {
+            memo.drainPending(missing);
+            store(memo, missing);
+        }
+        Map<K, V> result = new LinkedHashMap<>();
+        for (K key : keys) {
+            if (key != null) {
+                V value = unwrap(memo.values.get(key));
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 登记稍后会用到的主键，在下一次查询时合并读取
+     */
+    public void prefetch(Collection<K> keys) {
+        Memo<K> memo = currentMemo(true);
+        if (memo == null || keys == null) {
+            return;
+        }
+        for (K key : keys) {
+            if (key != null && !memo.values.containsKey(key)) {
+                memo.pending.add(key);
+            }
+        }
+    }
+
+    /**
+     * 写入已知的数据，后续读取不再查询
+     */
+    public void prime(K key, V value) {
+        Memo<K> memo = currentMemo(true);
+        if (memo != null && key != null) {
+            memo.values.put(key, value != null ? value : NOT_FOUND);
+        }
+    }
+
+    /**
+     * 清除当前请求内某个主键的记录
+     */
+    public void clear(K key) {
+        Memo<K> memo = currentMemo(false);
+        if (memo != null && key != null) {
+            memo.values.remove(key);
+        }
+    }
+
+    /**
+     * 清除当前请求内所有加载器的记录
+     */
+    public static void clearAll() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return;
+        }
+        try {
+            for (String name : attributes.getAttributeNames(RequestAttributes.SCOPE_REQUEST)) {
+                if (name.startsWith(ATTRIBUTE_PREFIX)) {
+                    attributes.removeAttribute(name, RequestAttributes.SCOPE_REQUEST);
+                }
+            }
+        } catch (IllegalStateException ignored) {
+            // 请求已结束
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    private void store(Memo<K> memo, Collection<K> keys) {
+        Map<K, V> fetched = fetch(keys);
+        for (K key : keys) {
+            V value = fetched.get(key);
+            memo.values.put(key, value != null ? value : NOT_FOUND);
+        }
+    }
+
+    private Map<K, V> fetch(Collection<K> keys) {
+        if (keys.size() <= maxBatchSize) {
+            Map<K, V> fetched = batchLoader.apply(keys);
+            return fetched != null ? fetched : Collections.emptyMap();
+        }
+        List<K> ordered = new ArrayList<>(keys);
+        Map<K, V> result = new HashMap<>();
+        for (int from = 0; from < ordered.size(); from += maxBatchSize) {
+            Map<K, V> fetched = batchLoader.apply(ordered.subList(from, Math.min(from + maxBatchSize, ordered.size())));
+            if (fetched != null) {
+                result.putAll(fetched);
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Memo<K> currentMemo(boolean create) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        try {
+            Object existing = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+            if (existing != null || !create) {
+                return (Memo<K>) existing;
+            }
+            // 并行查询线程与请求线程共享同一份记录
+            synchronized (this) {
+                existing = attributes.getAttribute(attributeName, RequestAttributes.SCOPE_REQUEST);
+                if (existing == null) {
+                    existing = new Memo<K>();
+                    attributes.setAttribute(attributeName, existing, RequestAttributes.SCOPE_REQUEST);
+                }
+                return (Memo<K>) existing;
+            }
+        } catch (IllegalStateException e) {
+            log.debug("请求已结束，跳过请求级缓存：{}", attributeName);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V unwrap(Object cached) {
+        return cached == null || cached == NOT_FOUND ? null : (V) cached;
+    }
+
+    private static final class Memo<K> {
+        private final Map<K, Object> values = new ConcurrentHashMap<>();
+        private final Set<K> pending = ConcurrentHashMap.newKeySet();
+
+        private void drainPending(Set<K> target) {
+            for (K key : pending) {
+                if (pending.remove(key) && !values.containsKey(key)) {
+                    target.add(key);
+                }
+            }
+        }
+    }
+}
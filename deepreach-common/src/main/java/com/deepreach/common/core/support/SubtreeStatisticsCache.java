@@ -0,0 +1,315 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.mapper.UserStatisticsFactMapper;
+import com.deepreach.common.core.service.UserHierarchyService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户子树统计快照缓存
+ *
+ * 本节点常驻一份 {@link SubtreeStatisticsSnapshot}，统计看板直接读取预先汇总的结果：
+ * 1. 用户层级变化（{@link ChangeBroadcaster#CHANNEL_USER_HIERARCHY}）时异步整体重建，重建完成前继续使用旧快照；
+ *    同一频道上的角色变更只重新读取该用户的明细并增量修正
+ * 2. 充值、佣金、实例、AI人设变化（{@link ChangeBroadcaster#CHANNEL_USER_STATISTICS}）时只重新读取相关用户的明细并增量修正
+ * 3. 快照超过最大陈旧时间后提交重建并暂时继续使用，超过两倍仍未重建成功时不再使用；定时任务提前重建，保证增量遗漏的误差有上限
+ *
+ * 重建与增量修正都在同一个单线程中执行，重建期间到达的变更会在重建完成后再应用到新快照上。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SubtreeStatisticsCache {
+
+    private static final String FULL_REBUILD = "*";
+    private static final int QUERY_CHUNK_SIZE = 500;
+    private static final String ROLES_MESSAGE_PREFIX = "roles:";
+
+    private final UserHierarchyService hierarchyService;
+    private final UserStatisticsFactMapper factMapper;
+    private final ChangeBroadcaster changeBroadcaster;
+
+    @Value("${deepreach.statistics.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deepreach.statistics.snapshot.max-staleness:300000}")
+    private long maxStalenessMillis;
+
+    private final AtomicReference<SubtreeStatisticsSnapshot> snapshot = new AtomicReference<>();
+    private final Set<Long> dirtyUserIds = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "subtree-statistics-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, this::onHierarchyChanged);
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_STATISTICS, this::onStatisticsChanged);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取可用的统计快照，请求线程从不等待重建：
+     * 尚未构建成功时提交重建并返回 null；超过最大陈旧时间时提交重建并继续返回旧快照，
+     * 超过两倍最大陈旧时间（重建持续失败）才返回 null。返回 null 时调用方应回退到数据库统计
+     */
+    public SubtreeStatisticsSnapshot current() {
+        if (!enabled) {
+            return null;
+        }
+        SubtreeStatisticsSnapshot current = snapshot.get();
+        if (current == null) {
+            requestRebuild();
+            return null;
+        }
+        long age = System.currentTimeMillis() - current.getBuiltAt();
+        if (age > maxStalenessMillis * 2) {
+            requestRebuild();
+            return null;
+        }
+        if (age > maxStalenessMillis || current.getHierarchy() != hierarchyService.currentSnapshot().getHierarchy()) {
+            // 已过期或本节点层级已更新而统计快照尚未重建，先返回旧快照
+            requestRebuild();
+        }
+        return current;
+    }
+
+    /**
+     * 标记用户统计明细已变化，由刷新线程合并后增量修正
+     */
+    public void markDirty(Collection<Long> userIds) {
+        if (!enabled || userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        for (Long userId : userIds) {
+            if (userId != null) {
+                dirtyUserIds.add(userId);
+            }
+        }
+        executor.execute(this::drainDirty);
+    }
+
+    /**
+     * 兜底刷新：在快照到达最大陈旧时间之前重建，避免请求线程等待重建
+     */
+    @Scheduled(fixedDelayString = "${deepreach.statistics.snapshot.refresh-interval:120000}")
+    public void refreshBeforeExpiry() {
+        SubtreeStatisticsSnapshot current = snapshot.get();
+        if (enabled && current != null
+            && System.currentTimeMillis() - current.getBuiltAt() >= maxStalenessMillis / 2) {
+            requestRebuild();
+        }
+    }
+
+    // ==================== 内部方法 ====================
+
+    /**
+     * 角色变更（"roles:用户ID,用户ID"）只影响这些用户的身份，按用户增量修正；"roles:*" 与其他层级变更需要整体重建
+     */
+    private void onHierarchyChanged(String message) {
+        if (message != null && message.startsWith(ROLES_MESSAGE_PREFIX)) {
+            String payload = message.substring(ROLES_MESSAGE_PREFIX.length());
+            if (!FULL_REBUILD.equals(payload)) {
+                try {
+                    List<Long> userIds = new ArrayList<>();
+                    for (String item : payload.split(",")) {
+                        userIds.add(Long.parseLong(item.trim()));
+                    }
+                    markDirty(userIds);
+                    return;
+                } catch (NumberFormatException e) {
+                    log.warn("无法解析的角色变更消息，整体重建：{}", message);
+                }
+            }
+        }
+        requestRebuild();
+    }
+
+    private void onStatisticsChanged(String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        if (FULL_REBUILD.equals(message)) {
+            requestRebuild();
+            return;
+        }
+        List<Long> userIds = new ArrayList<>();
+        for (String item : message.split(",")) {
+            try {
+                userIds.add(Long.parseLong(item.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("忽略无法解析的统计变更消息：{}", message);
+                return;
+            }
+        }
+        markDirty(userIds);
+    }
+
+    private void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            executor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        rebuildQueued.set(false);
+        long start = System.currentTimeMillis();
+        try {
+            CompactUserHierarchy hierarchy = hierarchyService.currentSnapshot().getHierarchy();
+            SubtreeStatisticsSnapshot latest = SubtreeStatisticsSnapshot.build(hierarchy, loadFacts(null));
+            snapshot.set(latest);
+            log.info("用户子树统计快照已重建：用户数={}, 耗时={}ms", latest.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("重建用户子树统计快照失败，保留当前快照", e);
+        }
+    }
+
+    private void drainDirty() {
+        SubtreeStatisticsSnapshot current = snapshot.get();
+        if (current == null || dirtyUserIds.isEmpty()) {
+            // 尚未构建时无需修正，首次构建会读取最新数据
+            dirtyUserIds.clear();
+            return;
+        }
+        List<Long> userIds = new ArrayList<>(dirtyUserIds);
+        dirtyUserIds.removeAll(userIds);
+        try {
+            if (!current.apply(userIds, loadFacts(userIds))) {
+                log.info("用户统计明细涉及结构变化，整体重建：用户数={}", userIds.size());
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.warn("增量修正用户子树统计失败，整体重建：{}", e.getMessage());
+            rebuild();
+        }
+    }
+
+    /**
+     * 读取用户统计明细，userIds 为 null 时读取全部正常状态用户
+     */
+    private Map<Long, SubtreeStatisticsSnapshot.UserFacts> loadFacts(List<Long> userIds) {
+        if (userIds == null) {
+            return assembleFacts(null);
+        }
+        Map<Long, SubtreeStatisticsSnapshot.UserFacts> result = new HashMap<>();
+        for (int from = 0; from < userIds.size(); from += QUERY_CHUNK_SIZE) {
+            result.putAll(assembleFacts(userIds.subList(from, Math.min(from + QUERY_CHUNK_SIZE, userIds.size()))));
+        }
+        return result;
+    }
+
+    private Map<Long, SubtreeStatisticsSnapshot.UserFacts> assembleFacts(Collection<Long> userIds) {
+        Map<Long, Set<String>> roleKeys = new HashMap<>();
+        for (Map<String, Object> row : nullSafe(factMapper.selectUserRoleKeys(userIds))) {
+            Long userId = toLong(row.get("userId"));
+            if (userId != null && row.get("roleKey") instanceof String) {
+                roleKeys.computeIfAbsent(userId, key -> new HashSet<>()).add(((String) row.get("roleKey")).trim());
+            }
+        }
+        Map<Long, Map<String, Long>> instanceCounts = new HashMap<>();
+        for (Map<String, Object> row : nullSafe(factMapper.selectInstanceCounts(userIds))) {
+            Long userId = toLong(row.get("userId"));
+            if (userId != null) {
+                String key = SubtreeStatisticsSnapshot.instanceKey(
+                    Objects.toString(row.get("instanceType"), ""),
+                    Objects.toString(row.get("platformName"), "UNKNOWN_PLATFORM"));
+                instanceCounts.computeIfAbsent(userId, k -> new HashMap<>()).merge(key, toCount(row.get("count")), Long::sum);
+            }
+        }
+        Map<Long, Map<String, Long>> aiCharacterCounts = new HashMap<>();
+        for (Map<String, Object> row : nullSafe(factMapper.selectAiCharacterCounts(userIds))) {
+            Long userId = toLong(row.get("userId"));
+            if (userId != null) {
+                aiCharacterCounts.computeIfAbsent(userId, k -> new HashMap<>())
+                    .merge(Objects.toString(row.get("type"), "unknown"), toCount(row.get("count")), Long::sum);
+            }
+        }
+
+        Map<Long, SubtreeStatisticsSnapshot.UserFacts> facts = new HashMap<>();
+        for (Map<String, Object> row : nullSafe(factMapper.selectUserFacts(userIds))) {
+            Long userId = toLong(row.get("userId"));
+            if (userId == null) {
+                continue;
+            }
+            facts.put(userId, SubtreeStatisticsSnapshot.UserFacts.of(
+                roleKeys.get(userId),
+                Objects.toString(row.get("username"), ""),
+                Objects.toString(row.get("nickname"), ""),
+                toAmount(row.get("totalRecharge")),
+                toAmount(row.get("totalCommission")),
+                instanceCounts.get(userId),
+                aiCharacterCounts.get(userId)));
+        }
+        return facts;
+    }
+
+    private static List<Map<String, Object>> nullSafe(List<Map<String, Object>> rows) {
+        if (rows == null) {
+            return new ArrayList<>();
+        }
+        rows.removeIf(Objects::isNull);
+        return rows;
+    }
+
+    private static Long toLong(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value != null) {
+            try {
+                return Long.parseLong(value.toString().trim());
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static long toCount(Object value) {
+        Long parsed = toLong(value);
+        return parsed != null ? parsed : 0L;
+    }
+
+    private static BigDecimal toAmount(Object value) {
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value != null) {
+            try {
+                return new BigDecimal(value.toString());
+            } catch (NumberFormatException ignored) {
+                return BigDecimal.ZERO;
+            }
+        }
+        return BigDecimal.ZERO;
+    }
+}
@@ -0,0 +1,617 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.security.enums.UserIdentity;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 用户子树统计快照
+ *
+ * 基于某一版本的 {@link CompactUserHierarchy}，按先序编号倒序自底向上汇总每个用户子树（含自身）的统计量：
+ * 各身份人数、买家充值、代理佣金、各级代理名下买家充值、买家实例数与AI人设数。
+ * 查询某个用户的子树统计只需读取其先序位置上的汇总值，不再访问数据库。
+ *
+ * 充值、佣金、实例、AI人设等明细或身份变化时沿上级链增量修正各祖先的汇总值；
+ * 用户新增、停用、调整上级属于结构变化，由调用方整体重建。
+ * 查询方法返回与闭包表统计语句相同结构的结果，便于统计服务复用同一套组装逻辑。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class SubtreeStatisticsSnapshot {
+
+    public static final String ALL_USERS_KEY = "*";
+    public static final String KNOWN_USERS_KEY = "+";
+
+    private static final UserIdentity[] IDENTITIES = UserIdentity.values();
+    private static final UserIdentity[] AGENT_IDENTITIES = {
+        UserIdentity.AGENT_LEVEL_1, UserIdentity.AGENT_LEVEL_2, UserIdentity.AGENT_LEVEL_3
+    };
+    private static final UserIdentity[] BUYER_IDENTITIES = {UserIdentity.BUYER_MAIN, UserIdentity.BUYER_SUB};
+    private static final int BUYER_MASK = maskOf(UserIdentity.BUYER_MAIN) | maskOf(UserIdentity.BUYER_SUB);
+    private static final char KEY_SEPARATOR = '|';
+
+    private final CompactUserHierarchy hierarchy;
+    private final long builtAt;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 以下数组均按先序编号索引
+     */
+    private final int[] parentPositions;
+    private final UserFacts[] facts;
+    private final int[] roleCounts;
+    private final int[] knownCounts;
+    private final BigDecimal[] buyerRecharge;
+    private final BigDecimal[][] buyerRoleRecharge;
+    private final BigDecimal[][] agentCommission;
+    private final BigDecimal[][] rechargeUnderAgent;
+    private final Map<String, Long>[] instanceCounts;
+    private final Map<String, Long>[] aiCharacterCounts;
+
+    @SuppressWarnings("unchecked")
+    private SubtreeStatisticsSnapshot(CompactUserHierarchy hierarchy, long builtAt) {
+        int size = hierarchy.size();
+        this.hierarchy = hierarchy;
+        this.builtAt = builtAt;
+        this.parentPositions = new int[size];
+        this.facts = new UserFacts[size];
+        this.roleCounts = new int[size * IDENTITIES.length];
+        this.knownCounts = new int[size];
+        this.buyerRecharge = zeros(size);
+        this.buyerRoleRecharge = new BigDecimal[BUYER_IDENTITIES.length][];
+        for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+            this.buyerRoleRecharge[i] = zeros(size);
+        }
+        this.agentCommission = new BigDecimal[AGENT_IDENTITIES.length][];
+        this.rechargeUnderAgent = new BigDecimal[AGENT_IDENTITIES.length][];
+        for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+            this.agentCommission[i] = zeros(size);
+            this.rechargeUnderAgent[i] = zeros(size);
+        }
+        this.instanceCounts = new Map[size];
+        this.aiCharacterCounts = new Map[size];
+    }
+
+    /**
+     * 以层级快照和全部用户明细构建统计快照，层级中缺少明细的用户按空明细处理
+     */
+    public static SubtreeStatisticsSnapshot build(CompactUserHierarchy hierarchy, Map<Long, UserFacts> userFacts) {
+        SubtreeStatisticsSnapshot snapshot = new SubtreeStatisticsSnapshot(hierarchy, System.currentTimeMillis());
+        int size = hierarchy.size();
+        for (int position = 0; position < size; position++) {
+            long userId = hierarchy.userAtPreorder(position);
+            UserFacts own = userFacts.getOrDefault(userId, UserFacts.EMPTY);
+            snapshot.facts[position] = own;
+            snapshot.parentPositions[position] = resolveParentPosition(hierarchy, userId);
+            snapshot.addOwn(position, own);
+        }
+        // 子节点的先序编号总是大于上级，倒序处理时每个节点的子树在汇总到上级前已经完整
+        for (int position = size - 1; position >= 0; position--) {
+            UserFacts own = snapshot.facts[position];
+            for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+                if (own.hasIdentity(AGENT_IDENTITIES[i])) {
+                    snapshot.rechargeUnderAgent[i][position] = snapshot.buyerRecharge[position].subtract(own.buyerRecharge());
+                }
+            }
+            int parent = snapshot.parentPositions[position];
+            if (parent >= 0) {
+                snapshot.mergeInto(parent, position);
+            }
+        }
+        return snapshot;
+    }
+
+    public CompactUserHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    public long getBuiltAt() {
+        return builtAt;
+    }
+
+    public int size() {
+        return hierarchy.size();
+    }
+
+    public boolean contains(long userId) {
+        return hierarchy.contains(userId);
+    }
+
+    /**
+     * 用新的用户明细增量修正各祖先的汇总值（含身份变化）。
+     * 用户不在快照中或已不再是正常状态时返回 false，调用方应整体重建。
+     *
+     * @param userIds 本次刷新的用户
+     * @param latest  刷新后的明细（仅包含正常状态用户）
+     */
+    public boolean apply(Collection<Long> userIds, Map<Long, UserFacts> latest) {
+        lock.writeLock().lock();
+        try {
+            for (Long userId : userIds) {
+                if (userId == null) {
+                    continue;
+                }
+                int position = hierarchy.enterOf(userId);
+                UserFacts updated = latest.get(userId);
+                if (position < 0 || updated == null) {
+                    if (position < 0 && updated == null) {
+                        continue;
+                    }
+                    return false;
+                }
+                replace(position, facts[position], updated);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ==================== 查询 ====================
+
+    /**
+     * 用户明细，用户不在快照中时返回 null
+     */
+    public UserFacts factsOf(long userId) {
+        int position = hierarchy.enterOf(userId);
+        if (position < 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return facts[position];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 子树（含自身）各身份人数，另含全部用户（*）与已识别身份用户（+）
+     */
+    public Map<String, Long> countUsersByRoleKey(long rootUserId) {
+        Map<String, Long> counts = new HashMap<>();
+        int position = hierarchy.enterOf(rootUserId);
+        if (position < 0) {
+            return counts;
+        }
+        lock.readLock().lock();
+        try {
+            for (UserIdentity identity : IDENTITIES) {
+                counts.put(identity.getRoleKey(), (long) roleCount(position, identity));
+            }
+            counts.put(ALL_USERS_KEY, (long) (hierarchy.exitOf(rootUserId) - position));
+            counts.put(KNOWN_USERS_KEY, (long) knownCounts[position]);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * 子树（含自身）各级代理的人数与累计佣金：roleKey, userCount, totalCommission
+     */
+    public List<Map<String, Object>> sumCommissionByRoleKey(long rootUserId) {
+        int position = hierarchy.enterOf(rootUserId);
+        if (position < 0) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(AGENT_IDENTITIES.length);
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("roleKey", AGENT_IDENTITIES[i].getRoleKey());
+                row.put("userCount", (long) roleCount(position, AGENT_IDENTITIES[i]));
+                row.put("totalCommission", agentCommission[i][position]);
+                rows.add(row);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rows;
+    }
+
+    /**
+     * 子树（含自身）买家各身份的人数与充值总额，另含买家去重后的合计（*）：roleKey, userCount, totalRecharge
+     */
+    public List<Map<String, Object>> sumBuyerRechargeByRoleKey(long rootUserId) {
+        int position = hierarchy.enterOf(rootUserId);
+        if (position < 0) {
+            return Collections.emptyList();
+        }
+        List<Map<String, Object>> rows = new ArrayList<>(BUYER_IDENTITIES.length + 1);
+        lock.readLock().lock();
+        try {
+            long buyerCount = 0L;
+            for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+                long count = roleCount(position, BUYER_IDENTITIES[i]);
+                buyerCount += count;
+                Map<String, Object> row = new HashMap<>();
+                row.put("roleKey", BUYER_IDENTITIES[i].getRoleKey());
+                row.put("userCount", count);
+                row.put("totalRecharge", buyerRoleRecharge[i][position]);
+                rows.add(row);
+            }
+            Map<String, Object> total = new HashMap<>();
+            total.put("roleKey", ALL_USERS_KEY);
+            total.put("userCount", buyerCount);
+            total.put("totalRecharge", buyerRecharge[position]);
+            rows.add(total);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return rows;
+    }
+
+    /**
+     * 子树中各级代理名下买家（去重）的充值总额，键为代理角色标识
+     */
+    public Map<String, BigDecimal> sumBuyerRechargeByAgentRoleKey(long rootUserId) {
+        Map<String, BigDecimal> result = new HashMap<>();
+        int position = hierarchy.enterOf(rootUserId);
+        if (position < 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+                result.put(AGENT_IDENTITIES[i].getRoleKey(), rechargeUnderAgent[i][position]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * 子树中买家账号的实例数：instanceType, platformName, count
+     */
+    public List<Map<String, Object>> countInstancesByPlatform(long rootUserId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : countsAt(instanceCounts, rootUserId).entrySet()) {
+            String key = entry.getKey();
+            int separator = key.indexOf(KEY_SEPARATOR);
+            Map<String, Object> row = new HashMap<>();
+            row.put("instanceType", key.substring(0, separator));
+            row.put("platformName", key.substring(separator + 1));
+            row.put("count", entry.getValue());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 子树中买家账号的AI人设数：type, count
+     */
+    public List<Map<String, Object>> countAiCharactersByType(long rootUserId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : countsAt(aiCharacterCounts, rootUserId).entrySet()) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("type", entry.getKey());
+            row.put("count", entry.getValue());
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 子树（含自身）中的买家主账号明细，按子账号数倒序：userId, username, nickname, totalRecharge, subAccountCount
+     */
+    public List<Map<String, Object>> selectBuyerMainDetails(long rootUserId) {
+        int from = hierarchy.enterOf(rootUserId);
+        if (from < 0) {
+            return Collections.emptyList();
+        }
+        int to = hierarchy.exitOf(rootUserId);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int position = from; position < to; position++) {
+                UserFacts own = facts[position];
+                if (!own.hasIdentity(UserIdentity.BUYER_MAIN)) {
+                    continue;
+                }
+                long subAccountCount = roleCount(position, UserIdentity.BUYER_SUB)
+                    - (own.hasIdentity(UserIdentity.BUYER_SUB) ? 1 : 0);
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("userId", hierarchy.userAtPreorder(position));
+                row.put("username", own.username);
+                row.put("nickname", own.nickname);
+                row.put("totalRecharge", own.totalRecharge);
+                row.put("subAccountCount", subAccountCount);
+                rows.add(row);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        rows.sort(Comparator.<Map<String, Object>>comparingLong(row -> (Long) row.get("subAccountCount")).reversed()
+            .thenComparingLong(row -> (Long) row.get("userId")));
+        return rows;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private static int resolveParentPosition(CompactUserHierarchy hierarchy, long userId) {
+        Long parentId = hierarchy.parentOf(userId);
+        // 上级不在层级中（停用）或处于环上时，该用户在先序遍历中作为根节点
+        if (parentId == null || !hierarchy.isAncestor(parentId, userId)) {
+            return -1;
+        }
+        return hierarchy.enterOf(parentId);
+    }
+
+    private void addOwn(int position, UserFacts own) {
+        for (int i = 0; i < IDENTITIES.length; i++) {
+            if (own.hasIdentity(IDENTITIES[i])) {
+                roleCounts[position * IDENTITIES.length + i]++;
+            }
+        }
+        if (own.roleMask != 0) {
+            knownCounts[position]++;
+        }
+        buyerRecharge[position] = own.buyerRecharge();
+        for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+            if (own.hasIdentity(BUYER_IDENTITIES[i])) {
+                buyerRoleRecharge[i][position] = own.totalRecharge;
+            }
+        }
+        for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+            if (own.hasIdentity(AGENT_IDENTITIES[i])) {
+                agentCommission[i][position] = own.totalCommission;
+            }
+        }
+        if (own.isBuyer()) {
+            instanceCounts[position] = mergeCounts(null, own.instanceCounts, 1L);
+            aiCharacterCounts[position] = mergeCounts(null, own.aiCharacterCounts, 1L);
+        }
+    }
+
+    private void mergeInto(int parent, int child) {
+        for (int i = 0; i < IDENTITIES.length; i++) {
+            roleCounts[parent * IDENTITIES.length + i] += roleCounts[child * IDENTITIES.length + i];
+        }
+        knownCounts[parent] += knownCounts[child];
+        buyerRecharge[parent] = buyerRecharge[parent].add(buyerRecharge[child]);
+        for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+            buyerRoleRecharge[i][parent] = buyerRoleRecharge[i][parent].add(buyerRoleRecharge[i][child]);
+        }
+        for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+            agentCommission[i][parent] = agentCommission[i][parent].add(agentCommission[i][child]);
+        }
+        // 上级本身是对应身份代理时，该值会在处理上级时以其子树买家充值覆盖
+        for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+            rechargeUnderAgent[i][parent] = rechargeUnderAgent[i][parent].add(rechargeUnderAgent[i][child]);
+        }
+        instanceCounts[parent] = mergeCounts(instanceCounts[parent], instanceCounts[child], 1L);
+        aiCharacterCounts[parent] = mergeCounts(aiCharacterCounts[parent], aiCharacterCounts[child], 1L);
+    }
+
+    /**
+     * 以新明细替换用户自身的贡献，并沿上级链修正汇总值（身份可以变化）。
+     *
+     * 代理名下充值满足递推关系：节点是对应身份代理时为子树买家充值减去自身，否则为各子节点之和；
+     * 因此本节点按子节点重新求和，各祖先用路径上子节点的新旧差值修正，是对应身份代理的祖先直接按定义重算。
+     */
+    private void replace(int position, UserFacts previous, UserFacts updated) {
+        int[] roleDelta = new int[IDENTITIES.length];
+        for (int i = 0; i < IDENTITIES.length; i++) {
+            roleDelta[i] = (updated.hasIdentity(IDENTITIES[i]) ? 1 : 0) - (previous.hasIdentity(IDENTITIES[i]) ? 1 : 0);
+        }
+        int knownDelta = (updated.roleMask != 0 ? 1 : 0) - (previous.roleMask != 0 ? 1 : 0);
+        BigDecimal rechargeDelta = updated.buyerRecharge().subtract(previous.buyerRecharge());
+        BigDecimal[] buyerRoleDelta = new BigDecimal[BUYER_IDENTITIES.length];
+        for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+            buyerRoleDelta[i] = amountIf(updated, BUYER_IDENTITIES[i], updated.totalRecharge)
+                .subtract(amountIf(previous, BUYER_IDENTITIES[i], previous.totalRecharge));
+        }
+        BigDecimal[] commissionDelta = new BigDecimal[AGENT_IDENTITIES.length];
+        for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+            commissionDelta[i] = amountIf(updated, AGENT_IDENTITIES[i], updated.totalCommission)
+                .subtract(amountIf(previous, AGENT_IDENTITIES[i], previous.totalCommission));
+        }
+        Map<String, Long> instanceDelta = countsDelta(previous.isBuyer() ? previous.instanceCounts : null,
+            updated.isBuyer() ? updated.instanceCounts : null);
+        Map<String, Long> aiDelta = countsDelta(previous.isBuyer() ? previous.aiCharacterCounts : null,
+            updated.isBuyer() ? updated.aiCharacterCounts : null);
+
+        facts[position] = updated;
+        BigDecimal[] childBefore = new BigDecimal[AGENT_IDENTITIES.length];
+        BigDecimal[] childAfter = new BigDecimal[AGENT_IDENTITIES.length];
+        for (int current = position; current >= 0; current = parentPositions[current]) {
+            for (int i = 0; i < IDENTITIES.length; i++) {
+                roleCounts[current * IDENTITIES.length + i] += roleDelta[i];
+            }
+            knownCounts[current] += knownDelta;
+            buyerRecharge[current] = buyerRecharge[current].add(rechargeDelta);
+            for (int i = 0; i < BUYER_IDENTITIES.length; i++) {
+                buyerRoleRecharge[i][current] = buyerRoleRecharge[i][current].add(buyerRoleDelta[i]);
+            }
+            for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+                agentCommission[i][current] = agentCommission[i][current].add(commissionDelta[i]);
+            }
+            instanceCounts[current] = mergeCounts(instanceCounts[current], instanceDelta, 1L);
+            aiCharacterCounts[current] = mergeCounts(aiCharacterCounts[current], aiDelta, 1L);
+
+            UserFacts own = facts[current];
+            for (int i = 0; i < AGENT_IDENTITIES.length; i++) {
+                BigDecimal before = rechargeUnderAgent[i][current];
+                BigDecimal after;
+                if (own.hasIdentity(AGENT_IDENTITIES[i])) {
+                    after = buyerRecharge[current].subtract(own.buyerRecharge());
+                } else if (current == position) {
+                    after = sumChildrenUnderAgent(position, i);
+                } else {
+                    after = before.subtract(childBefore[i]).add(childAfter[i]);
+                }
+                rechargeUnderAgent[i][current] = after;
+                childBefore[i] = before;
+                childAfter[i] = after;
+            }
+        }
+    }
+
+    private BigDecimal sumChildrenUnderAgent(int position, int agentIndex) {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (Long childId : hierarchy.childrenOf(hierarchy.userAtPreorder(position))) {
+            int child = hierarchy.enterOf(childId);
+            if (child >= 0 && parentPositions[child] == position) {
+                sum = sum.add(rechargeUnderAgent[agentIndex][child]);
+            }
+        }
+        return sum;
+    }
+
+    private static BigDecimal amountIf(UserFacts facts, UserIdentity identity, BigDecimal amount) {
+        return facts.hasIdentity(identity) ? amount : BigDecimal.ZERO;
+    }
+
+    private int roleCount(int position, UserIdentity identity) {
+        return roleCounts[position * IDENTITIES.length + identity.ordinal()];
+    }
+
+    private Map<String, Long> countsAt(Map<String, Long>[] source, long rootUserId) {
+        int position = hierarchy.enterOf(rootUserId);
+        if (position < 0) {
+            return Collections.emptyMap();
+        }
+        lock.readLock().lock();
+        try {
+            Map<String, Long> counts = source[position];
+            return counts != null ? new HashMap<>(counts) : Collections.emptyMap();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 将 delta 按倍数累加到 target，计数归零的键移除；target 为空时按需创建
+     */
+    private static Map<String, Long> mergeCounts(Map<String, Long> target, Map<String, Long> delta, long factor) {
+        if (delta == null || delta.isEmpty()) {
+            return target;
+        }
+        Map<String, Long> result = target != null ? target : new HashMap<>(delta.size() * 2);
+        for (Map.Entry<String, Long> entry : delta.entrySet()) {
+            long value = result.getOrDefault(entry.getKey(), 0L) + entry.getValue() * factor;
+            if (value == 0L) {
+                result.remove(entry.getKey());
+            } else {
+                result.put(entry.getKey(), value);
+            }
+        }
+        return result.isEmpty() ? null : result;
+    }
+
+    private static Map<String, Long> countsDelta(Map<String, Long> previous, Map<String, Long> updated) {
+        Map<String, Long> delta = mergeCounts(null, updated, 1L);
+        return mergeCounts(delta, previous, -1L);
+    }
+
+    private static BigDecimal[] zeros(int size) {
+        BigDecimal[] values = new BigDecimal[size];
+        Arrays.fill(values, BigDecimal.ZERO);
+        return values;
+    }
+
+    private static int maskOf(UserIdentity identity) {
+        return 1 << identity.ordinal();
+    }
+
+    /**
+     * 实例统计键：实例类型 + 分隔符 + 平台名称
+     */
+    public static String instanceKey(String instanceType, String platformName) {
+        return instanceType + KEY_SEPARATOR + platformName;
+    }
+
+    /**
+     * 单个用户的统计明细（不可变）
+     */
+    public static final class UserFacts {
+
+        static final UserFacts EMPTY = new UserFacts(0, "", "", BigDecimal.ZERO, BigDecimal.ZERO,
+            Collections.emptyMap(), Collections.emptyMap());
+
+        private final int roleMask;
+        private final String username;
+        private final String nickname;
+        private final BigDecimal totalRecharge;
+        private final BigDecimal totalCommission;
+        private final Map<String, Long> instanceCounts;
+        private final Map<String, Long> aiCharacterCounts;
+
+        private UserFacts(int roleMask, String username, String nickname, BigDecimal totalRecharge,
+                          BigDecimal totalCommission, Map<String, Long> instanceCounts,
+                          Map<String, Long> aiCharacterCounts) {
+            this.roleMask = roleMask;
+            this.username = username;
+            this.nickname = nickname;
+            this.totalRecharge = totalRecharge;
+            this.totalCommission = totalCommission;
+            this.instanceCounts = instanceCounts;
+            this.aiCharacterCounts = aiCharacterCounts;
+        }
+
+        /**
+         * @param roleKeys          用户角色标识（非身份角色会被忽略）
+         * @param instanceCounts    实例数，键见 {@link #instanceKey(String, String)}
+         * @param aiCharacterCounts AI人设数，键为人设类型
+         */
+        public static UserFacts of(Collection<String> roleKeys, String username, String nickname,
+                                   BigDecimal totalRecharge, BigDecimal totalCommission,
+                                   Map<String, Long> instanceCounts, Map<String, Long> aiCharacterCounts) {
+            int mask = 0;
+            if (roleKeys != null) {
+                for (String roleKey : roleKeys) {
+                    mask |= UserIdentity.fromRoleKey(roleKey).map(SubtreeStatisticsSnapshot::maskOf).orElse(0);
+                }
+            }
+            return new UserFacts(mask,
+                Objects.toString(username, ""),
+                Objects.toString(nickname, ""),
+                totalRecharge != null ? totalRecharge : BigDecimal.ZERO,
+                totalCommission != null ? totalCommission : BigDecimal.ZERO,
+                instanceCounts != null ? Collections.unmodifiableMap(instanceCounts) : Collections.emptyMap(),
+                aiCharacterCounts != null ? Collections.unmodifiableMap(aiCharacterCounts) : Collections.emptyMap());
+        }
+
+        public boolean hasIdentity(UserIdentity identity) {
+            return (roleMask & maskOf(identity)) != 0;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public BigDecimal getTotalRecharge() {
+            return totalRecharge;
+        }
+
+        public BigDecimal getTotalCommission() {
+            return totalCommission;
+        }
+
+        private boolean isBuyer() {
+            return (roleMask & BUYER_MASK) != 0;
+        }
+
+        private BigDecimal buyerRecharge() {
+            return isBuyer() ? totalRecharge : BigDecimal.ZERO;
+        }
+    }
+}
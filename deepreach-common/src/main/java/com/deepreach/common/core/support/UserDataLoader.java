@@ -0,0 +1,79 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.entity.SysUser;
+import com.deepreach.common.core.mapper.SysUserMapper;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户与角色的请求级加载器
+ *
+ * 同一请求中多个服务反复读取同一用户（扣费账号解析、充值、实例创建、统计）时只查询一次，
+ * 多个用户的读取合并为一次批量读取；请求内未命中的数据再从 {@link UserNearCache} 读取。
+ * 用户数据与 {@link SysUserMapper#selectUserWithDept(Long)} 一致，并已填充角色标识。
+ */
+@Component
+public class UserDataLoader {
+
+    private final RequestScopedLoader<Long, SysUser> users;
+    private final RequestScopedLoader<Long, Set<String>> roleKeys;
+
+    public UserDataLoader(UserNearCache nearCache) {
+        this.users = new RequestScopedLoader<>("user", nearCache::getUsers);
+        this.roleKeys = new RequestScopedLoader<>("user-role-keys", nearCache::getRoleKeys);
+    }
+
+    /**
+     * 读取正常状态的用户（包含部门与角色标识），不存在时返回 null
+     */
+    public SysUser loadUser(Long userId) {
+        return userId != null && userId > 0 ? users.load(userId) : null;
+    }
+
+    /**
+     * 批量读取正常状态的用户，不存在的用户不会出现在返回结果中
+     */
+    public Map<Long, SysUser> loadUsers(Collection<Long> userIds) {
+        return users.loadMany(userIds);
+    }
+
+    /**
+     * 登记稍后会读取的用户，在下一次读取用户时合并查询
+     */
+    public void prefetchUsers(Collection<Long> userIds) {
+        users.prefetch(userIds);
+    }
+
+    /**
+     * 读取用户的有效角色标识，返回可修改的副本
+     */
+    public Set<String> loadRoleKeys(Long userId) {
+        if (userId == null || userId <= 0) {
+            return new HashSet<>();
+        }
+        Set<String> loaded = roleKeys.load(userId);
+        return loaded != null ? new HashSet<>(loaded) : new HashSet<>();
+    }
+
+    /**
+     * 批量读取用户的有效角色标识，没有角色的用户映射为空集合
+     */
+    public Map<Long, Set<String>> loadRoleKeys(Collection<Long> userIds) {
+        Map<Long, Set<String>> result = new HashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, Set<String>> loaded = roleKeys.loadMany(userIds);
+        for (Long userId : userIds) {
+            if (userId != null) {
+                Set<String> keys = loaded.get(userId);
+                result.put(userId, keys != null ? new HashSet<>(keys) : new HashSet<>());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,191 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 用户层级索引快照（不可变）
+ *
+ * 版本号加上一份 {@link CompactUserHierarchy}，常驻本节点内存，查询无需访问 Redis。
+ * 变更以 {@link Change} 列表的形式应用，生成新的快照后整体替换，
+ * 结果与用 {@link com.deepreach.common.utils.UserHierarchyTreeBuilder} 全量构建的层级保持一致。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class UserHierarchySnapshot {
+
+    private static final UserHierarchySnapshot EMPTY = new UserHierarchySnapshot(0L, CompactUserHierarchy.empty());
+
+    private final long version;
+    private final CompactUserHierarchy hierarchy;
+
+    private UserHierarchySnapshot(long version, CompactUserHierarchy hierarchy) {
+        this.version = version;
+        this.hierarchy = hierarchy;
+    }
+
+    public static UserHierarchySnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 由层级树（数据库构建结果）生成快照
+     */
+    public static UserHierarchySnapshot of(long version, UserHierarchyTreeDTO tree) {
+        Map<Long, Long> parents = tree != null && tree.getParentMapping() != null
+            ? tree.getParentMapping() : new HashMap<>();
+        return new UserHierarchySnapshot(version, CompactUserHierarchy.build(parents));
+    }
+
+    /**
+     * 由序列化数据（版本号 + 紧凑结构）还原快照
+     */
+    public static UserHierarchySnapshot fromBytes(ByteBuffer buffer) {
+        long version = buffer.getLong();
+        return new UserHierarchySnapshot(version, CompactUserHierarchy.fromBytes(buffer));
+    }
+
+    /**
+     * 序列化为单个字节数组：8字节版本号 + 紧凑结构
+     */
+    public byte[] toBytes() {
+        byte[] body = hierarchy.toBytes();
+        return ByteBuffer.allocate(8 + body.length).putLong(version).put(body).array();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public CompactUserHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
+    public int size() {
+        return hierarchy.size();
+    }
+
+    /**
+     * 计算从当前快照到目标关系集合所需的增量变更
+     */
+    public List<Change> diff(Collection<UserHierarchyNodeDTO> relations) {
+        List<Change> changes = new ArrayList<>();
+        Set<Long> present = new HashSet<>();
+        if (relations != null) {
+            for (UserHierarchyNodeDTO relation : relations) {
+                if (relation == null || relation.getUserId() == null || !present.add(relation.getUserId())) {
+                    continue;
+                }
+                if (!hierarchy.hasRelation(relation.getUserId(), relation.getParentUserId())) {
+                    changes.add(Change.upsert(relation.getUserId(), relation.getParentUserId()));
+                }
+            }
+        }
+        for (long userId : hierarchy.userIds()) {
+            if (!present.contains(userId)) {
+                changes.add(Change.remove(userId));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * 在当前快照上应用变更，返回新快照（当前快照不受影响）
+     *
+     * 同一用户出现多次时以最后一次为准；紧凑结构通过 {@link CompactUserHierarchy#patch} 在原数组上换算，
+     * 不再导出为映射后整体重建。
+     */
+    public UserHierarchySnapshot apply(long newVersion, List<Change> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return new UserHierarchySnapshot(newVersion, hierarchy);
+        }
+        TreeMap<Long, Change> latest = new TreeMap<>();
+        for (Change change : changes) {
+            latest.put(change.getUserId(), change);
+        }
+        int size = latest.size();
+        long[] changedIds = new long[size];
+        long[] newParents = new long[size];
+        boolean[] removed = new boolean[size];
+        int cursor = 0;
+        for (Change change : latest.values()) {
+            changedIds[cursor] = change.getUserId();
+            newParents[cursor] = change.getParentUserId() != null ? change.getParentUserId() : Long.MIN_VALUE;
+            removed[cursor] = change.isRemoved();
+            cursor++;
+        }
+        return new UserHierarchySnapshot(newVersion, hierarchy.patch(changedIds, newParents, removed));
+    }
+
+    /**
+     * 单个用户的层级变更：新增/调整上级，或移除
+     */
+    public static final class Change {
+
+        private final Long userId;
+        private final Long parentUserId;
+        private final boolean removed;
+
+        private Change(Long userId, Long parentUserId, boolean removed) {
+            this.userId = userId;
+            this.parentUserId = parentUserId;
+            this.removed = removed;
+        }
+
+        public static Change upsert(Long userId, Long parentUserId) {
+            return new Change(userId, parentUserId, false);
+        }
+
+        public static Change remove(Long userId) {
+            return new Change(userId, null, true);
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public Long getParentUserId() {
+            return parentUserId;
+        }
+
+        public boolean isRemoved() {
+            return removed;
+        }
+
+        /**
+         * 编码为广播消息片段：新增/调整为 "+用户ID,上级ID"（上级为空时留空），移除为 "-用户ID"
+         */
+        public String encode() {
+            if (removed) {
+                return "-" + userId;
+            }
+            return "+" + userId + "," + (parentUserId != null ? parentUserId : "");
+        }
+
+        public static Change decode(String text) {
+            if (text.startsWith("-")) {
+                return remove(Long.parseLong(text.substring(1)));
+            }
+            if (!text.startsWith("+")) {
+                throw new IllegalArgumentException("无法识别的层级变更：" + text);
+            }
+            int comma = text.indexOf(',');
+            if (comma < 0) {
+                throw new IllegalArgumentException("无法识别的层级变更：" + text);
+            }
+            Long userId = Long.parseLong(text.substring(1, comma));
+            String parent = text.substring(comma + 1);
+            return upsert(userId, parent.isEmpty() ? null : Long.parseLong(parent));
+        }
+    }
+}
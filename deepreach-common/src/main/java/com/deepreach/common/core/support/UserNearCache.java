@@ -0,0 +1,281 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.entity.SysUser;
+import com.deepreach.common.core.mapper.SysUserMapper;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户资料与角色的本地近端缓存
+ *
+ * 扣费账号解析、计费任务、充值、实例创建等热点路径按用户ID读取的用户（含部门与角色标识）与角色标识常驻本节点：
+ * 1. 容量有上限，按访问频率淘汰（W-TinyLFU），冷门用户不会挤掉热点用户
+ * 2. 写入超过刷新间隔后，下一次访问先返回旧值并在后台重新加载（refresh-ahead），超过过期时间则同步加载
+ * 3. 用户或角色变更时本节点立即失效，提交后通过 {@link ChangeBroadcaster#CHANNEL_USER_CACHE} 通知其他节点失效
+ *
+ * 返回的对象均为副本，调用方修改不会影响缓存内容。缓存由 {@link LocalCacheManager} 创建，命中率见其统计。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserNearCache {
+
+    private static final String INVALIDATE_ALL = "*";
+    private static final String ROLE_CHANGE_PREFIX = "roles:";
+
+    private final SysUserMapper userMapper;
+    private final ChangeBroadcaster changeBroadcaster;
+    private final LocalCacheManager cacheManager;
+
+    @Value("${deepreach.user-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deepreach.user-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${deepreach.user-cache.expire-after-write:600000}")
+    private long expireAfterWriteMillis;
+
+    @Value("${deepreach.user-cache.refresh-after-write:60000}")
+    private long refreshAfterWriteMillis;
+
+    private LoadingCache<Long, Optional<SysUser>> users;
+    private LoadingCache<Long, Set<String>> roleKeys;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        users = newCache("user", new CacheLoader<>() {
+            @Override
+            public Optional<SysUser> load(Long userId) {
+                return loadAll(Collections.singleton(userId)).get(userId);
+            }
+
+            @Override
+            public Map<Long, Optional<SysUser>> loadAll(Set<? extends Long> userIds) {
+                Map<Long, SysUser> loaded = queryUsers(userIds);
+                Map<Long, Optional<SysUser>> result = new HashMap<>();
+                for (Long userId : userIds) {
+                    result.put(userId, Optional.ofNullable(loaded.get(userId)));
+                }
+                return result;
+            }
+        });
+        roleKeys = newCache("user-role-keys", new CacheLoader<>() {
+            @Override
+            public Set<String> load(Long userId) {
+                return loadAll(Collections.singleton(userId)).get(userId);
+            }
+
+            @Override
+            public Map<Long, Set<String>> loadAll(Set<? extends Long> userIds) {
+                return queryRoleKeys(userIds);
+            }
+        });
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_CACHE, this::onInvalidation);
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, this::onHierarchyChanged);
+    }
+
+    /**
+     * 批量读取正常状态的用户（包含部门与角色标识），不存在的用户不会出现在返回结果中
+     */
+    public Map<Long, SysUser> getUsers(Collection<Long> userIds) {
+        Set<Long> keys = normalize(userIds);
+        Map<Long, SysUser> result = new LinkedHashMap<>();
+        if (keys.isEmpty()) {
+            return result;
+        }
+        if (users == null) {
+            return queryUsers(keys);
+        }
+        if (keys.size() == 1) {
+            // 单个键走 get：同一用户的并发未命中只会触发一次加载
+            Long userId = keys.iterator().next();
+            users.get(userId).ifPresent(value -> result.put(userId, copyOf(value)));
+            return result;
+        }
+        users.getAll(keys).forEach((userId, user) -> user.ifPresent(value -> result.put(userId, copyOf(value))));
+        return result;
+    }
+
+    /**
+     * 批量读取用户的有效角色标识，没有角色的用户映射为空集合
+     */
+    public Map<Long, Set<String>> getRoleKeys(Collection<Long> userIds) {
+        Set<Long> keys = normalize(userIds);
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (roleKeys == null) {
+            return queryRoleKeys(keys);
+        }
+        Map<Long, Set<String>> result = new HashMap<>();
+        if (keys.size() == 1) {
+            Long userId = keys.iterator().next();
+            result.put(userId, new HashSet<>(roleKeys.get(userId)));
+            return result;
+        }
+        roleKeys.getAll(keys).forEach((userId, keySet) -> result.put(userId, new HashSet<>(keySet)));
+        return result;
+    }
+
+    /**
+     * 用户资料或角色已变更：本节点立即失效，事务提交后通知所有节点失效
+     */
+    public void invalidate(Collection<Long> userIds) {
+        Set<Long> keys = normalize(userIds);
+        if (keys.isEmpty()) {
+            return;
+        }
+        invalidateLocal(keys);
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_CACHE,
+            keys.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    /**
+     * 角色定义变更等影响面无法确定时，全部失效
+     */
+    public void invalidateAll() {
+        invalidateAllLocal();
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_CACHE, INVALIDATE_ALL);
+    }
+
+    // ==================== 内部方法 ====================
+
+    private <V> LoadingCache<Long, V> newCache(String name, CacheLoader<Long, V> loader) {
+        return cacheManager.newLoadingCache(name,
+            cacheManager.builder(maximumSize, Duration.ofMillis(expireAfterWriteMillis))
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterWriteMillis)),
+            loader);
+    }
+
+    private void onInvalidation(String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        if (INVALIDATE_ALL.equals(message)) {
+            invalidateAllLocal();
+            return;
+        }
+        List<Long> userIds = new ArrayList<>();
+        for (String item : message.split(",")) {
+            try {
+                userIds.add(Long.parseLong(item.trim()));
+            } catch (NumberFormatException e) {
+                log.warn("无法解析的用户缓存失效消息，全部失效：{}", message);
+                invalidateAllLocal();
+                return;
+            }
+        }
+        invalidateLocal(userIds);
+    }
+
+    /**
+     * 兼容仅发布在层级频道上的角色变更通知
+     */
+    private void onHierarchyChanged(String message) {
+        if (message != null && message.startsWith(ROLE_CHANGE_PREFIX)) {
+            onInvalidation(message.substring(ROLE_CHANGE_PREFIX.length()));
+        }
+    }
+
+    private void invalidateLocal(Collection<Long> userIds) {
+        if (users != null) {
+            users.invalidateAll(userIds);
+            roleKeys.invalidateAll(userIds);
+        }
+    }
+
+    private void invalidateAllLocal() {
+        if (users != null) {
+            users.invalidateAll();
+            roleKeys.invalidateAll();
+        }
+    }
+
+    private Map<Long, SysUser> queryUsers(Collection<? extends Long> userIds) {
+        Map<Long, SysUser> result = new LinkedHashMap<>();
+        List<SysUser> rows = userMapper.selectUsersWithDeptByIds(new ArrayList<>(userIds));
+        if (rows == null || rows.isEmpty()) {
+            return result;
+        }
+        for (SysUser user : rows) {
+            if (user != null && user.getUserId() != null) {
+                result.putIfAbsent(user.getUserId(), user);
+            }
+        }
+        Map<Long, Set<String>> userRoleKeys = queryRoleKeys(result.keySet());
+        result.forEach((userId, user) -> user.setRoles(userRoleKeys.getOrDefault(userId, new HashSet<>())));
+        return result;
+    }
+
+    private Map<Long, Set<String>> queryRoleKeys(Collection<? extends Long> userIds) {
+        Map<Long, Set<String>> result = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return result;
+        }
+        for (Long userId : userIds) {
+            result.put(userId, new HashSet<>());
+        }
+        List<Map<String, Object>> rows = userMapper.selectRoleKeysByUserIds(new ArrayList<>(userIds));
+        if (rows == null) {
+            return result;
+        }
+        for (Map<String, Object> row : rows) {
+            if (row == null) {
+                continue;
+            }
+            Object userIdValue = row.get("userId");
+            Object roleKey = row.get("roleKey");
+            if (userIdValue instanceof Number && roleKey != null) {
+                Long userId = ((Number) userIdValue).longValue();
+                result.computeIfAbsent(userId, key -> new HashSet<>()).add(Objects.toString(roleKey).trim());
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> normalize(Collection<Long> userIds) {
+        Set<Long> keys = new LinkedHashSet<>();
+        if (userIds != null) {
+            for (Long userId : userIds) {
+                if (userId != null && userId > 0) {
+                    keys.add(userId);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static SysUser copyOf(SysUser source) {
+        SysUser copy = new SysUser();
+        BeanUtils.copyProperties(source, copy);
+        copy.setRoles(source.getRoles() != null ? new HashSet<>(source.getRoles()) : new HashSet<>());
+        copy.setParentRoles(source.getParentRoles() != null ? new LinkedHashSet<>(source.getParentRoles()) : new LinkedHashSet<>());
+        copy.setPermissions(source.getPermissions() != null ? new HashSet<>(source.getPermissions()) : new HashSet<>());
+        copy.setParams(source.getParams() != null ? new HashMap<>(source.getParams()) : null);
+        return copy;
+    }
+}
@@ -0,0 +1,237 @@
+package com.deepreach.common.core.support;
+
+import com.deepreach.common.core.domain.entity.SysUserTreeInterval;
+import com.deepreach.common.core.mapper.SysUserTreeIntervalMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 用户层级先序区间同步器
+ *
+ * 将层级快照中的先序区间写入 sys_user_tree_interval，供数据权限使用区间条件。
+ * 同步在单独线程中异步执行，多次提交只处理最新的快照；各节点通过 Redis 锁串行执行，
+ * 读取已同步版本、写入区间、更新版本号在同一把锁内完成。
+ * 与本节点上一次同步的快照比较，只写入区间发生变化的用户，其他节点抢先同步过或上次同步中断时改为全量同步。
+ *
+ * 一次同步的全部写入在同一个事务中提交：先序重编号会移动大部分用户的 lft/rgt，
+ * 分批提交时区间条件会把一部分用户的新编号与另一部分用户的旧编号比较，查出当前用户子树以外的用户。
+ * 已同步版本号在事务提交后才更新，数据权限只在区间表已包含本节点层级版本时使用区间条件（见 {@link #isPublished}）。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserTreeIntervalSynchronizer {
+
+    private static final String SYNCED_VERSION_KEY = "user:hierarchy:interval:version";
+    private static final String SYNC_LOCK_KEY = "user:hierarchy:interval:lock";
+    private static final String SYNC_IN_PROGRESS_KEY = "user:hierarchy:interval:syncing";
+    private static final int WRITE_CHUNK_SIZE = 1000;
+
+    private final SysUserTreeIntervalMapper intervalMapper;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisLock redisLock;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${deepreach.user-hierarchy.interval-lock-ttl:120000}")
+    private long lockTtlMillis;
+
+    @Value("${deepreach.user-hierarchy.interval-version-check:1000}")
+    private long versionCheckMillis;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final AtomicReference<UserHierarchySnapshot> pending = new AtomicReference<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "user-tree-interval-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile UserHierarchySnapshot lastSynced;
+
+    /**
+     * 已知区间表已提交的层级版本，只增不减
+     */
+    private final AtomicLong publishedVersion = new AtomicLong();
+    private volatile long publishedCheckedAt;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 提交待同步的快照
+     */
+    public void submit(UserHierarchySnapshot latest) {
+        if (latest == null) {
+            return;
+        }
+        pending.set(latest);
+        executor.execute(this::drain);
+    }
+
+    /**
+     * 区间表是否已提交了不低于指定版本的层级
+     *
+     * 已同步版本号短时间内复用上次从 Redis 读取的结果，读取结果只会偏旧；
+     * 返回 false 时调用方应改用 IN 列表条件，不会因区间表落后而扩大数据范围。
+     *
+     * @param hierarchyVersion 本节点层级快照的版本
+     */
+    public boolean isPublished(long hierarchyVersion) {
+        if (publishedVersion.get() >= hierarchyVersion) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (now - publishedCheckedAt < versionCheckMillis) {
+            return false;
+        }
+        publishedCheckedAt = now;
+        return markPublished(readSyncedVersion()) >= hierarchyVersion;
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private void drain() {
+        UserHierarchySnapshot latest = pending.getAndSet(null);
+        if (latest == null) {
+            return;
+        }
+        String token;
+        try {
+            token = redisLock.tryLock(SYNC_LOCK_KEY, Duration.ofMillis(lockTtlMillis), Duration.ofMillis(lockTtlMillis));
+        } catch (Exception e) {
+            log.error("获取用户层级区间同步锁失败，放弃本次同步：版本={}", latest.getVersion(), e);
+            return;
+        }
+        if (token == null) {
+            // 其他节点的同步超过锁的过期时间仍未完成，保留快照稍后重试（期间若有更新的快照则以更新的为准）
+            log.warn("等待用户层级区间同步锁超时，稍后重试：版本={}", latest.getVersion());
+            if (pending.compareAndSet(null, latest)) {
+                executor.execute(this::drain);
+            }
+            return;
+        }
+        try {
+            sync(latest);
+        } finally {
+            redisLock.unlock(SYNC_LOCK_KEY, token);
+        }
+    }
+
+    /**
+     * 在同步锁内执行：写入前设置进行中标记，事务提交并更新版本号后清除；
+     * 持锁节点在提交后、更新版本号前宕机时标记残留，下一次同步改为全量，避免与区间表实际内容做增量比较
+     */
+    private void sync(UserHierarchySnapshot latest) {
+        long syncedVersion = readSyncedVersion();
+        markPublished(syncedVersion);
+        if (syncedVersion >= latest.getVersion()) {
+            return;
+        }
+        UserHierarchySnapshot previous = lastSynced;
+        boolean interrupted = Boolean.TRUE.equals(redisTemplate.hasKey(SYNC_IN_PROGRESS_KEY));
+        boolean incremental = !interrupted && previous != null && previous.getVersion() == syncedVersion;
+        long start = System.currentTimeMillis();
+        try {
+            redisTemplate.opsForValue().set(SYNC_IN_PROGRESS_KEY, latest.getVersion());
+            int[] counts = transactionTemplate.execute(status -> new int[] {
+                writeIntervals(incremental ? previous.getHierarchy() : null, latest),
+                incremental
+                    ? removeMissing(previous.getHierarchy(), latest)
+                    : intervalMapper.deleteOlderThan(latest.getVersion())
+            });
+            redisTemplate.opsForValue().set(SYNCED_VERSION_KEY, latest.getVersion());
+            redisTemplate.delete(SYNC_IN_PROGRESS_KEY);
+            lastSynced = latest;
+            markPublished(latest.getVersion());
+            log.info("用户层级区间同步完成：版本={}, 方式={}, 写入={}, 删除={}, 耗时={}ms",
+                latest.getVersion(), incremental ? "增量" : "全量", counts[0], counts[1],
+                System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            lastSynced = null;
+            log.error("用户层级区间同步失败：版本={}", latest.getVersion(), e);
+        }
+    }
+
+    private int writeIntervals(CompactUserHierarchy previous, UserHierarchySnapshot latest) {
+        CompactUserHierarchy hierarchy = latest.getHierarchy();
+        List<SysUserTreeInterval> chunk = new ArrayList<>(WRITE_CHUNK_SIZE);
+        int written = 0;
+        for (long userId : hierarchy.userIds()) {
+            int lft = hierarchy.enterOf(userId);
+            int rgt = hierarchy.exitOf(userId);
+            if (previous != null && previous.enterOf(userId) == lft && previous.exitOf(userId) == rgt) {
+                continue;
+            }
+            chunk.add(new SysUserTreeInterval(userId, lft, rgt, latest.getVersion()));
+            if (chunk.size() >= WRITE_CHUNK_SIZE) {
+                intervalMapper.upsertBatch(chunk);
+                written += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            intervalMapper.upsertBatch(chunk);
+            written += chunk.size();
+        }
+        return written;
+    }
+
+    private int removeMissing(CompactUserHierarchy previous, UserHierarchySnapshot latest) {
+        CompactUserHierarchy hierarchy = latest.getHierarchy();
+        List<Long> chunk = new ArrayList<>();
+        int removed = 0;
+        for (long userId : previous.userIds()) {
+            if (hierarchy.contains(userId)) {
+                continue;
+            }
+            chunk.add(userId);
+            if (chunk.size() >= WRITE_CHUNK_SIZE) {
+                removed += intervalMapper.deleteByUserIds(chunk, latest.getVersion());
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            removed += intervalMapper.deleteByUserIds(chunk, latest.getVersion());
+        }
+        return removed;
+    }
+
+    private long markPublished(long version) {
+        return publishedVersion.accumulateAndGet(version, Math::max);
+    }
+
+    private long readSyncedVersion() {
+        try {
+            Object value = redisTemplate.opsForValue().get(SYNCED_VERSION_KEY);
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            if (value != null) {
+                return Long.parseLong(value.toString());
+            }
+        } catch (Exception e) {
+            log.warn("读取用户层级区间同步版本失败：{}", e.getMessage());
+        }
+        return 0L;
+    }
+}
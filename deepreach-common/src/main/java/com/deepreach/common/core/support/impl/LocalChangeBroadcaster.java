@@ -0,0 +1,47 @@
+package com.deepreach.common.core.support.impl;
+
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 进程内变更广播实现
+ *
+ * 发布时同步回调本节点的订阅者，适用于单节点部署与测试环境。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "deepreach.broadcast.type", havingValue = "local", matchIfMissing = true)
+public class LocalChangeBroadcaster implements ChangeBroadcaster {
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String channel, String message) {
+        List<Consumer<String>> channelListeners = listeners.get(channel);
+        if (channelListeners == null) {
+            return;
+        }
+        for (Consumer<String> listener : channelListeners) {
+            try {
+                listener.accept(message);
+            } catch (Exception e) {
+                log.error("处理本地广播消息失败，channel={}", channel, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+}
@@ -0,0 +1,57 @@
+package com.deepreach.common.core.support.impl;
+
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * 基于 Redis Pub/Sub 的变更广播实现
+ *
+ * 消息以纯字符串收发，不经过 RedisTemplate 的 JSON 序列化。
+ * 发布者自身同样会收到消息，订阅方无需区分来源。
+ * 监听容器由 {@link com.deepreach.common.config.RedisConfig} 声明，随应用上下文启停，消息在独立的线程池中分发。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "deepreach.broadcast.type", havingValue = "redis")
+public class RedisChangeBroadcaster implements ChangeBroadcaster {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    public RedisChangeBroadcaster(StringRedisTemplate stringRedisTemplate,
+                                  @Qualifier("changeBroadcastListenerContainer") RedisMessageListenerContainer listenerContainer) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.listenerContainer = listenerContainer;
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        try {
+            stringRedisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.error("发布Redis广播消息失败，channel={}", channel, e);
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            try {
+                listener.accept(new String(message.getBody(), StandardCharsets.UTF_8));
+            } catch (Exception e) {
+                log.error("处理Redis广播消息失败，channel={}", channel, e);
+            }
+        }, new ChannelTopic(channel));
+    }
+}
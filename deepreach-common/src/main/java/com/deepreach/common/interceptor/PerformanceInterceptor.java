@@ -1,8 +1,10 @@
 package com.deepreach.common.interceptor;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -12,9 +14,10 @@ import jakarta.servlet.http.HttpServletResponse;
  *
  * 监控请求的处理时间，用于性能分析和优化：
  * 1. 记录请求开始时间
- * 2. 计算请求处理时间
- * 3. 记录慢请求
- * 4. 统计API调用频率
+ * 2. 按路由（URI 模板）记录耗时分布、处理中请求数与状态码计数，见 {@link RequestMetrics}
+ * 3. 超过阈值的慢请求按采样率输出日志
+ *
+ * 正常请求不再逐条输出 INFO 日志。
  *
  * @author DeepReach Team
  * @version 1.0
@@ -22,17 +25,20 @@ import jakarta.servlet.http.HttpServletResponse;
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class PerformanceInterceptor implements HandlerInterceptor {
 
     /**
-     * 请求开始时间属性名
+     * 请求开始时间属性名（纳秒）
      */
-    private static final String START_TIME_ATTRIBUTE = "startTime";
+    private static final String START_TIME_ATTRIBUTE = PerformanceInterceptor.class.getName() + ".startTime";
 
     /**
-     * 慢请求阈值（毫秒）
+     * 路由统计属性名
      */
-    private static final long SLOW_REQUEST_THRESHOLD = 3000;
+    private static final String ROUTE_STATS_ATTRIBUTE = PerformanceInterceptor.class.getName() + ".routeStats";
+
+    private final RequestMetrics requestMetrics;
 
     /**
      * 前置处理
@@ -47,15 +53,16 @@ public class PerformanceInterceptor implements HandlerInterceptor {
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
         // 记录请求开始时间
-        long startTime = System.currentTimeMillis();
-        request.setAttribute(START_TIME_ATTRIBUTE, startTime);
+        request.setAttribute(START_TIME_ATTRIBUTE, System.nanoTime());
 
-        // 记录请求信息
-        String requestUri = request.getRequestURI();
-        String method = request.getMethod();
-        String remoteAddr = getClientIpAddress(request);
-        
-        log.debug("开始处理请求: {} {} from {}", method, requestUri, remoteAddr);
+        // 处理器已匹配，按 URI 模板归类路由
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        request.setAttribute(ROUTE_STATS_ATTRIBUTE,
+            requestMetrics.begin(request.getMethod(), pattern != null ? pattern.toString() : null));
+
+        if (log.isDebugEnabled()) {
+            log.debug("开始处理请求: {} {} from {}", request.getMethod(), request.getRequestURI(), getClientIpAddress(request));
+        }
 
         return true;
     }
@@ -74,36 +81,23 @@ public class PerformanceInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, 
                              Object handler, Exception ex) {
         try {
-            // 获取请求开始时间
+            // 获取请求开始时间与路由统计
             Long startTime = (Long) request.getAttribute(START_TIME_ATTRIBUTE);
-            if (startTime == null) {
+            RequestMetrics.RouteStats stats = (RequestMetrics.RouteStats) request.getAttribute(ROUTE_STATS_ATTRIBUTE);
+            if (startTime == null || stats == null) {
                 return;
             }
+            request.removeAttribute(ROUTE_STATS_ATTRIBUTE);
 
-            // 计算处理时间
-            long endTime = System.currentTimeMillis();
-            long executionTime = endTime - startTime;
-
-            // 获取请求信息
-            String requestUri = request.getRequestURI();
-            String method = request.getMethod();
-            int status = response.getStatus();
-            String remoteAddr = getClientIpAddress(request);
-
-            // 记录请求处理信息
-            log.info("请求处理完成: {} {} from {} - 状态: {} - 耗时: {}ms", 
-                method, requestUri, remoteAddr, status, executionTime);
-
-            // 检查是否为慢请求
-            if (executionTime > SLOW_REQUEST_THRESHOLD) {
-                log.warn("检测到慢请求: {} {} from {} - 耗时: {}ms - 超过阈值: {}ms", 
-                    method, requestUri, remoteAddr, executionTime, SLOW_REQUEST_THRESHOLD);
-            }
+            // 记录耗时、状态码，慢请求按采样输出日志
+            long elapsedNanos = System.nanoTime() - startTime;
+            int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+            requestMetrics.end(stats, elapsedNanos, status, getClientIpAddress(request), request.getRequestURI());
 
             // 记录异常信息
             if (ex != null) {
-                log.error("请求处理异常: {} {} from {} - 异常: {}", 
-                    method, requestUri, remoteAddr, ex.getMessage(), ex);
+                log.error("请求处理异常: {} {} from {} - 异常: {}",
+                    request.getMethod(), request.getRequestURI(), getClientIpAddress(request), ex.getMessage(), ex);
             }
 
         } catch (Exception e) {
@@ -0,0 +1,243 @@
+package com.deepreach.common.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 按路由统计的请求指标
+ *
+ * 路由以请求方法 + URI 模板（如 GET /user/{id}）标识，不使用原始 URI，指标数量有上限：
+ * 1. 每个路由一个 deepreach.http.requests 计时器，带 SLO 分桶与 p50/p95/p99
+ * 2. 每个路由的处理中请求数（deepreach.http.requests.active）与全局处理中请求数（deepreach.http.in_flight）
+ * 3. 每个路由按状态码类别（2xx/4xx/5xx 等）计数（deepreach.http.responses）
+ * 4. 超过慢请求阈值的请求计数，并按采样率输出慢请求日志
+ *
+ * 路由数超过上限后，新出现的路由统一记入 OTHER。{@link #topRoutes(int)} 按 p99 给出最慢的路由。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestMetrics {
+
+    private static final String METRIC_REQUESTS = "deepreach.http.requests";
+    private static final String METRIC_ACTIVE = "deepreach.http.requests.active";
+    private static final String METRIC_RESPONSES = "deepreach.http.responses";
+    private static final String METRIC_IN_FLIGHT = "deepreach.http.in_flight";
+    private static final String OVERFLOW_ROUTE = "OTHER";
+
+    private static final Duration[] SLO_BUCKETS = {
+        Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(250), Duration.ofMillis(500),
+        Duration.ofSeconds(1), Duration.ofSeconds(3), Duration.ofSeconds(10)
+    };
+
+    private final ObjectProvider<MeterRegistry> registryProvider;
+
+    @Value("${deepreach.request-metrics.max-routes:500}")
+    private int maxRoutes;
+
+    @Value("${deepreach.request-metrics.slow-threshold:3000}")
+    private long slowThresholdMillis;
+
+    @Value("${deepreach.request-metrics.slow-log-sample-rate:10}")
+    private int slowLogSampleRate;
+
+    private MeterRegistry registry;
+    private final ConcurrentMap<String, RouteStats> routes = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        Gauge.builder(METRIC_IN_FLIGHT, inFlight, AtomicInteger::get)
+            .description("处理中的请求总数")
+            .register(registry);
+    }
+
+    /**
+     * 请求开始处理
+     *
+     * @param method 请求方法
+     * @param route  URI 模板，未匹配到处理器时为 null
+     * @return 路由统计，结束时传回 {@link #end}
+     */
+    public RouteStats begin(String method, String route) {
+        RouteStats stats = routeStats(method, route);
+        stats.active.incrementAndGet();
+        inFlight.incrementAndGet();
+        return stats;
+    }
+
+    /**
+     * 请求处理结束
+     *
+     * @param stats         {@link #begin} 返回的路由统计
+     * @param elapsedNanos  处理耗时（纳秒）
+     * @param status        响应状态码
+     * @param remoteAddr    客户端地址，仅用于慢请求日志
+     * @param requestUri    原始 URI，仅用于慢请求日志
+     */
+    public void end(RouteStats stats, long elapsedNanos, int status, String remoteAddr, String requestUri) {
+        stats.active.decrementAndGet();
+        inFlight.decrementAndGet();
+        stats.timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        stats.statusCounter(status).increment();
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        if (elapsedMillis > slowThresholdMillis) {
+            long slow = stats.slowCount.incrementAndGet();
+            if (slowLogSampleRate <= 1 || slow % slowLogSampleRate == 1) {
+                log.warn("检测到慢请求: {} ({}) from {} - 状态: {} - 耗时: {}ms - 超过阈值: {}ms - 该路由累计慢请求: {}",
+                    stats.route, requestUri, remoteAddr, status, elapsedMillis, slowThresholdMillis, slow);
+            }
+        }
+    }
+
+    /**
+     * 按 p99 降序返回最慢的路由
+     *
+     * 请求数为累计值，耗时分位数与最大值为最近约 2 分钟的滑动窗口
+     *
+     * @param limit 返回数量
+     * @return 路由统计，耗时单位为毫秒
+     */
+    public List<Map<String, Object>> topRoutes(int limit) {
+        List<Map<String, Object>> result = new ArrayList<>(routes.size());
+        for (RouteStats stats : routes.values()) {
+            result.add(stats.describe());
+        }
+        result.sort(Comparator.comparingDouble((Map<String, Object> row) -> (Double) row.get("p99Ms")).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, Math.max(0, limit))) : result;
+    }
+
+    /**
+     * 处理中的请求总数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getSlowThresholdMillis() {
+        return slowThresholdMillis;
+    }
+
+    private RouteStats routeStats(String method, String route) {
+        String uri = route != null ? route : "UNKNOWN";
+        String key = method + " " + uri;
+        RouteStats stats = routes.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        if (routes.size() >= maxRoutes) {
+            key = OVERFLOW_ROUTE;
+            method = OVERFLOW_ROUTE;
+            uri = OVERFLOW_ROUTE;
+        }
+        String routeMethod = method;
+        String routeUri = uri;
+        return routes.computeIfAbsent(key, k -> new RouteStats(k, routeMethod, routeUri));
+    }
+
+    /**
+     * 单个路由的指标
+     */
+    public final class RouteStats {
+        private final String route;
+        private final String method;
+        private final String uri;
+        private final Timer timer;
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong slowCount = new AtomicLong();
+
+        /**
+         * 按状态码百位（1-5）索引的计数器，0 号位记录其他状态码
+         */
+        private final Counter[] statusCounters = new Counter[6];
+
+        private RouteStats(String route, String method, String uri) {
+            this.route = route;
+            this.method = method;
+            this.uri = uri;
+            this.timer = Timer.builder(METRIC_REQUESTS)
+                .description("按路由统计的请求耗时")
+                .tags("method", method, "uri", uri)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .serviceLevelObjectives(SLO_BUCKETS)
+                .distributionStatisticExpiry(Duration.ofMinutes(2))
+                .register(registry);
+            Gauge.builder(METRIC_ACTIVE, active, AtomicInteger::get)
+                .description("按路由统计的处理中请求数")
+                .tags("method", method, "uri", uri)
+                .register(registry);
+        }
+
+        private Counter statusCounter(int status) {
+            int index = status >= 100 && status < 600 ? status / 100 : 0;
+            Counter counter = statusCounters[index];
+            if (counter == null) {
+                counter = Counter.builder(METRIC_RESPONSES)
+                    .description("按路由与状态码类别统计的响应数")
+                    .tags("method", method, "uri", uri, "status", index == 0 ? "UNKNOWN" : index + "xx")
+                    .register(registry);
+                statusCounters[index] = counter;
+            }
+            return counter;
+        }
+
+        private Map<String, Object> describe() {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("route", route);
+            row.put("count", snapshot.count());
+            row.put("meanMs", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            row.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            double p99 = 0;
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                double value = round(percentile.value(TimeUnit.MILLISECONDS));
+                row.put("p" + Math.round(percentile.percentile() * 100) + "Ms", value);
+                if (percentile.percentile() == 0.99) {
+                    p99 = value;
+                }
+            }
+            row.put("p99Ms", p99);
+            row.put("inFlight", active.get());
+            row.put("slowCount", slowCount.get());
+            Map<String, Double> statuses = new LinkedHashMap<>();
+            for (int i = 1; i < statusCounters.length; i++) {
+                if (statusCounters[i] != null) {
+                    statuses.put(i + "xx", statusCounters[i].count());
+                }
+            }
+            if (statusCounters[0] != null) {
+                statuses.put("UNKNOWN", statusCounters[0].count());
+            }
+            row.put("statuses", statuses);
+            return row;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,143 @@
+package com.deepreach.common.security;
+
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.LocalCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 角色/权限变更版本记录
+ *
+ * 认证过滤器把加载好的 {@link com.deepreach.common.core.domain.model.LoginUser} 按令牌缓存在
+ * {@link SecurityCache} 中，缓存项带有加载前读取的全局变更版本号（Redis 计数器，跨节点单调递增，不依赖各节点时钟）。
+ * 用户资料、角色或权限变更时（{@link ChangeBroadcaster#CHANNEL_USER_CACHE}，各节点都会收到），
+ * 收到通知的节点递增计数器并把新版本号记为这些用户的变更版本；通知在事务提交后发出，
+ * 因此版本号低于变更版本的缓存项读取的可能是变更前的数据，视为失效，由过滤器重新从数据库加载。
+ *
+ * 变更记录只需保留到令牌最长有效期，更早签发的令牌已全部过期；本节点启动前的变更无从得知，
+ * 因此启动时递增一次计数器作为全局失效版本，启动后每个令牌最多重新加载一次。
+ * Redis 不可用时无法确定变更顺序，在下一次成功读取版本号之前不使用认证缓存。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthorityChangeTracker {
+
+    private static final String VERSION_KEY = "security:authority:version";
+    private static final String INVALIDATE_ALL = "*";
+    private static final String ROLE_CHANGE_PREFIX = "roles:";
+
+    private final ChangeBroadcaster changeBroadcaster;
+    private final LocalCacheManager cacheManager;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${jwt.expiration:86400}")
+    private long tokenExpirationSeconds;
+
+    @Value("${security.cache.principal.maximum-size:100000}")
+    private long maximumSize;
+
+    private volatile long allChangedVersion = Long.MAX_VALUE;
+    private final AtomicBoolean degraded = new AtomicBoolean(true);
+    private Cache<Long, Long> userChangedVersion;
+
+    @PostConstruct
+    public void init() {
+        userChangedVersion = cacheManager.newCache("security-authority-changes", maximumSize,
+            Duration.ofSeconds(tokenExpirationSeconds));
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_CACHE, this::onChanged);
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, message -> {
+            if (message != null && message.startsWith(ROLE_CHANGE_PREFIX)) {
+                onChanged(message.substring(ROLE_CHANGE_PREFIX.length()));
+            }
+        });
+        Long version = nextVersion();
+        if (version != null) {
+            allChangedVersion = version;
+            degraded.set(false);
+        }
+    }
+
+    /**
+     * 加载认证信息前读取当前版本号，Redis 不可用时返回 null（本次加载结果不应缓存）
+     */
+    public Long currentVersion() {
+        try {
+            if (degraded.getAndSet(false)) {
+                // 此前有变更未能记录版本号，以当前版本号作为全局失效版本
+                Long version = nextVersion();
+                if (version == null) {
+                    degraded.set(true);
+                    return null;
+                }
+                raiseAllChanged(version);
+            }
+            String value = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+            return value != null ? Long.parseLong(value) : 0L;
+        } catch (Exception e) {
+            log.warn("读取权限变更版本号失败：{}", e.getMessage());
+            degraded.set(true);
+            return null;
+        }
+    }
+
+    /**
+     * 以 version 版本号加载的用户认证信息是否仍然有效
+     *
+     * @param userId  用户ID
+     * @param version 加载前读取的版本号，为空表示不是由认证过滤器加载的
+     */
+    public boolean isCurrent(Long userId, Long version) {
+        if (userId == null || version == null || degraded.get() || version < allChangedVersion) {
+            return false;
+        }
+        Long changedVersion = userChangedVersion.getIfPresent(userId);
+        return changedVersion == null || version >= changedVersion;
+    }
+
+    private void onChanged(String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        Long version = nextVersion();
+        if (version == null) {
+            degraded.set(true);
+            return;
+        }
+        if (INVALIDATE_ALL.equals(message)) {
+            raiseAllChanged(version);
+            return;
+        }
+        for (String item : message.split(",")) {
+            try {
+                userChangedVersion.asMap().merge(Long.parseLong(item.trim()), version, Math::max);
+            } catch (NumberFormatException e) {
+                log.warn("无法解析的用户变更消息，全部认证缓存失效：{}", message);
+                raiseAllChanged(version);
+                return;
+            }
+        }
+    }
+
+    private synchronized void raiseAllChanged(long version) {
+        if (allChangedVersion == Long.MAX_VALUE || version > allChangedVersion) {
+            allChangedVersion = version;
+        }
+    }
+
+    private Long nextVersion() {
+        try {
+            return stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("递增权限变更版本号失败：{}", e.getMessage());
+            return null;
+        }
+    }
+}
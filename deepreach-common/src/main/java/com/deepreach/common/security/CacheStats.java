@@ -32,6 +32,16 @@ public class CacheStats {
      */
     private long missCount;
 
+    /**
+     * 本地一级缓存命中次数（仅分层缓存）
+     */
+    private long l1HitCount;
+
+    /**
+     * 远端二级缓存命中次数（仅分层缓存）
+     */
+    private long l2HitCount;
+
     /**
      * 总操作次数
      */
@@ -62,6 +72,26 @@ public class CacheStats {
         return total == 0 ? 0.0 : (double) hitCount / total * 100;
     }
 
+    /**
+     * 获取一级缓存命中率
+     *
+     * @return 一级缓存命中次数占全部查询的比例（0-100）
+     */
+    public double getL1HitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) l1HitCount / total * 100;
+    }
+
+    /**
+     * 获取二级缓存命中率
+     *
+     * @return 一级未命中、二级命中的次数占全部查询的比例（0-100）
+     */
+    public double getL2HitRate() {
+        long total = hitCount + missCount;
+        return total == 0 ? 0.0 : (double) l2HitCount / total * 100;
+    }
+
     /**
      * 获取命中率字符串
      *
@@ -2,6 +2,7 @@ package com.deepreach.common.security;
 
 import com.deepreach.common.core.domain.model.LoginUser;
 import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.UserTreeIntervalSynchronizer;
 import com.deepreach.common.security.enums.UserIdentity;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -22,6 +23,7 @@ public class DataScopeCalculator {
     private static final Logger log = LoggerFactory.getLogger(DataScopeCalculator.class);
 
     private final UserHierarchyService hierarchyService;
+    private final UserTreeIntervalSynchronizer intervalSynchronizer;
 
     /**
      * 判断用户是否拥有完整数据访问权限。
@@ -47,4 +49,22 @@ public class DataScopeCalculator {
         scope.addAll(hierarchyService.findDescendantIds(loginUser.getUserId()));
         return scope;
     }
+
+    /**
+     * 估算当前用户可以访问的用户数量（包含自身），用于选择数据权限条件的生成方式。
+     */
+    public int countAccessibleUsers(LoginUser loginUser) {
+        if (loginUser == null || loginUser.getUserId() == null) {
+            return 0;
+        }
+        return 1 + hierarchyService.countDescendants(loginUser.getUserId());
+    }
+
+    /**
+     * 区间表是否可用于数据权限：已提交的区间不低于本节点层级版本时才可用，
+     * 同步进行中或落后时区间与当前层级不一致，应改用 IN 列表条件。
+     */
+    public boolean isIntervalScopeAvailable() {
+        return intervalSynchronizer.isPublished(hierarchyService.currentSnapshot().getVersion());
+    }
 }
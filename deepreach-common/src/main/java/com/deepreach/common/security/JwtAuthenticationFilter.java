@@ -1,5 +1,6 @@
 package com.deepreach.common.security;
 
+import com.deepreach.common.core.domain.model.LoginUser;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -27,6 +28,9 @@ import java.io.IOException;
  * 4. 设置 Spring Security 上下文
  * 5. 支持用户权限加载
  *
+ * 用户详情按令牌缓存在 {@link SecurityCache} 中，已认证请求通常不访问数据库；
+ * 缓存未命中或角色/权限已变更（见 {@link AuthorityChangeTracker}）时才重新加载并回写缓存。
+ *
  * @author DeepReach Team
  * @version 1.0
  * @since 2025-10-23
@@ -41,6 +45,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private SecurityCache securityCache;
+
+    @Autowired
+    private AuthorityChangeTracker authorityChangeTracker;
+
     /**
      * Token 请求头名称
      */
@@ -85,20 +95,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (StringUtils.hasText(token)) {
                 log.debug("从请求中提取到Token: {}", token.substring(0, Math.min(20, token.length())) + "...");
 
-                // 验证 Token 并获取用户名
-                String username = jwtTokenUtil.getUsernameFromToken(token);
+                // 一次完成验签与过期检查，并获取用户名
+                JwtTokenUtil.TokenInfo tokenInfo = jwtTokenUtil.verifyToken(token);
+                String username = tokenInfo != null ? tokenInfo.getSubject() : null;
                 log.debug("从Token中解析出用户名: {}", username);
 
                 // 如果 Token 有效且当前没有认证信息
                 if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                     log.debug("开始加载用户详情: {}", username);
 
-                    // 加载用户详情
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // 加载用户详情（优先读取缓存）
+                    UserDetails userDetails = loadUserDetails(token, tokenInfo);
                     log.debug("用户详情加载成功: {}", userDetails.getUsername());
 
-                    // 验证 Token 是否有效
-                    boolean isValid = jwtTokenUtil.validateToken(token, userDetails.getUsername());
+                    // 验证 Token 用户名与用户详情一致
+                    boolean isValid = username.equals(userDetails.getUsername());
                     log.debug("Token验证结果: {}", isValid);
 
                     if (isValid) {
@@ -136,6 +147,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 读取令牌对应的用户详情
+     *
+     * 缓存中的用户须与令牌用户名一致且由本过滤器加载、加载后角色/权限未变更；
+     * 登录接口写入的用户信息没有版本号，首次请求时会被替换为完整的用户详情。
+     *
+     * @param token JWT Token
+     * @param tokenInfo 已验签的令牌信息
+     * @return 用户详情
+     */
+    private UserDetails loadUserDetails(String token, JwtTokenUtil.TokenInfo tokenInfo) {
+        String username = tokenInfo.getSubject();
+        LoginUser cached = securityCache.getUser(token);
+        if (cached != null && username.equals(cached.getUsername())
+            && authorityChangeTracker.isCurrent(cached.getUserId(), cached.getAuthorityVersion())) {
+            return cached;
+        }
+
+        // 版本号取查询之前，查询期间发生的变更会让本次结果在下次请求时失效；取不到版本号时不缓存
+        Long version = authorityChangeTracker.currentVersion();
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        if (userDetails instanceof LoginUser loginUser) {
+            long remainingSeconds = tokenInfo.getRemainingTime();
+            if (remainingSeconds > 0 && version != null) {
+                loginUser.setAuthorityVersion(version);
+                try {
+                    securityCache.storeUser(token, loginUser, remainingSeconds);
+                } catch (Exception e) {
+                    log.warn("缓存用户详情失败：{}", e.getMessage());
+                }
+            }
+        }
+        return userDetails;
+    }
+
     /**
      * 获取数据权限上下文
      * 供其他组件使用
@@ -180,14 +226,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * 某些公开接口不需要 JWT 认证：
      * 1. 登录接口
      * 2. 注册接口
-     * 3. 静态资源
-     * 4. 健康检查接口
+     * 3. 接口文档与 Druid 监控页
+     *
+     * 请求路径按去掉上下文路径（server.servlet.context-path）后的应用内路径匹配；
+     * Actuator 端点不跳过，管理员携带 Token 访问时才能通过授权规则与健康详情的 when-authorized 判断
      *
      * @param request HTTP 请求
      * @return true 如果需要跳过认证，false 否则
      */
     private boolean shouldSkipAuthentication(HttpServletRequest request) {
         String requestURI = request.getRequestURI();
+        String contextPath = request.getContextPath();
+        if (StringUtils.hasLength(contextPath) && requestURI.startsWith(contextPath)) {
+            requestURI = requestURI.substring(contextPath.length());
+        }
 
         // 定义不需要认证的路径
         String[] skipPaths = {
@@ -196,8 +248,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             "/auth/refresh",
             "/swagger-ui",
             "/v3/api-docs",
-            "/druid",
-            "/actuator"
+            "/druid"
         };
 
         for (String path : skipPaths) {
@@ -1,9 +1,14 @@
 package com.deepreach.common.security;
 
 import com.deepreach.common.core.domain.model.LoginUser;
+import com.deepreach.common.core.support.LocalCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
@@ -11,6 +16,7 @@ import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -22,6 +28,9 @@ import java.util.function.Function;
  * 3. 功能完整 - 支持访问令牌和刷新令牌
  * 4. 易于扩展 - 支持自定义Claims
  *
+ * 签名密钥与解析器只构建一次；验签通过的 Claims 以令牌摘要为键缓存到令牌过期为止，
+ * 同一令牌的后续请求及同一请求内的多次读取都不再重复解析和验签。
+ *
  * @author DeepReach Team
  * @version 1.0
  */
@@ -44,6 +53,20 @@ public class JwtTokenUtil {
     @Value("${jwt.audience:deepreach-users}")
     private String audience;
 
+    @Value("${jwt.claims-cache.maximum-size:50000}")
+    private long claimsCacheMaximumSize;
+
+    @Autowired
+    private LocalCacheManager cacheManager;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    /**
+     * 已验签的 Claims，键为令牌的 SHA-256 摘要，条目在令牌过期时失效
+     */
+    private Cache<String, Claims> verifiedClaims;
+
     // 令牌前缀
     private static final String TOKEN_PREFIX = "Bearer ";
     private static final String TYPE_CLAIM = "type";
@@ -51,11 +74,20 @@ public class JwtTokenUtil {
     private static final String DEPT_ID_CLAIM = "deptId";
     private static final String EMAIL_CLAIM = "email";
 
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser().verifyWith(signingKey).build();
+        verifiedClaims = cacheManager.newCache("jwt-verified-claims",
+            cacheManager.builder(claimsCacheMaximumSize)
+                .expireAfter(new ClaimsExpiry()));
+    }
+
     /**
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+        return signingKey;
     }
 
     /**
@@ -129,15 +161,30 @@ public class JwtTokenUtil {
     }
 
     /**
-     * 从token中获取所有claims
+     * 从token中获取所有claims，优先读取已验签缓存
      */
     private Claims getAllClaimsFromToken(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("JWT token is null");
+        }
+        String digest = TokenDigests.sha256(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parseClaims(token);
+        if (claims.getExpiration() != null) {
+            verifiedClaims.put(digest, claims);
+        }
+        return claims;
+    }
+
+    /**
+     * 解析并验签
+     */
+    private Claims parseClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("JWT token is expired: {}", e.getMessage());
             throw e;
@@ -323,29 +370,78 @@ public class JwtTokenUtil {
      */
     public TokenInfo parseToken(String token) {
         try {
-            Claims claims = getAllClaimsFromToken(token);
-
-            return TokenInfo.builder()
-                    .subject(claims.getSubject())
-                    .userId(getUserIdFromToken(token))
-                    .deptId(getDeptIdFromToken(token))
-                    .email(getEmailFromToken(token))
-                    .issuedAt(claims.getIssuedAt())
-                    .expiration(claims.getExpiration())
-                    .issuer(claims.getIssuer())
-                    .audience(claims.getAudience() != null && !claims.getAudience().isEmpty() ?
-                     claims.getAudience().iterator().next() : null)
-                    .type((String) claims.get(TYPE_CLAIM))
-                    .isExpired(isTokenExpired(token))
-                    .remainingTime(getTokenRemainingTime(token))
-                    .shouldRefresh(shouldRefreshToken(token))
-                    .build();
+            return toTokenInfo(getAllClaimsFromToken(token));
         } catch (Exception e) {
             log.error("Failed to parse token: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to parse token", e);
         }
     }
 
+    /**
+     * 一次完成验签与过期检查，供认证过滤器使用
+     *
+     * @param token JWT Token
+     * @return 令牌信息，签名无效、格式错误或已过期时返回 null
+     */
+    public TokenInfo verifyToken(String token) {
+        try {
+            TokenInfo info = toTokenInfo(getAllClaimsFromToken(token));
+            return Boolean.TRUE.equals(info.getIsExpired()) ? null : info;
+        } catch (ExpiredJwtException e) {
+            log.debug("JWT token is expired");
+            return null;
+        } catch (Exception e) {
+            log.debug("JWT token is invalid: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private TokenInfo toTokenInfo(Claims claims) {
+        long remaining = claims.getExpiration() != null
+            ? Math.max(0, (claims.getExpiration().getTime() - System.currentTimeMillis()) / 1000)
+            : 0L;
+        return TokenInfo.builder()
+                .subject(claims.getSubject())
+                .userId(toLong(claims.get(USER_ID_CLAIM)))
+                .deptId(toLong(claims.get(DEPT_ID_CLAIM)))
+                .email((String) claims.get(EMAIL_CLAIM))
+                .issuedAt(claims.getIssuedAt())
+                .expiration(claims.getExpiration())
+                .issuer(claims.getIssuer())
+                .audience(claims.getAudience() != null && !claims.getAudience().isEmpty() ?
+                 claims.getAudience().iterator().next() : null)
+                .type((String) claims.get(TYPE_CLAIM))
+                .isExpired(claims.getExpiration() == null || claims.getExpiration().before(new Date()))
+                .remainingTime(remaining)
+                .shouldRefresh(remaining < 3600)
+                .build();
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? Long.valueOf(value.toString()) : null;
+    }
+
+    /**
+     * 缓存条目在令牌过期时刻失效，读取与更新不延长
+     */
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String digest, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String digest, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
     /**
      * 刷新令牌
      */
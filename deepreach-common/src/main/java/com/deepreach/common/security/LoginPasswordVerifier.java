@@ -0,0 +1,240 @@
+package com.deepreach.common.security;
+
+import com.deepreach.common.core.mapper.SysUserMapper;
+import com.deepreach.common.core.support.UserNearCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录密码校验
+ *
+ * 密码哈希校验是登录请求中最耗 CPU 的部分，集中登录时会挤占其他接口：
+ * 1. 校验在专用的有界线程池中执行，并发数固定、排队有上限，超出时直接拒绝，登录占用的 CPU 可预期
+ * 2. 目标强度全集群一致：配置了固定强度时直接使用；否则由首个启动的节点在后台测量各 BCrypt 强度的耗时，
+ *    选出单次哈希不超过目标耗时的最高强度（不低于配置的下限）写入 Redis，其余节点读取同一个值，
+ *    避免硬件不同的节点各自测出不同强度、把同一用户的哈希来回改写。需要重新测量时删除 Redis 中的键并重启
+ * 3. 登录成功后若已存哈希的强度与目标不同，在后台以目标强度重新哈希并写回（升级或降级），不影响本次登录耗时；
+ *    写回以校验时读取的哈希为条件，期间密码被修改或已被其他节点改写时放弃
+ *
+ * Redis 不可用、无法确定共享强度时不调整已存哈希。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginPasswordVerifier {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d{2})\\$");
+    private static final String BENCHMARK_PASSWORD = "benchmark-password";
+    private static final String STRENGTH_KEY = "security:login:bcrypt-strength";
+
+    private final PasswordEncoder passwordEncoder;
+    private final SysUserMapper userMapper;
+    private final UserNearCache userNearCache;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    @Value("${deepreach.login.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${deepreach.login.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${deepreach.login.hash-timeout:5000}")
+    private long hashTimeoutMillis;
+
+    @Value("${deepreach.login.rehash.enabled:true}")
+    private boolean rehashEnabled;
+
+    @Value("${deepreach.login.rehash.target-millis:100}")
+    private long targetHashMillis;
+
+    @Value("${deepreach.login.rehash.min-strength:10}")
+    private int minStrength;
+
+    @Value("${deepreach.login.rehash.max-strength:13}")
+    private int maxStrength;
+
+    @Value("${deepreach.login.rehash.strength:0}")
+    private int fixedStrength;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 目标强度，确定前（或无法确定时）为 0，表示不调整已存哈希
+     */
+    private volatile int targetStrength;
+    private volatile PasswordEncoder targetEncoder;
+
+    @PostConstruct
+    public void init() {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "login-hash-" + sequence.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        if (rehashEnabled && fixedStrength > 0) {
+            useStrength(fixedStrength);
+            log.info("密码哈希目标强度使用配置值：{}", fixedStrength);
+        } else if (rehashEnabled) {
+            executor.execute(this::resolveSharedStrength);
+        }
+        log.info("登录密码校验线程池已启动：线程数={}, 队列容量={}", threads, queueCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 在登录线程池中校验密码，线程池繁忙或超时时抛出异常
+     *
+     * @param userId          用户ID，用于校验成功后调整哈希强度
+     * @param rawPassword     明文密码
+     * @param encodedPassword 已存的密码哈希
+     * @return 是否匹配
+     */
+    public boolean matches(Long userId, String rawPassword, String encodedPassword) {
+        Future<Boolean> future;
+        try {
+            future = executor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            log.warn("登录密码校验队列已满，拒绝登录请求：用户ID={}", userId);
+            throw new RuntimeException("登录请求繁忙，请稍后重试");
+        }
+        boolean matched;
+        try {
+            matched = future.get(hashTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RuntimeException("登录请求繁忙，请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("登录请求被中断");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("密码校验失败", e.getCause());
+        }
+        if (matched) {
+            scheduleRehash(userId, rawPassword, encodedPassword);
+        }
+        return matched;
+    }
+
+    /**
+     * 当前目标强度，确定前返回 0
+     */
+    public int getTargetStrength() {
+        return targetStrength;
+    }
+
+    private void scheduleRehash(Long userId, String rawPassword, String encodedPassword) {
+        int target = targetStrength;
+        PasswordEncoder encoder = targetEncoder;
+        if (userId == null || target <= 0 || encoder == null) {
+            return;
+        }
+        int current = strengthOf(encodedPassword);
+        if (current <= 0 || current == target) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (userMapper.updateUserPasswordIfUnchanged(userId, encodedPassword, encoder.encode(rawPassword)) == 0) {
+                        log.debug("密码哈希已变化，跳过强度调整：用户ID={}", userId);
+                        return;
+                    }
+                    userNearCache.invalidate(List.of(userId));
+                    log.info("用户密码哈希强度已调整：用户ID={}, {} -> {}", userId, current, target);
+                } catch (Exception e) {
+                    log.warn("调整密码哈希强度失败：用户ID={}, {}", userId, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池繁忙时放弃本次调整，下次登录再试
+            log.debug("登录线程池繁忙，跳过密码哈希强度调整：用户ID={}", userId);
+        }
+    }
+
+    /**
+     * 读取集群共享的目标强度，尚未确定时由本节点测量并写入（已被其他节点写入时以已有值为准）
+     */
+    private void resolveSharedStrength() {
+        try {
+            String stored = stringRedisTemplate.opsForValue().get(STRENGTH_KEY);
+            if (stored == null) {
+                int calibrated = calibrate();
+                Boolean written = stringRedisTemplate.opsForValue().setIfAbsent(STRENGTH_KEY, String.valueOf(calibrated));
+                stored = Boolean.TRUE.equals(written) ? String.valueOf(calibrated)
+                    : stringRedisTemplate.opsForValue().get(STRENGTH_KEY);
+            }
+            int strength = stored != null ? Integer.parseInt(stored.trim()) : -1;
+            if (strength < minStrength || strength > maxStrength) {
+                log.warn("共享的密码哈希强度 {} 不在 [{}, {}] 范围内，不调整已存哈希", stored, minStrength, maxStrength);
+                return;
+            }
+            useStrength(strength);
+            log.info("密码哈希目标强度已确定：{}", strength);
+        } catch (Exception e) {
+            log.warn("读取共享的密码哈希强度失败，不调整已存哈希：{}", e.getMessage());
+        }
+    }
+
+    private void useStrength(int strength) {
+        targetEncoder = new BCryptPasswordEncoder(strength);
+        targetStrength = strength;
+    }
+
+    /**
+     * 测量各强度单次哈希耗时，选出不超过目标耗时的最高强度
+     */
+    private int calibrate() {
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+            encoder.encode(BENCHMARK_PASSWORD);
+            long begin = System.nanoTime();
+            encoder.encode(BENCHMARK_PASSWORD);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+            if (elapsedMillis > targetHashMillis && strength > minStrength) {
+                break;
+            }
+            chosen = strength;
+            if (elapsedMillis > targetHashMillis) {
+                break;
+            }
+        }
+        log.info("密码哈希强度基准测试完成：目标耗时={}ms, 测得强度={}", targetHashMillis, chosen);
+        return chosen;
+    }
+
+    private static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+}
@@ -0,0 +1,108 @@
+package com.deepreach.common.security;
+
+import com.deepreach.common.core.support.LocalCacheManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 登录限流
+ *
+ * 在查询用户与校验密码之前，按来源 IP 与用户名各维护一个令牌桶：
+ * 1. 桶容量允许正常的连续重试，超出后按固定速率补充
+ * 2. 任一维度令牌不足即拒绝，撞库与集中登录不会把密码哈希的 CPU 开销压到服务器上
+ *
+ * 令牌桶保存在本节点有容量上限的本地缓存中，空闲一段时间后淘汰（等同于桶已补满）。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginRateLimiter {
+
+    private final LocalCacheManager cacheManager;
+
+    @Value("${deepreach.login.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deepreach.login.rate-limit.ip-capacity:30}")
+    private int ipCapacity;
+
+    @Value("${deepreach.login.rate-limit.ip-refill-per-minute:30}")
+    private int ipRefillPerMinute;
+
+    @Value("${deepreach.login.rate-limit.user-capacity:10}")
+    private int userCapacity;
+
+    @Value("${deepreach.login.rate-limit.user-refill-per-minute:6}")
+    private int userRefillPerMinute;
+
+    @Value("${deepreach.login.rate-limit.maximum-size:100000}")
+    private long maximumSize;
+
+    private Cache<String, TokenBucket> ipBuckets;
+    private Cache<String, TokenBucket> userBuckets;
+
+    @PostConstruct
+    public void init() {
+        ipBuckets = cacheManager.newCache("login-rate-ip", maximumSize, Duration.ofMinutes(10));
+        userBuckets = cacheManager.newCache("login-rate-user", maximumSize, Duration.ofMinutes(10));
+    }
+
+    /**
+     * 获取一次登录尝试的许可，超出限制时抛出异常
+     *
+     * @param username 用户名
+     * @param loginIp  登录IP
+     */
+    public void acquire(String username, String loginIp) {
+        if (!enabled) {
+            return;
+        }
+        if (loginIp != null && !tryAcquire(ipBuckets, loginIp, ipCapacity, ipRefillPerMinute)) {
+            log.warn("登录限流：IP={} 请求过于频繁", loginIp);
+            throw new RuntimeException("登录尝试过于频繁，请稍后再试");
+        }
+        if (username != null && !tryAcquire(userBuckets, username, userCapacity, userRefillPerMinute)) {
+            log.warn("登录限流：用户名={} 请求过于频繁", username);
+            throw new RuntimeException("登录尝试过于频繁，请稍后再试");
+        }
+    }
+
+    private static boolean tryAcquire(Cache<String, TokenBucket> buckets, String key, int capacity, int refillPerMinute) {
+        long now = System.currentTimeMillis();
+        return buckets.get(key, k -> new TokenBucket(capacity, refillPerMinute / 60_000.0, now)).tryAcquire(now);
+    }
+
+    /**
+     * 令牌桶，按经过的时间惰性补充，时钟回拨时不补充
+     */
+    static final class TokenBucket {
+        private final int capacity;
+        private final double refillPerMillis;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(int capacity, double refillPerMillis, long now) {
+            this.capacity = capacity;
+            this.refillPerMillis = refillPerMillis;
+            this.tokens = capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized boolean tryAcquire(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerMillis);
+                lastRefill = now;
+            }
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+}
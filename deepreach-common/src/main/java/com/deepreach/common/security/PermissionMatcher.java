@@ -0,0 +1,164 @@
+package com.deepreach.common.security;
+
+import org.springframework.util.PatternMatchUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 预编译的权限匹配器
+ *
+ * 用户的权限集合在首次校验时编译一次，之后随 {@link com.deepreach.common.core.domain.model.LoginUser} 一起缓存：
+ * 1. 全部权限（*:*:*）直接放行
+ * 2. 不含通配符的权限放入哈希集合，精确匹配为一次查找
+ * 3. 含通配符的权限按 {@link PatternMatchUtils#simpleMatch} 语义匹配，结果按全局权限字典编号记录在位图中，
+ *    同一用户对同一权限标识只做一次通配匹配，之后为位运算
+ *
+ * 全局字典登记的是注解中被校验的权限标识，数量有限；超出上限后不再登记，退化为逐条通配匹配。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class PermissionMatcher {
+
+    private static final String ALL_PERMISSION = "*:*:*";
+
+    private static final PermissionMatcher NONE = new PermissionMatcher(false, Set.of(), new String[0]);
+
+    private static final long[] EMPTY_BITS = new long[0];
+
+    private final boolean all;
+    private final Set<String> exact;
+    private final String[] patterns;
+
+    /**
+     * 已计算过的字典编号，先于 granted 读取、后于 granted 发布
+     */
+    private volatile long[] resolved = EMPTY_BITS;
+    private volatile long[] granted = EMPTY_BITS;
+
+    private PermissionMatcher(boolean all, Set<String> exact, String[] patterns) {
+        this.all = all;
+        this.exact = exact;
+        this.patterns = patterns;
+    }
+
+    /**
+     * 编译权限集合，空白项忽略
+     *
+     * @param permissions 用户权限
+     * @return 匹配器
+     */
+    public static PermissionMatcher compile(Collection<String> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return NONE;
+        }
+        boolean all = false;
+        Set<String> exact = new HashSet<>();
+        List<String> patterns = new ArrayList<>();
+        for (String permission : permissions) {
+            if (permission == null || permission.trim().isEmpty()) {
+                continue;
+            }
+            if (ALL_PERMISSION.equals(permission)) {
+                all = true;
+            } else if (permission.indexOf('*') >= 0) {
+                patterns.add(permission);
+            } else {
+                exact.add(permission);
+            }
+        }
+        return new PermissionMatcher(all, exact, patterns.toArray(new String[0]));
+    }
+
+    /**
+     * 是否没有任何有效权限
+     */
+    public boolean isEmpty() {
+        return !all && exact.isEmpty() && patterns.length == 0;
+    }
+
+    /**
+     * 是否具备指定权限
+     *
+     * @param permission 权限标识
+     * @return 是否具备
+     */
+    public boolean implies(String permission) {
+        if (permission == null) {
+            return false;
+        }
+        if (all || exact.contains(permission)) {
+            return true;
+        }
+        if (patterns.length == 0) {
+            return false;
+        }
+        int id = Dictionary.idOf(permission);
+        if (id < 0) {
+            return matchPatterns(permission);
+        }
+        int word = id >>> 6;
+        long bit = 1L << id;
+        long[] resolvedBits = resolved;
+        if (word < resolvedBits.length && (resolvedBits[word] & bit) != 0) {
+            return (granted[word] & bit) != 0;
+        }
+        boolean result = matchPatterns(permission);
+        record(word, bit, result);
+        return result;
+    }
+
+    private boolean matchPatterns(String permission) {
+        for (String pattern : patterns) {
+            if (PatternMatchUtils.simpleMatch(pattern, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void record(int word, long bit, boolean result) {
+        int length = Math.max(word + 1, resolved.length);
+        long[] nextGranted = Arrays.copyOf(granted, length);
+        long[] nextResolved = Arrays.copyOf(resolved, length);
+        if (result) {
+            nextGranted[word] |= bit;
+        }
+        nextResolved[word] |= bit;
+        granted = nextGranted;
+        resolved = nextResolved;
+    }
+
+    /**
+     * 全局权限标识字典，为被校验的权限标识分配连续编号
+     */
+    private static final class Dictionary {
+
+        private static final int MAX_SIZE = 4096;
+
+        private static final ConcurrentMap<String, Integer> IDS = new ConcurrentHashMap<>();
+        private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+        private static int idOf(String permission) {
+            Integer id = IDS.get(permission);
+            if (id != null) {
+                return id;
+            }
+            if (NEXT_ID.get() >= MAX_SIZE) {
+                return -1;
+            }
+            return IDS.computeIfAbsent(permission, key -> {
+                int next = NEXT_ID.getAndIncrement();
+                return next < MAX_SIZE ? next : -1;
+            });
+        }
+    }
+}
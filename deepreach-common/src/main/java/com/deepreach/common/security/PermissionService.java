@@ -5,7 +5,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.PatternMatchUtils;
 
 import java.util.Collection;
 
@@ -23,6 +22,9 @@ import java.util.Collection;
  * - 角色与部门类型绑定：权限验证考虑用户的部门背景
  * - 简化权限逻辑：基于明确的权限规则和组织架构
  *
+ * 权限校验使用 {@link LoginUser#getPermissionMatcher()}，用户的权限集合只编译一次，
+ * 之后的校验为哈希查找或位运算，不再逐条做通配匹配。
+ *
  * 使用示例：
  * <pre>
  * &#64;PreAuthorize("@ss.hasPermi('system:user:list')")
@@ -44,11 +46,6 @@ import java.util.Collection;
 @Service("ss")
 public class PermissionService {
 
-    /**
-     * 所有权限标识
-     */
-    private static final String ALL_PERMISSION = "*:*:*";
-
     /**
      * 管理员角色标识
      */
@@ -80,17 +77,18 @@ public class PermissionService {
 
             // 超级管理员拥有所有权限
             if (isSuperAdmin(loginUser)) {
-                log.info("超级管理员用户 {} 拥有权限: {}", loginUser.getUsername(), permission);
+                log.debug("超级管理员用户 {} 拥有权限: {}", loginUser.getUsername(), permission);
                 return true;
             }
 
             // 普通用户权限检查
-            if (CollectionUtils.isEmpty(loginUser.getPermissions())) {
+            PermissionMatcher matcher = loginUser.getPermissionMatcher();
+            if (matcher.isEmpty()) {
                 log.debug("用户 {} 没有配置权限", loginUser.getUsername());
                 return false;
             }
 
-            return hasPermissions(loginUser.getPermissions(), permission);
+            return matcher.implies(permission);
         } catch (Exception e) {
             log.warn("权限检查失败：{}", e.getMessage());
             return false;
@@ -119,9 +117,9 @@ public class PermissionService {
                 return true;
             }
 
-            Collection<String> userPermissions = loginUser.getPermissions();
+            PermissionMatcher matcher = loginUser.getPermissionMatcher();
             for (String permission : permissions) {
-                if (hasPermissions(userPermissions, permission)) {
+                if (matcher.implies(permission)) {
                     return true;
                 }
             }
@@ -154,9 +152,9 @@ public class PermissionService {
                 return true;
             }
 
-            Collection<String> userPermissions = loginUser.getPermissions();
+            PermissionMatcher matcher = loginUser.getPermissionMatcher();
             for (String permission : permissions) {
-                if (!hasPermissions(userPermissions, permission)) {
+                if (!matcher.implies(permission)) {
                     return false;
                 }
             }
@@ -361,23 +359,4 @@ public class PermissionService {
             throw new AccessDeniedException(errorMsg);
         }
     }
-
-    /**
-     * 判断是否包含权限
-     * 支持通配符权限匹配
-     *
-     * @param permissions 权限列表
-     * @param permission  权限字符串
-     * @return 是否包含权限
-     */
-    private boolean hasPermissions(Collection<String> permissions, String permission) {
-        if (CollectionUtils.isEmpty(permissions)) {
-            return false;
-        }
-
-        return permissions.stream()
-                .filter(p -> !p.trim().isEmpty())
-                .anyMatch(p -> ALL_PERMISSION.equals(p) ||
-                           PatternMatchUtils.simpleMatch(p, permission));
-    }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.deepreach.common.security;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +36,9 @@ public class SecurityCacheConfig {
     @Value("${security.cache.stats.enabled:true}")
     private boolean statsEnabled;
 
+    @Autowired
+    private SecurityCache securityCache;
+
     /**
      * 获取缓存类型
      *
@@ -71,7 +75,8 @@ public class SecurityCacheConfig {
     @ConditionalOnProperty(name = "security.cache.clean.enabled", havingValue = "true", matchIfMissing = true)
     public void cleanExpiredCache() {
         try {
-            // 这里会触发具体实现类的清理逻辑
+            // 触发具体实现类的清理逻辑（内存实现删除过期条目，Redis 实现删除会话索引中的过期成员）
+            securityCache.cleanExpiredUsers();
             log.trace("Scheduled cache cleanup triggered");
         } catch (Exception e) {
             log.error("Error during scheduled cache cleanup", e);
@@ -0,0 +1,35 @@
+package com.deepreach.common.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * 令牌摘要工具
+ *
+ * 缓存键、跨节点失效消息等场景以令牌的 SHA-256 摘要代替原始令牌，避免令牌明文在内存与网络中扩散。
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+public final class TokenDigests {
+
+    private TokenDigests() {
+    }
+
+    /**
+     * 计算令牌的 SHA-256 摘要（Base64 编码）
+     *
+     * @param token 令牌
+     * @return 摘要
+     */
+    public static String sha256(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -90,4 +90,23 @@ public final class UserRoleUtils {
         }
         return true;
     }
+
+    /**
+     * 解析代理级别：同时拥有多个代理身份时取最高级别。
+     *
+     * @param roleKeys 角色标识集合
+     * @return 代理级别（1/2/3），不是代理时返回 null
+     */
+    public static Integer resolveAgentLevel(Collection<String> roleKeys) {
+        if (hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_1)) {
+            return 1;
+        }
+        if (hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_2)) {
+            return 2;
+        }
+        if (hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_3)) {
+            return 3;
+        }
+        return null;
+    }
 }
@@ -0,0 +1,162 @@
+package com.deepreach.common.security.impl;
+
+import com.deepreach.common.core.domain.model.LoginUser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * LoginUser 的紧凑二进制编码
+ *
+ * 替代 RedisTemplate 默认的带类型信息 JSON：体积更小、编解码不经过反射。
+ * 格式为 1 字节版本号 + 按固定顺序排列的字段，可空字段以 1 字节标记开头。
+ * 密码与派生字段（身份集合、部门对象）不写入；无法识别的版本或损坏的数据解码为 null，由调用方按未命中处理。
+ */
+final class LoginUserCodec {
+
+    private static final byte VERSION = 2;
+
+    private LoginUserCodec() {
+    }
+
+    static byte[] encode(LoginUser user) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            writeLong(out, user.getUserId());
+            writeLong(out, user.getParentUserId());
+            writeLong(out, user.getDeptId());
+            writeString(out, user.getDeptName());
+            writeLong(out, user.getAgentLevel() != null ? user.getAgentLevel().longValue() : null);
+            writeString(out, user.getParentUserName());
+            writeString(out, user.getInvitationCode());
+            writeString(out, user.getUsername());
+            writeString(out, user.getEmail());
+            writeString(out, user.getNickname());
+            writeString(out, user.getPhone());
+            writeString(out, user.getStatus());
+            writeString(out, user.getIpaddr());
+            writeString(out, user.getLoginLocation());
+            writeString(out, user.getBrowser());
+            writeString(out, user.getOs());
+            writeStrings(out, user.getPermissions());
+            writeStrings(out, user.getRoles());
+            writeString(out, user.getToken());
+            writeLong(out, user.getExpireTime());
+            writeLong(out, user.getAuthorityVersion());
+            writeTime(out, user.getLoginTime());
+            writeTime(out, user.getLastOperateTime());
+            writeTime(out, user.getCreateTime());
+            writeTime(out, user.getUpdateTime());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode LoginUser", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static LoginUser decode(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != VERSION) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 1, data.length - 1))) {
+            LoginUser user = new LoginUser();
+            user.setUserId(readLong(in));
+            user.setParentUserId(readLong(in));
+            user.setDeptId(readLong(in));
+            user.setDeptName(readString(in));
+            Long agentLevel = readLong(in);
+            user.setAgentLevel(agentLevel != null ? agentLevel.intValue() : null);
+            user.setParentUserName(readString(in));
+            user.setInvitationCode(readString(in));
+            user.setUsername(readString(in));
+            user.setEmail(readString(in));
+            user.setNickname(readString(in));
+            user.setPhone(readString(in));
+            user.setStatus(readString(in));
+            user.setIpaddr(readString(in));
+            user.setLoginLocation(readString(in));
+            user.setBrowser(readString(in));
+            user.setOs(readString(in));
+            user.setPermissions(readStrings(in));
+            user.setRoles(readStrings(in));
+            user.setToken(readString(in));
+            user.setExpireTime(readLong(in));
+            user.setAuthorityVersion(readLong(in));
+            user.setLoginTime(readTime(in));
+            user.setLastOperateTime(readTime(in));
+            user.setCreateTime(readTime(in));
+            user.setUpdateTime(readTime(in));
+            return user;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeStrings(DataOutputStream out, Collection<String> values) throws IOException {
+        out.writeInt(values != null ? values.size() : -1);
+        if (values != null) {
+            for (String value : values) {
+                writeString(out, value);
+            }
+        }
+    }
+
+    private static Set<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Set<String> values = new LinkedHashSet<>(Math.max(16, size * 2));
+        for (int i = 0; i < size; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        long seconds = in.readLong();
+        int nanos = in.readInt();
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+}
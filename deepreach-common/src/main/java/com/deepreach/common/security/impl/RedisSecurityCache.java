@@ -5,11 +5,20 @@ import com.deepreach.common.security.CacheStats;
 import com.deepreach.common.security.SecurityCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -25,6 +34,14 @@ import java.util.concurrent.atomic.AtomicLong;
  * 3. 高可用 - 支持主从和集群
  * 4. 自动过期 - Redis原生支持过期策略
  *
+ * 存储结构：
+ * - security:cache:{token} - {@link LoginUserCodec} 编码的用户信息，TTL 与令牌一致
+ * - security:index:sessions - 会话索引（有序集合），成员为令牌、分值为过期时间（毫秒），
+ *   用于统计、列出与清空会话，避免 KEYS 全库扫描；过期成员由 {@link #cleanExpiredUsers()} 按分值区间删除
+ *
+ * 写入与删除在一次管道中同时维护数据键与索引；清空时按索引分批删除，再以 SCAN 兜底清理未入索引的旧数据。
+ * security.cache.type=tiered 时同样启用，作为 {@link TieredSecurityCache} 的二级缓存。
+ *
  * 适用场景：
  * - 生产环境
  * - 分布式部署
@@ -36,7 +53,7 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 @Slf4j
 @Component
-@ConditionalOnProperty(name = "security.cache.type", havingValue = "redis")
+@ConditionalOnExpression("'${security.cache.type:memory}' == 'redis' or '${security.cache.type:memory}' == 'tiered'")
 public class RedisSecurityCache implements SecurityCache {
 
     @Autowired
@@ -46,8 +63,14 @@ public class RedisSecurityCache implements SecurityCache {
      * 配置属性
      */
     private final String keyPrefix = "security:cache:";
+    private final String indexKey = "security:index:sessions";
     private final String statsKey = "security:stats";
 
+    /**
+     * 分批处理的大小
+     */
+    private static final int BATCH_SIZE = 1000;
+
     /**
      * 统计信息
      */
@@ -64,10 +87,8 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            String key = buildKey(token);
-            redisTemplate.opsForValue().set(key, user, expireTime, TimeUnit.SECONDS);
+            storeEntries(Map.of(token, user), expireTime);
             operationCount.incrementAndGet();
-            updateStats();
 
             log.debug("Stored user {} with token {} in Redis, expire in {} seconds",
                      user.getUsername(), token.substring(0, 8) + "...", expireTime);
@@ -85,8 +106,9 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            String key = buildKey(token);
-            LoginUser user = (LoginUser) redisTemplate.opsForValue().get(key);
+            byte[] data = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                connection.stringCommands().get(buildKeyBytes(token)));
+            LoginUser user = LoginUserCodec.decode(data);
             operationCount.incrementAndGet();
 
             if (user != null) {
@@ -94,11 +116,10 @@ public class RedisSecurityCache implements SecurityCache {
                 log.debug("Found user {} for token {} in Redis",
                          user.getUsername(), token.substring(0, 8) + "...");
             } else {
+                // 不存在，或是无法解码的旧格式数据，均按未命中处理，由调用方重新加载后覆盖
                 missCount.incrementAndGet();
                 log.debug("User not found for token {} in Redis", token.substring(0, 8) + "...");
             }
-
-            updateStats();
             return user;
         } catch (Exception e) {
             log.error("Failed to get user from Redis: {}", e.getMessage(), e);
@@ -114,14 +135,9 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            String key = buildKey(token);
-            Boolean result = redisTemplate.delete(key);
+            removeEntries(List.of(token));
             operationCount.incrementAndGet();
-
-            if (Boolean.TRUE.equals(result)) {
-                log.debug("Removed user with token {} from Redis", token.substring(0, 8) + "...");
-            }
-            updateStats();
+            log.debug("Removed user with token {} from Redis", token.substring(0, 8) + "...");
         } catch (Exception e) {
             log.error("Failed to remove user from Redis: {}", e.getMessage(), e);
         }
@@ -150,14 +166,17 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            String key = buildKey(token);
-            Boolean result = redisTemplate.expire(key, expireTime, TimeUnit.SECONDS);
+            byte[] key = buildKeyBytes(token);
+            Boolean result = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                connection.keyCommands().pExpire(key, TimeUnit.SECONDS.toMillis(expireTime)));
             operationCount.incrementAndGet();
 
             if (Boolean.TRUE.equals(result)) {
+                double expireAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(expireTime);
+                redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                    connection.zSetCommands().zAdd(bytes(indexKey), expireAt, bytes(token)));
                 log.debug("Refreshed expire time for token {} in Redis", token.substring(0, 8) + "...");
             }
-            updateStats();
         } catch (Exception e) {
             log.error("Failed to refresh expire time in Redis: {}", e.getMessage(), e);
         }
@@ -170,26 +189,9 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            Map<String, LoginUser> entries = new java.util.HashMap<>();
-            for (Map.Entry<String, LoginUser> entry : tokenUsers.entrySet()) {
-                if (entry.getKey() != null && entry.getValue() != null) {
-                    entries.put(buildKey(entry.getKey()), entry.getValue());
-                }
-            }
-
-            if (!entries.isEmpty()) {
-                // 批量设置
-                redisTemplate.opsForValue().multiSet(entries);
-
-                // 批量设置过期时间
-                for (String key : entries.keySet()) {
-                    redisTemplate.expire(key, expireTime, TimeUnit.SECONDS);
-                }
-
-                operationCount.addAndGet(entries.size());
-                log.debug("Stored {} users in Redis", entries.size());
-                updateStats();
-            }
+            int stored = storeEntries(tokenUsers, expireTime);
+            operationCount.addAndGet(stored);
+            log.debug("Stored {} users in Redis", stored);
         } catch (Exception e) {
             log.error("Failed to store users in Redis: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to store users in cache", e);
@@ -203,16 +205,15 @@ public class RedisSecurityCache implements SecurityCache {
         }
 
         try {
-            Set<String> keys = tokens.stream()
+            List<String> valid = tokens.stream()
                     .filter(java.util.Objects::nonNull)
-                    .map(this::buildKey)
-                    .collect(java.util.stream.Collectors.toSet());
+                    .distinct()
+                    .collect(java.util.stream.Collectors.toList());
 
-            if (!keys.isEmpty()) {
-                Long deletedCount = redisTemplate.delete(keys);
+            if (!valid.isEmpty()) {
+                removeEntries(valid);
                 operationCount.incrementAndGet();
-                log.debug("Removed {} users from Redis", deletedCount);
-                updateStats();
+                log.debug("Removed {} users from Redis", valid.size());
             }
         } catch (Exception e) {
             log.error("Failed to remove users from Redis: {}", e.getMessage(), e);
@@ -221,16 +222,27 @@ public class RedisSecurityCache implements SecurityCache {
 
     @Override
     public void cleanExpiredUsers() {
-        // Redis自动处理过期键，这里只需要更新清理时间
+        // 数据键由 Redis 自动过期，这里只需删除索引中已过期的成员
+        try {
+            long now = System.currentTimeMillis();
+            Long removed = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zRemRangeByScore(bytes(indexKey), Double.NEGATIVE_INFINITY, now));
+            if (removed != null && removed > 0) {
+                log.debug("Cleaned {} expired sessions from Redis index", removed);
+            }
+        } catch (Exception e) {
+            log.error("Failed to clean expired sessions from Redis index: {}", e.getMessage(), e);
+        }
         lastCleanTime = System.currentTimeMillis();
-        log.debug("Redis automatically handles expired keys");
     }
 
     @Override
     public long getUserCount() {
         try {
-            Set<String> keys = redisTemplate.keys(keyPrefix + "*");
-            return keys != null ? keys.size() : 0;
+            cleanExpiredUsers();
+            Long count = redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.zSetCommands().zCard(bytes(indexKey)));
+            return count != null ? count : 0;
         } catch (Exception e) {
             log.error("Failed to get user count from Redis: {}", e.getMessage(), e);
             return 0;
@@ -240,10 +252,12 @@ public class RedisSecurityCache implements SecurityCache {
     @Override
     public Collection<String> getActiveTokens() {
         try {
-            Set<String> keys = redisTemplate.keys(keyPrefix + "*");
-            if (keys != null) {
-                return keys.stream()
-                        .map(key -> key.substring(keyPrefix.length()))
+            long now = System.currentTimeMillis();
+            Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                connection.zSetCommands().zRangeByScore(bytes(indexKey), now, Double.POSITIVE_INFINITY));
+            if (members != null) {
+                return members.stream()
+                        .map(member -> new String(member, StandardCharsets.UTF_8))
                         .collect(java.util.stream.Collectors.toList());
             }
         } catch (Exception e) {
@@ -270,8 +284,8 @@ public class RedisSecurityCache implements SecurityCache {
 
     @Override
     public CacheStats getStats() {
-        cleanExpiredUsers();
         long userCount = getUserCount();
+        updateStats();
 
         return CacheStats.builder()
                 .userCount(userCount)
@@ -284,6 +298,51 @@ public class RedisSecurityCache implements SecurityCache {
                 .build();
     }
 
+    /**
+     * 在一次管道中写入数据键（SET PX）并登记会话索引，返回写入条数
+     */
+    private int storeEntries(Map<String, LoginUser> tokenUsers, long expireTime) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(expireTime);
+        double expireAt = System.currentTimeMillis() + ttlMillis;
+        List<byte[]> keys = new ArrayList<>();
+        List<byte[]> values = new ArrayList<>();
+        List<byte[]> members = new ArrayList<>();
+        for (Map.Entry<String, LoginUser> entry : tokenUsers.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                keys.add(buildKeyBytes(entry.getKey()));
+                values.add(LoginUserCodec.encode(entry.getValue()));
+                members.add(bytes(entry.getKey()));
+            }
+        }
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        byte[] index = bytes(indexKey);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < keys.size(); i++) {
+                connection.stringCommands().set(keys.get(i), values.get(i),
+                    Expiration.milliseconds(ttlMillis), RedisStringCommands.SetOption.upsert());
+                connection.zSetCommands().zAdd(index, expireAt, members.get(i));
+            }
+            return null;
+        });
+        return keys.size();
+    }
+
+    /**
+     * 在一次管道中删除数据键并移出会话索引
+     */
+    private void removeEntries(List<String> tokens) {
+        byte[][] keys = tokens.stream().map(this::buildKeyBytes).toArray(byte[][]::new);
+        byte[][] members = tokens.stream().map(RedisSecurityCache::bytes).toArray(byte[][]::new);
+        byte[] index = bytes(indexKey);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.keyCommands().del(keys);
+            connection.zSetCommands().zRem(index, members);
+            return null;
+        });
+    }
+
     /**
      * 更新统计信息到Redis
      */
@@ -323,6 +382,14 @@ public class RedisSecurityCache implements SecurityCache {
         return keyPrefix + token;
     }
 
+    private byte[] buildKeyBytes(String token) {
+        return bytes(buildKey(token));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
     /**
      * 获取Redis连接信息
      */
@@ -349,16 +416,53 @@ public class RedisSecurityCache implements SecurityCache {
 
     /**
      * 手动清理所有安全缓存数据
+     *
+     * 按会话索引分批删除，再以 SCAN 兜底删除未登记在索引中的数据键
      */
     public void clear() {
         try {
-            Set<String> keys = redisTemplate.keys(keyPrefix + "*");
-            if (keys != null && !keys.isEmpty()) {
-                Long deletedCount = redisTemplate.delete(keys);
-                log.info("Cleared {} security cache entries from Redis", deletedCount);
+            byte[] index = bytes(indexKey);
+            long deleted = 0;
+            while (true) {
+                Set<byte[]> members = redisTemplate.execute((RedisCallback<Set<byte[]>>) connection ->
+                    connection.zSetCommands().zRange(index, 0, BATCH_SIZE - 1));
+                if (members == null || members.isEmpty()) {
+                    break;
+                }
+                List<String> tokens = members.stream()
+                        .map(member -> new String(member, StandardCharsets.UTF_8))
+                        .collect(java.util.stream.Collectors.toList());
+                removeEntries(tokens);
+                deleted += tokens.size();
             }
+            deleted += redisTemplate.execute((RedisCallback<Long>) this::scanAndDelete);
+            log.info("Cleared {} security cache entries from Redis", deleted);
         } catch (Exception e) {
             log.error("Failed to clear security cache from Redis: {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    private long scanAndDelete(RedisConnection connection) {
+        long deleted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(keyPrefix + "*").count(BATCH_SIZE).build();
+        List<byte[]> batch = new ArrayList<>();
+        try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= BATCH_SIZE) {
+                    deleted += deleteKeys(connection, batch);
+                }
+            }
+        }
+        return deleted + deleteKeys(connection, batch);
+    }
+
+    private static long deleteKeys(RedisConnection connection, List<byte[]> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Long count = connection.keyCommands().del(keys.toArray(new byte[0][]));
+        keys.clear();
+        return count != null ? count : 0;
+    }
+}
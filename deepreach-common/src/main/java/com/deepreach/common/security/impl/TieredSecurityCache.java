@@ -0,0 +1,244 @@
+package com.deepreach.common.security.impl;
+
+import com.deepreach.common.core.domain.model.LoginUser;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.LocalCacheManager;
+import com.deepreach.common.security.CacheStats;
+import com.deepreach.common.security.SecurityCache;
+import com.deepreach.common.security.TokenDigests;
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 分层安全缓存实现
+ *
+ * 特点：
+ * 1. 一级缓存 - 进程内有容量上限的短期缓存，认证请求通常不访问 Redis
+ * 2. 二级缓存 - {@link RedisSecurityCache}，多节点共享登录会话
+ * 3. 失效扩散 - 移除会话（登出、强制下线）时删除二级缓存，并通过
+ *    {@link ChangeBroadcaster#CHANNEL_SECURITY_SESSION} 通知所有节点删除一级缓存
+ * 4. 分层统计 - {@link CacheStats} 中分别给出一级、二级命中次数
+ *
+ * 一级缓存以令牌摘要为键，失效消息同样只携带摘要。一级缓存的有效期很短，
+ * 即使广播丢失，已登出的令牌最多在该时间内仍可在其他节点使用。
+ *
+ * 适用场景：
+ * - 多节点部署
+ * - 认证请求量大的生产环境
+ *
+ * @author DeepReach Team
+ * @version 1.0
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnProperty(name = "security.cache.type", havingValue = "tiered")
+public class TieredSecurityCache implements SecurityCache {
+
+    private static final String INVALIDATE_ALL = "*";
+
+    @Autowired
+    private RedisSecurityCache remoteCache;
+
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
+    @Autowired
+    private LocalCacheManager cacheManager;
+
+    @Value("${security.cache.tiered.l1-maximum-size:50000}")
+    private long localMaximumSize;
+
+    @Value("${security.cache.tiered.l1-ttl:30}")
+    private long localTtlSeconds;
+
+    private Cache<String, LoginUser> localCache;
+
+    /**
+     * 统计信息
+     */
+    private final AtomicLong l1HitCount = new AtomicLong(0);
+    private final AtomicLong l2HitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+
+    @PostConstruct
+    public void init() {
+        localCache = cacheManager.newCache("security-session", localMaximumSize, Duration.ofSeconds(localTtlSeconds));
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_SECURITY_SESSION, this::onInvalidation);
+    }
+
+    @Override
+    public void storeUser(String token, LoginUser user, long expireTime) {
+        remoteCache.storeUser(token, user, expireTime);
+        if (token != null && user != null) {
+            putLocal(TokenDigests.sha256(token), user, expireTime);
+        }
+    }
+
+    @Override
+    public LoginUser getUser(String token) {
+        if (token == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        String digest = TokenDigests.sha256(token);
+        LoginUser user = localCache.getIfPresent(digest);
+        if (user != null) {
+            l1HitCount.incrementAndGet();
+            return user;
+        }
+
+        user = remoteCache.getUser(token);
+        if (user == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        l2HitCount.incrementAndGet();
+        localCache.put(digest, user);
+        return user;
+    }
+
+    @Override
+    public void removeUser(String token) {
+        if (token == null) {
+            return;
+        }
+        removeUsers(List.of(token));
+    }
+
+    @Override
+    public boolean exists(String token) {
+        if (token == null) {
+            return false;
+        }
+        return localCache.getIfPresent(TokenDigests.sha256(token)) != null || remoteCache.exists(token);
+    }
+
+    @Override
+    public void refreshExpireTime(String token, long expireTime) {
+        remoteCache.refreshExpireTime(token, expireTime);
+    }
+
+    @Override
+    public void storeUsers(Map<String, LoginUser> tokenUsers, long expireTime) {
+        remoteCache.storeUsers(tokenUsers, expireTime);
+        if (tokenUsers != null) {
+            tokenUsers.forEach((token, user) -> {
+                if (token != null && user != null) {
+                    putLocal(TokenDigests.sha256(token), user, expireTime);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void removeUsers(Collection<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return;
+        }
+
+        remoteCache.removeUsers(tokens);
+        List<String> digests = tokens.stream()
+                .filter(Objects::nonNull)
+                .map(TokenDigests::sha256)
+                .distinct()
+                .collect(Collectors.toList());
+        if (digests.isEmpty()) {
+            return;
+        }
+        localCache.invalidateAll(digests);
+        changeBroadcaster.publish(ChangeBroadcaster.CHANNEL_SECURITY_SESSION, String.join(",", digests));
+        log.debug("Removed {} users from tiered cache and broadcast invalidation", digests.size());
+    }
+
+    @Override
+    public void cleanExpiredUsers() {
+        localCache.cleanUp();
+        remoteCache.cleanExpiredUsers();
+    }
+
+    @Override
+    public long getUserCount() {
+        return remoteCache.getUserCount();
+    }
+
+    @Override
+    public Collection<String> getActiveTokens() {
+        return remoteCache.getActiveTokens();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return remoteCache.isAvailable();
+    }
+
+    @Override
+    public String getCacheType() {
+        return "tiered";
+    }
+
+    @Override
+    public CacheStats getStats() {
+        CacheStats remoteStats = remoteCache.getStats();
+        long l1Hits = l1HitCount.get();
+        long l2Hits = l2HitCount.get();
+
+        return CacheStats.builder()
+                .userCount(remoteStats.getUserCount())
+                .hitCount(l1Hits + l2Hits)
+                .missCount(missCount.get())
+                .l1HitCount(l1Hits)
+                .l2HitCount(l2Hits)
+                .operationCount(remoteStats.getOperationCount())
+                .cacheType(getCacheType())
+                .available(remoteStats.isAvailable())
+                .lastCleanTime(remoteStats.getLastCleanTime())
+                .build();
+    }
+
+    /**
+     * 手动清理所有安全缓存数据，并通知所有节点清空一级缓存
+     */
+    public void clear() {
+        remoteCache.clear();
+        localCache.invalidateAll();
+        changeBroadcaster.publish(ChangeBroadcaster.CHANNEL_SECURITY_SESSION, INVALIDATE_ALL);
+    }
+
+    /**
+     * 剩余有效期短于一级缓存有效期的会话不放入一级缓存，避免令牌过期后仍被命中
+     */
+    private void putLocal(String digest, LoginUser user, long expireTime) {
+        if (expireTime > localTtlSeconds) {
+            localCache.put(digest, user);
+        } else {
+            localCache.invalidate(digest);
+        }
+    }
+
+    private void onInvalidation(String message) {
+        if (message == null || message.isEmpty()) {
+            return;
+        }
+        if (INVALIDATE_ALL.equals(message)) {
+            localCache.invalidateAll();
+            return;
+        }
+        localCache.invalidateAll(List.of(message.split(",")));
+    }
+}
@@ -0,0 +1,280 @@
+package com.deepreach.common.trace;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Span 文件导出器
+ *
+ * 结束的 Span 进入有界队列，由唯一的导出线程按批量大小或刷新间隔写入本地文件：
+ * 1. 每批写一行 OTLP JSON（ExportTraceServiceRequest），可由 OpenTelemetry Collector 的 otlpjsonfile 接收器直接读取
+ * 2. 队列已满时丢弃并计数，不阻塞业务线程
+ * 3. 文件超过大小上限时滚动为 .1 文件，只保留一个历史文件
+ *
+ * 写出与丢弃数量可通过 trace.exporter.* 指标查看。
+ */
+@Slf4j
+@Component
+public class OtlpFileSpanExporter implements MeterBinder {
+
+    private static final String SCOPE_NAME = "com.deepreach.trace";
+    private static final int STATUS_CODE_ERROR = 2;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Value("${spring.application.name:deepreach}")
+    private String serviceName;
+
+    @Value("${deepreach.tracing.exporter.file:logs/traces/spans.otlp.jsonl}")
+    private String file;
+
+    @Value("${deepreach.tracing.exporter.max-file-size:104857600}")
+    private long maxFileSize;
+
+    @Value("${deepreach.tracing.exporter.queue-capacity:8192}")
+    private int queueCapacity;
+
+    @Value("${deepreach.tracing.exporter.batch-size:512}")
+    private int batchSize;
+
+    @Value("${deepreach.tracing.exporter.flush-interval:2000}")
+    private long flushIntervalMillis;
+
+    private BlockingQueue<Span> queue;
+    private Thread worker;
+    private volatile boolean running;
+    private Path path;
+    private Writer writer;
+
+    private final AtomicLong exportedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        batchSize = Math.max(1, batchSize);
+        path = Paths.get(file);
+        running = true;
+        worker = new Thread(this::runExporter, "trace-exporter");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("链路追踪导出器已启动：文件={}, 队列容量={}, 批量大小={}", path.toAbsolutePath(), queueCapacity, batchSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        Thread thread = worker;
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 提交结束的 Span，队列已满时丢弃
+     */
+    void export(Span span) {
+        if (queue == null || !queue.offer(span)) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("trace.exporter.exported", exportedCount, AtomicLong::get)
+            .description("已写出的 Span 数")
+            .register(registry);
+        FunctionCounter.builder("trace.exporter.dropped", droppedCount, AtomicLong::get)
+            .description("队列已满丢弃的 Span 数")
+            .register(registry);
+        FunctionCounter.builder("trace.exporter.failed", failedCount, AtomicLong::get)
+            .description("写文件失败丢弃的 Span 数")
+            .register(registry);
+        Gauge.builder("trace.exporter.queue.size", this, exporter -> exporter.queue != null ? exporter.queue.size() : 0)
+            .description("待写出的 Span 数")
+            .register(registry);
+    }
+
+    private void runExporter() {
+        List<Span> batch = new ArrayList<>(batchSize);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        while (running || !queue.isEmpty()) {
+            try {
+                long waitNanos = deadline - System.nanoTime();
+                Span span = waitNanos > 0 && running ? queue.poll(waitNanos, TimeUnit.NANOSECONDS) : queue.poll();
+                if (span != null) {
+                    batch.add(span);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // 停止时由 running 控制退出，剩余数据继续写出
+            }
+            if (batch.size() >= batchSize || System.nanoTime() - deadline >= 0 || (!running && !batch.isEmpty())) {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        closeWriter();
+    }
+
+    private void write(List<Span> batch) {
+        try {
+            Writer out = openWriter();
+            try (JsonGenerator json = jsonFactory.createGenerator(out)) {
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                writeRequest(json, batch);
+            }
+            out.write('\n');
+            out.flush();
+            exportedCount.addAndGet(batch.size());
+        } catch (IOException e) {
+            failedCount.addAndGet(batch.size());
+            log.warn("链路追踪写入文件失败，丢弃 {} 个 Span：{}", batch.size(), e.getMessage());
+            closeWriter();
+        }
+    }
+
+    private Writer openWriter() throws IOException {
+        if (writer != null && Files.size(path) < maxFileSize) {
+            return writer;
+        }
+        closeWriter();
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (Files.exists(path) && Files.size(path) >= maxFileSize) {
+            Files.move(path, path.resolveSibling(path.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(
+            Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8));
+        return writer;
+    }
+
+    private void closeWriter() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            log.debug("关闭链路追踪文件失败：{}", e.getMessage());
+        }
+        writer = null;
+    }
+
+    private void writeRequest(JsonGenerator json, List<Span> batch) throws IOException {
+        json.writeStartObject();
+        json.writeArrayFieldStart("resourceSpans");
+        json.writeStartObject();
+
+        json.writeObjectFieldStart("resource");
+        json.writeArrayFieldStart("attributes");
+        writeAttribute(json, "service.name", serviceName);
+        json.writeEndArray();
+        json.writeEndObject();
+
+        json.writeArrayFieldStart("scopeSpans");
+        json.writeStartObject();
+        json.writeObjectFieldStart("scope");
+        json.writeStringField("name", SCOPE_NAME);
+        json.writeEndObject();
+        json.writeArrayFieldStart("spans");
+        for (Span span : batch) {
+            writeSpan(json, span);
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeEndArray();
+
+        json.writeEndObject();
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private void writeSpan(JsonGenerator json, Span span) throws IOException {
+        TraceContext context = span.getContext();
+        json.writeStartObject();
+        json.writeStringField("traceId", context.getTraceId());
+        json.writeStringField("spanId", context.getSpanId());
+        if (span.getParentSpanId() != null) {
+            json.writeStringField("parentSpanId", span.getParentSpanId());
+        }
+        json.writeStringField("name", span.getName());
+        json.writeNumberField("kind", span.getKind().getOtlpValue());
+        json.writeStringField("startTimeUnixNano", Long.toString(span.getStartEpochNanos()));
+        json.writeStringField("endTimeUnixNano", Long.toString(span.getEndEpochNanos()));
+        Map<String, Object> attributes = span.getAttributes();
+        if (attributes != null) {
+            json.writeArrayFieldStart("attributes");
+            for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+                writeAttribute(json, attribute.getKey(), attribute.getValue());
+            }
+            json.writeEndArray();
+        }
+        if (span.getErrorMessage() != null) {
+            json.writeObjectFieldStart("status");
+            json.writeNumberField("code", STATUS_CODE_ERROR);
+            json.writeStringField("message", span.getErrorMessage());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+    }
+
+    /**
+     * OTLP JSON 中 int64 以字符串表示
+     */
+    private static void writeAttribute(JsonGenerator json, String key, Object value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("key", key);
+        json.writeObjectFieldStart("value");
+        if (value instanceof Boolean) {
+            json.writeBooleanField("boolValue", (Boolean) value);
+        } else if (value instanceof Long || value instanceof Integer) {
+            json.writeStringField("intValue", value.toString());
+        } else {
+            json.writeStringField("stringValue", String.valueOf(value));
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+}
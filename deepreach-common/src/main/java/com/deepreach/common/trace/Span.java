@@ -0,0 +1,155 @@
+package com.deepreach.common.trace;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 链路中的一个阶段
+ *
+ * 由 {@link Tracer} 创建，结束时（{@link #end()}）交给导出器写出。未采样的 Span 只传递上下文，不记录属性也不导出。
+ * 属性只在创建线程与结束线程之间传递，同一个 Span 不应被多个线程同时修改。
+ */
+public final class Span {
+
+    static final Span NOOP = new Span(null, null, null, "", SpanKind.INTERNAL, false);
+
+    private final Tracer tracer;
+    private final TraceContext context;
+    private final String parentSpanId;
+    private final SpanKind kind;
+    private final boolean recording;
+    private final long startEpochNanos;
+
+    private String name;
+    private Map<String, Object> attributes;
+    private String errorMessage;
+    private long endEpochNanos;
+    private boolean ended;
+
+    Span(Tracer tracer, TraceContext context, String parentSpanId, String name, SpanKind kind, boolean recording) {
+        this.tracer = tracer;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.name = name;
+        this.kind = kind;
+        this.recording = recording;
+        this.startEpochNanos = recording ? Tracer.epochNanos() : 0L;
+    }
+
+    /**
+     * 上下文，链路追踪关闭时为 null
+     */
+    public TraceContext getContext() {
+        return context;
+    }
+
+    /**
+     * 是否记录并导出
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    public Span setName(String name) {
+        if (recording && name != null) {
+            this.name = name;
+        }
+        return this;
+    }
+
+    public Span setAttribute(String key, String value) {
+        return putAttribute(key, value);
+    }
+
+    public Span setAttribute(String key, long value) {
+        return putAttribute(key, value);
+    }
+
+    public Span setAttribute(String key, boolean value) {
+        return putAttribute(key, value);
+    }
+
+    /**
+     * 标记为失败
+     */
+    public Span recordError(Throwable error) {
+        if (recording && error != null) {
+            this.errorMessage = error.getClass().getSimpleName() + (error.getMessage() != null ? ": " + error.getMessage() : "");
+        }
+        return this;
+    }
+
+    /**
+     * 标记为失败
+     */
+    public Span recordError(String message) {
+        if (recording) {
+            this.errorMessage = message != null ? message : "error";
+        }
+        return this;
+    }
+
+    /**
+     * 设为当前线程的当前 Span，关闭返回的 Scope 后恢复之前的 Span（不结束本 Span）
+     */
+    public Tracer.Scope makeCurrent() {
+        return tracer != null ? tracer.activate(this) : Tracer.Scope.NOOP;
+    }
+
+    /**
+     * 结束并导出，重复调用无效
+     */
+    public void end() {
+        if (!recording) {
+            return;
+        }
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            endEpochNanos = Tracer.epochNanos();
+        }
+        tracer.export(this);
+    }
+
+    // ==================== 导出器读取 ====================
+
+    String getName() {
+        return name;
+    }
+
+    SpanKind getKind() {
+        return kind;
+    }
+
+    String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    String getErrorMessage() {
+        return errorMessage;
+    }
+
+    private Span putAttribute(String key, Object value) {
+        if (recording && key != null && value != null) {
+            if (attributes == null) {
+                attributes = new LinkedHashMap<>(8);
+            }
+            attributes.put(key, value);
+        }
+        return this;
+    }
+}
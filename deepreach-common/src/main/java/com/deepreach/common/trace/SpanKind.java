@@ -0,0 +1,23 @@
+package com.deepreach.common.trace;
+
+/**
+ * Span 类型，取值与 OTLP 协议一致
+ */
+public enum SpanKind {
+
+    INTERNAL(1),
+    SERVER(2),
+    CLIENT(3),
+    PRODUCER(4),
+    CONSUMER(5);
+
+    private final int otlpValue;
+
+    SpanKind(int otlpValue) {
+        this.otlpValue = otlpValue;
+    }
+
+    public int getOtlpValue() {
+        return otlpValue;
+    }
+}
@@ -0,0 +1,111 @@
+package com.deepreach.common.trace;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 链路上下文
+ *
+ * 与 W3C Trace Context / OpenTelemetry 兼容：traceId 为 32 位十六进制，spanId 为 16 位十六进制，
+ * 跨进程通过 traceparent 头（00-traceId-spanId-flags）传递。
+ */
+public final class TraceContext {
+
+    /**
+     * W3C 传播头名称，HTTP 请求头与 Kafka 消息头共用
+     */
+    public static final String TRACEPARENT = "traceparent";
+
+    private static final String VERSION = "00";
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+
+    private final String traceId;
+    private final String spanId;
+    private final boolean sampled;
+
+    TraceContext(String traceId, String spanId, boolean sampled) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.sampled = sampled;
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public boolean isSampled() {
+        return sampled;
+    }
+
+    /**
+     * 编码为 traceparent 头
+     */
+    public String toTraceparent() {
+        return VERSION + "-" + traceId + "-" + spanId + (sampled ? "-01" : "-00");
+    }
+
+    /**
+     * 解析 traceparent 头，格式不合法时返回 null
+     *
+     * @param traceparent 头内容
+     * @return 远端上下文
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String value = traceparent.trim();
+        if (value.length() < 55 || value.charAt(2) != '-' || value.charAt(35) != '-' || value.charAt(52) != '-') {
+            return null;
+        }
+        String version = value.substring(0, 2);
+        String traceId = value.substring(3, 35);
+        String spanId = value.substring(36, 52);
+        String flags = value.substring(53, 55);
+        if ("ff".equals(version) || !isHex(version) || !isHex(traceId) || !isHex(spanId) || !isHex(flags)
+            || INVALID_TRACE_ID.equals(traceId) || INVALID_SPAN_ID.equals(spanId)) {
+            return null;
+        }
+        boolean sampled = (Integer.parseInt(flags, 16) & 0x01) != 0;
+        return new TraceContext(traceId, spanId, sampled);
+    }
+
+    static String newTraceId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long high;
+        long low;
+        do {
+            high = random.nextLong();
+            low = random.nextLong();
+        } while (high == 0 && low == 0);
+        return toHex(high) + toHex(low);
+    }
+
+    static String newSpanId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id;
+        do {
+            id = random.nextLong();
+        } while (id == 0);
+        return toHex(id);
+    }
+
+    private static String toHex(long value) {
+        String hex = Long.toHexString(value);
+        return hex.length() == 16 ? hex : INVALID_SPAN_ID.substring(hex.length()) + hex;
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
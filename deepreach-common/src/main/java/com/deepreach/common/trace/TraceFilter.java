@@ -0,0 +1,66 @@
+package com.deepreach.common.trace;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * 请求链路入口
+ *
+ * 在所有过滤器（包括安全过滤器链）之前执行：
+ * 1. 从 traceparent 请求头恢复上游上下文，没有时开始新的链路
+ * 2. 为请求创建 SERVER Span 并设为当前 Span，处理结束后按 “方法 + URI 模板” 命名
+ * 3. 响应头 X-Trace-Id 返回链路ID，便于按链路排查
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TraceFilter extends OncePerRequestFilter {
+
+    /**
+     * 返回链路ID的响应头
+     */
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final Tracer tracer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        TraceContext parent = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT));
+        Span span = tracer.startSpan(request.getMethod(), SpanKind.SERVER, parent);
+        if (span.getContext() != null) {
+            response.setHeader(TRACE_ID_HEADER, span.getContext().getTraceId());
+        }
+        try (Tracer.Scope ignored = span.makeCurrent()) {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            if (span.isRecording()) {
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                int status = response.getStatus();
+                span.setName(route != null ? request.getMethod() + " " + route : request.getMethod())
+                    .setAttribute("http.request.method", request.getMethod())
+                    .setAttribute("url.path", request.getRequestURI())
+                    .setAttribute("http.response.status_code", status);
+                if (route != null) {
+                    span.setAttribute("http.route", route.toString());
+                }
+                if (status >= 500) {
+                    span.recordError("HTTP " + status);
+                }
+            }
+            span.end();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.deepreach.common.trace;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 轻量链路追踪
+ *
+ * 上下文格式与 W3C Trace Context / OpenTelemetry 兼容，Span 以 OTLP JSON 写入本地文件（见 {@link OtlpFileSpanExporter}），
+ * 可由 OpenTelemetry Collector 的 otlpjsonfile 接收器读取后转发：
+ * 1. 当前 Span 保存在线程本地变量中，{@link Span#makeCurrent()} 设置、关闭 Scope 恢复
+ * 2. 根 Span 按采样率决定是否记录，子 Span 与跨进程的下游沿用根 Span 的采样结果
+ * 3. 当前 traceId 同时写入日志 MDC（traceId），日志可按链路检索
+ * 4. 跨线程执行的任务通过 {@link #wrap(Runnable)} / {@link #wrap(Callable)} 传递当前 Span
+ */
+@Component
+@RequiredArgsConstructor
+public class Tracer {
+
+    /**
+     * 日志 MDC 中的链路ID键名
+     */
+    public static final String MDC_TRACE_ID = "traceId";
+
+    private static final long EPOCH_BASE_NANOS = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    private static final long NANO_BASE = System.nanoTime();
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private final OtlpFileSpanExporter exporter;
+
+    @Value("${deepreach.tracing.enabled:true}")
+    private boolean enabled;
+
+    @Value("${deepreach.tracing.sample-ratio:1.0}")
+    private double sampleRatio;
+
+    /**
+     * 以当前 Span 为父节点创建 Span，没有当前 Span 时创建根 Span
+     */
+    public Span startSpan(String name, SpanKind kind) {
+        Span current = CURRENT.get();
+        return startSpan(name, kind, current != null ? current.getContext() : null);
+    }
+
+    /**
+     * 以远端上下文为父节点创建 Span，parent 为 null 时创建根 Span
+     *
+     * @param name   名称
+     * @param kind   类型
+     * @param parent 从 traceparent 头解析出的上下文
+     * @return Span，链路追踪关闭时返回不记录的空 Span
+     */
+    public Span startSpan(String name, SpanKind kind, TraceContext parent) {
+        if (!enabled) {
+            return Span.NOOP;
+        }
+        if (parent != null) {
+            TraceContext context = new TraceContext(parent.getTraceId(), TraceContext.newSpanId(), parent.isSampled());
+            return new Span(this, context, parent.getSpanId(), name, kind, parent.isSampled());
+        }
+        boolean sampled = sampleRatio >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRatio;
+        TraceContext context = new TraceContext(TraceContext.newTraceId(), TraceContext.newSpanId(), sampled);
+        return new Span(this, context, null, name, kind, sampled);
+    }
+
+    /**
+     * 仅在当前存在记录中的 Span 时创建子 Span，否则返回空 Span
+     *
+     * 用于数据库等高频调用，避免定时任务等无入口链路的调用各自产生根 Span
+     */
+    public Span startChildSpan(String name, SpanKind kind) {
+        Span current = CURRENT.get();
+        if (current == null || !current.isRecording()) {
+            return Span.NOOP;
+        }
+        return startSpan(name, kind, current.getContext());
+    }
+
+    /**
+     * 当前线程的当前 Span，没有时返回空 Span
+     */
+    public Span current() {
+        Span current = CURRENT.get();
+        return current != null ? current : Span.NOOP;
+    }
+
+    /**
+     * 在子 Span 中执行，异常时标记失败
+     */
+    public <T> T inSpan(String name, Supplier<T> action) {
+        Span span = startSpan(name, SpanKind.INTERNAL);
+        try (Scope ignored = span.makeCurrent()) {
+            return action.get();
+        } catch (RuntimeException | Error e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * 把当前 Span 带到执行任务的线程
+     */
+    public Runnable wrap(Runnable task) {
+        Span captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = activate(captured)) {
+                task.run();
+            }
+        };
+    }
+
+    /**
+     * 把当前 Span 带到执行任务的线程
+     */
+    public <T> Callable<T> wrap(Callable<T> task) {
+        Span captured = CURRENT.get();
+        if (captured == null) {
+            return task;
+        }
+        return () -> {
+            try (Scope ignored = activate(captured)) {
+                return task.call();
+            }
+        };
+    }
+
+    Scope activate(Span span) {
+        Span previous = CURRENT.get();
+        if (previous == span) {
+            return Scope.NOOP;
+        }
+        CURRENT.set(span);
+        TraceContext context = span.getContext();
+        String previousTraceId = MDC.get(MDC_TRACE_ID);
+        if (context != null) {
+            MDC.put(MDC_TRACE_ID, context.getTraceId());
+        }
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+            if (previousTraceId != null) {
+                MDC.put(MDC_TRACE_ID, previousTraceId);
+            } else {
+                MDC.remove(MDC_TRACE_ID);
+            }
+        };
+    }
+
+    void export(Span span) {
+        exporter.export(span);
+    }
+
+    static long epochNanos() {
+        return EPOCH_BASE_NANOS + (System.nanoTime() - NANO_BASE);
+    }
+
+    /**
+     * 当前 Span 的作用域，关闭后恢复之前的 Span
+     */
+    @FunctionalInterface
+    public interface Scope extends AutoCloseable {
+
+        Scope NOOP = () -> {
+        };
+
+        @Override
+        void close();
+    }
+}
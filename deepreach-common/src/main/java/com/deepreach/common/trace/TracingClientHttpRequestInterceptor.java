@@ -0,0 +1,46 @@
+package com.deepreach.common.trace;
+
+import java.io.IOException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * RestTemplate 出站请求的 CLIENT Span，并通过 traceparent 请求头向下游传递上下文
+ */
+@Component
+@RequiredArgsConstructor
+public class TracingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Tracer tracer;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String method = request.getMethod().name();
+        Span span = tracer.startSpan(method, SpanKind.CLIENT);
+        if (span.getContext() != null) {
+            request.getHeaders().set(TraceContext.TRACEPARENT, span.getContext().toTraceparent());
+        }
+        span.setAttribute("http.request.method", method)
+            .setAttribute("server.address", String.valueOf(request.getURI().getHost()))
+            .setAttribute("url.path", String.valueOf(request.getURI().getPath()));
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int status = response.getStatusCode().value();
+            span.setAttribute("http.response.status_code", status);
+            if (status >= 400) {
+                span.recordError("HTTP " + status);
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
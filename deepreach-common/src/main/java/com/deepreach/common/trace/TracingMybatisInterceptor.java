@@ -0,0 +1,73 @@
+package com.deepreach.common.trace;
+
+import java.util.Properties;
+import lombok.RequiredArgsConstructor;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+/**
+ * 为 MyBatis 语句创建 CLIENT Span
+ *
+ * 只在当前存在记录中的 Span 时创建（定时任务等无入口链路的语句不记录），Span 以 Mapper 语句ID命名，
+ * 不记录 SQL 文本与参数。分页插件等拦截器嵌套调用执行器时只记录最外层一次。
+ */
+@Component
+@RequiredArgsConstructor
+@Intercepts({
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+    @Signature(type = Executor.class, method = "query",
+        args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class}),
+    @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+public class TracingMybatisInterceptor implements Interceptor {
+
+    private static final ThreadLocal<Boolean> IN_STATEMENT = new ThreadLocal<>();
+
+    private final Tracer tracer;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (IN_STATEMENT.get() != null) {
+            return invocation.proceed();
+        }
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        Span span = tracer.startChildSpan("db " + statement.getId(), SpanKind.CLIENT);
+        if (!span.isRecording()) {
+            return invocation.proceed();
+        }
+        span.setAttribute("db.system", "mysql")
+            .setAttribute("db.operation", statement.getSqlCommandType().name())
+            .setAttribute("db.statement.id", statement.getId());
+        IN_STATEMENT.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            IN_STATEMENT.remove();
+            span.end();
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+        // 无配置项
+    }
+}
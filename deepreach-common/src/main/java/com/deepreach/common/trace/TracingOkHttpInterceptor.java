@@ -0,0 +1,48 @@
+package com.deepreach.common.trace;
+
+import java.io.IOException;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * OkHttp 出站请求的 CLIENT Span，并通过 traceparent 请求头向下游传递上下文
+ *
+ * 作为应用拦截器添加（{@code addInterceptor}），重试与重定向记为同一个 Span。
+ * 不注册为 Bean，避免未引入 OkHttp 的模块加载该类；由各模块创建客户端时传入 {@link Tracer} 构造。
+ */
+public class TracingOkHttpInterceptor implements Interceptor {
+
+    private final Tracer tracer;
+
+    public TracingOkHttpInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Span span = tracer.startSpan(request.method(), SpanKind.CLIENT);
+        if (span.getContext() != null) {
+            request = request.newBuilder()
+                .header(TraceContext.TRACEPARENT, span.getContext().toTraceparent())
+                .build();
+        }
+        span.setAttribute("http.request.method", request.method())
+            .setAttribute("server.address", request.url().host())
+            .setAttribute("url.path", request.url().encodedPath());
+        try {
+            Response response = chain.proceed(request);
+            span.setAttribute("http.response.status_code", response.code());
+            if (response.code() >= 400) {
+                span.recordError("HTTP " + response.code());
+            }
+            return response;
+        } catch (IOException | RuntimeException e) {
+            span.recordError(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+}
@@ -11,8 +11,6 @@ import java.util.stream.Collectors;
  */
 public final class UserHierarchyTreeBuilder {
 
-    public static final String USER_TREE_CACHE_KEY = "user:hierarchy:tree";
-
     private UserHierarchyTreeBuilder() {
         // utility class
     }
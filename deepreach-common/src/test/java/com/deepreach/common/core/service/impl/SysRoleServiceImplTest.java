@@ -0,0 +1,104 @@
+package com.deepreach.common.core.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepreach.common.core.mapper.SysRoleMapper;
+import com.deepreach.common.core.mapper.UserStatisticsFactMapper;
+import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.SubtreeStatisticsCache;
+import com.deepreach.common.core.support.UserNearCache;
+import com.deepreach.common.core.support.impl.LocalChangeBroadcaster;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * 角色分配/角色变更在层级频道上的通知：代理上级链与子树统计依赖这些通知刷新
+ */
+class SysRoleServiceImplTest {
+
+    private final List<String> hierarchyMessages = new CopyOnWriteArrayList<>();
+    private SysRoleMapper roleMapper;
+    private SubtreeStatisticsCache statisticsCache;
+    private SysRoleServiceImpl roleService;
+
+    @BeforeEach
+    void setUp() {
+        ChangeBroadcaster broadcaster = new LocalChangeBroadcaster();
+        broadcaster.subscribe(ChangeBroadcaster.CHANNEL_USER_HIERARCHY, hierarchyMessages::add);
+
+        statisticsCache = spy(new SubtreeStatisticsCache(mock(UserHierarchyService.class),
+            mock(UserStatisticsFactMapper.class), broadcaster));
+        ReflectionTestUtils.setField(statisticsCache, "enabled", true);
+        statisticsCache.init();
+
+        roleMapper = mock(SysRoleMapper.class);
+        roleService = new SysRoleServiceImpl();
+        ReflectionTestUtils.setField(roleService, "roleMapper", roleMapper);
+        ReflectionTestUtils.setField(roleService, "userNearCache", mock(UserNearCache.class));
+        ReflectionTestUtils.setField(roleService, "changeBroadcaster", broadcaster);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statisticsCache.stop();
+    }
+
+    @Test
+    void assignUserRolesMarksUserDirty() throws Exception {
+        when(roleMapper.insertUserRoles(42L, List.of(3L))).thenReturn(1);
+
+        roleService.assignUserRoles(42L, List.of(3L));
+
+        assertThat(hierarchyMessages).containsExactly("roles:42");
+        verify(statisticsCache, timeout(1000)).markDirty(List.of(42L));
+    }
+
+    @Test
+    void cancelUserRolesMarksUserDirty() {
+        roleService.cancelUserRoles(42L, List.of(3L));
+
+        assertThat(hierarchyMessages).containsExactly("roles:42");
+        verify(statisticsCache, timeout(1000)).markDirty(List.of(42L));
+    }
+
+    @Test
+    void roleStatusChangeMarksAllHoldersDirty() {
+        when(roleMapper.updateRole(any())).thenReturn(1);
+        when(roleMapper.selectUserIdsByRoleId(7L)).thenReturn(List.of(1L, 2L));
+
+        roleService.updateRoleStatus(7L, "1");
+
+        assertThat(hierarchyMessages).containsExactly("roles:1,2");
+        verify(statisticsCache, timeout(1000)).markDirty(List.of(1L, 2L));
+    }
+
+    @Test
+    void roleWithManyHoldersRequestsFullRefresh() {
+        List<Long> holders = new ArrayList<>();
+        for (long userId = 1; userId <= 1001; userId++) {
+            holders.add(userId);
+        }
+        when(roleMapper.updateRole(any())).thenReturn(1);
+        when(roleMapper.selectUserIdsByRoleId(7L)).thenReturn(holders);
+
+        roleService.updateRoleStatus(7L, "1");
+
+        assertThat(hierarchyMessages).containsExactly("roles:*");
+        verify(statisticsCache, after(200).never()).markDirty(anyCollection());
+    }
+}
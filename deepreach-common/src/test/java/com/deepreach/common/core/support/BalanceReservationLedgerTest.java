@@ -0,0 +1,111 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+
+class BalanceReservationLedgerTest {
+
+    private static final Long ACCOUNT = 7L;
+
+    private final BalanceReservationLedger ledger = new BalanceReservationLedger();
+
+    @Test
+    void holdsAreLimitedByBalanceMinusInFlight() {
+        long first = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("6"));
+        assertThat(first).isPositive();
+        assertThat(ledger.tryHold(ACCOUNT, amount("10"), 1, amount("5"))).isEqualTo(-1L);
+
+        ledger.settle(ACCOUNT, first, amount("4"));
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("6");
+        assertThat(ledger.tryHold(ACCOUNT, amount("10"), 1, amount("5"))).isPositive();
+    }
+
+    @Test
+    void releaseAndRepeatedSettleFreeOnlyOnce() {
+        long holdId = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("3"));
+        ledger.settle(ACCOUNT, holdId, BigDecimal.ZERO);
+        ledger.settle(ACCOUNT, holdId, amount("3"));
+
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void reconcileDropsSettledChargesCoveredByNewerSnapshot() {
+        long holdId = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("4"));
+        ledger.settle(ACCOUNT, holdId, amount("4"));
+
+        // 同一版本的快照不能说明扣费已落库
+        ledger.reconcile(ACCOUNT, amount("10"), 1, System.currentTimeMillis() + 1);
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("6");
+
+        // 结算晚于读取开始，快照未必包含该扣费
+        ledger.reconcile(ACCOUNT, amount("6"), 2, System.currentTimeMillis() - 1000);
+        assertThat(ledger.available(ACCOUNT, amount("6"), 2)).isEqualByComparingTo("2");
+
+        ledger.reconcile(ACCOUNT, amount("6"), 3, System.currentTimeMillis() + 1);
+        assertThat(ledger.available(ACCOUNT, amount("6"), 3)).isEqualByComparingTo("6");
+    }
+
+    @Test
+    void reconcileKeepsHoldsAndLaterSettlements() {
+        long settledId = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("2"));
+        ledger.settle(ACCOUNT, settledId, amount("2"));
+        ledger.tryHold(ACCOUNT, amount("10"), 1, amount("3"));
+
+        ledger.reconcile(ACCOUNT, amount("8"), 2, System.currentTimeMillis() + 1);
+        long later = ledger.tryHold(ACCOUNT, amount("8"), 2, amount("1"));
+        ledger.settle(ACCOUNT, later, amount("1"));
+        ledger.reconcile(ACCOUNT, amount("8"), 2, System.currentTimeMillis() + 1);
+
+        assertThat(ledger.available(ACCOUNT, amount("8"), 2)).isEqualByComparingTo("4");
+    }
+
+    @Test
+    void staleSnapshotIsReplacedByReconciledOne() {
+        long holdId = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("4"));
+        ledger.settle(ACCOUNT, holdId, amount("4"));
+        ledger.reconcile(ACCOUNT, amount("6"), 2, System.currentTimeMillis() + 1);
+
+        // 仍持有旧快照（余额 10）的请求按对账后的余额 6 计算
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("6");
+        assertThat(ledger.tryHold(ACCOUNT, amount("10"), 1, amount("7"))).isEqualTo(-1L);
+        assertThat(ledger.tryHold(ACCOUNT, amount("10"), 1, amount("6"))).isPositive();
+    }
+
+    @Test
+    void olderReconcileIsIgnored() {
+        ledger.tryHold(ACCOUNT, amount("10"), 3, amount("1"));
+        ledger.reconcile(ACCOUNT, amount("9"), 3, System.currentTimeMillis());
+        ledger.reconcile(ACCOUNT, amount("20"), 2, System.currentTimeMillis());
+
+        assertThat(ledger.available(ACCOUNT, amount("1"), 1)).isEqualByComparingTo("8");
+    }
+
+    @Test
+    void expireRemovesTimedOutEntriesAndIdleAccounts() throws InterruptedException {
+        long holdId = ledger.tryHold(ACCOUNT, amount("10"), 1, amount("2"));
+        ledger.tryHold(8L, amount("10"), 1, amount("2"));
+        ledger.settle(ACCOUNT, holdId, amount("2"));
+        Thread.sleep(5);
+
+        assertThat(ledger.expire(0, 60_000)).containsExactly(ACCOUNT);
+        assertThat(ledger.available(8L, amount("10"), 1)).isEqualByComparingTo("10");
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("8");
+
+        assertThat(ledger.expire(0, 0)).isEmpty();
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("10");
+    }
+
+    @Test
+    void reconcileWithoutLedgerIsNoop() {
+        ledger.reconcile(ACCOUNT, amount("5"), 9, System.currentTimeMillis());
+
+        assertThat(ledger.available(ACCOUNT, amount("10"), 1)).isEqualByComparingTo("10");
+    }
+
+    private static BigDecimal amount(String value) {
+        return new BigDecimal(value);
+    }
+}
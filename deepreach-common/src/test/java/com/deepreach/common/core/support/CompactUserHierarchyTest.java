@@ -0,0 +1,183 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.domain.dto.UserHierarchyTreeDTO;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 紧凑层级与原层级树（UserHierarchyTreeBuilder + 原 Redis 版查询逻辑）的等价性
+ */
+class CompactUserHierarchyTest {
+
+    @Test
+    void matchesLegacyTreeOnRandomForest() {
+        Map<Long, Long> parents = randomForest(3000, 11L);
+        UserHierarchyTreeDTO tree = UserHierarchyTreeBuilder.build(toRelations(parents));
+        CompactUserHierarchy compact = CompactUserHierarchy.build(tree.getParentMapping());
+
+        assertEquivalent(tree, compact, queryIds(parents), new Random(3L));
+    }
+
+    @Test
+    void matchesLegacyTreeWithDanglingAndNonPositiveParents() {
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        parents.put(3L, 0L);
+        parents.put(4L, 3L);
+        parents.put(5L, -1L);
+        parents.put(6L, 99L);
+        parents.put(7L, 99L);
+        parents.put(8L, 6L);
+        parents.put(9L, 98L);
+        UserHierarchyTreeDTO tree = UserHierarchyTreeBuilder.build(toRelations(parents));
+        CompactUserHierarchy compact = CompactUserHierarchy.build(tree.getParentMapping());
+
+        Set<Long> ids = queryIds(parents);
+        ids.add(0L);
+        ids.add(-1L);
+        assertEquivalent(tree, compact, ids, new Random(5L));
+        assertThat(compact.childrenOf(99L)).containsExactly(6L, 7L);
+        assertThat(compact.isAncestor(99L, 8L)).isTrue();
+        assertThat(compact.isAncestor(98L, 8L)).isFalse();
+    }
+
+    @Test
+    void serializedFormRoundTripsThroughHeapAndDirectBuffers() {
+        Map<Long, Long> parents = randomForest(1000, 17L);
+        parents.put(5000L, 4000L);
+        CompactUserHierarchy compact = CompactUserHierarchy.build(parents);
+        byte[] bytes = compact.toBytes();
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        assertThat(CompactUserHierarchy.fromBytes(ByteBuffer.wrap(bytes)).toBytes()).isEqualTo(bytes);
+        assertThat(CompactUserHierarchy.fromBytes(direct).toBytes()).isEqualTo(bytes);
+    }
+
+    private static void assertEquivalent(UserHierarchyTreeDTO tree, CompactUserHierarchy compact,
+                                         Set<Long> ids, Random random) {
+        assertThat(compact.rootIds()).isEqualTo(tree.getRootUserIds());
+        List<Long> all = new ArrayList<>(ids);
+        for (Long userId : ids) {
+            assertThat(compact.parentOf(userId)).as("parentOf %s", userId)
+                .isEqualTo(tree.getParentMapping().get(userId));
+            assertThat(compact.childrenOf(userId)).as("childrenOf %s", userId)
+                .isEqualTo(tree.getChildrenMapping().getOrDefault(userId, Collections.emptyList()));
+
+            Set<Long> legacyDescendants = legacyDescendants(tree, userId);
+            long[] descendants = compact.descendantsOf(userId);
+            Set<Long> compactDescendants = new HashSet<>();
+            for (long descendant : descendants) {
+                compactDescendants.add(descendant);
+            }
+            assertThat(compactDescendants).as("descendantsOf %s", userId).isEqualTo(legacyDescendants);
+            assertThat(descendants).hasSize(legacyDescendants.size());
+            assertThat(compact.countDescendants(userId)).isEqualTo(legacyDescendants.size());
+
+            for (int i = 0; i < 5; i++) {
+                Long other = all.get(random.nextInt(all.size()));
+                assertThat(compact.isAncestor(other, userId)).as("isAncestor %s %s", other, userId)
+                    .isEqualTo(legacyIsAncestor(tree, other, userId));
+            }
+            Long parent = tree.getParentMapping().get(userId);
+            if (parent != null) {
+                assertThat(compact.isAncestor(parent, userId)).isEqualTo(legacyIsAncestor(tree, parent, userId));
+            }
+        }
+    }
+
+    /**
+     * 原 UserHierarchyServiceImpl.findDescendantIds
+     */
+    private static Set<Long> legacyDescendants(UserHierarchyTreeDTO tree, Long userId) {
+        Map<Long, List<Long>> childrenMap = tree.getChildrenMapping();
+        Set<Long> descendants = new LinkedHashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(userId);
+        while (!stack.isEmpty()) {
+            Long current = stack.pop();
+            for (Long child : childrenMap.getOrDefault(current, Collections.emptyList())) {
+                if (child != null && descendants.add(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+        descendants.remove(userId);
+        return descendants;
+    }
+
+    /**
+     * 原 UserHierarchyServiceImpl.isAncestor
+     */
+    private static boolean legacyIsAncestor(UserHierarchyTreeDTO tree, Long ancestorId, Long targetId) {
+        if (Objects.equals(ancestorId, targetId)) {
+            return false;
+        }
+        Long parent = tree.getParentMapping().get(targetId);
+        while (parent != null && !Objects.equals(parent, ancestorId)) {
+            parent = tree.getParentMapping().get(parent);
+        }
+        return Objects.equals(parent, ancestorId);
+    }
+
+    /**
+     * 无环森林：约 2% 为根，另有少量用户指向不存在的上级
+     */
+    private static Map<Long, Long> randomForest(int users, long seed) {
+        Random random = new Random(seed);
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        for (long userId = 1; userId <= users; userId++) {
+            int roll = random.nextInt(100);
+            Long parent;
+            if (userId == 1 || roll < 2) {
+                parent = null;
+            } else if (roll < 4) {
+                parent = (long) users + 1 + random.nextInt(5);
+            } else {
+                parent = 1 + (long) random.nextInt((int) userId - 1);
+            }
+            parents.put(userId, parent);
+        }
+        return parents;
+    }
+
+    private static Set<Long> queryIds(Map<Long, Long> parents) {
+        Set<Long> ids = new LinkedHashSet<>(parents.keySet());
+        for (Long parent : parents.values()) {
+            if (parent != null) {
+                ids.add(parent);
+            }
+        }
+        ids.add(Long.MAX_VALUE);
+        return ids;
+    }
+
+    private static List<UserHierarchyNodeDTO> toRelations(Map<Long, Long> parents) {
+        List<UserHierarchyNodeDTO> relations = new ArrayList<>(parents.size());
+        parents.forEach((userId, parentId) -> {
+            UserHierarchyNodeDTO relation = new UserHierarchyNodeDTO();
+            relation.setUserId(userId);
+            relation.setParentUserId(parentId);
+            relations.add(relation);
+        });
+        return relations;
+    }
+}
@@ -0,0 +1,102 @@
+package com.deepreach.common.core.support;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepreach.common.core.mapper.SysOperLogDailyStatMapper;
+import com.deepreach.common.core.mapper.SysOperLogMapper;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class OperLogStorageManagerTest {
+
+    private SysOperLogMapper operLogMapper;
+    private SysOperLogDailyStatMapper dailyStatMapper;
+    private PlatformTransactionManager transactionManager;
+    private OperLogStorageManager storageManager;
+
+    @BeforeEach
+    void setUp() {
+        operLogMapper = mock(SysOperLogMapper.class);
+        dailyStatMapper = mock(SysOperLogDailyStatMapper.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(operLogMapper.selectOperLogPartitions()).thenReturn(List.of());
+
+        storageManager = new OperLogStorageManager(operLogMapper, dailyStatMapper, transactionManager);
+        ReflectionTestUtils.setField(storageManager, "rollupEnabled", true);
+        ReflectionTestUtils.setField(storageManager, "purgeBatchSize", 100);
+        storageManager.init();
+    }
+
+    @Test
+    void rollupReplacesEachDayInOneTransaction() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        when(dailyStatMapper.selectMaxStatDate()).thenReturn(yesterday);
+
+        storageManager.rollup();
+
+        InOrder order = inOrder(transactionManager, dailyStatMapper);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(dailyStatMapper).deleteDay(yesterday);
+        order.verify(dailyStatMapper).rollupDay(yesterday.atStartOfDay(), LocalDate.now().atStartOfDay());
+        order.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void purgeInsideDayDropsEarlierStatsAndRerollsBoundary() {
+        LocalDate boundary = LocalDate.now().minusDays(10);
+
+        storageManager.purgeBefore(boundary.atTime(12, 0));
+
+        InOrder order = inOrder(operLogMapper, dailyStatMapper);
+        order.verify(operLogMapper).deleteOperLogBefore(boundary.atTime(12, 0), 100);
+        order.verify(dailyStatMapper).deleteBefore(boundary);
+        order.verify(dailyStatMapper).deleteDay(boundary);
+        order.verify(dailyStatMapper).rollupDay(boundary.atStartOfDay(), boundary.plusDays(1).atStartOfDay());
+    }
+
+    @Test
+    void purgeAtMidnightOnlyDropsEarlierStats() {
+        LocalDate boundary = LocalDate.now().minusDays(10);
+
+        storageManager.purgeBefore(boundary.atStartOfDay());
+
+        verify(dailyStatMapper).deleteBefore(boundary);
+        verify(dailyStatMapper, never()).deleteDay(any());
+        verify(dailyStatMapper, never()).rollupDay(any(), any());
+    }
+
+    @Test
+    void refreshSkipsDaysNotRolledUpYet() {
+        LocalDate today = LocalDate.now();
+        LocalDate past = today.minusDays(3);
+
+        storageManager.refreshDays(List.of(past, past, today));
+
+        verify(dailyStatMapper).deleteDay(past);
+        verify(dailyStatMapper).rollupDay(past.atStartOfDay(), past.plusDays(1).atStartOfDay());
+        verify(dailyStatMapper, never()).deleteDay(today);
+    }
+
+    @Test
+    void refreshIsSkippedWhenRollupDisabled() {
+        ReflectionTestUtils.setField(storageManager, "rollupEnabled", false);
+
+        storageManager.refreshDays(List.of(LocalDate.now().minusDays(3)));
+        storageManager.purgeBefore(LocalDateTime.now().minusDays(3));
+
+        verify(dailyStatMapper, never()).rollupDay(any(), any());
+    }
+}
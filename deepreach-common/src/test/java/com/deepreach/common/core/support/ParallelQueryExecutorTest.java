@@ -0,0 +1,122 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.deepreach.common.exception.ServiceException;
+import com.deepreach.common.trace.Tracer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class ParallelQueryExecutorTest {
+
+    private ParallelQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ParallelQueryExecutor(new Tracer(null));
+        ReflectionTestUtils.setField(executor, "poolSize", 4);
+        ReflectionTestUtils.setField(executor, "maxDbConcurrency", 2);
+        ReflectionTestUtils.setField(executor, "defaultTimeoutMillis", 5000L);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.stop();
+    }
+
+    @Test
+    void joinReturnsAllResults() {
+        try (ParallelQueryExecutor.Scope scope = executor.openScope()) {
+            ParallelQueryExecutor.Subtask<Integer> a = scope.fork(() -> 1);
+            ParallelQueryExecutor.Subtask<String> b = scope.fork(() -> "b");
+            scope.join();
+            assertThat(a.get()).isEqualTo(1);
+            assertThat(b.get()).isEqualTo("b");
+        }
+    }
+
+    @Test
+    void timeoutInterruptsRunningQuery() throws Exception {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (ParallelQueryExecutor.Scope scope = executor.openScope(200)) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return null;
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(ServiceException.class).hasMessageContaining("超时");
+        }
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void firstFailureCancelsOthers() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try (ParallelQueryExecutor.Scope scope = executor.openScope()) {
+            scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            // 等第一个查询开始执行，否则它可能在开始前就被取消，不会收到中断
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            scope.fork(() -> {
+                throw new IllegalArgumentException("boom");
+            });
+            assertThatThrownBy(scope::join).isInstanceOf(IllegalArgumentException.class).hasMessage("boom");
+        }
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void nestedScopeRunsInlineWithOuterDeadline() {
+        AtomicLong outerDeadline = new AtomicLong();
+        AtomicLong innerDeadline = new AtomicLong();
+        try (ParallelQueryExecutor.Scope scope = executor.openScope(1000)) {
+            ParallelQueryExecutor.Subtask<String> outer = scope.fork(() -> {
+                outerDeadline.set(ParallelQueryExecutor.currentDeadline());
+                String thread = Thread.currentThread().getName();
+                try (ParallelQueryExecutor.Scope nested = executor.openScope(60_000)) {
+                    ParallelQueryExecutor.Subtask<String> inner = nested.fork(() -> {
+                        innerDeadline.set(ParallelQueryExecutor.currentDeadline());
+                        return Thread.currentThread().getName();
+                    });
+                    nested.join();
+                    assertThat(inner.get()).isEqualTo(thread);
+                }
+                assertThat(ParallelQueryExecutor.currentDeadline()).isEqualTo(outerDeadline.get());
+                return thread;
+            });
+            scope.join();
+            assertThat(outer.get()).startsWith("parallel-query-");
+        }
+        assertThat(innerDeadline.get()).isEqualTo(outerDeadline.get());
+        assertThat(ParallelQueryExecutor.currentDeadline()).isNull();
+    }
+
+    @Test
+    void permitsAreBoundedByDeadline() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        assertThat(executor.acquirePermit(deadline)).isTrue();
+        assertThat(executor.acquirePermit(deadline)).isTrue();
+        assertThat(executor.acquirePermit(deadline)).isFalse();
+        executor.releasePermit();
+        assertThat(executor.acquirePermit(System.nanoTime())).isTrue();
+    }
+}
@@ -0,0 +1,118 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepreach.common.security.enums.UserIdentity;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+
+class SubtreeStatisticsSnapshotTest {
+
+    private static final int USERS = 400;
+
+    @Test
+    void incrementalRoleAndAmountChangesMatchFullBuild() {
+        Random random = new Random(21L);
+        Map<Long, Long> parents = new HashMap<>();
+        Map<Long, SubtreeStatisticsSnapshot.UserFacts> facts = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            parents.put(userId, userId == 1 || random.nextInt(30) == 0 ? null : 1 + (long) random.nextInt((int) userId - 1));
+            facts.put(userId, randomFacts(random));
+        }
+        CompactUserHierarchy hierarchy = CompactUserHierarchy.build(parents);
+        SubtreeStatisticsSnapshot snapshot = SubtreeStatisticsSnapshot.build(hierarchy, facts);
+
+        for (int round = 0; round < 30; round++) {
+            List<Long> changed = new ArrayList<>();
+            for (int i = 0; i < 1 + random.nextInt(5); i++) {
+                long userId = 1 + random.nextInt(USERS);
+                facts.put(userId, randomFacts(random));
+                changed.add(userId);
+            }
+            Map<Long, SubtreeStatisticsSnapshot.UserFacts> latest = new HashMap<>();
+            for (Long userId : changed) {
+                latest.put(userId, facts.get(userId));
+            }
+
+            assertThat(snapshot.apply(changed, latest)).isTrue();
+            SubtreeStatisticsSnapshot rebuilt = SubtreeStatisticsSnapshot.build(hierarchy, facts);
+            for (long userId = 1; userId <= USERS; userId++) {
+                assertThat(describe(snapshot, userId)).as("round %s, user %s", round, userId)
+                    .isEqualTo(describe(rebuilt, userId));
+            }
+        }
+    }
+
+    @Test
+    void stoppedUserRequiresRebuild() {
+        Map<Long, Long> parents = new HashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        Map<Long, SubtreeStatisticsSnapshot.UserFacts> facts = new HashMap<>();
+        facts.put(1L, randomFacts(new Random(1L)));
+        facts.put(2L, randomFacts(new Random(2L)));
+        SubtreeStatisticsSnapshot snapshot = SubtreeStatisticsSnapshot.build(CompactUserHierarchy.build(parents), facts);
+
+        assertThat(snapshot.apply(List.of(2L), new HashMap<>())).isFalse();
+    }
+
+    private static SubtreeStatisticsSnapshot.UserFacts randomFacts(Random random) {
+        Set<String> roleKeys = new HashSet<>();
+        UserIdentity[] identities = UserIdentity.values();
+        int roles = random.nextInt(3);
+        for (int i = 0; i < roles; i++) {
+            roleKeys.add(identities[random.nextInt(identities.length)].getRoleKey());
+        }
+        Map<String, Long> instances = new HashMap<>();
+        if (random.nextBoolean()) {
+            instances.put(SubtreeStatisticsSnapshot.instanceKey("0", "platform-" + random.nextInt(3)), 1L + random.nextInt(4));
+        }
+        Map<String, Long> characters = new HashMap<>();
+        if (random.nextBoolean()) {
+            characters.put("type-" + random.nextInt(2), 1L + random.nextInt(3));
+        }
+        return SubtreeStatisticsSnapshot.UserFacts.of(roleKeys, "user", "nick",
+            BigDecimal.valueOf(random.nextInt(10_000), 2), BigDecimal.valueOf(random.nextInt(1_000), 2),
+            instances, characters);
+    }
+
+    /**
+     * 汇总一个用户的全部查询结果，金额统一去掉末尾的 0 以便比较
+     */
+    private static String describe(SubtreeStatisticsSnapshot snapshot, long userId) {
+        StringBuilder text = new StringBuilder();
+        text.append(new TreeMap<>(snapshot.countUsersByRoleKey(userId)));
+        for (Map<String, Object> row : snapshot.sumCommissionByRoleKey(userId)) {
+            text.append(normalize(row));
+        }
+        for (Map<String, Object> row : snapshot.sumBuyerRechargeByRoleKey(userId)) {
+            text.append(normalize(row));
+        }
+        text.append(normalize(new HashMap<>(snapshot.sumBuyerRechargeByAgentRoleKey(userId))));
+        for (Map<String, Object> row : snapshot.countInstancesByPlatform(userId)) {
+            text.append(normalize(row));
+        }
+        for (Map<String, Object> row : snapshot.countAiCharactersByType(userId)) {
+            text.append(normalize(row));
+        }
+        for (Map<String, Object> row : snapshot.selectBuyerMainDetails(userId)) {
+            text.append(normalize(row));
+        }
+        return text.toString();
+    }
+
+    private static Map<String, Object> normalize(Map<String, ?> row) {
+        Map<String, Object> normalized = new TreeMap<>();
+        row.forEach((key, value) -> normalized.put(key, value instanceof BigDecimal
+            ? ((BigDecimal) value).stripTrailingZeros().toPlainString() : value));
+        return normalized;
+    }
+}
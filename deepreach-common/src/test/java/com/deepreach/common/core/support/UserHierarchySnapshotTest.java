@@ -0,0 +1,151 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class UserHierarchySnapshotTest {
+
+    @Test
+    void diffOfSameRelationsIsEmpty() {
+        List<UserHierarchyNodeDTO> relations = toRelations(randomParents(500, 1L));
+        UserHierarchySnapshot snapshot = snapshotOf(1L, relations);
+
+        assertThat(snapshot.diff(relations)).isEmpty();
+    }
+
+    @Test
+    void diffReportsUpsertsAndRemovals() {
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        parents.put(3L, 2L);
+        UserHierarchySnapshot snapshot = snapshotOf(1L, toRelations(parents));
+
+        parents.remove(3L);
+        parents.put(2L, null);
+        parents.put(4L, 1L);
+        List<UserHierarchySnapshot.Change> changes = snapshot.diff(toRelations(parents));
+
+        assertThat(changes).extracting(UserHierarchySnapshot.Change::encode)
+            .containsExactlyInAnyOrder("+2,", "+4,1", "-3");
+    }
+
+    @Test
+    void applyMatchesFullBuildForRandomChanges() {
+        Random random = new Random(42L);
+        Map<Long, Long> parents = randomParents(2000, 7L);
+        UserHierarchySnapshot snapshot = snapshotOf(1L, toRelations(parents));
+        for (int round = 0; round < 50; round++) {
+            mutate(parents, random);
+            List<UserHierarchyNodeDTO> relations = toRelations(parents);
+            List<UserHierarchySnapshot.Change> changes = snapshot.diff(relations);
+
+            UserHierarchySnapshot applied = snapshot.apply(round + 2L, changes);
+            UserHierarchySnapshot rebuilt = snapshotOf(round + 2L, relations);
+
+            assertThat(applied.getVersion()).isEqualTo(round + 2L);
+            assertThat(applied.toBytes()).isEqualTo(rebuilt.toBytes());
+            snapshot = applied;
+        }
+    }
+
+    @Test
+    void removedParentLeavesDanglingChildrenUntilReAdded() {
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, 1L);
+        parents.put(3L, 2L);
+        parents.put(4L, 2L);
+        UserHierarchySnapshot snapshot = snapshotOf(1L, toRelations(parents));
+
+        UserHierarchySnapshot removed = snapshot.apply(2L, List.of(UserHierarchySnapshot.Change.remove(2L)));
+        CompactUserHierarchy hierarchy = removed.getHierarchy();
+        assertThat(hierarchy.contains(2L)).isFalse();
+        assertThat(hierarchy.rootIds()).containsExactly(1L, 3L, 4L);
+        assertThat(hierarchy.childrenOf(2L)).containsExactly(3L, 4L);
+        assertThat(hierarchy.isAncestor(1L, 3L)).isFalse();
+
+        UserHierarchySnapshot restored = removed.apply(3L, List.of(UserHierarchySnapshot.Change.upsert(2L, 1L)));
+        assertThat(restored.toBytes()).isEqualTo(snapshotOf(3L, toRelations(parents)).toBytes());
+        assertThat(restored.getHierarchy().isAncestor(1L, 4L)).isTrue();
+    }
+
+    @Test
+    void lastChangeForSameUserWins() {
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        parents.put(1L, null);
+        parents.put(2L, null);
+        parents.put(3L, 1L);
+        UserHierarchySnapshot snapshot = snapshotOf(1L, toRelations(parents));
+
+        UserHierarchySnapshot applied = snapshot.apply(2L, List.of(
+            UserHierarchySnapshot.Change.remove(3L),
+            UserHierarchySnapshot.Change.upsert(3L, 2L)));
+
+        assertThat(applied.getHierarchy().parentOf(3L)).isEqualTo(2L);
+        assertThat(applied.getHierarchy().childrenOf(1L)).isEmpty();
+    }
+
+    @Test
+    void changeEncodingRoundTrips() {
+        for (UserHierarchySnapshot.Change change : List.of(
+            UserHierarchySnapshot.Change.upsert(10L, 3L),
+            UserHierarchySnapshot.Change.upsert(11L, null),
+            UserHierarchySnapshot.Change.remove(12L))) {
+            UserHierarchySnapshot.Change decoded = UserHierarchySnapshot.Change.decode(change.encode());
+            assertThat(decoded.getUserId()).isEqualTo(change.getUserId());
+            assertThat(decoded.getParentUserId()).isEqualTo(change.getParentUserId());
+            assertThat(decoded.isRemoved()).isEqualTo(change.isRemoved());
+        }
+    }
+
+    /**
+     * 新增叶子、删除用户、调整上级、指向缺失上级，各类变更混合
+     */
+    private static void mutate(Map<Long, Long> parents, Random random) {
+        List<Long> ids = new ArrayList<>(parents.keySet());
+        int operations = 1 + random.nextInt(20);
+        for (int i = 0; i < operations; i++) {
+            long userId = ids.get(random.nextInt(ids.size()));
+            switch (random.nextInt(5)) {
+                case 0 -> parents.put(5000L + random.nextInt(5000), userId);
+                case 1 -> parents.remove(userId);
+                case 2 -> parents.put(userId, ids.get(random.nextInt(ids.size())));
+                case 3 -> parents.put(userId, 100_000L + random.nextInt(10));
+                default -> parents.put(userId, null);
+            }
+        }
+    }
+
+    private static Map<Long, Long> randomParents(int users, long seed) {
+        Random random = new Random(seed);
+        Map<Long, Long> parents = new LinkedHashMap<>();
+        for (long userId = 1; userId <= users; userId++) {
+            parents.put(userId, userId == 1 || random.nextInt(50) == 0 ? null : 1 + (long) random.nextInt((int) userId - 1));
+        }
+        return parents;
+    }
+
+    private static List<UserHierarchyNodeDTO> toRelations(Map<Long, Long> parents) {
+        List<UserHierarchyNodeDTO> relations = new ArrayList<>(parents.size());
+        parents.forEach((userId, parentId) -> {
+            UserHierarchyNodeDTO relation = new UserHierarchyNodeDTO();
+            relation.setUserId(userId);
+            relation.setParentUserId(parentId);
+            relations.add(relation);
+        });
+        return relations;
+    }
+
+    private static UserHierarchySnapshot snapshotOf(long version, List<UserHierarchyNodeDTO> relations) {
+        return UserHierarchySnapshot.of(version, UserHierarchyTreeBuilder.build(relations));
+    }
+}
@@ -0,0 +1,129 @@
+package com.deepreach.common.core.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.deepreach.common.core.domain.dto.UserHierarchyNodeDTO;
+import com.deepreach.common.core.mapper.SysUserTreeIntervalMapper;
+import com.deepreach.common.utils.UserHierarchyTreeBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+class UserTreeIntervalSynchronizerTest {
+
+    private static final String SYNCED_VERSION_KEY = "user:hierarchy:interval:version";
+
+    private final Map<String, Object> redis = new HashMap<>();
+    private SysUserTreeIntervalMapper intervalMapper;
+    private ValueOperations<String, Object> valueOperations;
+    private PlatformTransactionManager transactionManager;
+    private UserTreeIntervalSynchronizer synchronizer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        intervalMapper = mock(SysUserTreeIntervalMapper.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.hasKey(anyString())).thenAnswer(invocation -> redis.containsKey(invocation.<String>getArgument(0)));
+        when(redisTemplate.delete(anyString())).thenAnswer(invocation -> redis.remove(invocation.<String>getArgument(0)) != null);
+        when(valueOperations.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(valueOperations).set(anyString(), any());
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        synchronizer = new UserTreeIntervalSynchronizer(intervalMapper, redisTemplate, mock(RedisLock.class), transactionManager);
+        ReflectionTestUtils.setField(synchronizer, "versionCheckMillis", 0L);
+        synchronizer.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        synchronizer.stop();
+    }
+
+    @Test
+    void allChunksCommitTogetherBeforeVersionIsPublished() {
+        UserHierarchySnapshot latest = snapshot(2L, 2500);
+
+        ReflectionTestUtils.invokeMethod(synchronizer, "sync", latest);
+
+        InOrder order = inOrder(transactionManager, intervalMapper, valueOperations);
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(intervalMapper, times(3)).upsertBatch(anyList());
+        order.verify(intervalMapper).deleteOlderThan(2L);
+        order.verify(transactionManager).commit(any());
+        order.verify(valueOperations).set(SYNCED_VERSION_KEY, 2L);
+        assertThat(synchronizer.isPublished(2L)).isTrue();
+        assertThat(synchronizer.isPublished(3L)).isFalse();
+    }
+
+    @Test
+    void failedSyncRollsBackAndStaysUnpublished() {
+        when(intervalMapper.upsertBatch(anyList())).thenReturn(1000).thenThrow(new IllegalStateException("db down"));
+
+        ReflectionTestUtils.invokeMethod(synchronizer, "sync", snapshot(2L, 2500));
+
+        verify(transactionManager).rollback(any());
+        verify(transactionManager, never()).commit(any());
+        verify(intervalMapper, never()).deleteOlderThan(anyLong());
+        assertThat(redis).doesNotContainKey(SYNCED_VERSION_KEY);
+        assertThat(synchronizer.isPublished(2L)).isFalse();
+    }
+
+    @Test
+    void versionSyncedByAnotherNodeIsReadFromRedis() {
+        assertThat(synchronizer.isPublished(5L)).isFalse();
+
+        redis.put(SYNCED_VERSION_KEY, 5L);
+
+        assertThat(synchronizer.isPublished(5L)).isTrue();
+        assertThat(synchronizer.isPublished(4L)).isTrue();
+        assertThat(synchronizer.isPublished(6L)).isFalse();
+    }
+
+    @Test
+    void cachedPublishedVersionOnlyLagsBehind() {
+        ReflectionTestUtils.setField(synchronizer, "versionCheckMillis", 60_000L);
+        assertThat(synchronizer.isPublished(5L)).isFalse();
+
+        redis.put(SYNCED_VERSION_KEY, 5L);
+
+        // 检查间隔内沿用偏旧的结果，调用方改用 IN 列表条件
+        assertThat(synchronizer.isPublished(5L)).isFalse();
+    }
+
+    private static UserHierarchySnapshot snapshot(long version, int users) {
+        List<UserHierarchyNodeDTO> relations = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            UserHierarchyNodeDTO relation = new UserHierarchyNodeDTO();
+            relation.setUserId(userId);
+            relation.setParentUserId(userId == 1 ? null : userId / 2);
+            relations.add(relation);
+        }
+        return UserHierarchySnapshot.of(version, UserHierarchyTreeBuilder.build(relations));
+    }
+}
@@ -0,0 +1,114 @@
+package com.deepreach.common.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.deepreach.common.core.domain.model.LoginUser;
+import com.deepreach.common.core.support.LocalCacheManager;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class JwtTokenUtilTest {
+
+    private static final String CACHE_NAME = "jwt-verified-claims";
+
+    private LocalCacheManager cacheManager;
+    private JwtTokenUtil jwtTokenUtil;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new LocalCacheManager();
+        jwtTokenUtil = new JwtTokenUtil();
+        ReflectionTestUtils.setField(jwtTokenUtil, "secret", "unit-test-secret-key-with-at-least-64-characters-for-hs512-signing");
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 3600L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "refreshExpiration", 7200L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "issuer", "deepreach");
+        ReflectionTestUtils.setField(jwtTokenUtil, "audience", "deepreach-users");
+        ReflectionTestUtils.setField(jwtTokenUtil, "claimsCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(jwtTokenUtil, "cacheManager", cacheManager);
+        jwtTokenUtil.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cacheManager.stop();
+    }
+
+    @Test
+    void verifiedClaimsAreServedFromCache() {
+        String token = jwtTokenUtil.generateToken(loginUser());
+
+        JwtTokenUtil.TokenInfo first = jwtTokenUtil.verifyToken(token);
+        JwtTokenUtil.TokenInfo second = jwtTokenUtil.verifyToken(token);
+
+        assertThat(first).isNotNull();
+        assertThat(first.getSubject()).isEqualTo("alice");
+        assertThat(first.getUserId()).isEqualTo(42L);
+        assertThat(second.getSubject()).isEqualTo(first.getSubject());
+        assertThat(stat("size")).isEqualTo(1L);
+        assertThat(stat("missCount")).isEqualTo(1L);
+        assertThat(stat("hitCount")).isEqualTo(1L);
+    }
+
+    @Test
+    void claimGettersShareOneVerification() {
+        String token = jwtTokenUtil.generateToken(loginUser());
+
+        assertThat(jwtTokenUtil.getUsernameFromToken(token)).isEqualTo("alice");
+        assertThat(jwtTokenUtil.getUserIdFromToken(token)).isEqualTo(42L);
+        assertThat(jwtTokenUtil.isAccessToken(token)).isTrue();
+        assertThat(jwtTokenUtil.getTokenRemainingTime(token)).isBetween(3500L, 3600L);
+
+        assertThat(stat("missCount")).isEqualTo(1L);
+        assertThat(stat("hitCount")).isEqualTo(3L);
+    }
+
+    @Test
+    void tamperedTokenIsRejectedAndNotCached() {
+        String token = jwtTokenUtil.generateToken(loginUser());
+        String tampered = token.substring(0, token.length() - 2)
+            + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThat(jwtTokenUtil.verifyToken(tampered)).isNull();
+        assertThat(jwtTokenUtil.verifyToken(tampered)).isNull();
+        assertThat(stat("size")).isEqualTo(0L);
+    }
+
+    @Test
+    void cachedClaimsExpireWithToken() throws InterruptedException {
+        ReflectionTestUtils.setField(jwtTokenUtil, "expiration", 1L);
+        String token = jwtTokenUtil.generateToken("bob");
+        assertThat(jwtTokenUtil.verifyToken(token)).isNotNull();
+
+        Thread.sleep(1500);
+
+        assertThat(jwtTokenUtil.verifyToken(token)).isNull();
+        assertThat(jwtTokenUtil.validateToken(token)).isFalse();
+    }
+
+    @Test
+    void distinctTokensHaveDistinctEntries() {
+        String access = jwtTokenUtil.generateToken(loginUser());
+        String refresh = jwtTokenUtil.generateRefreshToken(loginUser());
+
+        assertThat(jwtTokenUtil.isRefreshToken(refresh)).isTrue();
+        assertThat(jwtTokenUtil.isRefreshToken(access)).isFalse();
+        assertThat(stat("size")).isEqualTo(2L);
+    }
+
+    private long stat(String name) {
+        cacheManager.cleanUp();
+        Map<String, Object> stats = cacheManager.statistics().get(CACHE_NAME);
+        return ((Number) stats.get(name)).longValue();
+    }
+
+    private static LoginUser loginUser() {
+        LoginUser user = new LoginUser();
+        user.setUserId(42L);
+        user.setUsername("alice");
+        user.setEmail("alice@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,78 @@
+package com.deepreach.common.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.deepreach.common.core.support.LocalCacheManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class LoginRateLimiterTest {
+
+    private static final double SIX_PER_MINUTE = 6 / 60_000.0;
+
+    @Test
+    void bucketAllowsBurstUpToCapacity() {
+        LoginRateLimiter.TokenBucket bucket = new LoginRateLimiter.TokenBucket(3, SIX_PER_MINUTE, 0L);
+
+        assertThat(bucket.tryAcquire(0L)).isTrue();
+        assertThat(bucket.tryAcquire(0L)).isTrue();
+        assertThat(bucket.tryAcquire(0L)).isTrue();
+        assertThat(bucket.tryAcquire(0L)).isFalse();
+    }
+
+    @Test
+    void bucketRefillsAtConfiguredRate() {
+        LoginRateLimiter.TokenBucket bucket = new LoginRateLimiter.TokenBucket(2, SIX_PER_MINUTE, 0L);
+        bucket.tryAcquire(0L);
+        bucket.tryAcquire(0L);
+
+        // 每 10 秒补充一个令牌
+        assertThat(bucket.tryAcquire(9_999L)).isFalse();
+        assertThat(bucket.tryAcquire(10_000L)).isTrue();
+        assertThat(bucket.tryAcquire(10_000L)).isFalse();
+    }
+
+    @Test
+    void bucketNeverExceedsCapacity() {
+        LoginRateLimiter.TokenBucket bucket = new LoginRateLimiter.TokenBucket(2, SIX_PER_MINUTE, 0L);
+
+        long later = 3_600_000L;
+        assertThat(bucket.tryAcquire(later)).isTrue();
+        assertThat(bucket.tryAcquire(later)).isTrue();
+        assertThat(bucket.tryAcquire(later)).isFalse();
+    }
+
+    @Test
+    void clockMovingBackwardsDoesNotDrainOrRefill() {
+        LoginRateLimiter.TokenBucket bucket = new LoginRateLimiter.TokenBucket(1, SIX_PER_MINUTE, 100_000L);
+        assertThat(bucket.tryAcquire(100_000L)).isTrue();
+
+        assertThat(bucket.tryAcquire(50_000L)).isFalse();
+        assertThat(bucket.tryAcquire(109_999L)).isFalse();
+        assertThat(bucket.tryAcquire(110_000L)).isTrue();
+    }
+
+    @Test
+    void acquireRejectsOnEitherDimension() {
+        LocalCacheManager cacheManager = new LocalCacheManager();
+        LoginRateLimiter limiter = new LoginRateLimiter(cacheManager);
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 2);
+        ReflectionTestUtils.setField(limiter, "ipRefillPerMinute", 1);
+        ReflectionTestUtils.setField(limiter, "userCapacity", 2);
+        ReflectionTestUtils.setField(limiter, "userRefillPerMinute", 1);
+        ReflectionTestUtils.setField(limiter, "maximumSize", 100L);
+        limiter.init();
+        try {
+            limiter.acquire("alice", "10.0.0.1");
+            limiter.acquire("alice", "10.0.0.2");
+            assertThatThrownBy(() -> limiter.acquire("alice", "10.0.0.3")).isInstanceOf(RuntimeException.class);
+
+            limiter.acquire("bob", "10.0.0.1");
+            assertThatThrownBy(() -> limiter.acquire("carol", "10.0.0.1")).isInstanceOf(RuntimeException.class);
+        } finally {
+            cacheManager.stop();
+        }
+    }
+}
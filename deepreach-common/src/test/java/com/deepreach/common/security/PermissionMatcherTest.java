@@ -0,0 +1,110 @@
+package com.deepreach.common.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.PatternMatchUtils;
+
+/**
+ * 预编译匹配器与原 PermissionService.hasPermissions（逐条 PatternMatchUtils.simpleMatch）的等价性
+ */
+class PermissionMatcherTest {
+
+    private static final String[] MODULES = {"system", "agent", "bill", "ai"};
+    private static final String[] ENTITIES = {"user", "role", "menu", "order"};
+    private static final String[] ACTIONS = {"list", "query", "add", "edit", "remove"};
+    private static final String[] WILDCARDS = {
+        "*:*:*", "*", "system:*", "system:user:*", "*:user:list", "system:*:list",
+        "*:*:remove", "sys*", "*list", "agent:*:*", "bill:order*", "*:role:*", " ", ""
+    };
+
+    @Test
+    void matchesLegacyLoopForRandomPermissionSets() {
+        Random random = new Random(45L);
+        List<String> queries = queries();
+        for (int round = 0; round < 300; round++) {
+            List<String> permissions = randomPermissions(random);
+            PermissionMatcher matcher = PermissionMatcher.compile(permissions);
+            for (int pass = 0; pass < 2; pass++) {
+                for (String query : queries) {
+                    assertThat(matcher.implies(query)).as("round %s, pass %s, %s implies %s", round, pass, permissions, query)
+                        .isEqualTo(legacyHasPermissions(permissions, query));
+                }
+            }
+        }
+    }
+
+    @Test
+    void superAdminAndLiteralGrants() {
+        PermissionMatcher all = PermissionMatcher.compile(List.of("*:*:*"));
+        assertThat(all.implies("anything:at:all")).isTrue();
+
+        PermissionMatcher literal = PermissionMatcher.compile(List.of("system:user:list"));
+        assertThat(literal.implies("system:user:list")).isTrue();
+        assertThat(literal.implies("system:user:add")).isFalse();
+        assertThat(literal.implies(null)).isFalse();
+    }
+
+    @Test
+    void emptyOrBlankPermissionsGrantNothing() {
+        assertThat(PermissionMatcher.compile(null).isEmpty()).isTrue();
+        assertThat(PermissionMatcher.compile(List.of()).isEmpty()).isTrue();
+        PermissionMatcher blank = PermissionMatcher.compile(List.of(" ", ""));
+        assertThat(blank.isEmpty()).isTrue();
+        assertThat(blank.implies("system:user:list")).isFalse();
+    }
+
+    /**
+     * 原 PermissionService.hasPermissions
+     */
+    private static boolean legacyHasPermissions(Collection<String> permissions, String permission) {
+        if (permissions == null || permissions.isEmpty()) {
+            return false;
+        }
+        return permissions.stream()
+            .filter(p -> !p.trim().isEmpty())
+            .anyMatch(p -> "*:*:*".equals(p) || PatternMatchUtils.simpleMatch(p, permission));
+    }
+
+    private static List<String> randomPermissions(Random random) {
+        List<String> permissions = new ArrayList<>();
+        int literals = random.nextInt(6);
+        for (int i = 0; i < literals; i++) {
+            permissions.add(randomLiteral(random));
+        }
+        int wildcards = random.nextInt(3);
+        for (int i = 0; i < wildcards; i++) {
+            String wildcard = WILDCARDS[random.nextInt(WILDCARDS.length)];
+            if (!"*:*:*".equals(wildcard) || random.nextInt(10) == 0) {
+                permissions.add(wildcard);
+            }
+        }
+        return permissions;
+    }
+
+    private static List<String> queries() {
+        List<String> queries = new ArrayList<>();
+        for (String module : MODULES) {
+            for (String entity : ENTITIES) {
+                for (String action : ACTIONS) {
+                    queries.add(module + ":" + entity + ":" + action);
+                }
+            }
+            queries.add(module);
+        }
+        queries.add("");
+        queries.add("system:user");
+        queries.add("*:*:*");
+        return queries;
+    }
+
+    private static String randomLiteral(Random random) {
+        return MODULES[random.nextInt(MODULES.length)] + ":"
+            + ENTITIES[random.nextInt(ENTITIES.length)] + ":"
+            + ACTIONS[random.nextInt(ACTIONS.length)];
+    }
+}
@@ -1,5 +1,7 @@
 package com.deepreach.message.config;
 
+import com.deepreach.common.trace.Tracer;
+import com.deepreach.common.trace.TracingOkHttpInterceptor;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.context.annotation.Configuration;
 
@@ -15,12 +17,13 @@ import java.time.Duration;
 public class MessageMybatisConfig {
 
     @Bean
-    public OkHttpClient messageOkHttpClient(MessageSmsProperties properties) {
+    public OkHttpClient messageOkHttpClient(MessageSmsProperties properties, Tracer tracer) {
         return new OkHttpClient.Builder()
             .connectTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .readTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .writeTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .callTimeout(Duration.ofMillis(properties.getTimeoutMs()))
+            .addInterceptor(new TracingOkHttpInterceptor(tracer))
             .build();
     }
 }
@@ -1,5 +1,8 @@
 package com.deepreach.mq.autoconfig;
 
+import com.deepreach.common.trace.Tracer;
+import com.deepreach.mq.trace.TracingProducerInterceptor;
+import com.deepreach.mq.trace.TracingRecordInterceptor;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -7,6 +10,7 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -63,9 +67,11 @@ public class DeepreachKafkaAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     public KafkaTemplate<String, Object> kafkaTemplate(ProducerFactory<String, Object> producerFactory,
-                                                       DeepreachKafkaProperties properties) {
+                                                       DeepreachKafkaProperties properties,
+                                                       ObjectProvider<Tracer> tracer) {
         KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
         template.setObservationEnabled(true);
+        tracer.ifAvailable(t -> template.setProducerInterceptor(new TracingProducerInterceptor<>(t)));
         if (StringUtils.hasText(properties.getTemplate().getDefaultTopic())) {
             template.setDefaultTopic(properties.getTemplate().getDefaultTopic());
         }
@@ -100,10 +106,12 @@ public class DeepreachKafkaAutoConfiguration {
     public KafkaListenerContainerFactory<ConcurrentMessageListenerContainer<String, Object>> deepreachKafkaListenerFactory(
         ConsumerFactory<String, Object> consumerFactory,
         DefaultErrorHandler kafkaErrorHandler,
-        DeepreachKafkaProperties properties) {
+        DeepreachKafkaProperties properties,
+        ObjectProvider<Tracer> tracer) {
 
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory);
+        tracer.ifAvailable(t -> factory.setRecordInterceptor(new TracingRecordInterceptor<>(t)));
         factory.setConcurrency(properties.getListener().getConcurrency());
         factory.setCommonErrorHandler(kafkaErrorHandler);
         factory.getContainerProperties().setPollTimeout(properties.getConsumer().getPollTimeout().toMillis());
@@ -0,0 +1,50 @@
+package com.deepreach.mq.trace;
+
+import com.deepreach.common.trace.Span;
+import com.deepreach.common.trace.TraceContext;
+import com.deepreach.common.trace.Tracer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+/**
+ * 发送消息时把当前 Span 的上下文写入 traceparent 消息头
+ *
+ * 在调用 send 的线程中执行，发送方需要先把 PRODUCER Span 设为当前 Span（见 TranslationChargeProducer）；
+ * 没有当前 Span 或已带有 traceparent 头的消息保持不变。
+ */
+public class TracingProducerInterceptor<K, V> implements ProducerInterceptor<K, V> {
+
+    private final Tracer tracer;
+
+    public TracingProducerInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public ProducerRecord<K, V> onSend(ProducerRecord<K, V> record) {
+        Span current = tracer.current();
+        TraceContext context = current.getContext();
+        if (context != null && record.headers().lastHeader(TraceContext.TRACEPARENT) == null) {
+            record.headers().add(TraceContext.TRACEPARENT, context.toTraceparent().getBytes(StandardCharsets.US_ASCII));
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+        // 发送结果由发送方的 Span 记录
+    }
+
+    @Override
+    public void close() {
+        // 无资源需要释放
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        // 无配置项
+    }
+}
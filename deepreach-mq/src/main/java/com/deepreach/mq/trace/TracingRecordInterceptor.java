@@ -0,0 +1,77 @@
+package com.deepreach.mq.trace;
+
+import com.deepreach.common.trace.Span;
+import com.deepreach.common.trace.SpanKind;
+import com.deepreach.common.trace.TraceContext;
+import com.deepreach.common.trace.Tracer;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * 监听容器消费消息时创建 CONSUMER Span
+ *
+ * 从 traceparent 消息头恢复发送方上下文，Span 在监听方法执行期间为当前 Span（监听方法中的数据库、HTTP 调用
+ * 记为其子 Span），处理结束（afterRecord）后结束。错误处理器重试时每次投递各记一个 Span。
+ */
+public class TracingRecordInterceptor<K, V> implements RecordInterceptor<K, V> {
+
+    private static final ThreadLocal<Active> ACTIVE = new ThreadLocal<>();
+
+    private final Tracer tracer;
+
+    public TracingRecordInterceptor(Tracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        finish();
+        Header header = record.headers().lastHeader(TraceContext.TRACEPARENT);
+        TraceContext parent = header != null
+            ? TraceContext.parse(new String(header.value(), StandardCharsets.US_ASCII))
+            : null;
+        Span span = tracer.startSpan(record.topic() + " process", SpanKind.CONSUMER, parent);
+        span.setAttribute("messaging.system", "kafka")
+            .setAttribute("messaging.operation", "process")
+            .setAttribute("messaging.destination.name", record.topic())
+            .setAttribute("messaging.kafka.destination.partition", record.partition())
+            .setAttribute("messaging.kafka.message.offset", record.offset());
+        ACTIVE.set(new Active(span, span.makeCurrent()));
+        return record;
+    }
+
+    @Override
+    public void failure(ConsumerRecord<K, V> record, Exception exception, Consumer<K, V> consumer) {
+        Active active = ACTIVE.get();
+        if (active != null) {
+            active.span.recordError(exception);
+        }
+    }
+
+    @Override
+    public void afterRecord(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        finish();
+    }
+
+    private static void finish() {
+        Active active = ACTIVE.get();
+        if (active != null) {
+            ACTIVE.remove();
+            active.scope.close();
+            active.span.end();
+        }
+    }
+
+    private static final class Active {
+        private final Span span;
+        private final Tracer.Scope scope;
+
+        private Active(Span span, Tracer.Scope scope) {
+            this.span = span;
+            this.scope = scope;
+        }
+    }
+}
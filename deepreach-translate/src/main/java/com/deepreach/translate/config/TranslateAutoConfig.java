@@ -3,6 +3,8 @@ package com.deepreach.translate.config;
 import com.azure.ai.openai.OpenAIClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.deepreach.common.trace.Tracer;
+import com.deepreach.common.trace.TracingOkHttpInterceptor;
 import com.deepreach.translate.client.AzureOpenAiChatClient;
 import com.deepreach.translate.client.DashScopeChatClient;
 import com.deepreach.translate.client.LlmClient;
@@ -31,19 +33,23 @@ import retrofit2.converter.jackson.JacksonConverterFactory;
 public class TranslateAutoConfig {
 
     @Bean
-    public OkHttpClient translateOkHttpClient(TranslateLlmProperties properties) {
+    public OkHttpClient translateOkHttpClient(TranslateLlmProperties properties, Tracer tracer) {
         return new OkHttpClient.Builder()
             .callTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .connectTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .readTimeout(Duration.ofMillis(properties.getTimeoutMs()))
             .writeTimeout(Duration.ofMillis(properties.getTimeoutMs()))
+            .addInterceptor(new TracingOkHttpInterceptor(tracer))
             .build();
     }
 
     @Bean
-    public OpenAiService translateOpenAiService(TranslateLlmProperties properties) {
+    public OpenAiService translateOpenAiService(TranslateLlmProperties properties, Tracer tracer) {
         Duration timeout = Duration.ofMillis(properties.getTimeoutMs());
-        OkHttpClient client = OpenAiService.defaultClient(properties.getOpenaiApiKey(), timeout);
+        OkHttpClient client = OpenAiService.defaultClient(properties.getOpenaiApiKey(), timeout)
+            .newBuilder()
+            .addInterceptor(new TracingOkHttpInterceptor(tracer))
+            .build();
         String baseUrl = ensureTrailingSlash(properties.getOpenaiBaseUrl());
         Retrofit retrofit = new Retrofit.Builder()
             .baseUrl(baseUrl)
@@ -2,6 +2,9 @@ package com.deepreach.translate.mq;
 
 import com.deepreach.common.core.config.TranslateBillingProperties;
 import com.deepreach.common.core.mq.event.TranslationChargeEvent;
+import com.deepreach.common.trace.Span;
+import com.deepreach.common.trace.SpanKind;
+import com.deepreach.common.trace.Tracer;
 import java.util.Objects;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +22,7 @@ public class TranslationChargeProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final TranslateBillingProperties billingProperties;
+    private final Tracer tracer;
 
     public void publish(TranslationChargeEvent event) {
         if (!billingProperties.isEnabled()) {
@@ -34,16 +38,31 @@ public class TranslationChargeProducer {
         sendInternal(kafkaTemplate, topic, key, event);
     }
 
+    /**
+     * 发送期间 PRODUCER Span 为当前 Span，其上下文由 TracingProducerInterceptor 写入消息头，发送确认后结束
+     */
     private void sendInternal(KafkaOperations<String, Object> operations, String topic, String key, TranslationChargeEvent event) {
-        operations.send(topic, key, event)
-            .whenComplete((result, throwable) -> {
-                if (throwable != null) {
-                    log.error("翻译扣费事件发送失败 topic={} key={} amount={}", topic, key, event.getAmount(), throwable);
-                } else {
-                    log.debug("Published translation charge event to topic={}, key={}, offset={}",
-                        topic, key, result != null && result.getRecordMetadata() != null
-                            ? result.getRecordMetadata().offset() : null);
-                }
-            });
+        Span span = tracer.startSpan(topic + " publish", SpanKind.PRODUCER)
+            .setAttribute("messaging.system", "kafka")
+            .setAttribute("messaging.operation", "publish")
+            .setAttribute("messaging.destination.name", topic);
+        try (Tracer.Scope ignored = span.makeCurrent()) {
+            operations.send(topic, key, event)
+                .whenComplete((result, throwable) -> {
+                    if (throwable != null) {
+                        span.recordError(throwable);
+                        log.error("翻译扣费事件发送失败 topic={} key={} amount={}", topic, key, event.getAmount(), throwable);
+                    } else {
+                        log.debug("Published translation charge event to topic={}, key={}, offset={}",
+                            topic, key, result != null && result.getRecordMetadata() != null
+                                ? result.getRecordMetadata().offset() : null);
+                    }
+                    span.end();
+                });
+        } catch (RuntimeException ex) {
+            span.recordError(ex);
+            span.end();
+            throw ex;
+        }
     }
 }
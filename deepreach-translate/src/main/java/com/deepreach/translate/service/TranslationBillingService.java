@@ -7,4 +7,9 @@ public interface TranslationBillingService {
     BigDecimal deduct(Long userId, long totalTokens);
 
     BigDecimal resolveUnitPrice();
+
+    /**
+     * 按预估 token 数计算本次调用最多扣除的金额，用于余额预占；计费未启用或非按 token 计价时为 0，与 {@link #deduct} 一致
+     */
+    BigDecimal estimateCharge(long estimatedTokens);
 }
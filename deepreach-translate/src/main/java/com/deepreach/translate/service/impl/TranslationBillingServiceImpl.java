@@ -13,7 +13,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.util.StringUtils;
@@ -36,9 +35,6 @@ public class TranslationBillingServiceImpl implements TranslationBillingService
     private final ChargeAccountResolver chargeAccountResolver;
     private final TranslateBillingProperties billingProperties;
     private final TranslationChargeProducer translationChargeProducer;
-    private final AtomicReference<CachedPrice> cachedTokenPrice = new AtomicReference<>();
-
-    private static final long PRICE_CACHE_TTL_MILLIS = 60_000;
 
     public TranslationBillingServiceImpl(DrPriceConfigService drPriceConfigService,
                                          ChargeAccountResolver chargeAccountResolver,
@@ -105,24 +101,20 @@ public class TranslationBillingServiceImpl implements TranslationBillingService
     }
 
     @Override
-    public BigDecimal resolveUnitPrice() {
-        CachedPrice cached = cachedTokenPrice.get();
-        long now = System.currentTimeMillis();
-        if (cached != null && cached.expiresAt > now) {
-            return cached.price;
-        }
-        synchronized (this) {
-            cached = cachedTokenPrice.get();
-            if (cached != null && cached.expiresAt > now) {
-                return cached.price;
-            }
-            BigDecimal price = queryUnitPrice();
-            cachedTokenPrice.set(new CachedPrice(price, now + PRICE_CACHE_TTL_MILLIS));
-            return price;
+    public BigDecimal estimateCharge(long estimatedTokens) {
+        if (estimatedTokens <= 0 || !billingProperties.isEnabled() || resolvePricingMode() != PricingMode.TOKEN) {
+            return BigDecimal.ZERO;
         }
+        return resolveUnitPrice()
+            .multiply(BigDecimal.valueOf(estimatedTokens))
+            .setScale(PRICE_SCALE, RoundingMode.HALF_UP);
     }
 
-    private BigDecimal queryUnitPrice() {
+    /**
+     * 价格配置由 DrPriceConfigService 的内存价格目录提供，无需在此额外缓存
+     */
+    @Override
+    public BigDecimal resolveUnitPrice() {
         DrPriceConfig config = drPriceConfigService.selectDrPriceConfigByBusinessType(DrPriceConfig.BUSINESS_TYPE_TOKEN);
         if (config == null || config.getDrPrice() == null) {
             log.warn("Translation price config missing (TOKEN), fallback to default {}", DEFAULT_UNIT_PRICE);
@@ -149,14 +141,4 @@ public class TranslationBillingServiceImpl implements TranslationBillingService
         }
         return "翻译扣费";
     }
-
-    private static final class CachedPrice {
-        private final BigDecimal price;
-        private final long expiresAt;
-
-        private CachedPrice(BigDecimal price, long expiresAt) {
-            this.price = price;
-            this.expiresAt = expiresAt;
-        }
-    }
 }
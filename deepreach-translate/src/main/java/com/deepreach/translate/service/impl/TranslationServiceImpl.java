@@ -2,7 +2,11 @@ package com.deepreach.translate.service.impl;
 
 import com.alibaba.fastjson2.JSONObject;
 import com.deepreach.common.core.support.ConsumptionBalanceGuard;
+import com.deepreach.common.core.support.ConsumptionBalanceGuard.BalanceReservation;
 import com.deepreach.common.exception.ServiceException;
+import com.deepreach.common.trace.Span;
+import com.deepreach.common.trace.SpanKind;
+import com.deepreach.common.trace.Tracer;
 import com.deepreach.translate.client.LlmClient;
 import com.deepreach.translate.client.LlmClientFactory;
 import com.deepreach.translate.client.LlmResult;
@@ -16,6 +20,7 @@ import com.deepreach.translate.mapper.TranslatedMessageMapper;
 import com.deepreach.translate.prompt.TranslatePromptProvider;
 import com.deepreach.translate.service.TranslationBillingService;
 import com.deepreach.translate.service.TranslationService;
+import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
@@ -35,15 +40,18 @@ public class TranslationServiceImpl implements TranslationService {
     private final TranslationBillingService translationBillingService;
     private final TranslatedMessageMapper translatedMessageMapper;
     private final ConsumptionBalanceGuard balanceGuard;
+    private final Tracer tracer;
 
     public TranslationServiceImpl(LlmClientFactory llmClientFactory,
                                   TranslationBillingService translationBillingService,
                                   TranslatedMessageMapper translatedMessageMapper,
-                                  ConsumptionBalanceGuard balanceGuard) {
+                                  ConsumptionBalanceGuard balanceGuard,
+                                  Tracer tracer) {
         this.llmClientFactory = llmClientFactory;
         this.translationBillingService = translationBillingService;
         this.translatedMessageMapper = translatedMessageMapper;
         this.balanceGuard = balanceGuard;
+        this.tracer = tracer;
     }
 
     @Override
@@ -53,19 +61,38 @@ public class TranslationServiceImpl implements TranslationService {
         validateRequest(request);
         Long requestUserId = request.getUserId();
         long normalizedUserId = (requestUserId != null && requestUserId > 0) ? requestUserId : 0L;
+        String channel = request.getChannel().trim();
+        String normalizedChannel = channel.toLowerCase(Locale.ROOT);
+        String prompt = TranslatePromptProvider.build(request.getText(), request.getTargetLang(), request.getSourceLang());
+        BalanceReservation reservation = null;
         if (requestUserId != null && requestUserId > 0) {
-            balanceGuard.ensureSufficientBalance(requestUserId,
-                translationBillingService.resolveUnitPrice(),
+            reservation = balanceGuard.reserve(requestUserId,
+                translationBillingService.estimateCharge(estimateTokens(prompt, request.getText())),
                 "翻译服务");
         }
         long afterBalanceGuard = System.currentTimeMillis();
-        String channel = request.getChannel().trim();
-        String normalizedChannel = channel.toLowerCase(Locale.ROOT);
-        String prompt = TranslatePromptProvider.build(request.getText(), request.getTargetLang(), request.getSourceLang());
+        try {
+            return doTranslate(request, normalizedUserId, normalizedChannel, prompt, reservation, begin, afterBalanceGuard);
+        } catch (RuntimeException ex) {
+            if (reservation != null) {
+                reservation.release();
+            }
+            throw ex;
+        }
+    }
+
+    private TranslateResponse doTranslate(TranslateRequest request,
+                                          long normalizedUserId,
+                                          String normalizedChannel,
+                                          String prompt,
+                                          BalanceReservation reservation,
+                                          long begin,
+                                          long afterBalanceGuard) {
+        Long requestUserId = request.getUserId();
         List<Message> messages = Collections.singletonList(new Message("user", prompt));
         LlmClient client = llmClientFactory.getClient(normalizedChannel);
         long beforeLlm = System.currentTimeMillis();
-        LlmResult llmResult = client.chat(messages, normalizedChannel);
+        LlmResult llmResult = chat(client, messages, normalizedChannel);
         long afterLlm = System.currentTimeMillis();
         String translation = parseTranslation(llmResult.getContent());
 
@@ -78,7 +105,10 @@ public class TranslationServiceImpl implements TranslationService {
         long afterPersistence = System.currentTimeMillis();
 
         if (requestUserId != null && requestUserId > 0) {
-            translationBillingService.deduct(requestUserId, llmResult.getTotalTokens());
+            BigDecimal charged = translationBillingService.deduct(requestUserId, llmResult.getTotalTokens());
+            if (reservation != null) {
+                reservation.settle(charged);
+            }
         } else {
             log.warn("Skip translation billing due to missing userId, tokens={}", llmResult.getTotalTokens());
         }
@@ -102,6 +132,24 @@ public class TranslationServiceImpl implements TranslationService {
         return response;
     }
 
+    /**
+     * 模型调用单独记一个 Span，覆盖未接入 HTTP 链路追踪的客户端（如 Azure OpenAI SDK）
+     */
+    private LlmResult chat(LlmClient client, List<Message> messages, String channel) {
+        Span span = tracer.startSpan("llm chat " + channel, SpanKind.INTERNAL)
+            .setAttribute("llm.channel", channel);
+        try (Tracer.Scope ignored = span.makeCurrent()) {
+            LlmResult result = client.chat(messages, channel);
+            span.setAttribute("llm.usage.total_tokens", result.getTotalTokens());
+            return result;
+        } catch (RuntimeException ex) {
+            span.recordError(ex);
+            throw ex;
+        } finally {
+            span.end();
+        }
+    }
+
     @Override
     public Optional<OriginalTextResponse> getOriginalText(OriginalTextRequest request) {
         return translatedMessageMapper.selectLatestBySentText(
@@ -118,6 +166,13 @@ public class TranslationServiceImpl implements TranslationService {
             });
     }
 
+    /**
+     * 预估本次消耗的 token：提示词全部计入输入，译文按原文长度计入输出，按每字符一个 token 从宽估计
+     */
+    private long estimateTokens(String prompt, String text) {
+        return (long) prompt.length() + text.length();
+    }
+
     private void validateRequest(TranslateRequest request) {
         if (!StringUtils.hasText(request.getText())) {
             throw new ServiceException("text不能为空");
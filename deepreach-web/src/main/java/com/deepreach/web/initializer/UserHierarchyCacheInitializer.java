@@ -1,13 +1,14 @@
 package com.deepreach.web.initializer;
 
 import com.deepreach.common.core.service.SysUserService;
+import com.deepreach.common.core.service.UserClosureService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 /**
- * 项目启动时初始化用户层级树并写入Redis.
+ * 项目启动时初始化用户层级树并写入Redis，闭包表为空时同时完成全量构建.
  */
 @Slf4j
 @Component
@@ -15,6 +16,7 @@ import org.springframework.stereotype.Component;
 public class UserHierarchyCacheInitializer implements CommandLineRunner {
 
     private final SysUserService userService;
+    private final UserClosureService closureService;
 
     @Override
     public void run(String... args) {
@@ -25,5 +27,12 @@ public class UserHierarchyCacheInitializer implements CommandLineRunner {
         } catch (Exception e) {
             log.error("初始化用户层级树缓存失败", e);
         }
+        try {
+            if (closureService.rebuildIfEmpty()) {
+                log.info("用户层级闭包表为空，已完成全量构建");
+            }
+        } catch (Exception e) {
+            log.error("初始化用户层级闭包表失败", e);
+        }
     }
 }
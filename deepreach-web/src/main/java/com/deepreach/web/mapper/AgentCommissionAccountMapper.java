@@ -1,9 +1,11 @@
 package com.deepreach.web.mapper;
 
 import com.deepreach.web.entity.AgentCommissionAccount;
+import com.deepreach.web.entity.AgentCommissionRecord;
 import org.apache.ibatis.annotations.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -12,12 +14,19 @@ public interface AgentCommissionAccountMapper {
 
     AgentCommissionAccount selectByAgentUserId(@Param("agentUserId") Long agentUserId);
 
+    List<AgentCommissionAccount> selectByAgentUserIds(@Param("agentUserIds") Collection<Long> agentUserIds);
+
     int insert(AgentCommissionAccount account);
 
     int incrementCommission(@Param("agentUserId") Long agentUserId,
                             @Param("availableDelta") BigDecimal availableDelta,
                             @Param("totalDelta") BigDecimal totalDelta);
 
+    /**
+     * 按佣金记录批量累加多个代理账户（单条 UPDATE ... CASE），仅更新状态正常的账户
+     */
+    int incrementCommissionBatch(@Param("records") List<AgentCommissionRecord> records);
+
     int adjustAvailableCommission(@Param("agentUserId") Long agentUserId,
                                   @Param("availableDelta") BigDecimal availableDelta,
                                   @Param("frozenDelta") BigDecimal frozenDelta,
@@ -11,6 +11,8 @@ public interface AgentCommissionRecordMapper {
 
     int insert(AgentCommissionRecord record);
 
+    int insertBatch(@Param("records") List<AgentCommissionRecord> records);
+
     List<Map<String, Object>> selectRecordsByAgent(@Param("agentUserId") Long agentUserId,
                                                    @Param("startTime") String startTime,
                                                    @Param("endTime") String endTime,
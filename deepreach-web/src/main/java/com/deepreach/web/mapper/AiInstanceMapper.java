@@ -60,6 +60,16 @@ public interface AiInstanceMapper {
      */
     List<AiInstance> selectByUserIds(@Param("userIds") List<Long> userIds);
 
+    /**
+     * 查询实例所属的用户ID（去重）
+     *
+     * 批量修改实例前确定受影响的用户，用于通知子树统计按用户修正
+     *
+     * @param instanceIds 实例ID列表
+     * @return 用户ID列表
+     */
+    List<Long> selectOwnerIdsByInstanceIds(@Param("instanceIds") List<Long> instanceIds);
+
     /**
      * 根据实例类型查询实例列表
      *
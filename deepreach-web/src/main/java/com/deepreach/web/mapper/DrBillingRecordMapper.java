@@ -41,6 +41,14 @@ public interface DrBillingRecordMapper {
      */
     int insert(DrBillingRecord record);
 
+    /**
+     * 批量插入账单记录（多行VALUES），自增主键按顺序回填到每条记录的billId
+     *
+     * @param records 账单记录列表
+     * @return 影响行数
+     */
+    int insertBatch(@Param("records") List<DrBillingRecord> records);
+
     /**
      * 更新账单记录
      *
@@ -5,6 +5,7 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +26,14 @@ public interface UserDrBalanceMapper {
      */
     UserDrBalance selectByUserId(@Param("userId") Long userId);
 
+    /**
+     * 根据用户ID集合批量查询余额信息
+     *
+     * @param userIds 用户ID集合
+     * @return 余额信息列表
+     */
+    List<UserDrBalance> selectByUserIds(@Param("userIds") Collection<Long> userIds);
+
     /**
      * 分页查询余额列表
      *
@@ -38,7 +38,7 @@ public class TranslationChargeProcessor {
             try {
                 DeductResponse response = executeDeduct(event);
                 if (response != null && response.isSuccess()) {
-                    balanceGuard.evictBalance(event.getChargeUserId());
+                    balanceGuard.confirmCharge(event.getChargeUserId());
                     log.debug("翻译扣费事件处理成功 eventId={} chargeUserId={} amount={} attempt={}",
                         event.getEventId(), event.getChargeUserId(), event.getAmount(), attempt);
                     return;
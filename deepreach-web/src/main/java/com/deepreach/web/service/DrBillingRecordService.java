@@ -46,6 +46,14 @@ public interface DrBillingRecordService {
      */
     DrBillingRecord createRecord(DrBillingRecord record);
 
+    /**
+     * 批量创建账单记录（分批多行插入，单个事务）
+     *
+     * @param records 账单记录列表
+     * @return 成功创建的记录数
+     */
+    int batchCreateRecords(List<DrBillingRecord> records);
+
     /**
      * 获取用户账单统计
      *
@@ -3,11 +3,11 @@ package com.deepreach.web.service.impl;
 import com.deepreach.common.core.domain.entity.SysUser;
 import com.deepreach.common.core.domain.model.LoginUser;
 import com.deepreach.common.core.mapper.SysUserMapper;
-import com.deepreach.common.core.service.UserHierarchyService;
+import com.deepreach.common.core.support.AgentAncestorIndex;
+import com.deepreach.common.core.support.ChangeBroadcaster;
 import com.deepreach.common.core.service.SysUserService;
 import com.deepreach.common.security.SecurityUtils;
 import com.deepreach.common.security.UserRoleUtils;
-import com.deepreach.common.security.enums.UserIdentity;
 import com.deepreach.common.utils.StringUtils;
 import com.deepreach.web.dto.AdminSettlementQueryRequest;
 import com.deepreach.web.entity.AgentCommissionAccount;
@@ -66,7 +66,8 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
     private final SysUserMapper userMapper;
     private final DrPriceConfigService drPriceConfigService;
     private final SysUserService userService;
-    private final UserHierarchyService hierarchyService;
+    private final AgentAncestorIndex agentAncestorIndex;
+    private final ChangeBroadcaster changeBroadcaster;
 
     private static final BigDecimal DEFAULT_LEVEL1_RATE = new BigDecimal("0.30");
     private static final BigDecimal DEFAULT_LEVEL2_RATE = new BigDecimal("0.20");
@@ -107,6 +108,8 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
 
         Map<Long, BigDecimal> allocatedRates = calculateCommissionRateByGrade(agentNodes, rateConfig, maxOrder);
 
+        LocalDateTime now = LocalDateTime.now();
+        List<AgentCommissionRecord> records = new ArrayList<>(agentNodes.size());
         for (AgentHierarchyNode node : agentNodes) {
             BigDecimal rate = allocatedRates.getOrDefault(node.agentUserId, ZERO);
             if (rate.compareTo(ZERO) <= 0) {
@@ -118,18 +121,6 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
                 continue;
             }
 
-            AgentCommissionAccount account = getOrCreateAccount(node.agentUserId);
-            if (!account.isNormal()) {
-                log.warn("代理佣金账户状态异常，跳过分发：agentUserId={}", node.agentUserId);
-                continue;
-            }
-
-            int updated = accountMapper.incrementCommission(node.agentUserId, commission, commission);
-            if (updated <= 0) {
-                log.warn("更新代理佣金账户失败：agentUserId={}", node.agentUserId);
-                continue;
-            }
-
             AgentCommissionRecord record = new AgentCommissionRecord();
             record.setAgentUserId(node.agentUserId);
             record.setBuyerUserId(buyerUserId);
@@ -144,10 +135,60 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
             record.setStatus(AgentCommissionRecord.STATUS_SUCCESS);
             record.setOperatorId(operatorId);
             record.setDescription(buildCommissionDescription(hierarchyLevel, rechargeAmount, commission));
-            record.setCreateTime(LocalDateTime.now());
-            record.setUpdateTime(LocalDateTime.now());
-            recordMapper.insert(record);
+            record.setCreateTime(now);
+            record.setUpdateTime(now);
+            records.add(record);
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        records = filterNormalAccounts(records);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        int updated = accountMapper.incrementCommissionBatch(records);
+        if (updated < records.size()) {
+            // 查询与更新之间有账户被冻结：未被更新的账户不再记账，已更新的行在本事务内持有行锁，状态不会再变
+            log.warn("部分代理佣金账户更新失败：期望={}, 实际={}", records.size(), updated);
+            records = filterNormalAccounts(records);
+            if (records.isEmpty()) {
+                return;
+            }
         }
+        recordMapper.insertBatch(records);
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_STATISTICS, records.stream()
+            .map(record -> String.valueOf(record.getAgentUserId()))
+            .distinct()
+            .collect(Collectors.joining(",")));
+    }
+
+    /**
+     * 批量加载代理佣金账户，缺失的账户逐个创建，过滤掉状态异常的账户
+     */
+    private List<AgentCommissionRecord> filterNormalAccounts(List<AgentCommissionRecord> records) {
+        Set<Long> agentUserIds = records.stream()
+            .map(AgentCommissionRecord::getAgentUserId)
+            .collect(Collectors.toSet());
+        Map<Long, AgentCommissionAccount> accounts = new HashMap<>();
+        for (AgentCommissionAccount account : accountMapper.selectByAgentUserIds(agentUserIds)) {
+            accounts.put(account.getAgentUserId(), account);
+        }
+
+        List<AgentCommissionRecord> normal = new ArrayList<>(records.size());
+        for (AgentCommissionRecord record : records) {
+            AgentCommissionAccount account = accounts.get(record.getAgentUserId());
+            if (account == null) {
+                account = getOrCreateAccount(record.getAgentUserId());
+            }
+            if (account == null || !account.isNormal()) {
+                log.warn("代理佣金账户状态异常，跳过分发：agentUserId={}", record.getAgentUserId());
+                continue;
+            }
+            normal.add(record);
+        }
+        return normal;
     }
 
     @Override
@@ -403,7 +444,7 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
             throw new IllegalArgumentException("代理用户不存在");
         }
         Map<Long, Set<String>> roleKeys = loadRoleKeys(Collections.singleton(agentUserId));
-        Integer agentLevel = resolveAgentLevel(roleKeys.getOrDefault(agentUserId, Collections.emptySet()));
+        Integer agentLevel = UserRoleUtils.resolveAgentLevel(roleKeys.getOrDefault(agentUserId, Collections.emptySet()));
         AgentCommissionAccount account = accountMapper.selectByAgentUserId(agentUserId);
         AgentCommissionAccountDTO dto = buildAccountDTO(agentUser, agentLevel, account);
         dto.setEarnedCommissionInRange(BigDecimal.ZERO);
@@ -516,7 +557,7 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
 
         for (SysUser agent : filteredAgents) {
             Set<String> roleKeys = roleKeyMap.getOrDefault(agent.getUserId(), Collections.emptySet());
-            Integer agentLevel = resolveAgentLevel(roleKeys);
+            Integer agentLevel = UserRoleUtils.resolveAgentLevel(roleKeys);
 
             AgentCommissionAccountDTO dto = buildAccountDTO(
                 agent,
@@ -592,7 +633,7 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
             throw new IllegalArgumentException("代理用户不存在");
         }
         Map<Long, Set<String>> roleKeys = loadRoleKeys(Collections.singleton(agentUserId));
-        Integer agentLevel = resolveAgentLevel(roleKeys.getOrDefault(agentUserId, Collections.emptySet()));
+        Integer agentLevel = UserRoleUtils.resolveAgentLevel(roleKeys.getOrDefault(agentUserId, Collections.emptySet()));
         if (agentLevel == null) {
             throw new IllegalArgumentException("指定用户不是代理账号");
         }
@@ -751,22 +792,6 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
         return result;
     }
 
-    private Integer resolveAgentLevel(Set<String> roleKeys) {
-        if (roleKeys == null || roleKeys.isEmpty()) {
-            return null;
-        }
-        if (UserRoleUtils.hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_1)) {
-            return 1;
-        }
-        if (UserRoleUtils.hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_2)) {
-            return 2;
-        }
-        if (UserRoleUtils.hasIdentity(roleKeys, UserIdentity.AGENT_LEVEL_3)) {
-            return 3;
-        }
-        return null;
-    }
-
     private BigDecimal defaultZero(BigDecimal value) {
         return value != null ? value : BigDecimal.ZERO;
     }
@@ -816,39 +841,9 @@ public class AgentCommissionServiceImpl implements AgentCommissionService {
     }
     private List<AgentHierarchyNode> resolveAgentHierarchy(Long buyerUserId) {
         List<AgentHierarchyNode> nodes = new ArrayList<>();
-        if (buyerUserId == null) {
-            return nodes;
-        }
-
-        List<Long> ancestorIds = new ArrayList<>();
-        Long current = hierarchyService.findParentId(buyerUserId);
-        int safetyCounter = 0;
-        while (current != null && safetyCounter++ < 20 && ancestorIds.size() < 6) {
-            ancestorIds.add(current);
-            current = hierarchyService.findParentId(current);
+        for (AgentAncestorIndex.AgentAncestor ancestor : agentAncestorIndex.getAgentChain(buyerUserId)) {
+            nodes.add(new AgentHierarchyNode(ancestor.getAgentUserId(), ancestor.getOrder(), ancestor.getAgentLevel()));
         }
-        if (ancestorIds.isEmpty()) {
-            return nodes;
-        }
-
-        Map<Long, Set<String>> roleKeys = loadRoleKeys(new HashSet<>(ancestorIds));
-        Set<Long> visited = new HashSet<>();
-        int order = 1;
-        for (Long ancestorId : ancestorIds) {
-            if (order > 3) {
-                break;
-            }
-            if (!visited.add(ancestorId)) {
-                continue;
-            }
-            Integer agentLevel = resolveAgentLevel(roleKeys.getOrDefault(ancestorId, Collections.emptySet()));
-            if (agentLevel == null) {
-                continue;
-            }
-            nodes.add(new AgentHierarchyNode(ancestorId, order, agentLevel));
-            order++;
-        }
-
         return nodes;
     }
 
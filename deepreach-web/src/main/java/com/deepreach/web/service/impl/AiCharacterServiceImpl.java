@@ -10,6 +10,7 @@ import com.deepreach.web.mapper.AiCharacterMapper;
 import com.deepreach.web.service.AiCharacterService;
 import com.deepreach.common.core.service.DrPriceConfigService;
 import com.deepreach.common.core.service.UserDrBalanceService;
+import com.deepreach.common.core.support.ChangeBroadcaster;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -49,6 +50,9 @@ public class AiCharacterServiceImpl implements AiCharacterService {
     @Autowired
     private UserDrBalanceService userDrBalanceService;
 
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
     @Override
     public AiCharacter selectById(Long id) {
         if (id == null) {
@@ -183,6 +187,7 @@ public class AiCharacterServiceImpl implements AiCharacterService {
             if (result <= 0) {
                 throw new Exception("创建人设失败");
             }
+            publishStatisticsChange(Collections.singleton(character.getUserId()));
             log.info("创建人设成功：人设ID={}, 名称={}", character.getId(), character.getName());
 
             if (characterPrice.compareTo(BigDecimal.ZERO) > 0 && !consumedFreeQuota) {
@@ -262,6 +267,7 @@ public class AiCharacterServiceImpl implements AiCharacterService {
             if (result <= 0) {
                 throw new Exception("更新人设失败");
             }
+            publishStatisticsChange(Arrays.asList(existing.getUserId(), character.getUserId()));
             log.info("更新人设成功：人设ID={}", character.getId());
             return true;
         } catch (Exception e) {
@@ -293,6 +299,7 @@ public class AiCharacterServiceImpl implements AiCharacterService {
             if (result <= 0) {
                 throw new Exception("删除人设失败");
             }
+            publishStatisticsChange(Collections.singleton(existing.getUserId()));
             log.info("删除人设成功：人设ID={}, 名称={}", id, existing.getName());
             return true;
         } catch (Exception e) {
@@ -310,10 +317,12 @@ public class AiCharacterServiceImpl implements AiCharacterService {
 
         // 过滤掉系统人设
         List<Long> validIds = new ArrayList<>();
+        Set<Long> ownerIds = new LinkedHashSet<>();
         for (Long id : ids) {
             AiCharacter character = selectById(id);
             if (character != null && !character.isSystemCharacter()) {
                 validIds.add(id);
+                ownerIds.add(character.getUserId());
             }
         }
 
@@ -326,6 +335,7 @@ public class AiCharacterServiceImpl implements AiCharacterService {
             if (result <= 0) {
                 throw new Exception("批量删除人设失败");
             }
+            publishStatisticsChange(ownerIds);
             log.info("批量删除人设成功：删除数量={}", result);
             return true;
         } catch (Exception e) {
@@ -720,4 +730,18 @@ public class AiCharacterServiceImpl implements AiCharacterService {
             return false;
         }
     }
+
+    /**
+     * 人设数量或类型变化后，提交时通知各节点修正子树统计
+     */
+    private void publishStatisticsChange(Collection<Long> userIds) {
+        String message = userIds.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+        if (!message.isEmpty()) {
+            changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_STATISTICS, message);
+        }
+    }
 }
@@ -17,6 +17,7 @@ import com.deepreach.web.service.AiInstanceService;
 import com.deepreach.common.core.service.UserDrBalanceService;
 import com.deepreach.web.service.DrBillingRecordService;
 import com.deepreach.common.core.service.DrPriceConfigService;
+import com.deepreach.common.core.support.ChangeBroadcaster;
 import com.deepreach.common.security.SecurityUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -67,6 +68,9 @@ public class AiInstanceServiceImpl implements AiInstanceService {
     @Autowired
     private UserDrBalanceService userDrBalanceService;
 
+    @Autowired
+    private ChangeBroadcaster changeBroadcaster;
+
     @Override
     public AiInstance selectById(Long instanceId) {
         if (instanceId == null) {
@@ -360,6 +364,7 @@ public class AiInstanceServiceImpl implements AiInstanceService {
             if (result <= 0) {
                 throw new Exception("创建实例失败");
             }
+            publishStatisticsChange(String.valueOf(instance.getUserId()));
             log.info("创建实例成功：实例ID={}, 名称={}", instance.getInstanceId(), instance.getInstanceName());
             return instance;
         } catch (Exception e) {
@@ -409,6 +414,11 @@ public class AiInstanceServiceImpl implements AiInstanceService {
             if (result <= 0) {
                 throw new Exception("更新实例失败");
             }
+            if (instance.getUserId() != null && !instance.getUserId().equals(existing.getUserId())) {
+                publishStatisticsChange(existing.getUserId() + "," + instance.getUserId());
+            } else {
+                publishStatisticsChange(String.valueOf(existing.getUserId()));
+            }
             log.info("更新实例成功：实例ID={}", instance.getInstanceId());
             return true;
         } catch (Exception e) {
@@ -435,6 +445,7 @@ public class AiInstanceServiceImpl implements AiInstanceService {
             if (result <= 0) {
                 throw new Exception("删除实例失败");
             }
+            publishStatisticsChange(String.valueOf(existing.getUserId()));
             log.info("删除实例成功：实例ID={}, 名称={}", instanceId, existing.getInstanceName());
             return true;
         } catch (Exception e) {
@@ -451,10 +462,12 @@ public class AiInstanceServiceImpl implements AiInstanceService {
         }
 
         try {
+            List<Long> ownerIds = instanceMapper.selectOwnerIdsByInstanceIds(instanceIds);
             int result = instanceMapper.deleteByIds(instanceIds);
             if (result <= 0) {
                 throw new Exception("批量删除实例失败");
             }
+            publishStatisticsChange(ownerIds);
             log.info("批量删除实例成功：删除数量={}", result);
             return true;
         } catch (Exception e) {
@@ -636,6 +649,7 @@ public class AiInstanceServiceImpl implements AiInstanceService {
             if (result <= 0) {
                 throw new Exception("更新平台绑定失败");
             }
+            publishStatisticsChange(String.valueOf(existing.getUserId()));
             log.info("更新实例平台绑定成功：实例ID={}, 平台ID={}", instanceId, platformId);
             return true;
         } catch (Exception e) {
@@ -854,10 +868,13 @@ public class AiInstanceServiceImpl implements AiInstanceService {
         }
 
         try {
+            List<Long> ownerIds = platformId != null
+                ? instanceMapper.selectOwnerIdsByInstanceIds(instanceIds) : Collections.emptyList();
             int result = instanceMapper.batchUpdateInstanceConfig(instanceIds, platformId, characterId);
             if (result <= 0) {
                 throw new Exception("批量更新实例配置失败");
             }
+            publishStatisticsChange(ownerIds);
             log.info("批量更新实例配置成功：更新数量={}", result);
             return true;
         } catch (Exception e) {
@@ -1300,4 +1317,22 @@ public class AiInstanceServiceImpl implements AiInstanceService {
             throw new RuntimeException("当天费用扣费失败：" + e.getMessage(), e);
         }
     }
+
+    /**
+     * 实例数量或平台变化后，提交时通知各节点修正子树统计
+     */
+    private void publishStatisticsChange(String message) {
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_STATISTICS, message);
+    }
+
+    private void publishStatisticsChange(Collection<Long> userIds) {
+        String message = userIds.stream()
+            .filter(Objects::nonNull)
+            .distinct()
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+        if (!message.isEmpty()) {
+            publishStatisticsChange(message);
+        }
+    }
 }
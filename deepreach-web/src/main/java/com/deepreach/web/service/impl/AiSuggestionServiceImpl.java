@@ -2,8 +2,10 @@ package com.deepreach.web.service.impl;
 
 import com.deepreach.common.core.config.AiSuggestionProperties;
 import com.deepreach.common.core.support.ConsumptionBalanceGuard;
+import com.deepreach.common.core.support.ConsumptionBalanceGuard.BalanceReservation;
 import com.deepreach.common.exception.ServiceException;
 import com.deepreach.common.security.SecurityUtils;
+import com.deepreach.common.trace.TracingClientHttpRequestInterceptor;
 import com.deepreach.translate.service.TranslationBillingService;
 import com.deepreach.web.entity.AiCharacter;
 import com.deepreach.web.entity.AiInstance;
@@ -13,6 +15,7 @@ import com.deepreach.web.service.AiCharacterService;
 import com.deepreach.web.service.AiInstanceService;
 import com.deepreach.web.service.AiSuggestionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.Collections;
 import java.util.HashMap;
@@ -54,6 +57,7 @@ public class AiSuggestionServiceImpl implements AiSuggestionService {
                                    ConsumptionBalanceGuard balanceGuard,
                                    AiSuggestionProperties properties,
                                    RestTemplateBuilder restTemplateBuilder,
+                                   TracingClientHttpRequestInterceptor tracingInterceptor,
                                    ObjectMapper objectMapper) {
         this.aiInstanceService = aiInstanceService;
         this.aiCharacterService = aiCharacterService;
@@ -66,6 +70,7 @@ public class AiSuggestionServiceImpl implements AiSuggestionService {
         this.restTemplate = restTemplateBuilder
             .setConnectTimeout(timeoutDuration)
             .setReadTimeout(timeoutDuration)
+            .additionalInterceptors(tracingInterceptor)
             .build();
     }
 
@@ -101,25 +106,42 @@ public class AiSuggestionServiceImpl implements AiSuggestionService {
             throw new ServiceException("人设不存在或缺少prompt配置");
         }
 
-        balanceGuard.ensureSufficientBalance(
+        BalanceReservation reservation = balanceGuard.reserve(
             currentUserId,
-            translationBillingService.resolveUnitPrice(),
+            translationBillingService.estimateCharge(estimateTokens(request, character.getPrompt())),
             properties.getSceneName()
         );
 
-        AiSuggestionResult result = invokeAiService(request, character.getPrompt(), currentUserId);
-        if (result == null) {
-            throw new ServiceException("AI服务响应为空");
-        }
+        try {
+            AiSuggestionResult result = invokeAiService(request, character.getPrompt(), currentUserId);
+            if (result == null) {
+                throw new ServiceException("AI服务响应为空");
+            }
 
-        if (result.getCode() == 200 && result.getTotalTokens() > 0) {
-            translationBillingService.deduct(currentUserId, result.getTotalTokens());
-        } else if (result.getTotalTokens() > 0) {
-            log.warn("Skip billing for AI suggestion due to non-success code={}, tokens={}",
-                result.getCode(), result.getTotalTokens());
+            BigDecimal charged = BigDecimal.ZERO;
+            if (result.getCode() == 200 && result.getTotalTokens() > 0) {
+                charged = translationBillingService.deduct(currentUserId, result.getTotalTokens());
+            } else if (result.getTotalTokens() > 0) {
+                log.warn("Skip billing for AI suggestion due to non-success code={}, tokens={}",
+                    result.getCode(), result.getTotalTokens());
+            }
+            reservation.settle(charged);
+            return result;
+        } catch (RuntimeException ex) {
+            reservation.release();
+            throw ex;
         }
+    }
 
-        return result;
+    /**
+     * 预估本次消耗的 token：人设与对话历史计入输入，建议回复按同等长度计入输出，按每字符一个 token 从宽估计
+     */
+    private static long estimateTokens(AiSuggestionRequest request, String characterPrompt) {
+        long input = characterPrompt.length();
+        if (!CollectionUtils.isEmpty(request.getHistory())) {
+            input += String.valueOf(request.getHistory()).length();
+        }
+        return input * 2;
     }
 
     private AiSuggestionResult invokeAiService(AiSuggestionRequest request,
@@ -4,14 +4,16 @@ import com.deepreach.common.core.domain.entity.SysUser;
 import com.deepreach.common.core.domain.entity.UserDrBalance;
 import com.deepreach.common.core.mapper.SysUserMapper;
 import com.deepreach.common.core.service.SysUserService;
+import com.deepreach.common.core.support.ParallelQueryExecutor;
+import com.deepreach.common.core.support.ParallelQueryExecutor.Subtask;
+import com.deepreach.common.core.support.UserDataLoader;
 import com.deepreach.common.security.UserRoleUtils;
 import com.deepreach.common.security.enums.UserIdentity;
 import com.deepreach.web.entity.AiInstance;
 import com.deepreach.web.entity.dto.AiCharacterStatistics;
 import com.deepreach.web.mapper.AiCharacterMapper;
-import com.deepreach.web.mapper.AiInstanceMapper;
-import com.deepreach.web.mapper.UserDrBalanceMapper;
 import com.deepreach.web.service.BuyerInstanceStatisticsService;
+import com.deepreach.web.support.AccountDataLoader;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,7 +24,6 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,9 +42,10 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
 
     private final SysUserMapper userMapper;
     private final SysUserService userService;
-    private final AiInstanceMapper aiInstanceMapper;
     private final AiCharacterMapper aiCharacterMapper;
-    private final UserDrBalanceMapper userDrBalanceMapper;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+    private final UserDataLoader userDataLoader;
+    private final AccountDataLoader accountDataLoader;
 
     @Override
     public Map<String, Object> getBuyerSubInstanceStatistics(Long buyerMainUserId) {
@@ -62,28 +64,42 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
     @Override
     public Map<String, Object> getBuyerHierarchyOverview(Long buyerMainUserId) {
         SysUser buyerMainUser = requireBuyerMainUser(buyerMainUserId);
-        BuyerHierarchyData hierarchyData = resolveHierarchyData(buyerMainUser);
-
-        Map<String, Object> overview = buildBaseOverview(hierarchyData);
-        overview.put("subUserCount", hierarchyData.getSubUsers().size());
-        overview.put("instanceCount", hierarchyData.getAllInstances().size());
-        overview.put("instanceTypeStatistics", buildInstanceTypeStatistics(hierarchyData.getAllInstances()));
-        overview.put("platformStatistics", buildPlatformStatistics(hierarchyData.getAllInstances()));
-        overview.put("subUsers", buildSubUserDetails(hierarchyData));
-        overview.put("aiCharacterStatistics", buildAiCharacterStatistics(collectCharacterUserIds(hierarchyData)));
-        overview.put("drAccount", buildDrAccountSnapshot(buyerMainUser.getUserId()));
-        return overview;
+        try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+            // 余额快照只依赖用户ID，与层级数据并行读取
+            Subtask<Map<String, Object>> drAccountTask = scope.fork(() -> buildDrAccountSnapshot(buyerMainUser.getUserId()));
+            BuyerHierarchyData hierarchyData = resolveHierarchyData(buyerMainUser);
+            Subtask<Map<String, Object>> aiCharacterTask = scope.fork(() ->
+                buildAiCharacterStatistics(collectCharacterUserIds(hierarchyData)));
+            scope.join();
+
+            Map<String, Object> overview = buildBaseOverview(hierarchyData);
+            overview.put("subUserCount", hierarchyData.getSubUsers().size());
+            overview.put("instanceCount", hierarchyData.getAllInstances().size());
+            overview.put("instanceTypeStatistics", buildInstanceTypeStatistics(hierarchyData.getAllInstances()));
+            overview.put("platformStatistics", buildPlatformStatistics(hierarchyData.getAllInstances()));
+            overview.put("subUsers", buildSubUserDetails(hierarchyData));
+            overview.put("aiCharacterStatistics", aiCharacterTask.get());
+            overview.put("drAccount", drAccountTask.get());
+            return overview;
+        }
     }
 
     private SysUser requireBuyerMainUser(Long buyerMainUserId) {
         if (buyerMainUserId == null) {
             throw new IllegalArgumentException("商家总账号用户ID不能为空");
         }
-        SysUser buyerMainUser = userMapper.selectUserById(buyerMainUserId);
+        SysUser buyerMainUser;
+        Set<String> roleKeys;
+        try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+            Subtask<SysUser> userTask = scope.fork(() -> userMapper.selectUserById(buyerMainUserId));
+            Subtask<Set<String>> roleTask = scope.fork(() -> userDataLoader.loadRoleKeys(buyerMainUserId));
+            scope.join();
+            buyerMainUser = userTask.get();
+            roleKeys = roleTask.get();
+        }
         if (buyerMainUser == null) {
             throw new IllegalArgumentException("商家总账号用户不存在");
         }
-        Set<String> roleKeys = userMapper.selectRoleKeysByUserId(buyerMainUserId);
         if (!UserRoleUtils.hasIdentity(roleKeys, UserIdentity.BUYER_MAIN)) {
             throw new IllegalArgumentException("指定用户不是商家总账号用户");
         }
@@ -99,7 +115,7 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
         if (buyerMainUser == null) {
             throw new IllegalArgumentException("商家总账号用户不存在");
         }
-        Set<String> roleKeys = userMapper.selectRoleKeysByUserId(buyerMainUser.getUserId());
+        Set<String> roleKeys = userDataLoader.loadRoleKeys(buyerMainUser.getUserId());
         if (!UserRoleUtils.hasIdentity(roleKeys, UserIdentity.BUYER_MAIN)) {
             throw new IllegalArgumentException("指定用户不是商家总账号用户");
         }
@@ -125,18 +141,22 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
             .map(SysUser::getUserId)
             .filter(Objects::nonNull)
             .collect(Collectors.toSet());
-        Map<Long, Set<String>> subRoleKeys = loadRoleKeys(subUserIdSet);
-        sortedSubUsers.forEach(user ->
-            user.setRoles(subRoleKeys.getOrDefault(user.getUserId(), Collections.emptySet())));
-
         List<Long> buyerSubUserIds = sortedSubUsers.stream()
             .map(SysUser::getUserId)
             .filter(Objects::nonNull)
             .collect(Collectors.toList());
 
-        List<AiInstance> allInstances = CollectionUtils.isEmpty(buyerSubUserIds)
-            ? Collections.emptyList()
-            : aiInstanceMapper.selectByUserIds(buyerSubUserIds);
+        Map<Long, Set<String>> subRoleKeys;
+        List<AiInstance> allInstances;
+        try (ParallelQueryExecutor.Scope scope = parallelQueryExecutor.openScope()) {
+            Subtask<Map<Long, Set<String>>> roleTask = scope.fork(() -> userDataLoader.loadRoleKeys(subUserIdSet));
+            Subtask<List<AiInstance>> instanceTask = scope.fork(() -> loadInstances(buyerSubUserIds));
+            scope.join();
+            subRoleKeys = roleTask.get();
+            allInstances = instanceTask.get();
+        }
+        sortedSubUsers.forEach(user ->
+            user.setRoles(subRoleKeys.getOrDefault(user.getUserId(), Collections.emptySet())));
 
         Map<Long, List<AiInstance>> instanceMap = CollectionUtils.isEmpty(allInstances)
             ? Collections.emptyMap()
@@ -261,7 +281,7 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
     }
 
     private Map<String, Object> buildDrAccountSnapshot(Long userId) {
-        UserDrBalance balance = userDrBalanceMapper.selectByUserId(userId);
+        UserDrBalance balance = accountDataLoader.loadBalance(userId);
         Map<String, Object> snapshot = new LinkedHashMap<>();
         snapshot.put("userId", userId);
         snapshot.put("drBalance", balance != null && balance.getDrBalance() != null ? balance.getDrBalance() : BigDecimal.ZERO);
@@ -284,45 +304,16 @@ public class BuyerInstanceStatisticsServiceImpl implements BuyerInstanceStatisti
         return userIds;
     }
 
-    private Map<Long, Set<String>> loadRoleKeys(Set<Long> userIds) {
-        Map<Long, Set<String>> result = new HashMap<>();
+    private List<AiInstance> loadInstances(List<Long> userIds) {
         if (CollectionUtils.isEmpty(userIds)) {
-            return result;
-        }
-        List<Map<String, Object>> rows = userMapper.selectUserRoleMappings(userIds);
-        if (rows == null) {
-            return result;
-        }
-        for (Map<String, Object> row : rows) {
-            if (row == null || row.isEmpty()) {
-                continue;
-            }
-            Object roleKeyObj = row.get("roleKey");
-            Long userId = parseLong(row.get("userId"));
-            if (userId == null || !(roleKeyObj instanceof String)) {
-                continue;
-            }
-            String roleKey = ((String) roleKeyObj).trim();
-            if (roleKey.isEmpty()) {
-                continue;
-            }
-            result.computeIfAbsent(userId, id -> new HashSet<>()).add(roleKey);
-        }
-        return result;
-    }
-
-    private Long parseLong(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value instanceof Number) {
-            return ((Number) value).longValue();
-        }
-        try {
-            return Long.parseLong(value.toString());
-        } catch (NumberFormatException e) {
-            return null;
+            return Collections.emptyList();
         }
+        // 与 selectByUserIds 的顺序一致：按用户ID升序，同一用户内按创建时间倒序
+        List<AiInstance> instances = new ArrayList<>();
+        accountDataLoader.loadInstances(userIds.stream().sorted().collect(Collectors.toList()))
+            .values()
+            .forEach(instances::addAll);
+        return instances;
     }
 
     private static class BuyerHierarchyData {
@@ -2,6 +2,7 @@ package com.deepreach.web.service.impl;
 
 import com.deepreach.web.dto.DrTransactionQuery;
 import com.deepreach.common.core.domain.entity.DrBillingRecord;
+import com.deepreach.common.core.support.BillNoGenerator;
 import com.deepreach.web.mapper.DrBillingRecordMapper;
 import com.deepreach.web.service.DrBillingRecordService;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +30,22 @@ import java.util.Map;
 public class DrBillingRecordServiceImpl implements DrBillingRecordService {
 
     private final DrBillingRecordMapper billingRecordMapper;
+    private final BillNoGenerator billNoGenerator;
+
+    /**
+     * 单条多行INSERT的最大行数
+     */
+    private static final int BATCH_MAX_ROWS = 500;
+
+    /**
+     * 单条多行INSERT的估算报文上限，远小于 MySQL 默认 max_allowed_packet(64MB)
+     */
+    private static final long BATCH_MAX_BYTES = 4L * 1024 * 1024;
+
+    /**
+     * 单行定长字段的估算开销（字节）
+     */
+    private static final long BATCH_ROW_FIXED_BYTES = 512;
 
     @Override
     public DrBillingRecord getById(Long billId) {
@@ -158,9 +176,7 @@ public class DrBillingRecordServiceImpl implements DrBillingRecordService {
 
     @Override
     public String generateBillNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String randomNum = String.valueOf((int) ((Math.random() * 9 + 1) * 100000));
-        return "DR" + timestamp + randomNum;
+        return billNoGenerator.nextBillNo();
     }
 
     @Override
@@ -229,7 +245,11 @@ public class DrBillingRecordServiceImpl implements DrBillingRecordService {
 
     /**
      * 批量创建账单记录
+     *
+     * 按行数与估算报文大小切分为多条多行INSERT，避免超出 max_allowed_packet；
+     * 自增主键由驱动回填到每条记录的billId。
      */
+    @Override
     @Transactional(rollbackFor = Exception.class)
     public int batchCreateRecords(List<DrBillingRecord> records) {
         if (records == null || records.isEmpty()) {
@@ -237,19 +257,68 @@ public class DrBillingRecordServiceImpl implements DrBillingRecordService {
         }
 
         int successCount = 0;
-        for (DrBillingRecord record : records) {
-            try {
-                createRecord(record);
-                successCount++;
-            } catch (Exception e) {
-                log.error("创建账单记录失败: {}", record, e);
-                throw e; // 事务回滚
+        for (List<DrBillingRecord> chunk : splitIntoChunks(prepareBatchRecords(records))) {
+            int inserted = billingRecordMapper.insertBatch(chunk);
+            if (inserted != chunk.size()) {
+                log.error("批量创建账单记录失败，期望插入{}条，实际插入{}条", chunk.size(), inserted);
+                throw new RuntimeException("批量创建账单记录失败");
             }
+            successCount += inserted;
         }
 
         return successCount;
     }
 
+    private List<DrBillingRecord> prepareBatchRecords(List<DrBillingRecord> records) {
+        LocalDateTime now = LocalDateTime.now();
+        List<DrBillingRecord> prepared = new ArrayList<>(records.size());
+        for (DrBillingRecord record : records) {
+            if (record == null) {
+                throw new IllegalArgumentException("账单记录不能为空");
+            }
+            if (record.getBillNo() == null || record.getBillNo().isEmpty()) {
+                record.setBillNo(generateBillNo());
+            }
+            if (record.getCreateTime() == null) {
+                record.setCreateTime(now);
+            }
+            prepared.add(record);
+        }
+        return prepared;
+    }
+
+    private List<List<DrBillingRecord>> splitIntoChunks(List<DrBillingRecord> records) {
+        List<List<DrBillingRecord>> chunks = new ArrayList<>();
+        List<DrBillingRecord> current = new ArrayList<>();
+        long currentBytes = 0;
+        for (DrBillingRecord record : records) {
+            long recordBytes = estimateRecordBytes(record);
+            if (!current.isEmpty()
+                && (current.size() >= BATCH_MAX_ROWS || currentBytes + recordBytes > BATCH_MAX_BYTES)) {
+                chunks.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0;
+            }
+            current.add(record);
+            currentBytes += recordBytes;
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    private long estimateRecordBytes(DrBillingRecord record) {
+        // 定长字段按固定开销估算，变长文本按UTF-8最坏情况（每字符4字节）计算
+        return BATCH_ROW_FIXED_BYTES
+            + 4L * (lengthOf(record.getDescription()) + lengthOf(record.getExtraData())
+                + lengthOf(record.getRemark()) + lengthOf(record.getConsumer()));
+    }
+
+    private int lengthOf(String value) {
+        return value != null ? value.length() : 0;
+    }
+
     /**
      * 获取账单记录统计概览
      */
@@ -5,18 +5,30 @@ import com.deepreach.common.exception.ServiceException;
 import com.deepreach.common.core.domain.entity.DrPriceConfig;
 import com.deepreach.web.mapper.DrPriceConfigMapper;
 import com.deepreach.common.core.service.DrPriceConfigService;
+import com.deepreach.common.core.support.ChangeBroadcaster;
+import com.deepreach.common.core.support.PriceCatalog;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DR价格配置Service业务层处理
  *
+ * 按业务类型查询价格走内存中的价格目录快照（启动时加载），
+ * 配置变更提交后本节点立即重载，并通过 {@link ChangeBroadcaster} 通知其他节点重载。
+ *
  * @author DeepReach Team
  * @version 1.0
  */
@@ -26,6 +38,31 @@ import java.util.List;
 public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMapper, DrPriceConfig> implements DrPriceConfigService {
 
     private final DrPriceConfigMapper drPriceConfigMapper;
+    private final ChangeBroadcaster changeBroadcaster;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Object catalogSyncKey = new Object();
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicReference<PriceCatalog> catalog = new AtomicReference<>(PriceCatalog.empty());
+
+    @PostConstruct
+    public void initPriceCatalog() {
+        changeBroadcaster.subscribe(ChangeBroadcaster.CHANNEL_PRICE_CONFIG, message -> {
+            if (message == null || !message.startsWith(instanceId)) {
+                reloadCatalogQuietly();
+            }
+        });
+        reloadCatalogQuietly();
+    }
+
+    /**
+     * 定时全量重载，兜底广播消息丢失的情况
+     */
+    @Scheduled(fixedDelayString = "${deepreach.price-catalog.refresh-interval:300000}")
+    public void scheduledReloadCatalog() {
+        reloadCatalogQuietly();
+    }
+
 
     /**
      * 查询DR价格配置列表
@@ -63,12 +100,23 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
     /**
      * 根据业务类型查询价格配置
      *
+     * 读取价格目录快照，供计费等读路径使用；写路径的存在性判断直接查询数据库
+     *
      * @param businessType 业务类型
      * @return DR价格配置
      */
     @Override
     public DrPriceConfig selectDrPriceConfigByBusinessType(String businessType) {
-        return drPriceConfigMapper.selectDrPriceConfigByBusinessType(businessType);
+        PriceCatalog snapshot = catalog.get();
+        if (!snapshot.isLoaded()) {
+            try {
+                snapshot = reloadCatalog();
+            } catch (Exception e) {
+                log.warn("价格目录加载失败，直接查询数据库：{}", e.getMessage());
+                return drPriceConfigMapper.selectDrPriceConfigByBusinessType(businessType);
+            }
+        }
+        return snapshot.get(businessType);
     }
 
     /**
@@ -114,7 +162,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
         }
 
         drPriceConfig.setStatus("0"); // 默认启用
-        return drPriceConfigMapper.insertDrPriceConfig(drPriceConfig);
+        int rows = drPriceConfigMapper.insertDrPriceConfig(drPriceConfig);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -137,7 +187,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
             throw new ServiceException("业务类型已存在");
         }
 
-        return drPriceConfigMapper.updateDrPriceConfig(drPriceConfig);
+        int rows = drPriceConfigMapper.updateDrPriceConfig(drPriceConfig);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -149,7 +201,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int deleteDrPriceConfigByPriceIds(Long[] priceIds) {
-        return drPriceConfigMapper.deleteDrPriceConfigByPriceIds(priceIds);
+        int rows = drPriceConfigMapper.deleteDrPriceConfigByPriceIds(priceIds);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -161,7 +215,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int deleteDrPriceConfigByPriceId(Long priceId) {
-        return drPriceConfigMapper.deleteDrPriceConfigByPriceId(priceId);
+        int rows = drPriceConfigMapper.deleteDrPriceConfigByPriceId(priceId);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -187,7 +243,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int updateStatus(Long priceId, String status) {
-        return drPriceConfigMapper.updateStatus(priceId, status);
+        int rows = drPriceConfigMapper.updateStatus(priceId, status);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -210,7 +268,9 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
     @Override
     @Transactional(rollbackFor = Exception.class)
     public int batchUpdateStatus(Long[] priceIds, String status) {
-        return drPriceConfigMapper.batchUpdateStatus(priceIds, status);
+        int rows = drPriceConfigMapper.batchUpdateStatus(priceIds, status);
+        notifyCatalogChanged();
+        return rows;
     }
 
     /**
@@ -233,7 +293,7 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
         for (DrPriceConfig config : defaultConfigs) {
             try {
                 // 检查是否已存在
-                DrPriceConfig existing = selectDrPriceConfigByBusinessType(config.getBusinessType());
+                DrPriceConfig existing = drPriceConfigMapper.selectDrPriceConfigByBusinessType(config.getBusinessType());
                 if (existing == null) {
                     insertDrPriceConfig(config);
                     successCount++;
@@ -279,7 +339,7 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
                 throw new ServiceException("不支持的业务类型");
         }
 
-        DrPriceConfig existing = selectDrPriceConfigByBusinessType(businessType);
+        DrPriceConfig existing = drPriceConfigMapper.selectDrPriceConfigByBusinessType(businessType);
         if (existing != null) {
             defaultConfig.setPriceId(existing.getPriceId());
             return updateDrPriceConfig(defaultConfig);
@@ -306,7 +366,7 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
                     continue;
                 }
 
-                DrPriceConfig existing = selectDrPriceConfigByBusinessType(config.getBusinessType());
+                DrPriceConfig existing = drPriceConfigMapper.selectDrPriceConfigByBusinessType(config.getBusinessType());
                 if (existing != null) {
                     config.setPriceId(existing.getPriceId());
                     updateDrPriceConfig(config);
@@ -363,4 +423,56 @@ public class DrPriceConfigServiceImpl extends BaseServiceImpl<DrPriceConfigMappe
 
         return null; // 验证通过
     }
+
+    /**
+     * 从数据库全量加载价格目录并原子替换当前快照
+     *
+     * @return 新的价格目录快照
+     */
+    private synchronized PriceCatalog reloadCatalog() {
+        List<DrPriceConfig> configs = drPriceConfigMapper.selectDrPriceConfigList(new DrPriceConfig());
+        PriceCatalog next = PriceCatalog.of(catalogVersion.incrementAndGet(), configs);
+        catalog.set(next);
+        log.debug("价格目录已重载，version={}, size={}", next.getVersion(), next.size());
+        return next;
+    }
+
+    private void reloadCatalogQuietly() {
+        try {
+            reloadCatalog();
+        } catch (Exception e) {
+            log.warn("价格目录重载失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 价格配置变更后重载本地目录并广播给其他节点；处于事务中时推迟到提交之后执行
+     */
+    private void notifyCatalogChanged() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 同一事务内多次变更只在提交后重载一次
+            if (TransactionSynchronizationManager.hasResource(catalogSyncKey)) {
+                return;
+            }
+            TransactionSynchronizationManager.bindResource(catalogSyncKey, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publishCatalogChange();
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(catalogSyncKey);
+                }
+            });
+        } else {
+            publishCatalogChange();
+        }
+    }
+
+    private void publishCatalogChange() {
+        reloadCatalogQuietly();
+        changeBroadcaster.publish(ChangeBroadcaster.CHANNEL_PRICE_CONFIG, instanceId + ":" + catalog.get().getVersion());
+    }
 }
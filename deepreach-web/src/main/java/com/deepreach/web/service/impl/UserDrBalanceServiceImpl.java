@@ -6,6 +6,8 @@ import com.deepreach.common.core.dto.DrBalanceAdjustResult;
 import com.deepreach.common.core.dto.RechargeResult;
 import com.deepreach.common.core.domain.entity.UserDrBalance;
 import com.deepreach.common.core.domain.entity.DrBillingRecord;
+import com.deepreach.common.core.support.BillNoGenerator;
+import com.deepreach.common.core.support.ChangeBroadcaster;
 import com.deepreach.web.mapper.UserDrBalanceMapper;
 import com.deepreach.web.service.AgentCommissionService;
 import com.deepreach.common.core.service.UserDrBalanceService;
@@ -19,7 +21,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -41,6 +42,8 @@ public class UserDrBalanceServiceImpl implements UserDrBalanceService {
     private final DrBillingRecordService billingRecordService;
     private final AgentCommissionService agentCommissionService;
     private final SysUserService sysUserService;
+    private final BillNoGenerator billNoGenerator;
+    private final ChangeBroadcaster changeBroadcaster;
 
     private static final BigDecimal INSTANCE_PRE_DEDUCT_AMOUNT = new BigDecimal("100.00");
     private static final BigDecimal INSTANCE_CREATION_RATIO = new BigDecimal("100.00");
@@ -106,6 +109,8 @@ public class UserDrBalanceServiceImpl implements UserDrBalanceService {
         if (result == 0) {
             throw new RuntimeException("充值失败，请重试");
         }
+        // 累计充值变化，通知各节点修正子树统计
+        changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_STATISTICS, String.valueOf(userId));
 
         // 创建充值账单记录
         DrBillingRecord billingRecord = DrBillingRecord.createRechargeRecord(
@@ -199,6 +204,9 @@ public class UserDrBalanceServiceImpl implements UserDrBalanceService {
         if (updated <= 0) {
             throw new RuntimeException("调账失败，请稍后重试");
         }
+        if (isIncrease) {
+            changeBroadcaster.publishAfterCommit(ChangeBroadcaster.CHANNEL_USER_STATISTICS, String.valueOf(userId));
+        }
 
         Long actualOperatorId = operatorId != null ? operatorId : userId;
         DrBillingRecord record = new DrBillingRecord();
@@ -850,9 +858,7 @@ public class UserDrBalanceServiceImpl implements UserDrBalanceService {
      * 生成账单编号
      */
     private String generateBillNo() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String randomNum = String.valueOf((int) ((Math.random() * 9 + 1) * 100000));
-        return "DR" + timestamp + randomNum;
+        return billNoGenerator.nextBillNo();
     }
 
     private String resolveConsumerUsername(Long operatorId, Long fallbackUserId) {
@@ -0,0 +1,113 @@
+package com.deepreach.web.support;
+
+import com.deepreach.common.core.domain.entity.UserDrBalance;
+import com.deepreach.common.core.support.RequestScopedLoader;
+import com.deepreach.web.entity.AiInstance;
+import com.deepreach.web.mapper.AiInstanceMapper;
+import com.deepreach.web.mapper.UserDrBalanceMapper;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.stereotype.Component;
+
+/**
+ * 余额与实例的请求级加载器
+ *
+ * 同一请求中按用户读取的余额账户、实例列表只查询一次，多个用户合并为一条 IN 查询。
+ * 余额会随扣费变化，只用于展示类读取；扣费、调账等写路径仍直接读取数据库。
+ */
+@Component
+public class AccountDataLoader {
+
+    private final UserDrBalanceMapper balanceMapper;
+    private final AiInstanceMapper instanceMapper;
+    private final RequestScopedLoader<Long, UserDrBalance> balances;
+    private final RequestScopedLoader<Long, List<AiInstance>> instances;
+
+    public AccountDataLoader(UserDrBalanceMapper balanceMapper, AiInstanceMapper instanceMapper) {
+        this.balanceMapper = balanceMapper;
+        this.instanceMapper = instanceMapper;
+        this.balances = new RequestScopedLoader<>("dr-balance", this::batchLoadBalances);
+        this.instances = new RequestScopedLoader<>("user-instances", this::batchLoadInstances);
+    }
+
+    /**
+     * 读取用户的余额账户，不存在时返回 null
+     */
+    public UserDrBalance loadBalance(Long userId) {
+        return balances.load(userId);
+    }
+
+    /**
+     * 批量读取余额账户，没有账户的用户不会出现在返回结果中
+     */
+    public Map<Long, UserDrBalance> loadBalances(Collection<Long> userIds) {
+        return balances.loadMany(userIds);
+    }
+
+    /**
+     * 读取用户的实例列表（按创建时间倒序），返回可修改的副本
+     */
+    public List<AiInstance> loadInstances(Long userId) {
+        List<AiInstance> loaded = instances.load(userId);
+        return loaded != null ? new ArrayList<>(loaded) : new ArrayList<>();
+    }
+
+    /**
+     * 批量读取实例列表，按传入的用户顺序返回，没有实例的用户映射为空列表
+     */
+    public Map<Long, List<AiInstance>> loadInstances(Collection<Long> userIds) {
+        Map<Long, List<AiInstance>> result = new LinkedHashMap<>();
+        if (userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        Map<Long, List<AiInstance>> loaded = instances.loadMany(userIds);
+        for (Long userId : userIds) {
+            if (userId != null) {
+                List<AiInstance> userInstances = loaded.get(userId);
+                result.put(userId, userInstances != null ? new ArrayList<>(userInstances) : new ArrayList<>());
+            }
+        }
+        return result;
+    }
+
+    // ==================== 内部方法 ====================
+
+    private Map<Long, UserDrBalance> batchLoadBalances(Collection<Long> userIds) {
+        Map<Long, UserDrBalance> result = new HashMap<>();
+        List<UserDrBalance> rows = balanceMapper.selectByUserIds(userIds);
+        if (rows != null) {
+            for (UserDrBalance balance : rows) {
+                if (balance != null && balance.getUserId() != null) {
+                    result.put(balance.getUserId(), balance);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Map<Long, List<AiInstance>> batchLoadInstances(Collection<Long> userIds) {
+        Map<Long, List<AiInstance>> result = new HashMap<>();
+        for (Long userId : userIds) {
+            result.put(userId, Collections.emptyList());
+        }
+        List<AiInstance> rows = instanceMapper.selectByUserIds(new ArrayList<>(userIds));
+        if (rows != null) {
+            for (AiInstance instance : rows) {
+                if (instance != null && instance.getUserId() != null) {
+                    List<AiInstance> userInstances = result.get(instance.getUserId());
+                    if (userInstances == null || userInstances.isEmpty()) {
+                        userInstances = new ArrayList<>();
+                        result.put(instance.getUserId(), userInstances);
+                    }
+                    userInstances.add(instance);
+                }
+            }
+        }
+        return result;
+    }
+}
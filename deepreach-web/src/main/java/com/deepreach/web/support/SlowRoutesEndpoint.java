@@ -0,0 +1,52 @@
+package com.deepreach.web.support;
+
+import com.deepreach.common.interceptor.RequestMetrics;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.SecurityContext;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 最慢路由监控端点
+ *
+ * GET /actuator/slowroutes?limit=N 按 p99 降序返回最慢的 N 个路由（URI 模板），
+ * 包含请求数、平均/最大耗时、p50/p95/p99、处理中请求数、慢请求数与状态码分布，数据来自 {@link RequestMetrics}。
+ * 路由与耗时分布会暴露接口结构，除 WebSecurityConfig 中 /actuator/** 的管理员规则外，端点自身也校验 ADMIN 角色，
+ * 改用独立管理端口或调整安全规则时不会被匿名访问。
+ */
+@Component
+@Endpoint(id = "slowroutes")
+public class SlowRoutesEndpoint {
+
+    private static final String ADMIN_ROLE = "ADMIN";
+
+    private final RequestMetrics requestMetrics;
+
+    @Value("${deepreach.request-metrics.top-n:20}")
+    private int defaultLimit;
+
+    public SlowRoutesEndpoint(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<Map<String, Object>> slowRoutes(SecurityContext securityContext, @Nullable Integer limit) {
+        if (securityContext.getPrincipal() == null) {
+            return new WebEndpointResponse<>(HttpStatus.UNAUTHORIZED.value());
+        }
+        if (!securityContext.isUserInRole(ADMIN_ROLE)) {
+            return new WebEndpointResponse<>(HttpStatus.FORBIDDEN.value());
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inFlight", requestMetrics.getInFlight());
+        result.put("slowThresholdMs", requestMetrics.getSlowThresholdMillis());
+        result.put("routes", requestMetrics.topRoutes(limit != null && limit > 0 ? limit : defaultLimit));
+        return new WebEndpointResponse<>(result);
+    }
+}
@@ -7,6 +7,7 @@ import com.deepreach.web.service.DrBillingRecordService;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,12 +23,15 @@ import org.springframework.stereotype.Component;
 public class DailyConsumeSettlementTask {
 
     private static final ZoneId SHANGHAI_ZONE = ZoneId.of("Asia/Shanghai");
+    private static final int SETTLEMENT_BATCH_SIZE = 500;
 
     private final UserDrBalanceService userDrBalanceService;
     private final DrBillingRecordService billingRecordService;
 
     /**
      * 每天北京时间00:00执行，将daily_consume汇总为一条账单记录并清零
+     *
+     * 账单按批次多行插入；若某一批次插入失败，则回退为逐条处理，避免单条异常影响整批用户。
      */
     @Scheduled(cron = "0 0 0 * * ?", zone = "Asia/Shanghai")
     public void settleDailyConsume() {
@@ -36,24 +40,60 @@ public class DailyConsumeSettlementTask {
             return;
         }
         LocalDate settlementDate = LocalDate.now(SHANGHAI_ZONE).minusDays(1);
+        List<UserDrBalance> pending = new ArrayList<>(balances.size());
         for (UserDrBalance balance : balances) {
             BigDecimal amount = balance.getDailyConsume();
             if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
                 continue;
             }
-            try {
-                createDailyRecord(balance, amount, settlementDate);
-                boolean cleared = userDrBalanceService.subtractDailyConsume(balance.getUserId(), amount);
-                if (!cleared) {
-                    log.warn("日结扣费清零失败，userId={}, amount={}", balance.getUserId(), amount);
-                }
-            } catch (Exception ex) {
-                log.error("日结扣费生成账单失败，userId={}, amount={}", balance.getUserId(), amount, ex);
+            pending.add(balance);
+        }
+        for (int from = 0; from < pending.size(); from += SETTLEMENT_BATCH_SIZE) {
+            settleBatch(pending.subList(from, Math.min(from + SETTLEMENT_BATCH_SIZE, pending.size())), settlementDate);
+        }
+    }
+
+    private void settleBatch(List<UserDrBalance> batch, LocalDate settlementDate) {
+        List<DrBillingRecord> records = new ArrayList<>(batch.size());
+        for (UserDrBalance balance : batch) {
+            records.add(buildDailyRecord(balance, balance.getDailyConsume(), settlementDate));
+        }
+        try {
+            billingRecordService.batchCreateRecords(records);
+        } catch (Exception ex) {
+            log.error("日结扣费批量生成账单失败，改为逐条处理，批次大小={}", batch.size(), ex);
+            for (UserDrBalance balance : batch) {
+                settleSingle(balance, settlementDate);
+            }
+            return;
+        }
+        for (UserDrBalance balance : batch) {
+            clearDailyConsume(balance.getUserId(), balance.getDailyConsume());
+        }
+    }
+
+    private void settleSingle(UserDrBalance balance, LocalDate settlementDate) {
+        BigDecimal amount = balance.getDailyConsume();
+        try {
+            billingRecordService.createRecord(buildDailyRecord(balance, amount, settlementDate));
+            clearDailyConsume(balance.getUserId(), amount);
+        } catch (Exception ex) {
+            log.error("日结扣费生成账单失败，userId={}, amount={}", balance.getUserId(), amount, ex);
+        }
+    }
+
+    private void clearDailyConsume(Long userId, BigDecimal amount) {
+        try {
+            boolean cleared = userDrBalanceService.subtractDailyConsume(userId, amount);
+            if (!cleared) {
+                log.warn("日结扣费清零失败，userId={}, amount={}", userId, amount);
             }
+        } catch (Exception ex) {
+            log.error("日结扣费清零异常，userId={}, amount={}", userId, amount, ex);
         }
     }
 
-    private void createDailyRecord(UserDrBalance balance, BigDecimal amount, LocalDate settlementDate) {
+    private DrBillingRecord buildDailyRecord(UserDrBalance balance, BigDecimal amount, LocalDate settlementDate) {
         BigDecimal currentBalance = balance.getDrBalance() != null ? balance.getDrBalance() : BigDecimal.ZERO;
         DrBillingRecord record = new DrBillingRecord();
         record.setUserId(balance.getUserId());
@@ -68,6 +108,6 @@ public class DailyConsumeSettlementTask {
         record.setRemark("DailyConsume");
         record.setCreateBy("system");
         record.setConsumer("system");
-        billingRecordService.createRecord(record);
+        return record;
     }
 }
@@ -0,0 +1,70 @@
+-- 操作日志按月分区与按日汇总
+--
+-- 1. sys_oper_log 按 oper_time 做月度 RANGE 分区，保留期清理由 OperLogStorageManager 直接删除整月分区，
+--    不再对大表执行范围 DELETE；边界月份内剩余的过期数据按小批量删除。
+--    应用启动及每日维护时会把 p_future 拆分出后续月份的分区，这里只需建立初始分区。
+-- 2. sys_oper_log_daily_stat 为按日、操作者、业务类型、状态汇总的操作次数，统计接口对已汇总的完整日期
+--    读取该表，仅对区间两端不足一天的部分及当天数据查询明细表。
+--
+-- 分区表的主键必须包含分区列，因此主键改为 (oper_id, oper_time)，oper_time 改为 NOT NULL。
+-- 迁移期间新写入的日志会进入旧表，执行 RENAME 前请暂停服务或在低峰期执行并补齐差额。
+
+CREATE TABLE IF NOT EXISTS `sys_oper_log_partitioned` (
+    `oper_id`        BIGINT(20)      NOT NULL AUTO_INCREMENT    COMMENT '日志主键',
+    `title`          VARCHAR(50)     DEFAULT ''                 COMMENT '模块标题',
+    `business_type`  INT(2)          DEFAULT 0                  COMMENT '业务类型（0其它 1新增 2修改 3删除）',
+    `method`         VARCHAR(100)    DEFAULT ''                 COMMENT '方法名称',
+    `request_method` VARCHAR(10)     DEFAULT ''                 COMMENT '请求方式',
+    `operator_type`  INT(1)          DEFAULT 0                  COMMENT '操作类别（0其它 1后台用户 2手机端用户）',
+    `oper_name`      VARCHAR(50)     DEFAULT ''                 COMMENT '操作人员',
+    `dept_name`      VARCHAR(50)     DEFAULT ''                 COMMENT '部门名称',
+    `oper_url`       VARCHAR(255)    DEFAULT ''                 COMMENT '请求URL',
+    `oper_ip`        VARCHAR(128)    DEFAULT ''                 COMMENT '主机地址',
+    `oper_location`  VARCHAR(255)    DEFAULT ''                 COMMENT '操作地点',
+    `oper_param`     VARCHAR(2000)   DEFAULT ''                 COMMENT '请求参数',
+    `json_result`    VARCHAR(2000)   DEFAULT ''                 COMMENT '返回参数',
+    `status`         INT(1)          DEFAULT 0                  COMMENT '操作状态（0正常 1异常）',
+    `error_msg`      VARCHAR(2000)   DEFAULT ''                 COMMENT '错误消息',
+    `oper_time`      DATETIME        NOT NULL                   COMMENT '操作时间',
+    `cost_time`      BIGINT(20)      DEFAULT 0                  COMMENT '消耗时间（毫秒）',
+    PRIMARY KEY (`oper_id`, `oper_time`),
+    KEY `idx_oper_time` (`oper_time`),
+    KEY `idx_oper_name` (`oper_name`),
+    KEY `idx_business_type` (`business_type`),
+    KEY `idx_status` (`status`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作日志记录'
+PARTITION BY RANGE (TO_DAYS(`oper_time`)) (
+    PARTITION `p_history` VALUES LESS THAN (TO_DAYS('2026-10-01')),
+    PARTITION `p202610`   VALUES LESS THAN (TO_DAYS('2026-11-01')),
+    PARTITION `p202611`   VALUES LESS THAN (TO_DAYS('2026-12-01')),
+    PARTITION `p202612`   VALUES LESS THAN (TO_DAYS('2027-01-01')),
+    PARTITION `p_future`  VALUES LESS THAN MAXVALUE
+);
+
+INSERT INTO `sys_oper_log_partitioned` (
+    `oper_id`, `title`, `business_type`, `method`, `request_method`, `operator_type`,
+    `oper_name`, `dept_name`, `oper_url`, `oper_ip`, `oper_location`,
+    `oper_param`, `json_result`, `status`, `error_msg`, `oper_time`, `cost_time`
+)
+SELECT `oper_id`, `title`, `business_type`, `method`, `request_method`, `operator_type`,
+       `oper_name`, `dept_name`, `oper_url`, `oper_ip`, `oper_location`,
+       `oper_param`, `json_result`, `status`, `error_msg`, IFNULL(`oper_time`, NOW()), IFNULL(`cost_time`, 0)
+FROM `sys_oper_log`;
+
+RENAME TABLE `sys_oper_log` TO `sys_oper_log_unpartitioned`,
+             `sys_oper_log_partitioned` TO `sys_oper_log`;
+
+-- 确认数据无误后删除旧表
+-- DROP TABLE `sys_oper_log_unpartitioned`;
+
+CREATE TABLE IF NOT EXISTS `sys_oper_log_daily_stat` (
+    `stat_date`       DATE            NOT NULL                   COMMENT '统计日期',
+    `oper_name`       VARCHAR(50)     NOT NULL DEFAULT ''        COMMENT '操作人员',
+    `business_type`   INT(2)          NOT NULL DEFAULT 0         COMMENT '业务类型',
+    `status`          INT(1)          NOT NULL DEFAULT 0         COMMENT '操作状态（0正常 1异常）',
+    `oper_count`      BIGINT(20)      NOT NULL DEFAULT 0         COMMENT '操作次数',
+    `cost_time_total` BIGINT(20)      NOT NULL DEFAULT 0         COMMENT '消耗时间合计（毫秒）',
+    `update_time`     DATETIME        DEFAULT NULL               COMMENT '汇总时间',
+    PRIMARY KEY (`stat_date`, `oper_name`, `business_type`, `status`),
+    KEY `idx_oper_name_date` (`oper_name`, `stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='操作日志按日汇总';
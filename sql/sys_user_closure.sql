@@ -0,0 +1,11 @@
+-- 用户层级闭包表：记录每个正常状态用户与其全部祖先（含自身，depth=0）的关系
+-- 由 SysUserServiceImpl 在用户新增/调整上级/删除/启停用时于同一事务内维护，
+-- 与 selectAllUserHierarchyRelations（status='0'）构建的层级保持一致；
+-- 数据不一致时可调用 POST /statistics/closure/rebuild 全量重建。
+CREATE TABLE IF NOT EXISTS `sys_user_closure` (
+  `ancestor_id` bigint(20) NOT NULL COMMENT '祖先用户ID',
+  `descendant_id` bigint(20) NOT NULL COMMENT '子孙用户ID',
+  `depth` int(11) NOT NULL DEFAULT '0' COMMENT '层级距离（自身为0）',
+  PRIMARY KEY (`ancestor_id`, `descendant_id`),
+  KEY `idx_descendant` (`descendant_id`, `ancestor_id`, `depth`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户层级闭包表';
@@ -0,0 +1,12 @@
+-- 用户层级先序区间表（由应用根据内存中的层级索引异步维护，勿手工修改）
+-- 用户 A 的可见范围 = 所有 lft 落在 [A.lft, A.rgt) 内的用户（含 A 自身），
+-- 数据权限在范围较大时使用区间条件代替超长的 user_id IN (...) 列表。
+CREATE TABLE IF NOT EXISTS `sys_user_tree_interval` (
+  `user_id` bigint(20) NOT NULL COMMENT '用户ID',
+  `lft` int(11) NOT NULL COMMENT '先序进入编号',
+  `rgt` int(11) NOT NULL COMMENT '子树结束编号（不含）',
+  `version` bigint(20) NOT NULL DEFAULT '0' COMMENT '层级版本号',
+  PRIMARY KEY (`user_id`),
+  KEY `idx_lft` (`lft`),
+  KEY `idx_version` (`version`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户层级先序区间表';